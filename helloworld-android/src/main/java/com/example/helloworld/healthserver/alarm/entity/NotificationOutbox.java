@@ -0,0 +1,149 @@
+package com.example.helloworld.healthserver.alarm.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 응급 알림 발송 outbox — notifications 와 같은 트랜잭션에서 저장되고 OutboxDispatcher 가 발송한다.
+ * next_attempt_at 은 재시도 시각이자 워커 임대(lease) 만료 시각 (워커가 죽으면 만료 후 다른 워커가 가져감)
+ * lease_token 은 임대마다 새로 발급 — 결과 반영은 토큰이 그대로일 때만 (만료 후 다른 워커가 가져갔으면 0건)
+ */
+@Entity
+@Table(name = "notification_outbox",
+        indexes = @Index(name = "ix_notification_outbox_due", columnList = "status, next_attempt_at"))
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationOutbox {
+
+    public enum Status { PENDING, SENT, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "alarm_id", nullable = false)
+    private Long alarmId;
+
+    @Column(name = "couple_id", nullable = false)
+    private Long coupleId;
+
+    @Column(name = "measured_user_id", nullable = false)
+    private Long measuredUserId;
+
+    @Column(name = "heartrate", nullable = false)
+    private int heartrate;
+
+    @Column(name = "mode", length = 20)
+    private String mode;
+
+    @Column(name = "risk_level", length = 20)
+    private String riskLevel;
+
+    // reasons 를 '\n' 으로 연결 (AI 응답 문구에 '|' 가 들어가므로)
+    @Column(name = "reasons", columnDefinition = "text")
+    private String reasons;
+
+    // 앱에 내려줄 쿨다운 만료 시각 (AlertCooldownGate)
+    @Column(name = "restrict_cooldown_until")
+    private Instant restrictCooldownUntil;
+
+    @Column(name = "emergency_cooldown_until")
+    private Instant emergencyCooldownUntil;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "lease_token", length = 36)
+    private String leaseToken;
+
+    // 이미 전달된 대상 (ANDROID,WATCH,PARTNER_ANDROID) — 재시도 시 건너뜀
+    @Column(name = "delivered_targets", length = 64)
+    private String deliveredTargets;
+
+    @Column(name = "last_error", length = 255)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    public static NotificationOutbox emergency(Long alarmId, Long coupleId, Long measuredUserId, int heartrate,
+                                               String mode, String riskLevel, List<String> reasons,
+                                               Instant restrictCooldownUntil, Instant emergencyCooldownUntil) {
+        Instant now = Instant.now();
+        return NotificationOutbox.builder()
+                .alarmId(alarmId)
+                .coupleId(coupleId)
+                .measuredUserId(measuredUserId)
+                .heartrate(heartrate)
+                .mode(mode)
+                .riskLevel(riskLevel)
+                .reasons(reasons == null ? null : String.join("\n", reasons))
+                .restrictCooldownUntil(restrictCooldownUntil)
+                .emergencyCooldownUntil(emergencyCooldownUntil)
+                .status(Status.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+
+    public List<String> reasonList() {
+        return (reasons == null || reasons.isEmpty()) ? List.of() : List.of(reasons.split("\n"));
+    }
+
+    public Set<String> deliveredSet() {
+        if (deliveredTargets == null || deliveredTargets.isEmpty()) return Set.of();
+        return new LinkedHashSet<>(Arrays.asList(deliveredTargets.split(",")));
+    }
+
+    /** 워커가 가져감: 시도 횟수 증가 + 임대 만료 시각까지 다른 워커가 못 가져가게 + 이번 임대의 토큰 */
+    public void lease(Instant leaseUntil, String token) {
+        this.attempts++;
+        this.nextAttemptAt = leaseUntil;
+        this.leaseToken = token;
+    }
+
+    public void markSent(Set<String> delivered) {
+        this.status = Status.SENT;
+        this.deliveredTargets = String.join(",", delivered);
+        this.sentAt = Instant.now();
+        this.lastError = null;
+    }
+
+    public void retryAt(Instant next, Set<String> delivered, String error) {
+        this.nextAttemptAt = next;
+        this.deliveredTargets = String.join(",", delivered);
+        this.lastError = truncate(error);
+    }
+
+    public void markFailed(Set<String> delivered, String error) {
+        this.status = Status.FAILED;
+        this.deliveredTargets = String.join(",", delivered);
+        this.lastError = truncate(error);
+    }
+
+    private static String truncate(String s) {
+        return (s == null || s.length() <= 255) ? s : s.substring(0, 255);
+    }
+}
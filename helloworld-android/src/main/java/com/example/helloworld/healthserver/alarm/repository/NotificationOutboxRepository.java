@@ -0,0 +1,50 @@
+package com.example.helloworld.healthserver.alarm.repository;
+
+import com.example.helloworld.healthserver.alarm.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // 발송할 때가 된 PENDING 행을 잠그며 가져옴. 다른 워커/인스턴스가 잠근 행은 건너뜀 (SKIP LOCKED)
+    @Query(value = """
+            SELECT * FROM notification_outbox
+             WHERE status = 'PENDING' AND next_attempt_at <= :now
+             ORDER BY next_attempt_at
+             LIMIT :limit
+             FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<NotificationOutbox> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+
+    // 발송 결과 반영 — 임대 토큰이 그대로인 PENDING 행만 (lease 만료 후 다른 워커가 다시 가져갔으면 0 반환)
+    @Modifying
+    @Query(value = """
+            UPDATE notification_outbox
+               SET status = :status,
+                   next_attempt_at = :nextAttemptAt,
+                   delivered_targets = :delivered,
+                   last_error = :lastError,
+                   sent_at = :sentAt,
+                   lease_token = NULL
+             WHERE id = :id AND lease_token = :leaseToken AND status = 'PENDING'
+            """, nativeQuery = true)
+    int finishLease(@Param("id") Long id,
+                    @Param("leaseToken") String leaseToken,
+                    @Param("status") String status,
+                    @Param("nextAttemptAt") Instant nextAttemptAt,
+                    @Param("delivered") String delivered,
+                    @Param("lastError") String lastError,
+                    @Param("sentAt") Instant sentAt);
+
+    @Query(value = "SELECT count(*) FROM notification_outbox WHERE status = 'PENDING'", nativeQuery = true)
+    long countPending();
+
+    @Modifying
+    @Query(value = "DELETE FROM notification_outbox WHERE status = 'SENT' AND sent_at < :before", nativeQuery = true)
+    int deleteSentBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,207 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 커플 단위 응급 알림 쿨다운/중복 제거
+ * - 키: (coupleId, mode, reasonCode). 같은 키로 window 안에 다시 오면 억제
+ * - restrict → emergency 격상은 항상 통과 (모드가 키에 포함되므로 restrict 쿨다운이 emergency 를 막지 않음)
+ * - 반대로 emergency 쿨다운 중인 커플의 restrict 는 억제 (격하 알림은 소음)
+ *   emergency 를 보내면 커플 단위 창 키(alert:{c:id}:emergency:*)를 window 동안 남김 → 어느 레플리카든 restrict 억제
+ * - 1차: 프로세스 내 ConcurrentHashMap (putIfAbsent/replace CAS, 락 없음)
+ *   2차: Redis SET NX PX → 여러 레플리카 중 한 곳만 통과. Redis 장애 시 1차 결과로 진행 (fail-open)
+ * - 트랜잭션 안에서 호출되면 롤백 시 예약을 되돌림 (알림이 안 나갔는데 쿨다운만 남지 않도록)
+ *
+ * 지표: alert.cooldown.decisions{result=sent|suppressed, mode, tier=local|redis}
+ */
+@Slf4j
+@Component
+public class AlertCooldownGate {
+
+    public static final String RESTRICT = "restrict";
+    public static final String EMERGENCY = "emergency";
+    private static final String ANY_REASON = "*";
+
+    /** 통과 여부 + 앱에 내려줄 쿨다운 만료 시각 (해당 모드가 아니면 null) */
+    public record Decision(boolean send, Instant restrictCooldownUntil, Instant emergencyCooldownUntil) {}
+
+    record Key(Long coupleId, String mode, String reason) {}
+
+    // KEYS[1] 모드/이유 키, KEYS[2] 커플 emergency 창 키. ARGV: 토큰, window(ms), emergency 여부(1/0)
+    // restrict 인데 emergency 창이 남아 있으면 -남은 PTTL.
+    // 아니면 SET NX PX 성공 → 0 (emergency 면 창 키도 같은 토큰으로 window 동안), 이미 있으면 남은 PTTL(ms)
+    private static final DefaultRedisScript<Long> ACQUIRE = new DefaultRedisScript<>(
+            "if ARGV[3] == '0' then local e = redis.call('PTTL', KEYS[2]) if e > 0 then return -e end end " +
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then " +
+            "if ARGV[3] == '1' then redis.call('SET', KEYS[2], ARGV[1], 'PX', ARGV[2]) end return 0 end " +
+            "local t = redis.call('PTTL', KEYS[1]) if t < 0 then return 1 end return t", Long.class);
+
+    // 내가 잡은 키만 삭제 (롤백 시). 창 키는 그새 다른 emergency 가 덮어썼으면 남김
+    private static final DefaultRedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "local n = 0 for _, k in ipairs(KEYS) do " +
+            "if redis.call('GET', k) == ARGV[1] then n = n + redis.call('DEL', k) end end return n",
+            Long.class);
+
+    private final ConcurrentHashMap<Key, Long> local = new ConcurrentHashMap<>(); // value: 만료 epoch ms
+    private final ObjectProvider<StringRedisTemplate> redisProvider;
+    private final MeterRegistry registry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final String owner = UUID.randomUUID().toString();
+    private final AtomicLong seq = new AtomicLong();
+
+    private final boolean enabled;
+    private final boolean redisEnabled;
+    private final Duration restrictWindow;
+    private final Duration emergencyWindow;
+
+    public AlertCooldownGate(
+            ObjectProvider<StringRedisTemplate> redisProvider,
+            MeterRegistry registry,
+            @Value("${alert.cooldown.enabled:true}") boolean enabled,
+            @Value("${alert.cooldown.redis.enabled:true}") boolean redisEnabled,
+            @Value("${alert.cooldown.restrict-seconds:600}") long restrictSeconds,
+            @Value("${alert.cooldown.emergency-seconds:300}") long emergencySeconds
+    ) {
+        this.redisProvider = redisProvider;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.redisEnabled = redisEnabled;
+        this.restrictWindow = Duration.ofSeconds(restrictSeconds);
+        this.emergencyWindow = Duration.ofSeconds(emergencySeconds);
+        registry.gauge("alert.cooldown.entries", local, Map::size);
+    }
+
+    public Decision admit(Long coupleId, String mode, List<String> reasons) {
+        return admit(coupleId, mode, FcmService.normalizeReason(reasons), Instant.now());
+    }
+
+    Decision admit(Long coupleId, String mode, String reasonCode, Instant now) {
+        String m = mode == null ? "" : mode.toLowerCase(Locale.ROOT);
+        boolean emergency = EMERGENCY.equals(m);
+        if (!enabled || coupleId == null || !(emergency || RESTRICT.equals(m))) {
+            return new Decision(true, null, null);
+        }
+        long nowMs = now.toEpochMilli();
+        Key windowKey = new Key(coupleId, EMERGENCY, ANY_REASON); // 커플 emergency 창
+
+        // restrict 는 같은 커플의 emergency 쿨다운 중이면 억제
+        if (!emergency) {
+            Long e = local.get(windowKey);
+            if (e != null && e > nowMs) return suppressed(m, "local");
+        }
+
+        Duration window = emergency ? emergencyWindow : restrictWindow;
+        Key key = new Key(coupleId, m, reasonCode);
+        long until = nowMs + window.toMillis();
+
+        // 1차: 로컬 CAS 예약
+        if (!reserveLocal(key, nowMs, until)) return suppressed(m, "local");
+
+        // 2차: Redis (다른 레플리카가 먼저 보냈는지)
+        String token = owner + ":" + seq.incrementAndGet();
+        StringRedisTemplate redis = redisEnabled ? redisProvider.getIfAvailable() : null;
+        boolean redisHeld = false;
+        if (redis != null) {
+            try {
+                Long ttl = redis.execute(ACQUIRE, List.of(redisKey(key), redisKey(windowKey)),
+                        token, Long.toString(window.toMillis()), emergency ? "1" : "0");
+                if (ttl != null && ttl < 0) {
+                    // 다른 레플리카가 emergency 를 보낸 창 → 로컬 창 표시도 그 만료 시각까지
+                    local.remove(key, until);
+                    local.merge(windowKey, nowMs - ttl, Math::max);
+                    return suppressed(m, "redis");
+                }
+                if (ttl != null && ttl > 0) {
+                    // 다른 레플리카가 보냄 → 로컬도 그 만료 시각까지 맞춰둠
+                    local.put(key, nowMs + ttl);
+                    if (emergency) local.merge(windowKey, nowMs + ttl, Math::max);
+                    return suppressed(m, "redis");
+                }
+                redisHeld = true;
+            } catch (Exception ex) {
+                log.warn("[ALERT-COOLDOWN] redis unavailable, local only: {}", ex.getMessage());
+            }
+        }
+
+        if (emergency) local.merge(windowKey, until, Math::max);
+        releaseOnRollback(key, until, redisHeld ? redis : null, token);
+
+        counter("sent", m, redisHeld ? "redis" : "local").increment();
+        Instant untilAt = Instant.ofEpochMilli(until);
+        return emergency ? new Decision(true, null, untilAt) : new Decision(true, untilAt, null);
+    }
+
+    // 만료됐거나 없으면 until 로 교체 (CAS 루프)
+    private boolean reserveLocal(Key key, long nowMs, long until) {
+        while (true) {
+            Long cur = local.putIfAbsent(key, until);
+            if (cur == null) return true;
+            if (cur > nowMs) return false;
+            if (local.replace(key, cur, until)) return true;
+        }
+    }
+
+    private void releaseOnRollback(Key key, long until, StringRedisTemplate redis, String token) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) return;
+                local.remove(key, until);
+                if (EMERGENCY.equals(key.mode())) local.remove(new Key(key.coupleId(), EMERGENCY, ANY_REASON), until);
+                if (redis != null) {
+                    try {
+                        redis.execute(RELEASE, List.of(redisKey(key),
+                                redisKey(new Key(key.coupleId(), EMERGENCY, ANY_REASON))), token);
+                    } catch (Exception ex) {
+                        log.warn("[ALERT-COOLDOWN] release failed key={}: {}", key, ex.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    private Decision suppressed(String mode, String tier) {
+        counter("suppressed", mode, tier).increment();
+        return new Decision(false, null, null);
+    }
+
+    private Counter counter(String result, String mode, String tier) {
+        return counters.computeIfAbsent(result + "|" + mode + "|" + tier, k -> Counter.builder("alert.cooldown.decisions")
+                .description("Emergency alert cooldown decisions")
+                .tag("result", result)
+                .tag("mode", mode)
+                .tag("tier", tier)
+                .register(registry));
+    }
+
+    // 같은 커플 키는 한 슬롯 (Redis Cluster)
+    private static String redisKey(Key k) {
+        return "alert:{c:" + k.coupleId() + "}:" + k.mode() + ":" + k.reason();
+    }
+
+    @Scheduled(fixedDelayString = "${alert.cooldown.purge-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        local.entrySet().removeIf(e -> e.getValue() <= now);
+    }
+}
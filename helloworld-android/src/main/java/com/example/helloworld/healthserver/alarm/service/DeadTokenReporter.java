@@ -0,0 +1,129 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import com.example.helloworld.healthserver.client.UserServerClient;
+import com.google.firebase.messaging.MessagingErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * FCM이 UNREGISTERED / INVALID_ARGUMENT 로 거절한 토큰을 모아 유저서버에 배치로 비활성화 요청한다.
+ * - 발송 경로에서는 report()만 호출 (네트워크 호출 없음)
+ * - 스케줄러가 주기적으로 flush() → /api/internal/fcm/tokens/deactivate
+ * - 유저서버 반영 전까지는 로컬 dead 목록으로 같은 토큰 재발송을 건너뛴다.
+ */
+@Slf4j
+@Component
+public class DeadTokenReporter {
+
+    private static final Set<MessagingErrorCode> DEAD_CODES =
+            EnumSet.of(MessagingErrorCode.UNREGISTERED, MessagingErrorCode.INVALID_ARGUMENT);
+
+    private final UserServerClient userClient;
+    private final int batchSize;
+    private final long deadTtlMillis;
+    private final int maxPending;
+
+    private final ConcurrentLinkedQueue<UserServerClient.DeadToken> pending = new ConcurrentLinkedQueue<>();
+    // token -> 등록 시각(ms). 유저서버 비활성화가 반영될 때까지의 임시 차단 목록
+    private final Map<String, Long> deadTokens = new ConcurrentHashMap<>();
+
+    private final Counter wastedSends;
+    private final Counter skippedSends;
+    private final Counter reportedTokens;
+
+    public DeadTokenReporter(
+            UserServerClient userClient,
+            MeterRegistry registry,
+            @Value("${fcm.dead-token.batch-size:200}") int batchSize,
+            @Value("${fcm.dead-token.ttl-minutes:60}") long deadTtlMinutes,
+            @Value("${fcm.dead-token.max-pending:10000}") int maxPending
+    ) {
+        this.userClient = userClient;
+        this.batchSize = batchSize;
+        this.deadTtlMillis = deadTtlMinutes * 60_000L;
+        this.maxPending = maxPending;
+        this.wastedSends = Counter.builder("fcm.send.dead_token")
+                .description("FCM sends rejected because the token is dead (UNREGISTERED/INVALID_ARGUMENT)")
+                .register(registry);
+        this.skippedSends = Counter.builder("fcm.send.dead_token.skipped")
+                .description("FCM sends skipped because the token is already known to be dead")
+                .register(registry);
+        this.reportedTokens = Counter.builder("fcm.dead_token.reported")
+                .description("Dead tokens reported to user-server for deactivation")
+                .register(registry);
+    }
+
+    /** 해당 에러코드가 토큰 자체의 문제(재시도 무의미)인지 */
+    public boolean isDeadCode(MessagingErrorCode code) {
+        return code != null && DEAD_CODES.contains(code);
+    }
+
+    /** 발송 실패 결과를 받아 dead 토큰이면 큐에 적재 */
+    public void report(Long userId, String token, MessagingErrorCode code) {
+        if (!isDeadCode(code) || token == null || token.isBlank()) return;
+        wastedSends.increment();
+
+        if (deadTokens.putIfAbsent(token, System.currentTimeMillis()) != null) return; // 이미 보고됨
+        if (userId == null) return;
+
+        if (pending.size() >= maxPending) {
+            log.warn("[FCM-DEAD] pending queue full ({}), drop user={}", maxPending, userId);
+            return;
+        }
+        pending.add(new UserServerClient.DeadToken(userId, token, code.name()));
+    }
+
+    /** 이미 dead로 판정된 토큰이면 true (발송 생략 대상) */
+    public boolean isKnownDead(String token) {
+        if (token == null) return false;
+        Long at = deadTokens.get(token);
+        if (at == null) return false;
+        if (System.currentTimeMillis() - at > deadTtlMillis) {
+            deadTokens.remove(token, at);
+            return false;
+        }
+        skippedSends.increment();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${fcm.dead-token.flush-interval-ms:5000}")
+    public void flush() {
+        evictExpired();
+        while (!pending.isEmpty()) {
+            List<UserServerClient.DeadToken> batch = new ArrayList<>(batchSize);
+            UserServerClient.DeadToken t;
+            while (batch.size() < batchSize && (t = pending.poll()) != null) {
+                batch.add(t);
+            }
+            if (batch.isEmpty()) return;
+
+            try {
+                userClient.deactivateTokens(new UserServerClient.DeactivateTokensReq(batch));
+                reportedTokens.increment(batch.size());
+                log.info("[FCM-DEAD] deactivated {} tokens", batch.size());
+            } catch (Exception e) {
+                // 다음 주기에 재시도 (로컬 dead 목록은 유지되므로 발송은 계속 생략됨)
+                pending.addAll(batch);
+                log.warn("[FCM-DEAD] deactivate request failed size={} : {}", batch.size(), e.toString());
+                return;
+            }
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        deadTokens.entrySet().removeIf(e -> now - e.getValue() > deadTtlMillis);
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import com.example.helloworld.healthserver.notif.PushTransport;
+import com.example.helloworld.healthserver.notif.PushTransport.Delivery;
+import com.example.helloworld.healthserver.notif.PushTransport.PushRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FCM 발송 마이크로배칭
+ * - submit() 은 큐에 넣고 바로 future 반환 (호출 스레드는 HTTPS 호출을 하지 않음)
+ * - 수집 스레드가 max-batch(최대 500)건 또는 linger-ms 경과 시 배치를 만들어 sender 풀에 넘김
+ * - sender 결과를 요청 순서대로 각 future 에 돌려준다
+ * - fcm.dispatch.batched=false 면 기존처럼 호출 스레드에서 1건씩 발송 (비교/롤백용)
+ * - shutdown() 이후 submit 은 SHUTDOWN 실패로 즉시 완료, 종료 시점에 큐/배치에 남은 건도 모두 실패로 완료
+ *   (어떤 경우에도 반환한 future 가 완료되지 않은 채 남지 않음)
+ *
+ * 지표: fcm.dispatch.latency{mode} (submit→결과, p50/p99), fcm.dispatch.batch_size,
+ *       fcm.dispatch.result{result}, fcm.dispatch.pending
+ */
+@Slf4j
+@Component
+public class FcmDispatcher {
+
+    private record Pending(PushRequest request, CompletableFuture<Delivery> future, long enqueuedNanos) {}
+
+    private static final Delivery SHUTDOWN = Delivery.failed(null, "SHUTDOWN");
+
+    private final PushTransport sender;
+    private final boolean batched;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final int maxPending;
+    private final int senderThreads;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    // sender 풀에 넘겼지만 아직 결과를 못 돌려준 배치 (종료 타임아웃 시 실패로 완료)
+    private final Set<List<Pending>> inFlight = ConcurrentHashMap.newKeySet();
+    private ExecutorService senders;
+    private Thread collector;
+    private volatile boolean running;
+    private volatile boolean stopped;
+
+    private final Timer latency;
+    private final DistributionSummary batchSize;
+    private final Counter sentOk;
+    private final Counter sentFailed;
+    private final Counter rejected;
+
+    public FcmDispatcher(
+            PushTransport sender,
+            MeterRegistry registry,
+            @Value("${fcm.dispatch.batched:true}") boolean batched,
+            @Value("${fcm.dispatch.max-batch:500}") int maxBatch,
+            @Value("${fcm.dispatch.linger-ms:20}") long lingerMs,
+            @Value("${fcm.dispatch.max-pending:50000}") int maxPending,
+            @Value("${fcm.dispatch.sender-threads:4}") int senderThreads
+    ) {
+        this.sender = sender;
+        this.batched = batched;
+        this.maxBatch = Math.max(1, Math.min(maxBatch, PushTransport.MAX_BATCH));
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.maxPending = maxPending;
+        this.senderThreads = Math.max(1, senderThreads);
+
+        String mode = batched ? "batched" : "direct";
+        this.latency = Timer.builder("fcm.dispatch.latency")
+                .description("Time from submit to FCM result per message")
+                .tag("mode", mode)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("fcm.dispatch.batch_size")
+                .description("Messages per FCM send call")
+                .tag("mode", mode)
+                .register(registry);
+        this.sentOk = Counter.builder("fcm.dispatch.result").tag("result", "ok").register(registry);
+        this.sentFailed = Counter.builder("fcm.dispatch.result").tag("result", "failed").register(registry);
+        this.rejected = Counter.builder("fcm.dispatch.result").tag("result", "rejected").register(registry);
+        registry.gauge("fcm.dispatch.pending", pending);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!batched) return;
+        running = true;
+        AtomicInteger seq = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "fcm-send-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        collector = new Thread(this::collectLoop, "fcm-dispatch");
+        collector.setDaemon(true);
+        collector.start();
+    }
+
+    public CompletableFuture<Delivery> submit(String token, Map<String, String> data, Long ownerUserId, String label) {
+        PushRequest req = new PushRequest(token, data, ownerUserId, label);
+        long now = System.nanoTime();
+
+        if (stopped) {
+            rejected.increment();
+            return CompletableFuture.completedFuture(SHUTDOWN);
+        }
+        if (!batched || !running) {
+            return CompletableFuture.completedFuture(sendNow(List.of(new Pending(req, null, now))).get(0));
+        }
+        if (pending.get() >= maxPending) {
+            rejected.increment();
+            log.warn("[FCM-DISPATCH] queue full ({}), reject label={} user={}", maxPending, label, ownerUserId);
+            return CompletableFuture.completedFuture(Delivery.failed(null, "QUEUE_FULL"));
+        }
+        CompletableFuture<Delivery> f = new CompletableFuture<>();
+        Pending p = new Pending(req, f, now);
+        pending.incrementAndGet();
+        queue.add(p);
+        // running 확인과 add 사이에 shutdown() 이 큐를 이미 비웠을 수 있음 → 직접 꺼내 실패로 완료
+        // (못 꺼냈으면 수집 스레드나 shutdown() 이 가져간 것이고 그쪽에서 완료함)
+        if (!running && queue.remove(p)) {
+            pending.decrementAndGet();
+            rejected.increment();
+            f.complete(SHUTDOWN);
+        }
+        return f;
+    }
+
+    private void collectLoop() {
+        while (running || !queue.isEmpty()) {
+            List<Pending> batch = new ArrayList<>(maxBatch);
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                long deadline = first.enqueuedNanos() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    if (batch.size() >= maxBatch) break;
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0) break;
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                pending.addAndGet(-batch.size());
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                pending.addAndGet(-batch.size());
+                fail(batch);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("[FCM-DISPATCH] collector error", e);
+                fail(batch);
+            }
+        }
+    }
+
+    private void dispatch(List<Pending> batch) {
+        inFlight.add(batch);
+        try {
+            senders.execute(() -> {
+                try {
+                    complete(batch, sendNow(batch));
+                } finally {
+                    inFlight.remove(batch);
+                }
+            });
+        } catch (RejectedExecutionException e) { // 종료 중 (sender 풀이 먼저 닫힘)
+            inFlight.remove(batch);
+            fail(batch);
+        }
+    }
+
+    private void fail(List<Pending> batch) {
+        for (Pending p : batch) p.future().complete(SHUTDOWN);
+    }
+
+    private List<Delivery> sendNow(List<Pending> batch) {
+        List<PushRequest> reqs = new ArrayList<>(batch.size());
+        for (Pending p : batch) reqs.add(p.request());
+        batchSize.record(reqs.size());
+
+        List<Delivery> results;
+        try {
+            results = sender.send(reqs);
+            if (results == null || results.size() != reqs.size()) {
+                throw new IllegalStateException("sender returned " + (results == null ? "null" : results.size())
+                        + " results for " + reqs.size() + " messages");
+            }
+        } catch (Exception e) {
+            log.error("[FCM-DISPATCH] batch send failed size={}", reqs.size(), e);
+            results = new ArrayList<>(reqs.size());
+            for (int i = 0; i < reqs.size(); i++) results.add(Delivery.failed(null, "EXCEPTION"));
+        }
+
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            latency.record(now - batch.get(i).enqueuedNanos(), TimeUnit.NANOSECONDS);
+            if (results.get(i).success()) sentOk.increment(); else sentFailed.increment();
+        }
+        return results;
+    }
+
+    private static void complete(List<Pending> batch, List<Delivery> results) {
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future().complete(results.get(i));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopped = true;
+        if (!running) return;
+        running = false; // 수집 스레드는 큐를 비운 뒤 종료
+        try {
+            collector.join(5_000);
+            if (collector.isAlive()) collector.interrupt();
+            senders.shutdown();
+            if (!senders.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("[FCM-DISPATCH] senders still busy after 10s, failing {} in-flight batches", inFlight.size());
+                senders.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            senders.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // 종료까지 못 보낸 건은 실패로 완료 (호출측 future 가 매달리지 않도록, complete 는 먼저 온 결과만 반영)
+        inFlight.forEach(this::fail);
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            pending.decrementAndGet();
+            p.future().complete(SHUTDOWN);
+        }
+    }
+}
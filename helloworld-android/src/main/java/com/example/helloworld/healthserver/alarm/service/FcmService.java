@@ -1,25 +1,38 @@
 package com.example.helloworld.healthserver.alarm.service;
 
+import com.example.helloworld.healthserver.notif.PushTransport.Delivery;
 import com.example.helloworld.healthserver.client.UserServerClient;
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.Message;
+import com.example.helloworld.healthserver.config.NotificationExecutorConfig;
+import com.example.helloworld.healthserver.notif.TokenResolver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FcmService {
 
-    private final UserServerClient userClient;
+    private final TokenResolver tokenResolver;
+    private final DeadTokenReporter deadTokens;
+    private final RecipientStatusBuffer recipientStatus;
+    private final FcmDispatcher dispatcher;
+
+    // 발송 결과 대기 상한 — 넘으면 TIMEOUT 실패로 보고 진행 (응급 스레드/outbox 워커가 무한 대기하지 않도록)
+    @Value("${fcm.dispatch.result-timeout-ms:10000}")
+    private long resultTimeoutMs = 10_000;
 
     // === 응급 알림 + 결과 기록 (기존 유지) ===
 //    @Async
@@ -81,30 +94,26 @@ public class FcmService {
 //    }
 
     // === 리마인더 발송 ===
-    @Async
+    @Async(NotificationExecutorConfig.BULK)
     public void sendReminderNotification(Long userId, String title, String body) {
         try {
             // 본인 ANDROID / WATCH
             String androidToken = null, watchToken = null;
-            var resp = userClient.latestTwo(userId);
-            if (resp != null && resp.getStatusCode().is2xxSuccessful() && resp.getBody() != null) {
-                androidToken = resp.getBody().androidToken();
-                watchToken   = resp.getBody().watchToken();
+            var resp = tokenResolver.latestTokens(userId);
+            if (resp.present()) {
+                androidToken = resp.android();
+                watchToken   = resp.watch();
             } else {
                 log.warn("[FCM-REMINDER] latestTwo empty user={}", userId);
             }
 
             // 파트너 ANDROID
-            Long partnerId = null;
+            Long partnerId = tokenResolver.partnerOf(userId);
             String partnerAndroidToken = null;
-            var pidResp = userClient.partnerId(userId);
-            if (pidResp != null && pidResp.getStatusCode().is2xxSuccessful() && pidResp.getBody() != null) {
-                partnerId = pidResp.getBody().partnerId();
-                if (partnerId != null && !partnerId.equals(userId)) {
-                    var pResp = userClient.latestByPlatform(partnerId, "ANDROID");
-                    if (pResp != null && pResp.getStatusCode().is2xxSuccessful() && pResp.getBody() != null) {
-                        partnerAndroidToken = pResp.getBody().token();
-                    } else {
+            if (partnerId != null) {
+                if (!partnerId.equals(userId)) {
+                    partnerAndroidToken = tokenResolver.latestTokens(partnerId).android();
+                    if (partnerAndroidToken == null) {
                         log.warn("[FCM-REMINDER] partner ANDROID token empty partnerId={}", partnerId);
                     }
                 }
@@ -130,7 +139,7 @@ public class FcmService {
     }
 
     // === AI 응답을 반영해 상황별 문구/페이로드로 발송 (쿨다운 미포함 오버로드) ===
-    @Async
+    @Async(NotificationExecutorConfig.EMERGENCY)
     public void sendEmergencyTripleWithAiResponse(
             Long measuredUserId,
             int hr,
@@ -142,7 +151,7 @@ public class FcmService {
     }
 
     // === AI 응답을 반영해 상황별 문구/페이로드로 발송 (쿨다운 포함) ===
-    @Async
+    @Async(NotificationExecutorConfig.EMERGENCY)
     public void sendEmergencyTripleWithAiResponse(
             Long measuredUserId,
             int hr,
@@ -153,94 +162,132 @@ public class FcmService {
             OffsetDateTime emergencyCooldownUntil       // emergency 전용
     ) {
         try {
-            // 1) 본인 토큰
-            String androidToken = null, watchToken = null;
-            var twoResp = userClient.latestTwo(measuredUserId);
-            if (twoResp != null && twoResp.getStatusCode().is2xxSuccessful() && twoResp.getBody() != null) {
-                androidToken = twoResp.getBody().androidToken();
-                watchToken   = twoResp.getBody().watchToken();
-            } else {
-                log.warn("[FCM] latestTwo empty user={}", measuredUserId);
-            }
+            deliverEmergencyTriple(null, measuredUserId, hr, mode, riskLevel, reasons,
+                    restrictCooldownUntil, emergencyCooldownUntil, Set.of());
+        } catch (Exception e) {
+            log.error("[FCM] sendEmergencyTripleWithAiResponse error user={}", measuredUserId, e);
+        }
+    }
 
-            // 2) 파트너 토큰
-            Long partnerId = null;
-            String partnerAndroidToken = null;
-            var pidResp = userClient.partnerId(measuredUserId);
-            if (pidResp != null && pidResp.getStatusCode().is2xxSuccessful() && pidResp.getBody() != null) {
-                partnerId = pidResp.getBody().partnerId();
-                var pResp = userClient.latestByPlatform(partnerId, "ANDROID");
-                if (pResp != null && pResp.getStatusCode().is2xxSuccessful() && pResp.getBody() != null) {
-                    partnerAndroidToken = pResp.getBody().token();
-                } else {
+    /**
+     * 응급 알림 동기 발송 (outbox 워커 / 위 @Async 메서드 공용)
+     * - delivered 에 들어있는 대상(ANDROID / WATCH / PARTNER_ANDROID)은 이미 전달됐으므로 건너뜀 (재시도 시)
+     * - alarmId 가 있으면 recipients 상태를 유저서버에 기록
+     * - 토큰 조회(Feign) 실패는 예외로 던진다 → 호출측에서 재시도 판단
+     * @return 이번에 시도한 대상별 결과
+     */
+    public Map<String, SendResult> deliverEmergencyTriple(
+            Long alarmId,
+            Long measuredUserId,
+            int hr,
+            String mode,
+            String riskLevel,
+            List<String> reasons,
+            OffsetDateTime restrictCooldownUntil,
+            OffsetDateTime emergencyCooldownUntil,
+            Set<String> delivered
+    ) {
+        // 1) 본인 토큰
+        String androidToken = null, watchToken = null;
+        var twoResp = tokenResolver.latestTokens(measuredUserId);
+        if (twoResp.present()) {
+            androidToken = twoResp.android();
+            watchToken   = twoResp.watch();
+        } else {
+            log.warn("[FCM] latestTwo empty user={}", measuredUserId);
+        }
+
+        // 2) 파트너 토큰 (restrict/emergency 모드일 때만 파트너 발송)
+        boolean notifyPartner = "emergency".equalsIgnoreCase(mode) || "restrict".equalsIgnoreCase(mode);
+        Long partnerId = null;
+        String partnerAndroidToken = null;
+        if (notifyPartner && !delivered.contains(PARTNER_ANDROID)) {
+            partnerId = tokenResolver.partnerOf(measuredUserId);
+            if (partnerId != null) {
+                partnerAndroidToken = tokenResolver.latestTokens(partnerId).android();
+                if (partnerAndroidToken == null) {
                     log.warn("[FCM] partner ANDROID token empty partnerId={}", partnerId);
                 }
             } else {
                 log.warn("[FCM] partnerId not found for user={}", measuredUserId);
             }
+        } else if (!notifyPartner) {
+            log.debug("[FCM] Normal mode - skipping partner notification for user={}", measuredUserId);
+        }
 
-            // 3) 이유 정규화 + 문구 생성
-            String reasonCode = normalizeReason(reasons); // HR_HIGH / HR_LOW / STRESS_HIGH / HR_Z_SPIKE / HR_HIGH_120S / HR_LOW_120S / UNKNOWN
-            TitleBody copy = ("emergency".equalsIgnoreCase(mode))
-                    ? makeEmergencyCopy(hr, reasonCode)
-                    : ("restrict".equalsIgnoreCase(mode)
-                    ? makeRestrictCopy(hr, reasonCode)
-                    : makeNormalCopy(hr, reasonCode, riskLevel));
-
-            // 4) FCM 데이터 구성
-            Map<String,String> selfData = new HashMap<>();
-            selfData.put("type", "EMERGENCY");        // 앱 호환용
-            selfData.put("mode", safe(mode));         // restrict/emergency/normal
-            selfData.put("reason_code", reasonCode);  // 정규화된 이유 코드
-            selfData.put("title", copy.title());
-            selfData.put("body",  copy.selfBody());
-            selfData.put("hr", Integer.toString(hr));
-            putIfNotBlank(selfData, "restrict_cooldown_until", fmtOffset(restrictCooldownUntil));
-            putIfNotBlank(selfData, "emergency_cooldown_until", fmtOffset(emergencyCooldownUntil));
-
-            Map<String,String> partnerData = new HashMap<>(selfData);
-            partnerData.put("body", copy.partnerBody());
-
-            // 5) 본인에게 발송 (ANDROID, WATCH)
-            sendIfPresent(androidToken, selfData, measuredUserId, "ANDROID");
-            sendIfPresent(watchToken,   selfData, measuredUserId, "WATCH");
-
-            // 6) restrict/emergency 모드일 때만 파트너 발송
-            if ("emergency".equalsIgnoreCase(mode) || "restrict".equalsIgnoreCase(mode)) {
-                sendIfPresent(partnerAndroidToken, partnerData, partnerId, "PARTNER_ANDROID");
-            } else {
-                log.debug("[FCM] Normal mode - skipping partner notification for user={}", measuredUserId);
+        // 3) 이유 정규화 + 문구 생성
+        String reasonCode = normalizeReason(reasons); // HR_HIGH / HR_LOW / STRESS_HIGH / HR_Z_SPIKE / HR_HIGH_120S / HR_LOW_120S / UNKNOWN
+        TitleBody copy = ("emergency".equalsIgnoreCase(mode))
+                ? makeEmergencyCopy(hr, reasonCode)
+                : ("restrict".equalsIgnoreCase(mode)
+                ? makeRestrictCopy(hr, reasonCode)
+                : makeNormalCopy(hr, reasonCode, riskLevel));
+
+        // 4) FCM 데이터 구성
+        Map<String,String> selfData = new HashMap<>();
+        selfData.put("type", "EMERGENCY");        // 앱 호환용
+        selfData.put("mode", safe(mode));         // restrict/emergency/normal
+        selfData.put("reason_code", reasonCode);  // 정규화된 이유 코드
+        selfData.put("title", copy.title());
+        selfData.put("body",  copy.selfBody());
+        selfData.put("hr", Integer.toString(hr));
+        putIfNotBlank(selfData, "restrict_cooldown_until", fmtOffset(restrictCooldownUntil));
+        putIfNotBlank(selfData, "emergency_cooldown_until", fmtOffset(emergencyCooldownUntil));
+
+        Map<String,String> partnerData = new HashMap<>(selfData);
+        partnerData.put("body", copy.partnerBody());
+
+        // 5) 발송 — 같은 배치로 나가도록 먼저 모두 제출하고 한 번에 대기
+        Map<String, CompletableFuture<SendResult>> futures = new LinkedHashMap<>();
+        if (!delivered.contains(ANDROID)) futures.put(ANDROID, sendOne(androidToken, selfData, measuredUserId, ANDROID));
+        if (!delivered.contains(WATCH))   futures.put(WATCH,   sendOne(watchToken,   selfData, measuredUserId, WATCH));
+        if (notifyPartner && partnerId != null && !delivered.contains(PARTNER_ANDROID)) {
+            futures.put(PARTNER_ANDROID, sendOne(partnerAndroidToken, partnerData, partnerId, PARTNER_ANDROID));
+        }
+        // sendOne 의 future 는 result-timeout-ms 안에 반드시 완료됨 (초과 시 TIMEOUT → outbox 재시도 대상)
+        Map<String, SendResult> results = new LinkedHashMap<>();
+        futures.forEach((label, f) -> results.put(label, f.join()));
+
+        // 6) recipients 업서트 (이전 시도에서 전달된 대상은 SENT 로 간주)
+        if (alarmId != null) {
+            SendResult a = results.get(ANDROID), w = results.get(WATCH);
+            boolean meSent = delivered.contains(ANDROID) || delivered.contains(WATCH)
+                    || (a != null && a.success) || (w != null && w.success);
+            if (a != null || w != null) {
+                String meMsg = firstNonNull(a != null ? a.messageId : null, w != null ? w.messageId : null);
+                String meErr = meSent ? null : firstNonNull(a != null ? a.errorCode : null, w != null ? w.errorCode : null);
+                recipientStatus.add(new UserServerClient.UpsertReq(
+                        alarmId, measuredUserId, meSent ? "SENT" : "FAILED", meMsg, meErr));
+            }
+            SendResult p = results.get(PARTNER_ANDROID);
+            if (p != null) {
+                recipientStatus.add(new UserServerClient.UpsertReq(
+                        alarmId, partnerId, p.success ? "SENT" : "FAILED", p.messageId, p.success ? null : p.errorCode));
             }
-
-        } catch (Exception e) {
-            log.error("[FCM] sendEmergencyTripleWithAiResponse error user={}", measuredUserId, e);
         }
+        return results;
     }
 
     // === 단순 응급 알림(기본 카피) ===
-    @Async
+    @Async(NotificationExecutorConfig.EMERGENCY)
     public void sendEmergencyTriple(Long alarmId, Long measuredUserId, int hr, String title, String body) {
         try {
             // 1) 본인 ANDROID / WATCH 최신 토큰
             String androidToken = null, watchToken = null;
-            var twoResp = userClient.latestTwo(measuredUserId);
-            if (twoResp != null && twoResp.getStatusCode().is2xxSuccessful() && twoResp.getBody() != null) {
-                androidToken = twoResp.getBody().androidToken();
-                watchToken   = twoResp.getBody().watchToken();
+            var twoResp = tokenResolver.latestTokens(measuredUserId);
+            if (twoResp.present()) {
+                androidToken = twoResp.android();
+                watchToken   = twoResp.watch();
             } else {
                 log.warn("[FCM] latestTwo empty user={}", measuredUserId);
             }
 
             // 2) 파트너 ANDROID 최신 토큰
-            Long partnerId = null;
+            Long partnerId = tokenResolver.partnerOf(measuredUserId);
             String partnerAndroidToken = null;
-            var pidResp = userClient.partnerId(measuredUserId);
-            if (pidResp != null && pidResp.getStatusCode().is2xxSuccessful() && pidResp.getBody() != null) {
-                partnerId = pidResp.getBody().partnerId();
-                var pResp = userClient.latestByPlatform(partnerId, "ANDROID");
-                if (pResp != null && pResp.getStatusCode().is2xxSuccessful() && pResp.getBody() != null) {
-                    partnerAndroidToken = pResp.getBody().token();
-                } else {
+            if (partnerId != null) {
+                partnerAndroidToken = tokenResolver.latestTokens(partnerId).android();
+                if (partnerAndroidToken == null) {
                     log.warn("[FCM] partner ANDROID token empty partnerId={}", partnerId);
                 }
             } else {
@@ -270,16 +317,20 @@ public class FcmService {
             partnerData.put("body",  finalPartnBody);
             partnerData.put("hr", Integer.toString(hr));
 
-            // 4) 전송 + 결과 수집(업서트 목적이므로 sendOne 사용)
-            var rMeA = sendOne(androidToken,        selfData, measuredUserId, "ANDROID");
-            var rMeW = sendOne(watchToken,          selfData, measuredUserId, "WATCH");
-            var rPtn = sendOne(partnerAndroidToken, partnerData, partnerId,   "PARTNER_ANDROID");
+            // 4) 전송 + 결과 수집(업서트 목적이므로 sendOne 사용) — 3건이 같은 배치로 나가고 한 번만 대기
+            //    (각 future 는 result-timeout-ms 안에 결과 또는 TIMEOUT 으로 완료)
+            var fMeA = sendOne(androidToken,        selfData, measuredUserId, "ANDROID");
+            var fMeW = sendOne(watchToken,          selfData, measuredUserId, "WATCH");
+            var fPtn = sendOne(partnerAndroidToken, partnerData, partnerId,   "PARTNER_ANDROID");
+            var rMeA = fMeA.join();
+            var rMeW = fMeW.join();
+            var rPtn = fPtn.join();
 
             // 5) recipients 업서트
             boolean meSent = rMeA.success || rMeW.success;
             String  meMsg  = firstNonNull(rMeA.messageId, rMeW.messageId);
             String  meErr  = meSent ? null : firstNonNull(rMeA.errorCode, rMeW.errorCode, reasonIfEmpty(androidToken, watchToken));
-            userClient.upsertRecipient(new UserServerClient.UpsertReq(
+            recipientStatus.add(new UserServerClient.UpsertReq(
                     alarmId, measuredUserId, meSent ? "SENT" : "FAILED", meMsg, meErr
             ));
 
@@ -287,7 +338,7 @@ public class FcmService {
                 boolean pSent = rPtn.success;
                 String  pMsg  = rPtn.messageId;
                 String  pErr  = pSent ? null : firstNonNull(rPtn.errorCode, reasonIfEmpty(partnerAndroidToken));
-                userClient.upsertRecipient(new UserServerClient.UpsertReq(
+                recipientStatus.add(new UserServerClient.UpsertReq(
                         alarmId, partnerId, pSent ? "SENT" : "FAILED", pMsg, pErr
                 ));
             }
@@ -297,41 +348,45 @@ public class FcmService {
         }
     }
 
-    // === 토큰 존재 시만 전송 ===
+    // === 토큰 존재 시만 전송 (결과는 비동기로 로그/dead 토큰 보고) ===
     private void sendIfPresent(String token, Map<String,String> data, Long ownerUserId, String label) {
         if (token == null || token.isBlank()) {
             log.debug("[FCM] skip empty token label={} user={}", label, ownerUserId);
             return;
         }
-        try {
-            Message msg = Message.builder().putAllData(data).setToken(token).build();
-            String res = FirebaseMessaging.getInstance().send(msg);
-            log.info("[FCM] ok label={} user={} res={}", label, ownerUserId, res);
-        } catch (com.google.firebase.messaging.FirebaseMessagingException e) {
-            log.warn("[FCM] fail label={} user={} code={}", label, ownerUserId, e.getMessagingErrorCode(), e);
-        } catch (Exception e) {
-            log.error("[FCM] fail label={} user={}", label, ownerUserId, e);
+        if (deadTokens.isKnownDead(token)) {
+            log.debug("[FCM] skip dead token label={} user={}", label, ownerUserId);
+            return;
         }
+        dispatcher.submit(token, data, ownerUserId, label)
+                .thenAccept(d -> onDelivery(d, token, ownerUserId, label));
     }
 
     // === 단일 전송(결과 반환) ===
-    private SendResult sendOne(String token, Map<String,String> data, Long ownerUserId, String label) {
+    private CompletableFuture<SendResult> sendOne(String token, Map<String,String> data, Long ownerUserId, String label) {
         if (token == null || token.isBlank()) {
             log.debug("[FCM] skip empty token label={} user={}", label, ownerUserId);
-            return new SendResult(false, null, "NO_TOKEN");
+            return CompletableFuture.completedFuture(new SendResult(false, null, "NO_TOKEN"));
         }
-        try {
-            var msg = Message.builder().putAllData(data).setToken(token).build();
-            String res = FirebaseMessaging.getInstance().send(msg); // messageId
-            log.info("[FCM] ok label={} user={} msgId={}", label, ownerUserId, res);
-            return new SendResult(true, res, null);
-        } catch (com.google.firebase.messaging.FirebaseMessagingException e) {
-            var code = e.getMessagingErrorCode() != null ? e.getMessagingErrorCode().name() : "UNKNOWN";
-            log.warn("[FCM] fail label={} user={} code={}", label, ownerUserId, code, e);
-            return new SendResult(false, null, code);
-        } catch (Exception e) {
-            log.error("[FCM] error label={} user={}", label, ownerUserId, e);
-            return new SendResult(false, null, "EXCEPTION");
+        if (deadTokens.isKnownDead(token)) {
+            log.debug("[FCM] skip dead token label={} user={}", label, ownerUserId);
+            return CompletableFuture.completedFuture(new SendResult(false, null, "DEAD_TOKEN"));
+        }
+        return dispatcher.submit(token, data, ownerUserId, label)
+                .thenApply(d -> {
+                    onDelivery(d, token, ownerUserId, label);
+                    return new SendResult(d.success(), d.messageId(), d.success() ? null : d.error());
+                })
+                .completeOnTimeout(new SendResult(false, null, "TIMEOUT"), resultTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void onDelivery(Delivery d, String token, Long ownerUserId, String label) {
+        if (d.success()) {
+            log.info("[FCM] ok label={} user={} msgId={}", label, ownerUserId, d.messageId());
+        } else {
+            log.warn("[FCM] fail label={} user={} code={}", label, ownerUserId, d.error());
+            deadTokens.report(ownerUserId, token, d.errorCode());
+            if (deadTokens.isDeadCode(d.errorCode())) tokenResolver.invalidate(List.of(ownerUserId)); // 다음 조회는 유저서버에서 새로
         }
     }
 
@@ -347,7 +402,7 @@ public class FcmService {
     private static record TitleBody(String title, String selfBody, String partnerBody) {}
 
     /** reasons 리스트를 표준 코드로 정규화 */
-    private static String normalizeReason(List<String> reasons){
+    static String normalizeReason(List<String> reasons){
         if (reasons == null || reasons.isEmpty()) return "UNKNOWN";
         String joined = String.join("|", reasons).toLowerCase();
 
@@ -452,11 +507,24 @@ public class FcmService {
     }
 
     // === 내부 클래스들 ===
-    private static class SendResult {
-        final boolean success;
-        final String messageId;
-        final String errorCode;
+    public static final String ANDROID = "ANDROID";
+    public static final String WATCH = "WATCH";
+    public static final String PARTNER_ANDROID = "PARTNER_ANDROID";
+
+    // 일시적 실패 (재시도하면 성공 가능). NO_TOKEN / DEAD_TOKEN / UNREGISTERED 등은 재시도 무의미
+    // TIMEOUT: result-timeout-ms 안에 결과를 못 받음 (전달됐을 수도 있지만 at-least-once 로 재시도)
+    private static final Set<String> RETRYABLE = Set.of(
+            "UNAVAILABLE", "INTERNAL", "QUOTA_EXCEEDED", "UNKNOWN", "EXCEPTION", "QUEUE_FULL", "SHUTDOWN", "TIMEOUT");
+
+    public static class SendResult {
+        public final boolean success;
+        public final String messageId;
+        public final String errorCode;
         SendResult(boolean s, String id, String err){ this.success=s; this.messageId=id; this.errorCode=err; }
+
+        public boolean retryable() {
+            return !success && (errorCode == null || RETRYABLE.contains(errorCode));
+        }
     }
 
     // === 공통 헬퍼들 ===
@@ -470,29 +538,25 @@ public class FcmService {
     }
 
 
-    @Async
+    @Async(NotificationExecutorConfig.BULK)
     public void sendRestrictFromSteps(Long measuredUserId, List<String> reasons) {
         try {
             // 본인 ANDROID / WATCH 최신 토큰
             String androidToken = null, watchToken = null;
-            var two = userClient.latestTwo(measuredUserId);
-            if (two != null && two.getStatusCode().is2xxSuccessful() && two.getBody() != null) {
-                androidToken = two.getBody().androidToken();
-                watchToken   = two.getBody().watchToken();
+            var two = tokenResolver.latestTokens(measuredUserId);
+            if (two.present()) {
+                androidToken = two.android();
+                watchToken   = two.watch();
             } else {
                 log.warn("[FCM-RESTRICT-STEPS] latestTwo empty user={}", measuredUserId);
             }
 
             // 파트너 ANDROID 최신 토큰
-            Long partnerId = null;
+            Long partnerId = tokenResolver.partnerOf(measuredUserId);
             String partnerAndroidToken = null;
-            var pid = userClient.partnerId(measuredUserId);
-            if (pid != null && pid.getStatusCode().is2xxSuccessful() && pid.getBody() != null) {
-                partnerId = pid.getBody().partnerId();
-                var p = userClient.latestByPlatform(partnerId, "ANDROID");
-                if (p != null && p.getStatusCode().is2xxSuccessful() && p.getBody() != null) {
-                    partnerAndroidToken = p.getBody().token();
-                } else {
+            if (partnerId != null) {
+                partnerAndroidToken = tokenResolver.latestTokens(partnerId).android();
+                if (partnerAndroidToken == null) {
                     log.warn("[FCM-RESTRICT-STEPS] partner ANDROID token empty partnerId={}", partnerId);
                 }
             } else {
@@ -0,0 +1,50 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import com.example.helloworld.healthserver.alarm.entity.NotificationOutbox;
+import com.example.helloworld.healthserver.alarm.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 응급 알림을 outbox 에 적재 (호출측 트랜잭션에 참여) — 실제 발송은 OutboxDispatcher
+ * 커밋 이후에만 워커를 깨우므로 롤백된 알림은 나가지 않는다.
+ */
+@Service
+public class NotificationOutboxService {
+
+    private final NotificationOutboxRepository repo;
+    private final OutboxDispatcher dispatcher;
+    private final Counter enqueued;
+
+    public NotificationOutboxService(NotificationOutboxRepository repo, OutboxDispatcher dispatcher,
+                                     MeterRegistry registry) {
+        this.repo = repo;
+        this.dispatcher = dispatcher;
+        this.enqueued = Counter.builder("fcm.outbox.enqueued")
+                .description("Emergency alerts written to the outbox")
+                .register(registry);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueEmergency(Long alarmId, Long coupleId, Long measuredUserId, int heartrate,
+                                 String mode, String riskLevel, List<String> reasons,
+                                 Instant restrictCooldownUntil, Instant emergencyCooldownUntil) {
+        repo.save(NotificationOutbox.emergency(alarmId, coupleId, measuredUserId, heartrate, mode, riskLevel, reasons,
+                restrictCooldownUntil, emergencyCooldownUntil));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueued.increment();
+                dispatcher.wakeUp();
+            }
+        });
+    }
+}
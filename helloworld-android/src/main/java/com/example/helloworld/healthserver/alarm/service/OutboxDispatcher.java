@@ -0,0 +1,291 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import com.example.helloworld.healthserver.alarm.entity.NotificationOutbox;
+import com.example.helloworld.healthserver.alarm.repository.NotificationOutboxRepository;
+import com.example.helloworld.healthserver.config.NotificationExecutorConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * notification_outbox 발송 워커 풀
+ * - 워커마다: (짧은 트랜잭션) FOR UPDATE SKIP LOCKED 로 batch-size 건 임대 → 커밋 → 트랜잭션 밖에서 발송
+ *   → 결과 반영 (SENT / 백오프 후 재시도 / max-attempts 초과 시 FAILED)
+ * - 임대 중 워커가 죽으면 lease 만료 후 다른 워커/인스턴스가 다시 가져감 → at-least-once
+ * - 결과 반영은 임대 토큰 조건부 UPDATE (WHERE id=? AND lease_token=?) — lease 가 만료돼 다른 워커가 가져간 행은
+ *   덮어쓰지 않고 fcm.outbox.lease_lost 로 집계
+ * - 배치가 lease 안에 끝나지 않으면 fcm.outbox.lease_overrun 으로 집계하고 다음 배치로 넘어감
+ *   (남은 건은 끝나는 대로 반영을 시도하고, 그 전에 만료돼 재임대됐으면 위 조건에 걸려 버려짐)
+ * - 한 배치의 건들은 EMERGENCY 실행기에서 병렬 처리되고 FCM 메시지는 FcmDispatcher 에서 다시 묶인다
+ * - 새 outbox 가 커밋되면 wakeUp() 으로 폴링 대기 없이 바로 처리
+ *
+ * 지표: fcm.outbox.{sent,retried,failed,lease_lost,lease_overrun}, fcm.outbox.lag (생성→발송 완료),
+ *       fcm.outbox.pending
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private final NotificationOutboxRepository repo;
+    private final FcmService fcmService;
+    private final TaskExecutor executor;
+    private final TransactionTemplate tx;
+
+    private final int workers;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final Duration retention;
+
+    private static final ZoneId APP_ZONE = ZoneId.of("Asia/Seoul");
+
+    private final Semaphore wakeSignal = new Semaphore(0);
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter leaseLost;
+    private final Counter leaseOverrun;
+    private final Timer lag;
+
+    public OutboxDispatcher(
+            NotificationOutboxRepository repo,
+            FcmService fcmService,
+            @Qualifier(NotificationExecutorConfig.EMERGENCY) TaskExecutor executor,
+            PlatformTransactionManager txManager,
+            MeterRegistry registry,
+            @Value("${fcm.outbox.workers:2}") int workers,
+            @Value("${fcm.outbox.batch-size:50}") int batchSize,
+            @Value("${fcm.outbox.poll-interval-ms:1000}") long pollIntervalMs,
+            @Value("${fcm.outbox.lease-seconds:60}") long leaseSeconds,
+            @Value("${fcm.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${fcm.outbox.backoff-base-ms:2000}") long backoffBaseMs,
+            @Value("${fcm.outbox.backoff-max-ms:300000}") long backoffMaxMs,
+            @Value("${fcm.outbox.retention-days:7}") long retentionDays
+    ) {
+        this.repo = repo;
+        this.fcmService = fcmService;
+        this.executor = executor;
+        this.tx = new TransactionTemplate(txManager);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.backoffBase = Duration.ofMillis(backoffBaseMs);
+        this.backoffMax = Duration.ofMillis(backoffMaxMs);
+        this.retention = Duration.ofDays(retentionDays);
+
+        this.sent = Counter.builder("fcm.outbox.sent").description("Outbox alerts delivered").register(registry);
+        this.retried = Counter.builder("fcm.outbox.retried").description("Outbox alerts rescheduled").register(registry);
+        this.failed = Counter.builder("fcm.outbox.failed").description("Outbox alerts given up").register(registry);
+        this.leaseLost = Counter.builder("fcm.outbox.lease_lost")
+                .description("Outbox results discarded because the lease expired and another worker took the row")
+                .register(registry);
+        this.leaseOverrun = Counter.builder("fcm.outbox.lease_overrun")
+                .description("Outbox batches not finished within the lease")
+                .register(registry);
+        this.lag = Timer.builder("fcm.outbox.lag")
+                .description("Time from outbox insert to delivery")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        registry.gauge("fcm.outbox.pending", this, d -> d.safeCountPending());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread t = new Thread(this::workLoop, "fcm-outbox-" + (i + 1));
+            t.setDaemon(true);
+            t.start();
+            threads.add(t);
+        }
+    }
+
+    /** 새 outbox 커밋 직후 호출 → 폴링 대기 중인 워커를 깨움 */
+    public void wakeUp() {
+        if (wakeSignal.availablePermits() < workers) wakeSignal.release();
+    }
+
+    private void workLoop() {
+        while (running) {
+            try {
+                int n = runOnce();
+                if (n < batchSize) {
+                    // 더 가져올 게 없으면 새 outbox 신호 또는 poll-interval 까지 대기
+                    wakeSignal.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("[FCM-OUTBOX] worker error", e);
+                sleepQuietly(pollIntervalMs);
+            }
+        }
+    }
+
+    /** @return 이번에 임대한 건수 */
+    int runOnce() throws InterruptedException {
+        List<NotificationOutbox> batch = claim();
+        if (batch.isEmpty()) return 0;
+
+        CountDownLatch done = new CountDownLatch(batch.size());
+        for (NotificationOutbox o : batch) {
+            executor.execute(() -> {
+                try {
+                    deliver(o);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        if (!done.await(lease.toMillis(), TimeUnit.MILLISECONDS)) {
+            // 남은 건은 계속 실행되지만 lease 는 이미 만료 → 다른 워커가 다시 가져갈 수 있음 (중복 발송 가능)
+            // 결과 반영은 토큰 조건부라 먼저 끝난 쪽만 기록된다
+            leaseOverrun.increment();
+            log.warn("[FCM-OUTBOX] batch not finished within lease {}s: {}/{} still running",
+                    lease.toSeconds(), done.getCount(), batch.size());
+        }
+        return batch.size();
+    }
+
+    private List<NotificationOutbox> claim() {
+        return tx.execute(s -> {
+            Instant now = Instant.now();
+            List<NotificationOutbox> rows = repo.lockDue(now, batchSize);
+            Instant leaseUntil = now.plus(lease);
+            // 커밋 시 UPDATE → 잠금 해제 후에도 lease 동안 다른 워커가 안 가져감
+            rows.forEach(r -> r.lease(leaseUntil, UUID.randomUUID().toString()));
+            return rows;
+        });
+    }
+
+    private void deliver(NotificationOutbox o) {
+        Set<String> delivered = new LinkedHashSet<>(o.deliveredSet());
+        String error;
+        boolean retry;
+        try {
+            Map<String, FcmService.SendResult> results = fcmService.deliverEmergencyTriple(
+                    o.getAlarmId(), o.getMeasuredUserId(), o.getHeartrate(), o.getMode(), o.getRiskLevel(),
+                    o.reasonList(), atZone(o.getRestrictCooldownUntil()), atZone(o.getEmergencyCooldownUntil()), delivered);
+
+            List<String> errors = new ArrayList<>();
+            retry = false;
+            for (var e : results.entrySet()) {
+                if (e.getValue().success) delivered.add(e.getKey());
+                else {
+                    errors.add(e.getKey() + ":" + e.getValue().errorCode);
+                    retry |= e.getValue().retryable();
+                }
+            }
+            error = errors.isEmpty() ? null : String.join(",", errors);
+        } catch (Exception e) {
+            // 토큰 조회(유저서버) 실패 등 → 재시도
+            retry = true;
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+
+        // o 는 claim 트랜잭션이 끝난 detached 객체 — 새 상태를 계산만 하고 토큰 조건부 UPDATE 로 반영
+        String token = o.getLeaseToken();
+        if (!retry) {
+            o.markSent(delivered);
+        } else if (o.getAttempts() >= maxAttempts) {
+            o.markFailed(delivered, error);
+        } else {
+            o.retryAt(Instant.now().plus(backoff(o.getAttempts())), delivered, error);
+        }
+        Integer updated = tx.execute(s -> repo.finishLease(o.getId(), token, o.getStatus().name(),
+                o.getNextAttemptAt(), o.getDeliveredTargets(), o.getLastError(), o.getSentAt()));
+        if (updated == null || updated == 0) {
+            leaseLost.increment();
+            log.warn("[FCM-OUTBOX] lease lost id={} alarmId={} attempt={} — result not recorded",
+                    o.getId(), o.getAlarmId(), o.getAttempts());
+            return;
+        }
+
+        if (!retry) {
+            sent.increment();
+            lag.record(Duration.between(o.getCreatedAt(), Instant.now()));
+        } else if (o.getAttempts() >= maxAttempts) {
+            failed.increment();
+            log.error("[FCM-OUTBOX] give up id={} alarmId={} attempts={} err={}",
+                    o.getId(), o.getAlarmId(), o.getAttempts(), error);
+        } else {
+            retried.increment();
+            log.warn("[FCM-OUTBOX] retry id={} alarmId={} attempt={} err={}",
+                    o.getId(), o.getAlarmId(), o.getAttempts(), error);
+        }
+    }
+
+    private static OffsetDateTime atZone(Instant t) {
+        return t == null ? null : t.atZone(APP_ZONE).toOffsetDateTime();
+    }
+
+    // 지수 백오프 + 지터: base * 2^(attempts-1), 최대 backoff-max
+    Duration backoff(int attempts) {
+        long base = backoffBase.toMillis() << Math.min(20, Math.max(0, attempts - 1));
+        long capped = Math.min(base, backoffMax.toMillis());
+        long jitter = ThreadLocalRandom.current().nextLong(capped / 5 + 1);
+        return Duration.ofMillis(capped + jitter);
+    }
+
+    @Scheduled(cron = "${fcm.outbox.cleanup-cron:0 30 4 * * *}")
+    public void purgeSent() {
+        Integer n = tx.execute(s -> repo.deleteSentBefore(Instant.now().minus(retention)));
+        if (n != null && n > 0) log.info("[FCM-OUTBOX] purged {} sent rows", n);
+    }
+
+    private double safeCountPending() {
+        try {
+            return repo.countPending();
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+    }
+}
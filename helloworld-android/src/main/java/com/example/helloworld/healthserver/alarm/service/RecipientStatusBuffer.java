@@ -0,0 +1,138 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import com.example.helloworld.healthserver.client.UserServerClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 알림 수신자 상태(SENT/FAILED)를 모아 유저서버에 다건 업서트로 전달한다.
+ * - 발송 경로에서는 add()만 호출 (네트워크 호출 없음)
+ * - batch-size 만큼 쌓이면 전용 스레드(fcm-rcpt-flush)에 flush 를 넘기고, 아니면 flush-interval-ms 주기로 flush()
+ *   → add() 를 부른 발송 스레드는 유저서버 응답을 기다리지 않음. 넘긴 flush 가 돌기 전 트리거는 한 번으로 합침
+ * - 전송 실패 시 다음 주기에 재시도 (max-pending 초과분은 버림)
+ */
+@Slf4j
+@Component
+public class RecipientStatusBuffer {
+
+    private final UserServerClient userClient;
+    private final int batchSize;
+    private final int maxPending;
+
+    private final ConcurrentLinkedQueue<UserServerClient.UpsertReq> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    // 스케줄러와 size 트리거가 동시에 flush 하지 않도록
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "fcm-rcpt-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Counter flushedRows;
+    private final Counter droppedRows;
+    private final DistributionSummary batchRows;
+    private final Timer flushTimer;
+
+    public RecipientStatusBuffer(
+            UserServerClient userClient,
+            MeterRegistry registry,
+            @Value("${fcm.recipient-status.batch-size:500}") int batchSize,
+            @Value("${fcm.recipient-status.max-pending:20000}") int maxPending
+    ) {
+        this.userClient = userClient;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.flushedRows = Counter.builder("fcm.recipient_status.flushed")
+                .description("Recipient status rows upserted to user-server")
+                .register(registry);
+        this.droppedRows = Counter.builder("fcm.recipient_status.dropped")
+                .description("Recipient status rows dropped because the buffer was full")
+                .register(registry);
+        this.batchRows = DistributionSummary.builder("fcm.recipient_status.batch_rows")
+                .description("Rows per upsert-batch request")
+                .register(registry);
+        this.flushTimer = Timer.builder("fcm.recipient_status.flush")
+                .description("Latency of one upsert-batch request")
+                .register(registry);
+        registry.gauge("fcm.recipient_status.pending", size);
+    }
+
+    public void add(UserServerClient.UpsertReq req) {
+        if (req == null || req.alarmId() == null || req.userId() == null) return;
+        if (size.get() >= maxPending) {
+            droppedRows.increment();
+            log.warn("[FCM-RCPT] pending buffer full ({}), drop alarmId={} user={}",
+                    maxPending, req.alarmId(), req.userId());
+            return;
+        }
+        pending.add(req);
+        if (size.incrementAndGet() >= batchSize && flushQueued.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushQueued.set(false);
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                flushQueued.set(false); // 종료 중 — drainOnShutdown/주기 flush 가 비움
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fcm.recipient-status.flush-interval-ms:200}")
+    public void flush() {
+        if (!flushLock.tryLock()) return; // 이미 다른 스레드가 비우는 중
+        try {
+            while (!pending.isEmpty()) {
+                List<UserServerClient.UpsertReq> batch = new ArrayList<>(Math.min(batchSize, size.get()));
+                UserServerClient.UpsertReq r;
+                while (batch.size() < batchSize && (r = pending.poll()) != null) {
+                    batch.add(r);
+                }
+                if (batch.isEmpty()) return;
+                size.addAndGet(-batch.size());
+
+                try {
+                    flushTimer.record(() ->
+                            userClient.upsertRecipients(new UserServerClient.UpsertBatchReq(batch)));
+                    flushedRows.increment(batch.size());
+                    batchRows.record(batch.size());
+                } catch (Exception e) {
+                    // 순서 보장은 필요 없음(같은 키는 유저서버에서 마지막 값으로 덮어씀)
+                    pending.addAll(batch);
+                    size.addAndGet(batch.size());
+                    log.warn("[FCM-RCPT] upsert-batch failed size={} : {}", batch.size(), e.toString());
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void drainOnShutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+}
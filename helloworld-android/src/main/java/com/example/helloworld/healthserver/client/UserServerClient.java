@@ -27,10 +27,21 @@ public interface UserServerClient {
     @PostMapping("/api/internal/notifications/recipients/upsert")
     ResponseEntity<Void> upsertRecipient(@RequestBody UpsertReq req);
 
+    // ★ 수신자 상태 다건 업서트 (RecipientStatusBuffer가 모아서 전송)
+    @PostMapping("/api/internal/notifications/recipients/upsert-batch")
+    ResponseEntity<Void> upsertRecipients(@RequestBody UpsertBatchReq req);
+
+    // ★ FCM이 거절한 dead 토큰 일괄 비활성화
+    @PostMapping("/api/internal/fcm/tokens/deactivate")
+    ResponseEntity<Void> deactivateTokens(@RequestBody DeactivateTokensReq req);
+
     // DTOs
 
     record LatestTwoResponse(Long userId, String androidToken, String watchToken) {}
     record UpsertReq(Long alarmId, Long userId, String status, String messageId, String failReason) {}
+    record UpsertBatchReq(List<UpsertReq> items) {}
     record PartnerIdResponse(Long partnerId) {}
     record FcmTokenResponse(Long userId, String platform, String token) {}
+    record DeadToken(Long userId, String token, String reason) {}
+    record DeactivateTokensReq(List<DeadToken> tokens) {}
 }
\ No newline at end of file
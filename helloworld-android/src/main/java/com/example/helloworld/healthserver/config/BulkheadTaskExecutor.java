@@ -0,0 +1,170 @@
+package com.example.helloworld.healthserver.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 세마포어 bulkhead 로 동시 실행 수를 제한하는 @Async 실행기
+ * - 가상 스레드(기본): 작업마다 가상 스레드 1개, 대기 작업은 세마포어에서 park
+ * - 플랫폼 스레드(virtual-threads=false): maxConcurrency 개짜리 고정 풀, 대기 작업은 풀 큐에 (스레드 점유 없음)
+ * - 대기 작업 수는 항상 maxQueued 이하. 넘치면 overflow 정책:
+ *   DROP → 버리고 rejected 로 집계 (호출측에 예외 없음), CALLER_RUNS → 호출 스레드에서 실행 (절대 버리지 않음, EMERGENCY)
+ * - lane 세마포어가 있으면 전체(total) 외에 레인 자체 한도도 적용 → 다른 레인 몫을 남겨둠
+ *
+ * 지표: notif.executor.queued{lane}, notif.executor.wait{lane}, notif.executor.task{lane},
+ *       notif.executor.rejected{lane}, notif.executor.caller_runs{lane}
+ */
+@Slf4j
+public class BulkheadTaskExecutor implements TaskExecutor, DisposableBean {
+
+    public enum Overflow { DROP, CALLER_RUNS }
+
+    private final String lane;
+    private final Executor threads;
+    private final Semaphore total;
+    private final Semaphore laneLimit;
+    private final int maxQueued;
+    private final Overflow overflow;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Timer taskTimer;
+    private final Counter rejected;
+    private final Counter callerRuns;
+
+    /**
+     * @param virtualThreads 가상 스레드 사용 여부 (false 면 고정 크기 플랫폼 풀)
+     * @param maxConcurrency 이 레인이 동시에 실행할 수 있는 최대 작업 수 (플랫폼 풀 크기)
+     * @param maxQueued      permit 을 기다리는 작업 상한 (1 이상)
+     */
+    public BulkheadTaskExecutor(String lane, boolean virtualThreads, Semaphore total, Semaphore laneLimit,
+                                int maxConcurrency, int maxQueued, Overflow overflow, MeterRegistry registry) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be >= 1: " + maxConcurrency);
+        if (maxQueued < 1) throw new IllegalArgumentException("maxQueued must be >= 1: " + maxQueued);
+        this.lane = lane;
+        this.total = total;
+        this.laneLimit = laneLimit;
+        this.maxQueued = maxQueued;
+        this.overflow = overflow;
+
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor vt = new SimpleAsyncTaskExecutor("notif-" + lane + "-");
+            vt.setVirtualThreads(true);
+            vt.setTaskTerminationTimeout(10_000); // 종료 시 진행 중 작업 대기
+            this.threads = vt;
+        } else {
+            // 작업마다 플랫폼 스레드를 만들면 대기 작업 수만큼 스레드가 생김 → 고정 풀 + (위에서 제한한) 큐
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(maxConcurrency);
+            pool.setMaxPoolSize(maxConcurrency);
+            pool.setThreadNamePrefix("notif-" + lane + "-");
+            pool.setWaitForTasksToCompleteOnShutdown(true);
+            pool.setAwaitTerminationMillis(10_000);
+            pool.initialize();
+            this.threads = pool;
+        }
+
+        registry.gauge("notif.executor.queued", Tags.of("lane", lane), queued);
+        this.waitTimer = Timer.builder("notif.executor.wait")
+                .description("Time a notification task waited for a bulkhead permit")
+                .tag("lane", lane)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.taskTimer = Timer.builder("notif.executor.task")
+                .description("Run time of a notification task (outbound calls + FCM)")
+                .tag("lane", lane)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.rejected = Counter.builder("notif.executor.rejected")
+                .description("Notification tasks dropped because the lane queue was full")
+                .tag("lane", lane)
+                .register(registry);
+        this.callerRuns = Counter.builder("notif.executor.caller_runs")
+                .description("Notification tasks run on the submitting thread because the lane queue was full")
+                .tag("lane", lane)
+                .register(registry);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (queued.get() >= maxQueued) {
+            overflow(task, "queue full (" + maxQueued + ")");
+            return;
+        }
+        queued.incrementAndGet();
+        long submitted = System.nanoTime();
+        try {
+            threads.execute(() -> run(task, submitted));
+        } catch (RejectedExecutionException e) { // 종료 중
+            queued.decrementAndGet();
+            overflow(task, "executor shut down");
+        }
+    }
+
+    private void overflow(Runnable task, String why) {
+        if (overflow == Overflow.DROP) {
+            rejected.increment();
+            log.warn("[NOTIF-EXEC] lane={} {}, task dropped", lane, why);
+            return;
+        }
+        // 버리지 않고 호출 스레드에서 실행 → 제출 속도가 처리 속도로 눌림 (backpressure)
+        callerRuns.increment();
+        log.warn("[NOTIF-EXEC] lane={} {}, running on caller thread", lane, why);
+        queued.incrementAndGet();
+        run(task, System.nanoTime());
+    }
+
+    private void run(Runnable task, long submitted) {
+        boolean laneHeld = false, totalHeld = false;
+        try {
+            if (laneLimit != null) { laneLimit.acquire(); laneHeld = true; }
+            total.acquire();
+            totalHeld = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (laneHeld) laneLimit.release();
+            queued.decrementAndGet();
+            log.warn("[NOTIF-EXEC] lane={} interrupted while waiting, task not run", lane);
+            return;
+        } finally {
+            if (totalHeld) {
+                queued.decrementAndGet();
+                waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } catch (Throwable t) {
+            log.error("[NOTIF-EXEC] lane={} task failed", lane, t);
+        } finally {
+            taskTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            total.release();
+            if (laneHeld) laneLimit.release();
+        }
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    @Override
+    public void destroy() {
+        if (threads instanceof SimpleAsyncTaskExecutor vt) vt.close();
+        else ((ThreadPoolTaskExecutor) threads).shutdown();
+    }
+}
@@ -3,6 +3,7 @@ package com.example.helloworld.healthserver.config;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
@@ -12,6 +13,7 @@ import java.io.InputStream;
 
 @Slf4j
 @Component
+@ConditionalOnProperty(name = "push.transport", havingValue = "firebase", matchIfMissing = true) // local 이면 자격증명 불필요
 public class FirebaseConfig {
 
     private static final String CREDENTIALS_CLASSPATH = "firebase-service-account.json";
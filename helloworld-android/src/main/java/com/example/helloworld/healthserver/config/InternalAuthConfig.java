@@ -0,0 +1,23 @@
+package com.example.helloworld.healthserver.config;
+
+import com.example.helloworld.internalauth.InternalAuthVerifier;
+import com.example.helloworld.internalauth.audit.AuditConfig;
+import com.example.helloworld.internalauth.audit.InternalAuditController;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+// 감사 이벤트 저장/조회는 internal-auth 공용 모듈 (서비스마다 복사하지 않음)
+@Configuration
+@Import({AuditConfig.class, InternalAuditController.class})
+public class InternalAuthConfig {
+
+    // 게이트웨이(GatewayRedisAuthFilter)와 같은 비밀키로 X-Internal-* 서명 검증 (비어 있으면 기동 실패)
+    @Bean
+    public InternalAuthVerifier internalAuthVerifier(
+            @Value("${gateway.hmac-secret:}") String secret,
+            @Value("${security.internal.ts-window:30}") long tsWindowSec) {
+        return new InternalAuthVerifier(secret, tsWindowSec);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.helloworld.healthserver.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 알림 @Async 전용 실행기 (FcmService)
+ * - 두 레인이 하나의 bulkhead(max-concurrency)를 공유 → 유저서버 Feign/FCM 동시 호출 수 상한
+ * - EMERGENCY 레인: 대기열(emergency-max-queued) 초과 시 호출 스레드에서 실행, 절대 버리지 않음
+ * - BULK 레인(리마인더/활동 알림): reserved-for-emergency 만큼을 남기고 사용, 대기열 초과 시 버림
+ * - Java 21 (툴체인, 이미지 temurin 21): 작업마다 가상 스레드. virtual-threads=false 면 레인별 고정 크기 플랫폼 풀
+ */
+@Configuration
+public class NotificationExecutorConfig {
+
+    public static final String EMERGENCY = "emergencyNotificationExecutor";
+    public static final String BULK = "bulkNotificationExecutor";
+
+    private final Semaphore outbound;
+    private final Semaphore bulkLane;
+    private final int maxConcurrency;
+    private final int bulkConcurrency;
+    private final boolean virtualThreads;
+
+    public NotificationExecutorConfig(
+            @Value("${notif.executor.max-concurrency:64}") int maxConcurrency,
+            @Value("${notif.executor.reserved-for-emergency:16}") int reservedForEmergency,
+            @Value("${notif.executor.virtual-threads:true}") boolean virtualThreads
+    ) {
+        this.maxConcurrency = maxConcurrency;
+        this.bulkConcurrency = Math.max(1, maxConcurrency - reservedForEmergency);
+        this.outbound = new Semaphore(maxConcurrency, true);
+        this.bulkLane = new Semaphore(bulkConcurrency, true);
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Bean(name = EMERGENCY)
+    public BulkheadTaskExecutor emergencyNotificationExecutor(
+            MeterRegistry registry,
+            @Value("${notif.executor.emergency-max-queued:10000}") int emergencyMaxQueued) {
+        return new BulkheadTaskExecutor("emergency", virtualThreads, outbound, null,
+                maxConcurrency, emergencyMaxQueued, BulkheadTaskExecutor.Overflow.CALLER_RUNS, registry);
+    }
+
+    @Bean(name = BULK)
+    public BulkheadTaskExecutor bulkNotificationExecutor(
+            MeterRegistry registry,
+            @Value("${notif.executor.bulk-max-queued:5000}") int bulkMaxQueued) {
+        return new BulkheadTaskExecutor("bulk", virtualThreads, outbound, bulkLane,
+                bulkConcurrency, bulkMaxQueued, BulkheadTaskExecutor.Overflow.DROP, registry);
+    }
+}
@@ -2,15 +2,22 @@ package com.example.helloworld.healthserver.config;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
 @Configuration
 @EnableWebSecurity
 @Slf4j
@@ -19,6 +26,10 @@ public class SecurityConfig {
 
     private final UserInfoAuthenticationFilter userInfoAuthenticationFilter;
 
+    // 감사 조회(/api/internal/audit/**)용 X-App-Token. 비어 있으면 감사 조회는 전부 거부
+    @Value("${audit.query.app-token:${APP_TOKEN:}}")
+    private String auditAppToken;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -36,6 +47,10 @@ public class SecurityConfig {
                                 "/v3/api-docs/**",
                                 "/actuator/**"
                         ).permitAll()
+                        // 감사 이벤트는 개인 접근 기록이라 X-App-Token 필수 (아래 /api/internal/** permitAll 보다 먼저)
+                        .requestMatchers("/api/internal/audit/**").access(appToken(auditAppToken))
+                        // 캘린더 서버의 리마인더 호출(/api/internal/reminders/**)은 서명 헤더 없이 들어옴
+                        // (UserInfoAuthenticationFilter 는 SecurityContext 만 채우고 차단하지 않음)
                         .requestMatchers("/api/internal/**").permitAll()
                         // 2. /api/** 경로는 'INTERNAL_USER' 역할이 반드시 필요
                         .requestMatchers("/api/**").hasRole("INTERNAL_USER")
@@ -48,4 +63,14 @@ public class SecurityConfig {
 
         return http.build();
     }
-}
\ No newline at end of file
+
+    private static AuthorizationManager<RequestAuthorizationContext> appToken(String expected) {
+        byte[] want = expected == null ? new byte[0] : expected.getBytes(StandardCharsets.UTF_8);
+        return (authentication, ctx) -> {
+            String got = ctx.getRequest().getHeader("X-App-Token");
+            boolean ok = want.length > 0 && got != null
+                    && MessageDigest.isEqual(want, got.getBytes(StandardCharsets.UTF_8));
+            return new AuthorizationDecision(ok);
+        };
+    }
+}
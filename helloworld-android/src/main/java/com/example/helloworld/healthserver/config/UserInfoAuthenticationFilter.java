@@ -1,27 +1,35 @@
 package com.example.helloworld.healthserver.config;
 
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
+import com.example.helloworld.internalauth.InternalAuthVerifier;
+import com.example.helloworld.internalauth.InternalAuthenticationFilter;
+import com.example.helloworld.internalauth.InternalIdentity;
+import com.example.helloworld.internalauth.audit.AuditEvent;
+import com.example.helloworld.internalauth.audit.AuditEventWriter;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
-import org.springframework.web.filter.OncePerRequestFilter;
 
-import java.io.IOException;
 import java.util.Collections;
 
 /**
- * 게이트웨이가 넣어주는 내부 헤더(X-Internal-*)를 읽어 인증 컨텍스트를 구성.
+ * 게이트웨이가 넣어주는 내부 헤더(X-Internal-*)의 서명을 검증(internal-auth)하고 인증 컨텍스트를 구성.
  * 프로브/메트릭/스웨거/오픈API 경로는 필터를 우회(bypass)한다.
  */
 @Slf4j
 @Component
-public class UserInfoAuthenticationFilter extends OncePerRequestFilter {
+public class UserInfoAuthenticationFilter extends InternalAuthenticationFilter {
+
+    private static final String SERVICE = "health-server";
+
+    private final AuditEventWriter auditWriter;
+
+    public UserInfoAuthenticationFilter(InternalAuthVerifier verifier, AuditEventWriter auditWriter) {
+        super(verifier);
+        this.auditWriter = auditWriter;
+    }
 
     private static boolean isBypassPath(HttpServletRequest request) {
         // 컨텍스트 경로 고려: request.getRequestURI()는 보통 컨텍스트 포함
@@ -39,37 +47,25 @@ public class UserInfoAuthenticationFilter extends OncePerRequestFilter {
                 || uri.startsWith("/v3/api-docs/");
     }
     @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
-            throws ServletException, IOException {
-
-        // 이 필터의 역할: 내부 헤더가 있으면 인증 정보를 SecurityContext에 채워넣는다.
-        // 요청을 막거나 허용하는 결정은 SecurityConfig에서 처리하도록 위임한다.
-        final String userIdStr   = request.getHeader("X-Internal-User-Id");
-        final String coupleIdStr = request.getHeader("X-Internal-Couple-Id");
-
-        if (StringUtils.hasText(userIdStr)) {
-            try {
-                Long userId   = Long.parseLong(userIdStr);
-                Long coupleId = StringUtils.hasText(coupleIdStr) ? Long.parseLong(coupleIdStr) : null;
-
-                var authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_INTERNAL_USER"));
-                UserPrincipal principal = new UserPrincipal(userId, coupleId, authorities);
-                var auth = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
-                SecurityContextHolder.getContext().setAuthentication(auth);
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return isBypassPath(request);
+    }
 
-                log.info("HEALTH_AUDIT: Authenticated via internal header. userId={}, coupleId={}, path={}",
-                        userId, coupleId, request.getRequestURI());
+    // 이 필터의 역할: 서명이 유효한 내부 헤더가 있으면 인증 정보를 SecurityContext에 채워넣는다.
+    // 요청을 막거나 허용하는 결정은 SecurityConfig에서 처리하도록 위임한다.
+    @Override
+    protected void onVerified(InternalIdentity identity, HttpServletRequest request) {
+        var authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_INTERNAL_USER"));
+        UserPrincipal principal = new UserPrincipal(identity.memberId(), identity.coupleId(), authorities);
+        var auth = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(auth);
 
-            } catch (NumberFormatException e) {
-                log.warn("Invalid number format in internal headers. userId='{}', coupleId='{}'", userIdStr, coupleIdStr);
-                // 컨텍스트를 비우고 체인을 계속 진행. 이후 인가 단계에서 접근이 거부될 것임.
-                SecurityContextHolder.clearContext();
-            }
+        // 감사 이벤트는 비동기 배치 저장 (audit_access_events). 큐 포화 시에만 로그로 남김
+        AuditEvent event = AuditEvent.access(SERVICE, identity.memberId(), identity.coupleId(), identity.role(),
+                request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+        if (!auditWriter.offer(event)) {
+            log.warn("HEALTH_AUDIT(dropped): userId={}, coupleId={}, path={}",
+                    identity.memberId(), identity.coupleId(), request.getRequestURI());
         }
-
-        // 항상 필터 체인을 계속 진행시킨다.
-        chain.doFilter(request, response);
     }
-
-
 }
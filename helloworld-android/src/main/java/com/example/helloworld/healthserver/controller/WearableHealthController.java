@@ -4,21 +4,28 @@ import com.example.helloworld.healthserver.client.AiServerClient;
 import com.example.helloworld.healthserver.config.UserPrincipal;
 import com.example.helloworld.healthserver.dto.HealthDtos;
 import com.example.helloworld.healthserver.dto.response.HealthLatestResponse;
+import com.example.helloworld.healthserver.dto.response.HealthRecentResponse;
+import com.example.helloworld.healthserver.service.DailyStatsExporter;
 import com.example.helloworld.healthserver.service.HealthDataService;
 import com.example.helloworld.healthserver.service.HealthLatestService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDate;
 
 @Tag(name = "Wearable Health", description = "웨어러블 건강 데이터 API (심박/스트레스/통계)")
@@ -30,6 +37,7 @@ public class WearableHealthController {
 
     private final HealthDataService healthService;
     private final HealthLatestService lasthealthService;
+    private final DailyStatsExporter statsExporter;
 
     // 2. Add a helper method to validate the authenticated principal
     private void requirePrincipal(UserPrincipal principal) {
@@ -44,10 +52,13 @@ public class WearableHealthController {
         웨어러블 기기에서 심박수, 스트레스 지수를 받아 저장하고 AI 서버로 전달하여 이상 징후를 감지합니다.
         - AI 서버의 탐지 결과를 그대로 반환합니다.
         - 이상 징후(restrict, emergency) 감지 시 파트너에게 FCM 알림을 보냅니다.
+        - 비동기 이상탐지 모드(app.anomaly.async.enabled)에서는 저장 후 바로 202 + check_id 를 반환하고,
+          결과는 GET /api/wearable/checks/{checkId} 로 조회합니다.
+          사전 필터가 AI 로 보내지 않은 샘플은 check_id 없이 200 + status=DONE 으로 결과를 바로 반환합니다.
         """
     )
     @PostMapping
-    public ResponseEntity<AiServerClient.AnomalyResponse> createAndCheck(
+    public ResponseEntity<HealthDtos.WearableCheck> createAndCheck(
             @Parameter(hidden = true) @AuthenticationPrincipal UserPrincipal user,
             @Valid @RequestBody HealthDtos.CreateRequest req
     ) {
@@ -58,8 +69,52 @@ public class WearableHealthController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User is not associated with a couple.");
         }
 
+        if (healthService.isAnomalyAsync()) {
+            HealthDtos.AnomalyCheckResponse check = healthService.createAndSubmitHealthData(user, req);
+            if (check.checkId() == null) return ResponseEntity.ok(check); // 사전 필터가 거름 → 결과 바로
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/wearable/checks/" + check.checkId()))
+                    .body(check);
+        }
         AiServerClient.AnomalyResponse response = healthService.createAndCheckHealthData(user, req);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(new HealthDtos.AnomalyResult(response));
+    }
+
+    @Operation(
+            summary = "헬스데이터 배치 업로드 및 이상탐지",
+            description = """
+        워치가 30~60초 동안 모은 심박/스트레스 샘플을 한 번에 업로드합니다.
+        - 샘플은 일괄 저장되고, AI 이상탐지는 윈도우 전체에 대해 1회만 수행합니다.
+        - 이상 징후(restrict, emergency) 감지 시 단건 API 와 같은 알림이 나갑니다.
+        """
+    )
+    @PostMapping("/batch")
+    public ResponseEntity<HealthDtos.BatchResponse> createAndCheckBatch(
+            @Parameter(hidden = true) @AuthenticationPrincipal UserPrincipal user,
+            @RequestBody HealthDtos.BatchRequest req
+    ) {
+        requirePrincipal(user);
+        if (user.getCoupleId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User is not associated with a couple.");
+        }
+        HealthDtos.BatchResponse resp = healthService.createAndCheckBatch(user, req);
+        if (resp.checkId() != null) {
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/wearable/checks/" + resp.checkId()))
+                    .body(resp);
+        }
+        return ResponseEntity.ok(resp);
+    }
+
+    @Operation(summary = "비동기 이상탐지 결과 조회",
+            description = "202 로 받은 check_id 의 상태(PENDING/DONE/FAILED)와 AI 탐지 결과를 반환합니다. 본인 커플 것만, 만료 시 404.")
+    @GetMapping("/checks/{checkId}")
+    public ResponseEntity<HealthDtos.AnomalyCheckResponse> getCheck(
+            @Parameter(hidden = true) @AuthenticationPrincipal UserPrincipal user,
+            @PathVariable String checkId
+    ) {
+        requirePrincipal(user);
+        return ResponseEntity.ok(healthService.getAnomalyCheck(user.getCoupleId(), checkId));
     }
 
     @Operation(summary = "헬스데이터 단건 조회")
@@ -83,6 +138,29 @@ public class WearableHealthController {
         return ResponseEntity.ok(healthService.getGlobalDailyStats(date));
     }
 
+    @Operation(summary = "전체 커플 일간 버킷 통계 내보내기 (스트리밍)",
+            description = """
+        from~to (KST, 양끝 포함) 의 일간 버킷 통계를 한 줄에 한 행(daily-buckets 의 rows 항목과 같은 필드)씩 스트리밍합니다.
+        - format=ndjson (기본, application/x-ndjson) 또는 csv (text/csv, 첫 줄 헤더)
+        - DB 커서로 읽으면서 바로 응답에 쓰므로 커플 수와 무관하게 서버 메모리가 일정합니다.
+        - 기간은 최대 app.export.daily-stats.max-days 일 (기본 31)
+        """
+    )
+    @GetMapping("/daily-buckets/export")
+    public void exportGlobalDailyStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response
+    ) throws IOException {
+        DailyStatsExporter.Format f = statsExporter.validate(from, to, format);
+        response.setContentType(f.contentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("daily-buckets_" + from + "_" + to + "." + f.extension()).build().toString());
+        statsExporter.export(from, to, f, response.getOutputStream());
+    }
+
 
     @Operation(summary = "걸음수 & 심박/스트레스 최신 1건 조회")
     @GetMapping("/latest")
@@ -90,4 +168,18 @@ public class WearableHealthController {
         var resp = lasthealthService.getLatest(principal.getCoupleId());
         return ResponseEntity.ok(resp);
     }
+
+    @Operation(
+            summary = "최근 N분 심박/스트레스 조회",
+            description = "최근 minutes 분(기본 10, 최대 1440)의 심박/스트레스 샘플을 최신순으로 반환합니다. " +
+                    "최근 구간은 서버 메모리에서, 메모리에 없는 구간은 DB 에서 읽습니다."
+    )
+    @GetMapping("/recent")
+    public ResponseEntity<HealthRecentResponse> getRecent(
+            @AuthenticationPrincipal UserPrincipal principal,
+            @RequestParam(defaultValue = "10") int minutes
+    ) {
+        requirePrincipal(principal);
+        return ResponseEntity.ok(lasthealthService.getRecent(principal.getCoupleId(), minutes));
+    }
 }
@@ -0,0 +1,14 @@
+package com.example.helloworld.healthserver.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+
+@Schema(name = "HealthRecentResponse")
+public record HealthRecentResponse(
+        @JsonProperty("from") Instant from,
+        @JsonProperty("to") Instant to,
+        @JsonProperty("heartrate") List<HealthLatestResponse.HrItem> heartrate   // 최신순
+) {}
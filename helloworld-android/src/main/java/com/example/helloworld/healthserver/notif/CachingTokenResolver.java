@@ -0,0 +1,170 @@
+package com.example.helloworld.healthserver.notif;
+
+import com.example.helloworld.healthserver.client.UserServerClient;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 유저서버 토큰/파트너 조회 캐시 (FcmService 용 TokenResolver)
+ *
+ * - 처음 조회 시 유저서버(Feign)에서 읽어 TTL 동안 보관, 크기 제한 (가득 차면 만료분 정리 후에도 넘치면 캐시 안 함)
+ * - 토큰 없음/커플 없음도 짧은 TTL 로 캐시 (알림마다 404 조회 방지)
+ * - 유저서버가 토큰 등록·해제, 커플 연동·해제 커밋 후 push-recipients:invalidate 채널로 회원 id 를 보냄 → 해당 항목 제거
+ * - 로딩 중 무효화가 있었으면 결과를 캐시에 넣지 않는다 (epoch)
+ * - Feign 오류(404 제외)는 캐시하지 않고 그대로 던짐 → outbox 재시도
+ *
+ * 지표: push.recipients.cache{kind=tokens|partner, result=hit|miss}
+ */
+@Slf4j
+@Component
+public class CachingTokenResolver implements TokenResolver, MessageListener {
+
+    // 유저서버 PushRecipientEvents.CHANNEL 과 같은 값
+    static final String CHANNEL = "push-recipients:invalidate";
+
+    private record Entry<T>(T value, long expiresAt) {}
+
+    private static final Long NO_PARTNER = -1L;
+
+    private final UserServerClient userClient;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final int maxEntries;
+
+    private final Map<Long, Entry<DeviceTokens>> tokens = new ConcurrentHashMap<>();
+    private final Map<Long, Entry<Long>> partners = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final Counter tokenHits, tokenMisses, partnerHits, partnerMisses;
+
+    public CachingTokenResolver(
+            UserServerClient userClient,
+            RedisMessageListenerContainer listenerContainer,
+            MeterRegistry registry,
+            @Value("${push.recipients.cache.ttl-seconds:600}") long ttlSeconds,
+            @Value("${push.recipients.cache.negative-ttl-seconds:60}") long negativeTtlSeconds,
+            @Value("${push.recipients.cache.max-entries:50000}") int maxEntries
+    ) {
+        this.userClient = userClient;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.negativeTtlMillis = negativeTtlSeconds * 1000L;
+        this.maxEntries = maxEntries;
+
+        this.tokenHits = counter(registry, "tokens", "hit");
+        this.tokenMisses = counter(registry, "tokens", "miss");
+        this.partnerHits = counter(registry, "partner", "hit");
+        this.partnerMisses = counter(registry, "partner", "miss");
+        registry.gaugeMapSize("push.recipients.cache.size", List.of(), tokens);
+
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String kind, String result) {
+        return Counter.builder("push.recipients.cache")
+                .description("Token/partner lookups served from cache (hit) or userserver (miss)")
+                .tag("kind", kind)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    public DeviceTokens latestTokens(Long userId) {
+        if (userId == null) return DeviceTokens.EMPTY;
+        return lookup(tokens, userId, tokenHits, tokenMisses, () -> {
+            ResponseEntity<UserServerClient.LatestTwoResponse> r = userClient.latestTwo(userId);
+            if (r == null || !r.getStatusCode().is2xxSuccessful() || r.getBody() == null) return DeviceTokens.EMPTY;
+            return new DeviceTokens(blankToNull(r.getBody().androidToken()), blankToNull(r.getBody().watchToken()));
+        }, t -> !t.present());
+    }
+
+    @Override
+    public Long partnerOf(Long userId) {
+        if (userId == null) return null;
+        Long id = lookup(partners, userId, partnerHits, partnerMisses, () -> {
+            try {
+                var r = userClient.partnerId(userId);
+                if (r == null || !r.getStatusCode().is2xxSuccessful() || r.getBody() == null
+                        || r.getBody().partnerId() == null) return NO_PARTNER;
+                return r.getBody().partnerId();
+            } catch (FeignException.NotFound e) {
+                return NO_PARTNER; // 커플 없음
+            }
+        }, NO_PARTNER::equals);
+        return NO_PARTNER.equals(id) ? null : id;
+    }
+
+    private <T> T lookup(Map<Long, Entry<T>> cache, Long userId, Counter hits, Counter misses,
+                         Supplier<T> loader, Predicate<T> negative) {
+        long now = System.currentTimeMillis();
+        Entry<T> e = cache.get(userId);
+        if (e != null && e.expiresAt() > now) {
+            hits.increment();
+            return e.value();
+        }
+        misses.increment();
+        long seen = epoch.get();
+        T loaded = loader.get();
+        if (epoch.get() == seen) {
+            put(cache, userId, new Entry<>(loaded, now + (negative.test(loaded) ? negativeTtlMillis : ttlMillis)));
+        }
+        return loaded;
+    }
+
+    private <T> void put(Map<Long, Entry<T>> cache, Long key, Entry<T> entry) {
+        if (cache.size() >= maxEntries) {
+            long now = System.currentTimeMillis();
+            cache.entrySet().removeIf(en -> en.getValue().expiresAt() <= now);
+            if (cache.size() >= maxEntries) return;
+        }
+        cache.put(key, entry);
+    }
+
+    @Override
+    public void invalidate(Collection<Long> userIds) {
+        epoch.incrementAndGet();
+        for (Long id : userIds) {
+            if (id == null) continue;
+            tokens.remove(id);
+            partners.remove(id);
+        }
+    }
+
+    /** 유저서버가 보낸 무효화 메시지 ("1,2,3") */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        List<Long> ids = new ArrayList<>();
+        for (String s : body.split(",")) {
+            try {
+                ids.add(Long.valueOf(s.trim()));
+            } catch (NumberFormatException ignore) { }
+        }
+        log.debug("[PUSH-RECIPIENTS] invalidate {}", ids);
+        invalidate(ids);
+    }
+
+    private static String blankToNull(String s) {
+        return (s == null || s.isBlank()) ? null : s;
+    }
+}
@@ -1,25 +1,25 @@
 package com.example.helloworld.healthserver.notif;
 
-import com.google.firebase.messaging.*;
+import com.example.helloworld.healthserver.notif.PushTransport.Delivery;
+import com.example.helloworld.healthserver.notif.PushTransport.PushRequest;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Map;
 
 @Component
+@RequiredArgsConstructor
 public class FcmClient {
 
-    public String sendToToken(String token, String title, String body, Map<String,String> data)
-            throws FirebaseMessagingException {
+    private final PushTransport transport;
 
-        Message.Builder mb = Message.builder()
-                .setToken(token)
-                .setNotification(Notification.builder()
-                        .setTitle(title)
-                        .setBody(body)
-                        .build());
-
-        if (data != null && !data.isEmpty()) mb.putAllData(data);
-
-        return FirebaseMessaging.getInstance().send(mb.build());
+    /** 단건 발송 (notification + data) — 실패 시 IllegalStateException (에러 코드 포함) */
+    public String sendToToken(String token, String title, String body, Map<String,String> data) {
+        Delivery d = transport.send(List.of(new PushRequest(token, data, null, null, title, body))).get(0);
+        if (!d.success()) {
+            throw new IllegalStateException("FCM send failed: " + d.error());
+        }
+        return d.messageId();
     }
 }
@@ -0,0 +1,59 @@
+package com.example.helloworld.healthserver.notif;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FirebaseMessaging.sendEach 로 최대 500건을 한 번에 발송하고 건별 결과를 돌려준다.
+ * 정적 getInstance() 대신 주입받은 FirebaseApp 에 묶인 인스턴스를 쓴다.
+ */
+@Component
+@ConditionalOnProperty(name = "push.transport", havingValue = "firebase", matchIfMissing = true)
+public class FirebasePushTransport implements PushTransport {
+
+    private final FirebaseMessaging messaging;
+
+    public FirebasePushTransport(FirebaseApp firebaseApp) {
+        this.messaging = FirebaseMessaging.getInstance(firebaseApp);
+    }
+
+    @Override
+    public List<Delivery> send(List<PushRequest> batch) {
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PushRequest r : batch) {
+            Message.Builder mb = Message.builder().setToken(r.token());
+            if (r.data() != null) mb.putAllData(r.data());
+            if (r.title() != null || r.body() != null) {
+                mb.setNotification(Notification.builder().setTitle(r.title()).setBody(r.body()).build());
+            }
+            messages.add(mb.build());
+        }
+        try {
+            BatchResponse resp = messaging.sendEach(messages);
+            List<Delivery> out = new ArrayList<>(batch.size());
+            for (SendResponse sr : resp.getResponses()) {
+                if (sr.isSuccessful()) {
+                    out.add(Delivery.ok(sr.getMessageId()));
+                } else {
+                    FirebaseMessagingException e = sr.getException();
+                    out.add(Delivery.failed(e != null ? e.getMessagingErrorCode() : null, null));
+                }
+            }
+            return out;
+        } catch (FirebaseMessagingException e) {
+            // 배치 전체 실패 (인증/네트워크 등) → 모든 건에 같은 에러
+            return Collections.nCopies(batch.size(), Delivery.failed(e.getMessagingErrorCode(), null));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.helloworld.healthserver.notif;
+
+import com.google.firebase.messaging.MessagingErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 로컬 FCM 대역 (push.transport=local) — 실제 발송 없이 메모리에 기록
+ * - 배치마다 latency-ms + [0, jitter-ms) 지연 (FCM 왕복 흉내)
+ * - error-rate 확률로 UNAVAILABLE (재시도 대상), unregistered-prefix 로 시작하는 토큰은 UNREGISTERED
+ * - 최근 max-recorded 건 보관 + 리스너로 발송 시점 통지 (부하 테스트에서 지연 측정용)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "push.transport", havingValue = "local")
+public class LocalPushTransport implements PushTransport {
+
+    public record Recorded(PushRequest request, Delivery delivery, long sentAtNanos) {}
+
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final String unregisteredPrefix;
+    private final int maxRecorded;
+
+    private final ConcurrentLinkedDeque<Recorded> recorded = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger recordedSize = new AtomicInteger();
+    private final List<Consumer<Recorded>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong seq = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public LocalPushTransport(
+            @Value("${push.local.latency-ms:0}") long latencyMs,
+            @Value("${push.local.jitter-ms:0}") long jitterMs,
+            @Value("${push.local.error-rate:0}") double errorRate,
+            @Value("${push.local.unregistered-prefix:bad}") String unregisteredPrefix,
+            @Value("${push.local.max-recorded:10000}") int maxRecorded
+    ) {
+        this.latencyMs = Math.max(0, latencyMs);
+        this.jitterMs = Math.max(0, jitterMs);
+        this.errorRate = errorRate;
+        this.unregisteredPrefix = unregisteredPrefix;
+        this.maxRecorded = Math.max(0, maxRecorded);
+        log.warn("[PUSH-LOCAL] local push transport active (latency={}ms jitter={}ms errorRate={}) — no real FCM sends",
+                latencyMs, jitterMs, errorRate);
+    }
+
+    @Override
+    public List<Delivery> send(List<PushRequest> batch) {
+        batches.incrementAndGet();
+        simulateLatency();
+
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        List<Delivery> out = new ArrayList<>(batch.size());
+        long now = System.nanoTime();
+        for (PushRequest r : batch) {
+            Delivery d;
+            if (unregisteredPrefix != null && !unregisteredPrefix.isEmpty()
+                    && r.token() != null && r.token().startsWith(unregisteredPrefix)) {
+                d = Delivery.failed(MessagingErrorCode.UNREGISTERED, null);
+            } else if (errorRate > 0 && rnd.nextDouble() < errorRate) {
+                d = Delivery.failed(MessagingErrorCode.UNAVAILABLE, "injected");
+            } else {
+                d = Delivery.ok("local-" + seq.incrementAndGet());
+            }
+            out.add(d);
+            record(new Recorded(r, d, now));
+        }
+        return out;
+    }
+
+    private void simulateLatency() {
+        long ms = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs) : 0);
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void record(Recorded rec) {
+        if (maxRecorded > 0) {
+            recorded.addLast(rec);
+            if (recordedSize.incrementAndGet() > maxRecorded && recorded.pollFirst() != null) {
+                recordedSize.decrementAndGet();
+            }
+        }
+        for (Consumer<Recorded> l : listeners) l.accept(rec);
+    }
+
+    public void addListener(Consumer<Recorded> listener) {
+        listeners.add(listener);
+    }
+
+    /** 최근 기록 (오래된 것부터) */
+    public List<Recorded> deliveries() {
+        return List.copyOf(recorded);
+    }
+
+    public long batchCount() {
+        return batches.get();
+    }
+
+    public void clear() {
+        recorded.clear();
+        recordedSize.set(0);
+        batches.set(0);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.helloworld.healthserver.notif;
+
+import com.google.firebase.messaging.MessagingErrorCode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 푸시 발송 SPI — FcmDispatcher 가 모은 마이크로배치를 한 번에 보낸다.
+ * - push.transport=firebase (기본): FirebasePushTransport (sendEach)
+ * - push.transport=local: LocalPushTransport (메모리에 기록, 지연/에러 주입 — 오프라인 부하 테스트용)
+ * 반환 리스트는 요청과 같은 순서/크기여야 한다.
+ */
+@FunctionalInterface
+public interface PushTransport {
+
+    /** FCM sendEach 한 번에 보낼 수 있는 최대 건수 */
+    int MAX_BATCH = 500;
+
+    /** title/body 가 있으면 notification 블록도 함께 (없으면 data-only) */
+    record PushRequest(String token, Map<String, String> data, Long ownerUserId, String label,
+                       String title, String body) {
+        public PushRequest(String token, Map<String, String> data, Long ownerUserId, String label) {
+            this(token, data, ownerUserId, label, null, null);
+        }
+    }
+
+    record Delivery(boolean success, String messageId, MessagingErrorCode errorCode, String error) {
+        public static Delivery ok(String messageId) {
+            return new Delivery(true, messageId, null, null);
+        }
+
+        public static Delivery failed(MessagingErrorCode code, String error) {
+            return new Delivery(false, null, code, error != null ? error : (code != null ? code.name() : "UNKNOWN"));
+        }
+    }
+
+    List<Delivery> send(List<PushRequest> batch);
+}
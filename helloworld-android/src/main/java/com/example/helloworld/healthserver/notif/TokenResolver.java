@@ -1,11 +1,34 @@
 package com.example.helloworld.healthserver.notif;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TokenResolver {
+
+    /** 사용자의 최신 활성 ANDROID / WATCH 토큰 (없으면 null) */
+    record DeviceTokens(String android, String watch) {
+        public static final DeviceTokens EMPTY = new DeviceTokens(null, null);
+
+        public boolean present() {
+            return android != null || watch != null;
+        }
+    }
+
     /**
      * 주어진 사용자 ID의 "현재 활성" FCM 토큰 목록을 반환한다.
      * 구현체는 캐시/외부 서비스/인메모리 등 환경에 맞게 제공.
      */
-    List<String> resolveActiveTokensForUser(Long userId);
+    default List<String> resolveActiveTokensForUser(Long userId) {
+        DeviceTokens t = latestTokens(userId);
+        return Stream.of(t.android(), t.watch()).filter(s -> s != null && !s.isBlank()).toList();
+    }
+
+    DeviceTokens latestTokens(Long userId);
+
+    /** 커플 상대 ID (커플이 아니거나 미연동이면 null) */
+    Long partnerOf(Long userId);
+
+    /** 토큰 등록/해제, 커플 연동/해제 시 해당 사용자들의 캐시 제거 */
+    void invalidate(Collection<Long> userIds);
 }
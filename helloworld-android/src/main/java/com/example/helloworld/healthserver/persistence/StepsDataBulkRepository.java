@@ -0,0 +1,14 @@
+package com.example.helloworld.healthserver.persistence;
+
+import java.time.Instant;
+
+/**
+ * steps_data 대량 적재 (COPY) — Health Connect 걸음수 이력 가져오기/백필 용
+ */
+public interface StepsDataBulkRepository {
+
+    record Row(Instant date, Integer steps, Double latitude, Double longitude) {}
+
+    /** @return 삽입된 행 수 */
+    long copyAll(Long coupleId, Iterable<Row> rows);
+}
@@ -0,0 +1,21 @@
+package com.example.helloworld.healthserver.persistence;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * StepsDataRepository 의 커스텀 프래그먼트.
+ * IDENTITY PK 라 saveAll 은 행마다 INSERT ... RETURNING 을 보내므로 대량 적재는 COPY 로 보낸다.
+ */
+@RequiredArgsConstructor
+public class StepsDataBulkRepositoryImpl implements StepsDataBulkRepository {
+
+    private static final String COPY_COLUMNS = "couple_id, \"date\", steps, latitude, longitude";
+
+    private final PgCopyWriter copyWriter;
+
+    @Override
+    public long copyAll(Long coupleId, Iterable<Row> rows) {
+        return copyWriter.copy("steps_data", COPY_COLUMNS, rows, (r, line) -> line
+                .add(coupleId).add(r.date()).add(r.steps()).add(r.latitude()).add(r.longitude()));
+    }
+}
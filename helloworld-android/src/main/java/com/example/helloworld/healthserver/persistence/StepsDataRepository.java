@@ -9,13 +9,16 @@ import org.springframework.data.repository.query.Param;
 import java.time.Instant;
 import java.util.List;
 
-public interface StepsDataRepository extends JpaRepository<StepsData, Long> {
+public interface StepsDataRepository extends JpaRepository<StepsData, Long>, StepsDataBulkRepository {
 
     // 단건 조회(권한검증용)
     StepsData findByStepsIdAndCoupleId(Long stepsId, Long coupleId);
 
     StepsData findFirstByCoupleIdOrderByDateDesc(Long coupleId);
 
+    // 하한이 있으면 파티션 테이블에서 그 이후 파티션만 읽음
+    StepsData findFirstByCoupleIdAndDateGreaterThanEqualOrderByDateDesc(Long coupleId, Instant since);
+
     // 기간 조회(옵션)
     List<StepsData> findByCoupleIdAndDateBetweenOrderByDateDesc(Long coupleId, Instant from, Instant to);
 
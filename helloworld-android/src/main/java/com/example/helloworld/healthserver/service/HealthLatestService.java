@@ -2,6 +2,7 @@ package com.example.helloworld.healthserver.service;
 
 
 import com.example.helloworld.healthserver.dto.response.HealthLatestResponse;
+import com.example.helloworld.healthserver.dto.response.HealthRecentResponse;
 import com.example.helloworld.healthserver.entity.HealthData;
 import com.example.helloworld.healthserver.entity.StepsData;
 import com.example.helloworld.healthserver.persistence.HealthDataRepository;
@@ -9,35 +10,95 @@ import com.example.helloworld.healthserver.persistence.StepsDataRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 최신/최근 구간 조회.
+ * - 최신값: LatestVitalsCache(로컬 → Redis) → RecentVitalsStore → DB 순. 캐시 밖에서 읽은 값은 캐시에 채운다
+ * - 최근 구간: RecentVitalsStore 에 있으면 메모리에서, 없으면 DB 에서 읽고 메모리를 채운다
+ * 메모리에서 답하면 DB 커넥션을 잡지 않도록 메서드 단위 트랜잭션은 두지 않음 (리포지토리 호출 단위)
+ */
 @Service
 @RequiredArgsConstructor
 public class HealthLatestService {
 
+    private static final int MAX_RECENT_MINUTES = 1440;
+    // 최신 1건은 보통 최근 파티션에 있음 → 하한을 줘서 그 파티션만 읽고, 없을 때만 전체
+    private static final Duration LATEST_LOOKBACK = Duration.ofDays(2);
+
     private final HealthDataRepository healthRepo;
     private final StepsDataRepository stepsRepo;
+    private final RecentVitalsStore recent;
+    private final LatestVitalsCache latestCache;
 
-    @Transactional(readOnly = true)
     public HealthLatestResponse getLatest(Long coupleId) {
         if (coupleId == null || coupleId <= 0) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid couple_id");
         }
 
-        StepsData s = stepsRepo.findFirstByCoupleIdOrderByDateDesc(coupleId);
-        HealthData h = healthRepo.findFirstByCoupleIdOrderByDateDesc(coupleId);
+        LatestVitalsCache.Snapshot cached = latestCache.get(coupleId);
+        HealthLatestResponse.StepItem stepItem = cached.steps() != null ? cached.steps() : loadSteps(coupleId);
+        HealthLatestResponse.HrItem hrItem = cached.hr() != null ? cached.hr() : loadHr(coupleId);
+        return new HealthLatestResponse(stepItem, hrItem);
+    }
 
-        HealthLatestResponse.StepItem stepItem = (s == null) ? null :
-                new HealthLatestResponse.StepItem(
-                        s.getStepsId(), s.getDate(), s.getSteps(), s.getLatitude(), s.getLongitude()
-                );
+    private HealthLatestResponse.StepItem loadSteps(Long coupleId) {
+        HealthLatestResponse.StepItem item = recent.latestSteps(coupleId).orElseGet(() -> {
+            StepsData s = stepsRepo.findFirstByCoupleIdAndDateGreaterThanEqualOrderByDateDesc(
+                    coupleId, Instant.now().minus(LATEST_LOOKBACK));
+            if (s == null) s = stepsRepo.findFirstByCoupleIdOrderByDateDesc(coupleId);
+            if (s == null) return null;
+            var row = new HealthLatestResponse.StepItem(
+                    s.getStepsId(), s.getDate(), s.getSteps(), s.getLatitude(), s.getLongitude()
+            );
+            recent.seedSteps(coupleId, s.getDate(), row);
+            return row;
+        });
+        latestCache.putSteps(coupleId, item); // 그 사이 더 새 값이 들어왔으면 무시됨
+        return item;
+    }
 
-        HealthLatestResponse.HrItem hrItem = (h == null) ? null :
-                new HealthLatestResponse.HrItem(
-                        h.getHealthId(), h.getDate(), h.getHeartrate(), h.getStress()
-                );
+    private HealthLatestResponse.HrItem loadHr(Long coupleId) {
+        HealthLatestResponse.HrItem item = recent.latestHr(coupleId).orElseGet(() -> {
+            HealthData h = healthRepo.findFirstByCoupleIdAndDateGreaterThanEqualOrderByDateDesc(
+                    coupleId, Instant.now().minus(LATEST_LOOKBACK));
+            if (h == null) h = healthRepo.findFirstByCoupleIdOrderByDateDesc(coupleId);
+            if (h == null) return null;
+            var row = toHrItem(h);
+            recent.seedHr(coupleId, h.getDate(), List.of(row));
+            return row;
+        });
+        latestCache.putHr(coupleId, item);
+        return item;
+    }
 
-        return new HealthLatestResponse(stepItem, hrItem);
+    /** 최근 minutes 분 심박/스트레스 (최신순) */
+    public HealthRecentResponse getRecent(Long coupleId, int minutes) {
+        if (coupleId == null || coupleId <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid couple_id");
+        }
+        if (minutes < 1 || minutes > MAX_RECENT_MINUTES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minutes는 1~" + MAX_RECENT_MINUTES);
+        }
+
+        Instant to = Instant.now();
+        Instant from = to.minus(Duration.ofMinutes(minutes));
+        List<HealthLatestResponse.HrItem> items = recent.hrBetween(coupleId, from, to).orElseGet(() -> {
+            List<HealthLatestResponse.HrItem> rows = healthRepo
+                    .findByCoupleIdAndDateBetweenOrderByDateDesc(coupleId, from, to).stream()
+                    .map(HealthLatestService::toHrItem)
+                    .toList();
+            recent.seedHr(coupleId, from, rows);
+            return rows;
+        });
+        return new HealthRecentResponse(from, to, items);
+    }
+
+    private static HealthLatestResponse.HrItem toHrItem(HealthData h) {
+        return new HealthLatestResponse.HrItem(h.getHealthId(), h.getDate(), h.getHeartrate(), h.getStress());
     }
-}
\ No newline at end of file
+}
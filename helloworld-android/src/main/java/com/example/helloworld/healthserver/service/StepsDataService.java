@@ -6,6 +6,7 @@ import com.example.helloworld.healthserver.config.UserPrincipal;
 import com.example.helloworld.healthserver.dto.StepsDtos;
 import com.example.helloworld.healthserver.dto.StepsDtos.CreateRequest;
 import com.example.helloworld.healthserver.dto.StepsDtos.CreateResponse;
+import com.example.helloworld.healthserver.dto.response.HealthLatestResponse;
 import com.example.helloworld.healthserver.entity.StepsData;
 import com.example.helloworld.healthserver.persistence.StepsDataRepository;
 import lombok.RequiredArgsConstructor;
@@ -33,6 +34,8 @@ public class StepsDataService {
 
     private final AiServerClient aiServerClient;
     private final FcmService fcmService;
+    private final RecentVitalsStore recent;
+    private final LatestVitalsCache latestCache;
 
     @Value("${app.zone:Asia/Seoul}")
     private String appZone;
@@ -104,6 +107,9 @@ public class StepsDataService {
 
         row = repo.save(row);
         log.info("Steps saved with id: {}", row.getStepsId());
+        recent.recordSteps(coupleId, row.getStepsId(), row.getDate(), row.getSteps(), row.getLatitude(), row.getLongitude());
+        latestCache.putSteps(coupleId, new HealthLatestResponse.StepItem(
+                row.getStepsId(), row.getDate(), row.getSteps(), row.getLatitude(), row.getLongitude()));
         return new CreateResponse(row.getStepsId(), row.getDate(), row.getSteps());
     }
 
@@ -0,0 +1,210 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AlertCooldownGateTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // Redis 없이 로컬 계층만 (restrict 600s, emergency 300s)
+    private final AlertCooldownGate gate = new AlertCooldownGate(
+            new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+            registry, true, true, 600, 300);
+
+    private final Instant t0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    @DisplayName("같은 커플·모드·이유는 window 안에서 한 번만 통과")
+    void suppressesDuplicateWithinWindow() {
+        var first = gate.admit(1L, "restrict", "HR_HIGH", t0);
+        assertTrue(first.send());
+        assertEquals(t0.plusSeconds(600), first.restrictCooldownUntil());
+        assertNull(first.emergencyCooldownUntil());
+
+        assertFalse(gate.admit(1L, "RESTRICT", "HR_HIGH", t0.plusSeconds(5)).send());
+        assertTrue(gate.admit(1L, "restrict", "HR_HIGH", t0.plusSeconds(601)).send(), "window 이후 재발송");
+
+        assertEquals(2.0, registry.get("alert.cooldown.decisions").tag("result", "sent").counter().count());
+        assertEquals(1.0, registry.get("alert.cooldown.decisions").tag("result", "suppressed").counter().count());
+    }
+
+    @Test
+    @DisplayName("다른 이유 코드·다른 커플은 독립")
+    void keysAreIndependent() {
+        assertTrue(gate.admit(1L, "restrict", "HR_HIGH", t0).send());
+        assertTrue(gate.admit(1L, "restrict", "STRESS_HIGH", t0).send());
+        assertTrue(gate.admit(2L, "restrict", "HR_HIGH", t0).send());
+    }
+
+    @Test
+    @DisplayName("restrict → emergency 격상은 항상 통과, emergency 쿨다운 중 restrict 는 억제")
+    void escalationAlwaysPasses() {
+        assertTrue(gate.admit(1L, "restrict", "HR_HIGH", t0).send());
+        var esc = gate.admit(1L, "emergency", "HR_HIGH", t0.plusSeconds(10));
+        assertTrue(esc.send());
+        assertEquals(t0.plusSeconds(310), esc.emergencyCooldownUntil());
+
+        assertFalse(gate.admit(1L, "emergency", "HR_HIGH", t0.plusSeconds(20)).send());
+        assertFalse(gate.admit(1L, "restrict", "STRESS_HIGH", t0.plusSeconds(30)).send(), "격하 알림 억제");
+        assertTrue(gate.admit(1L, "restrict", "STRESS_HIGH", t0.plusSeconds(311)).send());
+    }
+
+    /**
+     * 레플리카들이 함께 쓰는 Redis 대역: ACQUIRE/RELEASE 스크립트를 같은 의미로 흉내 (시각은 nowMs 로 맞춤).
+     * 값: {토큰, 만료 epoch ms}
+     */
+    private static final class SharedRedis {
+        final Map<String, String[]> keys = new HashMap<>();
+        long nowMs;
+
+        StringRedisTemplate template() {
+            StringRedisTemplate redis = mock(StringRedisTemplate.class);
+            when(redis.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                    .thenAnswer(inv -> acquire(inv.getArgument(1), inv.getArgument(2), inv.getArgument(3), inv.getArgument(4)));
+            when(redis.execute(any(RedisScript.class), anyList(), any()))
+                    .thenAnswer(inv -> release(inv.getArgument(1), inv.getArgument(2)));
+            return redis;
+        }
+
+        private synchronized long acquire(List<String> k, String token, String windowMs, String emergency) {
+            if (emergency.equals("0") && pttl(k.get(1)) > 0) return -pttl(k.get(1));
+            if (pttl(k.get(0)) <= 0) {
+                String until = Long.toString(nowMs + Long.parseLong(windowMs));
+                keys.put(k.get(0), new String[]{token, until});
+                if (emergency.equals("1")) keys.put(k.get(1), new String[]{token, until});
+                return 0;
+            }
+            return pttl(k.get(0));
+        }
+
+        private synchronized long release(List<String> k, String token) {
+            long n = 0;
+            for (String key : k) {
+                String[] v = keys.get(key);
+                if (v != null && v[0].equals(token) && keys.remove(key) != null) n++;
+            }
+            return n;
+        }
+
+        private long pttl(String key) {
+            String[] v = keys.get(key);
+            return v == null ? -2 : Long.parseLong(v[1]) - nowMs;
+        }
+    }
+
+    private AlertCooldownGate replica(SharedRedis shared) {
+        return new AlertCooldownGate(new StaticListableBeanFactory(Map.of("redis", shared.template()))
+                .getBeanProvider(StringRedisTemplate.class), registry, true, true, 600, 300);
+    }
+
+    @Test
+    @DisplayName("다른 레플리카가 보낸 emergency 창 동안 이 레플리카의 restrict 도 억제 (Redis 창 키)")
+    void emergencyWindowSuppressesRestrictOnOtherReplica() {
+        SharedRedis shared = new SharedRedis();
+        AlertCooldownGate a = replica(shared), b = replica(shared);
+
+        shared.nowMs = t0.toEpochMilli();
+        assertTrue(a.admit(1L, "emergency", "HR_HIGH", t0).send());
+        assertNotNull(shared.keys.get("alert:{c:1}:emergency:*"), "창 키");
+
+        shared.nowMs = t0.plusSeconds(30).toEpochMilli();
+        assertFalse(b.admit(1L, "restrict", "STRESS_HIGH", t0.plusSeconds(30)).send(), "B 의 격하 알림 억제");
+        assertEquals(1.0, registry.get("alert.cooldown.decisions")
+                .tags("result", "suppressed", "mode", "restrict", "tier", "redis").counter().count());
+        // B 는 창 만료 시각을 로컬에도 기억 → Redis 를 다시 보지 않고 억제
+        assertFalse(b.admit(1L, "restrict", "HR_HIGH", t0.plusSeconds(40)).send());
+        assertEquals(1.0, registry.get("alert.cooldown.decisions")
+                .tags("result", "suppressed", "mode", "restrict", "tier", "local").counter().count());
+        assertTrue(b.admit(2L, "restrict", "STRESS_HIGH", t0.plusSeconds(40)).send(), "다른 커플은 독립");
+
+        shared.nowMs = t0.plusSeconds(301).toEpochMilli();
+        assertTrue(b.admit(1L, "restrict", "STRESS_HIGH", t0.plusSeconds(301)).send(), "창이 지나면 통과");
+    }
+
+    @Test
+    @DisplayName("Redis 로 emergency 가 억제된 레플리카도 그 창 동안 restrict 를 억제")
+    void replicaSuppressedThroughRedisAlsoSuppressesRestrict() {
+        SharedRedis shared = new SharedRedis();
+        AlertCooldownGate a = replica(shared), b = replica(shared);
+
+        shared.nowMs = t0.toEpochMilli();
+        assertTrue(a.admit(1L, "emergency", "HR_HIGH", t0).send());
+        shared.nowMs = t0.plusSeconds(10).toEpochMilli();
+        assertFalse(b.admit(1L, "emergency", "HR_HIGH", t0.plusSeconds(10)).send());
+
+        shared.keys.clear(); // Redis 가 비어도 B 는 로컬 창으로 억제
+        assertFalse(b.admit(1L, "restrict", "HR_HIGH", t0.plusSeconds(20)).send());
+    }
+
+    @Test
+    @DisplayName("emergency 를 예약한 트랜잭션이 롤백되면 Redis 창 키도 풀려 다른 레플리카의 restrict 가 나감")
+    void rollbackReleasesEmergencyWindow() {
+        SharedRedis shared = new SharedRedis();
+        AlertCooldownGate a = replica(shared), b = replica(shared);
+        shared.nowMs = t0.toEpochMilli();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(a.admit(1L, "emergency", "HR_HIGH", t0).send());
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(shared.keys.isEmpty());
+        assertTrue(b.admit(1L, "restrict", "HR_HIGH", t0.plusSeconds(5)).send());
+        assertTrue(a.admit(1L, "emergency", "HR_HIGH", t0.plusSeconds(6)).send(), "롤백된 emergency 는 다시 보낼 수 있음");
+    }
+
+    @Test
+    @DisplayName("normal 모드는 쿨다운 대상 아님")
+    void normalModeBypasses() {
+        assertTrue(gate.admit(1L, "normal", "UNKNOWN", t0).send());
+        assertTrue(gate.admit(1L, "normal", "UNKNOWN", t0).send());
+    }
+
+    @Test
+    @DisplayName("동시에 들어온 같은 알림은 정확히 하나만 통과")
+    void concurrentAdmitsPassOnce() throws Exception {
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger passed = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    if (gate.admit(7L, "emergency", "HR_Z_SPIKE", t0).send()) passed.incrementAndGet();
+                } catch (InterruptedException ignored) {
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, passed.get());
+    }
+}
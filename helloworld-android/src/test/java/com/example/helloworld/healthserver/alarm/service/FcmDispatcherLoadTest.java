@@ -0,0 +1,105 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import com.example.helloworld.healthserver.notif.PushTransport;
+import com.example.helloworld.healthserver.notif.PushTransport.Delivery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 리마인더 폭주 시 FCM 발송 비교 (./gradlew loadTest --tests '*FcmDispatcherLoadTest')
+ * MESSAGES 건을 CALLERS 스레드가 한꺼번에 submit 하는 상황.
+ * - direct: fcm.dispatch.batched=false (예전 경로) — 호출 스레드가 건마다 HTTPS 1회
+ * - batched: FcmDispatcher 마이크로배치 (max-batch 500, linger 20ms, sender 4) — 배치당 HTTPS 1회
+ * 로컬 FCM 대역은 호출 1회에 FCM_MS + 건당 PER_MSG_US 가 걸린다고 본다 (sendEach 는 내부에서 병렬 전송).
+ * 처리량(msg/s), 전송 호출 수, 요청 생성→결과 지연 p50/p99 (호출 스레드 대기 포함) 를 출력.
+ */
+@Tag("load")
+class FcmDispatcherLoadTest {
+
+    private static final int MESSAGES = 10_000;
+    private static final int CALLERS = 32;
+    private static final long FCM_MS = 40;
+    private static final long PER_MSG_US = 20;
+
+    private record Result(String name, long wallMs, long calls, long p50Us, long p99Us) {
+        @Override public String toString() {
+            return String.format("%-7s messages=%d fcm-calls=%d wall=%dms msg/s=%.0f latency p50=%dus p99=%dus",
+                    name, MESSAGES, calls, wallMs, MESSAGES * 1000.0 / wallMs, p50Us, p99Us);
+        }
+    }
+
+    private static PushTransport localFcm(AtomicLong calls) {
+        return batch -> {
+            calls.incrementAndGet();
+            try {
+                TimeUnit.MICROSECONDS.sleep(TimeUnit.MILLISECONDS.toMicros(FCM_MS) + PER_MSG_US * batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<Delivery> out = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) out.add(Delivery.ok("m"));
+            return out;
+        };
+    }
+
+    private static Result drive(String name, boolean batched) throws Exception {
+        AtomicLong calls = new AtomicLong();
+        FcmDispatcher dispatcher = new FcmDispatcher(localFcm(calls), new SimpleMeterRegistry(),
+                batched, 500, 20, 50_000, 4);
+        dispatcher.start();
+
+        long[] latencies = new long[MESSAGES];
+        CountDownLatch done = new CountDownLatch(MESSAGES);
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            final int idx = i;
+            long t0 = System.nanoTime(); // 리마인더가 생긴 시점부터 (호출 스레드 대기 포함)
+            callers.execute(() -> {
+                CompletableFuture<Delivery> f = dispatcher.submit("t" + idx, Map.of("type", "REMINDER"), (long) idx, "ANDROID");
+                f.thenAccept(d -> {
+                    latencies[idx] = System.nanoTime() - t0;
+                    done.countDown();
+                });
+            });
+        }
+        assertTrue(done.await(120, TimeUnit.SECONDS), name + " did not finish");
+        long wall = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        callers.shutdown();
+        dispatcher.shutdown();
+
+        Arrays.sort(latencies);
+        return new Result(name, Math.max(1, wall), calls.get(),
+                TimeUnit.NANOSECONDS.toMicros(latencies[MESSAGES / 2]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[(int) (MESSAGES * 0.99)]));
+    }
+
+    @Test
+    @DisplayName("리마인더 폭주: 건별 발송 vs 마이크로배치")
+    void reminderBurst() throws Exception {
+        Result direct = drive("direct", false);
+        Result batched = drive("batched", true);
+
+        System.out.println("[FCM-LOAD] " + direct);
+        System.out.println("[FCM-LOAD] " + batched);
+
+        assertEquals(MESSAGES, direct.calls());
+        assertTrue(batched.calls() * 20 < direct.calls(), "batching cuts FCM calls");
+        assertTrue(batched.wallMs() * 5 < direct.wallMs(), "batched throughput should be >= 5x direct");
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import com.example.helloworld.healthserver.notif.PushTransport;
+import com.example.helloworld.healthserver.notif.PushTransport.Delivery;
+import com.example.helloworld.healthserver.notif.PushTransport.PushRequest;
+import com.google.firebase.messaging.MessagingErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FcmDispatcherTest {
+
+    // 로컬 FCM 대역: 호출마다 배치 크기를 기록하고, "bad" 로 시작하는 토큰은 UNREGISTERED 로 실패
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final PushTransport localFcm = batch -> {
+        batchSizes.add(batch.size());
+        List<Delivery> out = new ArrayList<>(batch.size());
+        for (PushRequest r : batch) {
+            out.add(r.token().startsWith("bad")
+                    ? Delivery.failed(MessagingErrorCode.UNREGISTERED, null)
+                    : Delivery.ok("msg-" + r.token()));
+        }
+        return out;
+    };
+
+    private FcmDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("짧은 시간에 들어온 요청은 한 번의 배치로 나가고 결과는 요청별 future 로 돌아온다")
+    void batchesAndMapsResults() throws Exception {
+        dispatcher = new FcmDispatcher(localFcm, new SimpleMeterRegistry(), true, 500, 200, 10_000, 2);
+        dispatcher.start();
+
+        List<CompletableFuture<Delivery>> futures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String token = (i % 100 == 0) ? "bad" + i : "t" + i;
+            futures.add(dispatcher.submit(token, Map.of("type", "REMINDER"), (long) i, "ANDROID"));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            Delivery d = futures.get(i).get(5, TimeUnit.SECONDS);
+            if (i % 100 == 0) {
+                assertFalse(d.success());
+                assertEquals(MessagingErrorCode.UNREGISTERED, d.errorCode());
+            } else {
+                assertTrue(d.success());
+                assertEquals("msg-t" + i, d.messageId());
+            }
+        }
+        assertEquals(300, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.size() < 300, "should coalesce into batches: " + batchSizes);
+    }
+
+    @Test
+    @DisplayName("max-batch 를 넘으면 여러 배치로 나뉜다")
+    void splitsAtMaxBatch() throws Exception {
+        dispatcher = new FcmDispatcher(localFcm, new SimpleMeterRegistry(), true, 50, 500, 10_000, 1);
+        dispatcher.start();
+
+        List<CompletableFuture<Delivery>> futures = new ArrayList<>();
+        for (int i = 0; i < 120; i++) futures.add(dispatcher.submit("t" + i, Map.of(), 1L, "WATCH"));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertTrue(batchSizes.stream().allMatch(n -> n <= 50), batchSizes.toString());
+        assertEquals(120, batchSizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    @DisplayName("sender 예외 시 배치 전체가 실패로 완료된다 (future 가 매달리지 않음)")
+    void senderFailureCompletesFutures() throws Exception {
+        dispatcher = new FcmDispatcher(batch -> { throw new IllegalStateException("boom"); },
+                new SimpleMeterRegistry(), true, 500, 10, 10_000, 1);
+        dispatcher.start();
+
+        Delivery d = dispatcher.submit("t", Map.of(), 1L, "ANDROID").get(5, TimeUnit.SECONDS);
+        assertFalse(d.success());
+        assertEquals("EXCEPTION", d.error());
+    }
+
+    @Test
+    @DisplayName("batched=false 면 호출 스레드에서 1건씩 바로 발송 (기존 경로)")
+    void directMode() throws Exception {
+        dispatcher = new FcmDispatcher(localFcm, new SimpleMeterRegistry(), false, 500, 20, 10_000, 1);
+        dispatcher.start();
+
+        Delivery d = dispatcher.submit("t1", Map.of(), 1L, "ANDROID").getNow(null);
+        assertNotNull(d);
+        assertTrue(d.success());
+        assertEquals(List.of(1), batchSizes);
+    }
+
+    @Test
+    @DisplayName("shutdown 이후 submit 은 SHUTDOWN 으로 바로 완료된다")
+    void submitAfterShutdownIsRejected() throws Exception {
+        dispatcher = new FcmDispatcher(localFcm, new SimpleMeterRegistry(), true, 500, 20, 10_000, 1);
+        dispatcher.start();
+        dispatcher.shutdown();
+
+        Delivery d = dispatcher.submit("t", Map.of(), 1L, "ANDROID").get(1, TimeUnit.SECONDS);
+        assertFalse(d.success());
+        assertEquals("SHUTDOWN", d.error());
+        assertTrue(batchSizes.isEmpty(), "must not send after shutdown");
+    }
+
+    @Test
+    @DisplayName("shutdown 과 겹쳐 들어온 submit 도 모두 완료된다 (매달린 future 없음)")
+    void submitRacingShutdownAlwaysCompletes() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            FcmDispatcher d = new FcmDispatcher(localFcm, new SimpleMeterRegistry(), true, 50, 1, 10_000, 2);
+            d.start();
+            List<CompletableFuture<Delivery>> futures = new CopyOnWriteArrayList<>();
+            ExecutorService callers = Executors.newFixedThreadPool(4);
+            CountDownLatch go = new CountDownLatch(1);
+            for (int t = 0; t < 4; t++) {
+                callers.execute(() -> {
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 500; i++) futures.add(d.submit("t" + i, Map.of(), 1L, "ANDROID"));
+                });
+            }
+            go.countDown();
+            d.shutdown();
+            callers.shutdown();
+            assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+            assertEquals(2_000, futures.size());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import com.example.helloworld.healthserver.notif.TokenResolver;
+import com.example.helloworld.healthserver.notif.TokenResolver.DeviceTokens;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FcmServiceTimeoutTest {
+
+    @Test
+    @DisplayName("발송 결과가 오지 않아도 result-timeout-ms 뒤 TIMEOUT 으로 돌아온다 (join 무한 대기 없음)")
+    void deliverEmergencyTripleTimesOut() {
+        TokenResolver tokens = mock(TokenResolver.class);
+        when(tokens.latestTokens(1L)).thenReturn(new DeviceTokens("a1", "w1"));
+        when(tokens.latestTokens(2L)).thenReturn(new DeviceTokens("a2", null));
+        when(tokens.partnerOf(1L)).thenReturn(2L);
+        FcmDispatcher dispatcher = mock(FcmDispatcher.class);
+        // 완료되지 않는 future (FCM 응답 없음)
+        when(dispatcher.submit(anyString(), any(), anyLong(), anyString())).thenAnswer(inv -> new CompletableFuture<>());
+        RecipientStatusBuffer recipients = mock(RecipientStatusBuffer.class);
+
+        FcmService service = new FcmService(tokens, mock(DeadTokenReporter.class), recipients, dispatcher);
+        ReflectionTestUtils.setField(service, "resultTimeoutMs", 200L);
+
+        Map<String, FcmService.SendResult> results = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                service.deliverEmergencyTriple(10L, 1L, 160, "emergency", "high", List.of("HR high"),
+                        null, null, Set.of()));
+
+        assertEquals(3, results.size());
+        results.values().forEach(r -> {
+            assertFalse(r.success);
+            assertEquals("TIMEOUT", r.errorCode);
+            assertTrue(r.retryable(), "outbox must retry a timed-out send");
+        });
+        verify(recipients, times(2)).add(any());
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import com.example.helloworld.healthserver.alarm.entity.NotificationOutbox;
+import com.example.helloworld.healthserver.alarm.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BACKOFF_BASE_MS = 2_000;
+    private static final long BACKOFF_MAX_MS = 60_000;
+
+    static class NoopTxManager extends AbstractPlatformTransactionManager {
+        @Override protected Object doGetTransaction() { return new Object(); }
+        @Override protected void doBegin(Object tx, TransactionDefinition def) {}
+        @Override protected void doCommit(DefaultTransactionStatus status) {}
+        @Override protected void doRollback(DefaultTransactionStatus status) {}
+    }
+
+    private final NotificationOutboxRepository repo = mock(NotificationOutboxRepository.class);
+    private final FcmService fcm = mock(FcmService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private OutboxDispatcher dispatcher(TaskExecutor executor, long leaseSeconds) {
+        return new OutboxDispatcher(repo, fcm, executor, new NoopTxManager(), registry,
+                1, 10, 1_000, leaseSeconds, MAX_ATTEMPTS, BACKOFF_BASE_MS, BACKOFF_MAX_MS, 7);
+    }
+
+    private NotificationOutbox row(int previousAttempts) {
+        NotificationOutbox o = NotificationOutbox.emergency(100L, 7L, 1L, 160, "emergency", "high",
+                List.of("HR high"), null, null);
+        ReflectionTestUtils.setField(o, "id", 1L);
+        ReflectionTestUtils.setField(o, "attempts", previousAttempts);
+        when(repo.lockDue(any(), anyInt())).thenReturn(List.of(o)).thenReturn(List.of());
+        return o;
+    }
+
+    private void fcmReturns(FcmService.SendResult android, FcmService.SendResult watch) {
+        when(fcm.deliverEmergencyTriple(anyLong(), anyLong(), anyInt(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Map.of(FcmService.ANDROID, android, FcmService.WATCH, watch));
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    private static final FcmService.SendResult OK = new FcmService.SendResult(true, "m", null);
+    private static final FcmService.SendResult UNAVAILABLE = new FcmService.SendResult(false, null, "UNAVAILABLE");
+
+    @Test
+    @DisplayName("전부 성공하면 임대 토큰 조건으로 SENT 반영")
+    void marksSentWithLeaseToken() throws Exception {
+        NotificationOutbox o = row(0);
+        fcmReturns(OK, OK);
+        when(repo.finishLease(any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+
+        assertEquals(1, dispatcher(Runnable::run, 60).runOnce());
+
+        String token = o.getLeaseToken();
+        assertNotNull(token);
+        verify(repo).finishLease(eq(1L), eq(token), eq("SENT"), any(), argThat(d -> d.contains("ANDROID") && d.contains("WATCH")),
+                isNull(), notNull());
+        assertEquals(1.0, count("fcm.outbox.sent"));
+        assertEquals(1, o.getAttempts());
+    }
+
+    @Test
+    @DisplayName("일시적 실패는 PENDING 으로 두고 지수 백오프 뒤 재시도, 전달된 대상은 기억")
+    void retriesWithBackoff() throws Exception {
+        row(1); // 이번이 2번째 시도 → base * 2
+        fcmReturns(OK, UNAVAILABLE);
+        when(repo.finishLease(any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+
+        Instant before = Instant.now();
+        dispatcher(Runnable::run, 60).runOnce();
+
+        ArgumentCaptor<Instant> next = ArgumentCaptor.forClass(Instant.class);
+        verify(repo).finishLease(eq(1L), any(), eq("PENDING"), next.capture(), eq("ANDROID"),
+                eq("WATCH:UNAVAILABLE"), isNull());
+        Duration delay = Duration.between(before, next.getValue());
+        assertTrue(delay.toMillis() >= 2 * BACKOFF_BASE_MS, delay.toString());
+        assertTrue(delay.toMillis() <= 2 * BACKOFF_BASE_MS * 6 / 5 + 1_000, delay.toString());
+        assertEquals(1.0, count("fcm.outbox.retried"));
+    }
+
+    @Test
+    @DisplayName("백오프는 시도마다 두 배, backoff-max 에서 멈춤 (+20% 이내 지터)")
+    void backoffDoublesAndCaps() {
+        OutboxDispatcher d = dispatcher(Runnable::run, 60);
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long expected = Math.min(BACKOFF_BASE_MS << (attempt - 1), BACKOFF_MAX_MS);
+            long got = d.backoff(attempt).toMillis();
+            assertTrue(got >= expected && got <= expected + expected / 5, "attempt " + attempt + ": " + got);
+        }
+        assertTrue(d.backoff(64).toMillis() <= BACKOFF_MAX_MS * 6 / 5, "shift must not overflow");
+    }
+
+    @Test
+    @DisplayName("max-attempts 에 도달하면 FAILED")
+    void marksFailedAfterMaxAttempts() throws Exception {
+        row(MAX_ATTEMPTS - 1);
+        when(fcm.deliverEmergencyTriple(anyLong(), anyLong(), anyInt(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("user server down"));
+        when(repo.finishLease(any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+
+        dispatcher(Runnable::run, 60).runOnce();
+
+        verify(repo).finishLease(eq(1L), any(), eq("FAILED"), any(), any(),
+                argThat(e -> e.contains("user server down")), isNull());
+        assertEquals(1.0, count("fcm.outbox.failed"));
+        assertEquals(0.0, count("fcm.outbox.retried"));
+    }
+
+    @Test
+    @DisplayName("lease 가 만료돼 다른 워커가 가져간 행(조건부 UPDATE 0건)은 결과를 덮어쓰지 않고 lease_lost 로 집계")
+    void leaseLostIsNotCountedAsSent() throws Exception {
+        row(0);
+        fcmReturns(OK, OK);
+        when(repo.finishLease(any(), any(), any(), any(), any(), any(), any())).thenReturn(0);
+
+        dispatcher(Runnable::run, 60).runOnce();
+
+        assertEquals(1.0, count("fcm.outbox.lease_lost"));
+        assertEquals(0.0, count("fcm.outbox.sent"));
+        verify(repo, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("배치가 lease 안에 끝나지 않으면 lease_overrun 으로 집계하고 넘어감, 늦게 끝난 건도 토큰 조건으로 반영 시도")
+    void leaseOverrunIsHandled() throws Exception {
+        NotificationOutbox o = row(0);
+        CountDownLatch release = new CountDownLatch(1);
+        when(fcm.deliverEmergencyTriple(anyLong(), anyLong(), anyInt(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> {
+                    release.await(10, TimeUnit.SECONDS);
+                    return Map.of(FcmService.ANDROID, OK);
+                });
+        CountDownLatch finished = new CountDownLatch(1);
+        when(repo.finishLease(any(), any(), any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            finished.countDown();
+            return 0; // 그 사이 다른 워커가 다시 임대함
+        });
+
+        long t0 = System.nanoTime();
+        assertEquals(1, dispatcher(new SimpleAsyncTaskExecutor(), 1).runOnce());
+        assertTrue(Duration.ofNanos(System.nanoTime() - t0).toMillis() < 5_000, "worker must not wait past the lease");
+        assertEquals(1.0, count("fcm.outbox.lease_overrun"));
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        verify(repo).finishLease(eq(1L), eq(o.getLeaseToken()), any(), any(), any(), any(), any());
+        Thread.sleep(50);
+        assertEquals(1.0, count("fcm.outbox.lease_lost"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import com.example.helloworld.healthserver.client.UserServerClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 알림 폭주 시 수신자 상태 기록 비교 (./gradlew loadTest --tests '*RecipientStatusBufferLoadTest')
+ * 커플 COUPLES 쌍에 응급 알림이 한꺼번에 나가 수신자 상태가 COUPLES x 4건 생기는 상황을 SENDERS 스레드로 흉내.
+ * - per-row: 발송 스레드가 건마다 upsertRecipient (예전 방식, 유저서버 왕복 USER_MS)
+ * - buffered: RecipientStatusBuffer.add() — 발송 스레드는 큐에 넣기만, batch-size 마다 fcm-rcpt-flush 가 다건 업서트
+ * 발송 스레드가 기록 호출에 묶인 시간(p50/p99/max), 유저서버 요청 수, 전체가 유저서버에 반영될 때까지의 시간을 출력.
+ */
+@Tag("load")
+class RecipientStatusBufferLoadTest {
+
+    private static final int COUPLES = 5_000;
+    private static final int ROWS = COUPLES * 4;
+    private static final int SENDERS = 32;
+    private static final long USER_MS = 3;       // 유저서버 업서트 1회 왕복 (단건/다건 같게 봄)
+
+    private record Result(String name, long wallMs, long requests, long p50Us, long p99Us, long maxUs) {
+        @Override public String toString() {
+            return String.format("%-8s rows=%d requests=%d wall=%dms rows/s=%.0f record-call p50=%dus p99=%dus max=%dus",
+                    name, ROWS, requests, wallMs, ROWS * 1000.0 / wallMs, p50Us, p99Us, maxUs);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Result drive(String name, Consumer<UserServerClient.UpsertReq> record,
+                                AtomicLong applied, AtomicLong requests) throws InterruptedException {
+        long[] latencies = new long[ROWS];
+        CountDownLatch done = new CountDownLatch(ROWS);
+        ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            final int idx = i;
+            senders.execute(() -> {
+                long t0 = System.nanoTime();
+                record.accept(new UserServerClient.UpsertReq((long) idx / 4, (long) idx, "SENT", "m-" + idx, null));
+                latencies[idx] = System.nanoTime() - t0;
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(120, TimeUnit.SECONDS), name + " senders did not finish");
+        senders.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (applied.get() < ROWS && System.nanoTime() < deadline) sleep(1);
+        long wall = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(ROWS, applied.get(), name + " rows applied");
+
+        Arrays.sort(latencies);
+        return new Result(name, Math.max(1, wall), requests.get(),
+                TimeUnit.NANOSECONDS.toMicros(latencies[ROWS / 2]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[(int) (ROWS * 0.99)]),
+                TimeUnit.NANOSECONDS.toMicros(latencies[ROWS - 1]));
+    }
+
+    @Test
+    @DisplayName("알림 폭주: per-row 업서트 vs RecipientStatusBuffer")
+    void alertBurst() throws Exception {
+        AtomicLong applied = new AtomicLong();
+        AtomicLong requests = new AtomicLong();
+        UserServerClient userClient = mock(UserServerClient.class);
+        doAnswer(inv -> {
+            sleep(USER_MS);
+            requests.incrementAndGet();
+            applied.incrementAndGet();
+            return null;
+        }).when(userClient).upsertRecipient(any());
+        doAnswer(inv -> {
+            sleep(USER_MS);
+            requests.incrementAndGet();
+            applied.addAndGet(inv.<UserServerClient.UpsertBatchReq>getArgument(0).items().size());
+            return null;
+        }).when(userClient).upsertRecipients(any());
+
+        Result perRow = drive("per-row", userClient::upsertRecipient, applied, requests);
+
+        applied.set(0);
+        requests.set(0);
+        RecipientStatusBuffer buffer = new RecipientStatusBuffer(userClient, new SimpleMeterRegistry(), 500, 20_000);
+        // 주기 flush(@Scheduled) 대역 — 스프링 없이 돌리므로 직접 200ms 마다
+        ExecutorService ticker = Executors.newSingleThreadExecutor();
+        ticker.execute(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                sleep(200);
+                buffer.flush();
+            }
+        });
+        Result buffered = drive("buffered", buffer::add, applied, requests);
+        ticker.shutdownNow();
+        buffer.drainOnShutdown();
+
+        System.out.println("[RCPT-LOAD] " + perRow);
+        System.out.println("[RCPT-LOAD] " + buffered);
+
+        assertTrue(buffered.requests() * 20 < perRow.requests(), "batching cuts user-server requests");
+        // 발송 스레드는 유저서버 왕복을 기다리지 않음 (size 트리거 flush 도 별도 스레드)
+        assertTrue(buffered.p99Us() < TimeUnit.MILLISECONDS.toMicros(USER_MS),
+                "add() p99 " + buffered.p99Us() + "us must stay below one user-server round trip");
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.helloworld.healthserver.alarm.service;
+
+import com.example.helloworld.healthserver.client.UserServerClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RecipientStatusBufferTest {
+
+    private final UserServerClient userClient = mock(UserServerClient.class);
+
+    private static UserServerClient.UpsertReq req(long i) {
+        return new UserServerClient.UpsertReq(1L, i, "SENT", "m-" + i, null);
+    }
+
+    @Test
+    @DisplayName("batch-size 도달 시 flush 는 fcm-rcpt-flush 스레드에서 — add() 는 유저서버를 기다리지 않음")
+    void sizeTriggeredFlushRunsOffCallerThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch called = new CountDownLatch(1);
+        AtomicReference<String> flushThread = new AtomicReference<>();
+        doAnswer(inv -> {
+            flushThread.set(Thread.currentThread().getName());
+            called.countDown();
+            release.await(5, TimeUnit.SECONDS); // 유저서버가 느림
+            return null;
+        }).when(userClient).upsertRecipients(any());
+        RecipientStatusBuffer buffer = new RecipientStatusBuffer(userClient, new SimpleMeterRegistry(), 10, 1_000);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < 25; i++) buffer.add(req(i));
+        long addMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+        assertTrue(called.await(5, TimeUnit.SECONDS));
+        assertEquals("fcm-rcpt-flush", flushThread.get());
+        assertTrue(addMs < 1_000, "add() blocked for " + addMs + "ms");
+        release.countDown();
+        buffer.drainOnShutdown();
+    }
+
+    @Test
+    @DisplayName("종료 시 남은 행을 모두 보냄")
+    void drainsOnShutdown() throws Exception {
+        AtomicInteger rows = new AtomicInteger();
+        doAnswer(inv -> {
+            rows.addAndGet(inv.<UserServerClient.UpsertBatchReq>getArgument(0).items().size());
+            return null;
+        }).when(userClient).upsertRecipients(any());
+        RecipientStatusBuffer buffer = new RecipientStatusBuffer(userClient, new SimpleMeterRegistry(), 10, 1_000);
+
+        for (int i = 0; i < 23; i++) buffer.add(req(i));
+        buffer.drainOnShutdown();
+
+        assertEquals(23, rows.get());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.helloworld.healthserver.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTaskExecutorTest {
+
+    private static long laneThreads(String lane) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("notif-" + lane + "-"))
+                .count();
+    }
+
+    @Test
+    @DisplayName("플랫폼 스레드 모드: 스레드는 maxConcurrency 개로 고정, 대기열이 차면 호출 스레드에서 실행 (버리지 않음)")
+    void platformPoolIsBoundedAndCallerRunsOnOverflow() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var executor = new BulkheadTaskExecutor("bounded-test", false, new Semaphore(2, true), null,
+                2, 5, BulkheadTaskExecutor.Overflow.CALLER_RUNS, registry);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2 + 5 + 1);
+        Runnable blocker = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        };
+        try {
+            executor.execute(blocker);
+            executor.execute(blocker);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (executor.queued() > 0 && System.nanoTime() < deadline) Thread.sleep(1); // 두 작업이 permit 을 잡을 때까지
+            for (int i = 0; i < 5; i++) executor.execute(done::countDown);
+            // 대기열 5 가 찼음 → 6번째 대기 작업은 제출한 스레드에서 permit 을 기다렸다가 실행
+            CompletableFuture<Void> overflow = CompletableFuture.runAsync(() -> executor.execute(done::countDown));
+            assertThrows(Exception.class, () -> overflow.get(200, TimeUnit.MILLISECONDS));
+            assertEquals(6, executor.queued(), "5 queued + 1 waiting on the caller thread");
+            assertTrue(laneThreads("bounded-test") <= 2, "waiting tasks must not hold platform threads");
+
+            release.countDown();
+            overflow.get(5, TimeUnit.SECONDS);
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(1.0, registry.get("notif.executor.caller_runs").tag("lane", "bounded-test").counter().count());
+            assertEquals(0.0, registry.get("notif.executor.rejected").tag("lane", "bounded-test").counter().count());
+        } finally {
+            release.countDown();
+            executor.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("대기열 상한은 1 이상이어야 한다 (무제한 큐 금지)")
+    void rejectsUnboundedQueue() {
+        assertThrows(IllegalArgumentException.class, () -> new BulkheadTaskExecutor("x", false, new Semaphore(1), null,
+                1, -1, BulkheadTaskExecutor.Overflow.CALLER_RUNS, new SimpleMeterRegistry()));
+    }
+}
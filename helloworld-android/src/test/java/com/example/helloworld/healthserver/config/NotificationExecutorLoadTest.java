@@ -0,0 +1,118 @@
+package com.example.helloworld.healthserver.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 알림 실행기 부하 비교 (./gradlew loadTest)
+ * 작업 1건 = Feign 3회 + FCM 1회를 흉내낸 블로킹 4 x IO_MS.
+ * - baseline: 스프링 부트 기본 applicationTaskExecutor (core 8, 무제한 큐)
+ * - bulkhead: NotificationExecutorConfig 와 같은 구성 (max-concurrency 64)
+ */
+@Tag("load")
+class NotificationExecutorLoadTest {
+
+    private static final int TASKS = 2_000;
+    private static final long IO_MS = 5;
+
+    private record Result(String name, long wallMs, long p50Ms, long p99Ms) {
+        @Override public String toString() {
+            return String.format("%-9s tasks=%d wall=%dms throughput=%.0f/s p50=%dms p99=%dms",
+                    name, TASKS, wallMs, TASKS * 1000.0 / wallMs, p50Ms, p99Ms);
+        }
+    }
+
+    private static Result drive(String name, TaskExecutor executor) throws InterruptedException {
+        long[] latencies = new long[TASKS];
+        CountDownLatch done = new CountDownLatch(TASKS);
+        long start = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            final int idx = i;
+            final long submitted = System.nanoTime();
+            executor.execute(() -> {
+                try {
+                    for (int c = 0; c < 4; c++) Thread.sleep(IO_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                latencies[idx] = System.nanoTime() - submitted;
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(120, TimeUnit.SECONDS), name + " did not finish");
+        long wall = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Arrays.sort(latencies);
+        return new Result(name,
+                Math.max(1, wall),
+                TimeUnit.NANOSECONDS.toMillis(latencies[TASKS / 2]),
+                TimeUnit.NANOSECONDS.toMillis(latencies[(int) (TASKS * 0.99)]));
+    }
+
+    @Test
+    @DisplayName("bulkhead 실행기가 기본 실행기보다 처리량/p99 가 좋다")
+    void compareWithDefaultExecutor() throws Exception {
+        ThreadPoolTaskExecutor baseline = new ThreadPoolTaskExecutor();
+        baseline.setCorePoolSize(8);          // spring.task.execution.pool 기본값
+        baseline.setThreadNamePrefix("task-");
+        baseline.initialize();
+
+        var config = new NotificationExecutorConfig(64, 16, true);
+        BulkheadTaskExecutor bulkhead = config.emergencyNotificationExecutor(new SimpleMeterRegistry(), 10_000);
+
+        try {
+            Result base = drive("baseline", baseline);
+            Result bulk = drive("bulkhead", bulkhead);
+            System.out.println("[LOAD] " + base);
+            System.out.println("[LOAD] " + bulk);
+
+            assertTrue(bulk.wallMs() < base.wallMs(), "bulkhead should finish sooner");
+            assertTrue(bulk.p99Ms() < base.p99Ms(), "bulkhead p99 should be lower");
+        } finally {
+            baseline.shutdown();
+            bulkhead.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("bulk 레인은 대기열이 차면 버리지만 emergency 레인은 모두 실행한다")
+    void emergencyNeverDropped() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        Semaphore outbound = new Semaphore(4, true);
+        var bulk = new BulkheadTaskExecutor("bulk", false, outbound, new Semaphore(2, true),
+                2, 10, BulkheadTaskExecutor.Overflow.DROP, registry);
+        var emergency = new BulkheadTaskExecutor("emergency", false, outbound, null,
+                4, 10_000, BulkheadTaskExecutor.Overflow.CALLER_RUNS, registry);
+
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocker = () -> {
+            try { release.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        };
+        // bulk 레인을 포화시킴 (2개 실행 + 10개 대기 후 나머지는 버림)
+        for (int i = 0; i < 50; i++) bulk.execute(blocker);
+
+        CountDownLatch emergencyDone = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) emergency.execute(emergencyDone::countDown);
+
+        // bulk 가 전체 permit 을 다 쓰지 못하므로 emergency 는 bulk 가 막혀 있어도 진행된다
+        assertTrue(emergencyDone.await(10, TimeUnit.SECONDS));
+        release.countDown();
+
+        double dropped = registry.get("notif.executor.rejected").tag("lane", "bulk").counter().count();
+        assertTrue(dropped > 0);
+        assertEquals(0.0, registry.get("notif.executor.rejected").tag("lane", "emergency").counter().count());
+
+        bulk.destroy();
+        emergency.destroy();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.helloworld.healthserver.controller;
+
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.example.helloworld.healthserver.dto.HealthDtos;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WearableCheckResponseTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    @DisplayName("POST /api/wearable 응답 본문: 동기 모드는 AI 응답 그대로, 비동기 모드는 검사 상태")
+    void serializesBothShapes() throws Exception {
+        AiServerClient.AnomalyResponse ai = new AiServerClient.AnomalyResponse(
+                true, true, "critical", "emergency", List.of("HR high"), null, null, null, null);
+
+        HealthDtos.WearableCheck sync = new HealthDtos.AnomalyResult(ai);
+        assertEquals(mapper.readTree(mapper.writeValueAsString(ai)), mapper.readTree(mapper.writeValueAsString(sync)));
+
+        HealthDtos.WearableCheck async = new HealthDtos.AnomalyCheckResponse("c-1", "PENDING", null,
+                Instant.parse("2025-01-01T00:00:00Z"), null);
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(async));
+        assertEquals("c-1", json.get("check_id").asText());
+        assertEquals("PENDING", json.get("status").asText());
+        assertFalse(json.has("mode"));
+    }
+}
@@ -2,6 +2,8 @@ package com.example.helloworld.healthserver.controller;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import com.example.helloworld.healthserver.client.AiServerClient;
 import com.example.helloworld.healthserver.config.UserInfoAuthenticationFilter;
+import com.example.helloworld.internalauth.InternalAuthVerifier;
+import com.example.helloworld.internalauth.audit.AuditEventWriter;
 import com.example.helloworld.healthserver.config.UserPrincipal;
 import com.example.helloworld.healthserver.service.HealthDataService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -47,7 +49,8 @@ class WearableHealthControllerTest {
     void setUp() {
         mockMvc = MockMvcBuilders.standaloneSetup(wearableHealthController)
                 // We must manually add the filter that @WebMvcTest used to add automatically.
-                .addFilter(new UserInfoAuthenticationFilter())
+                .addFilter(new UserInfoAuthenticationFilter(
+                        new InternalAuthVerifier("test-secret", 30), new AuditEventWriter(null, 100, 10, 500)))
                 .build();
     }
 
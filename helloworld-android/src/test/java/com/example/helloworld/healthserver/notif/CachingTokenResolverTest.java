@@ -0,0 +1,77 @@
+package com.example.helloworld.healthserver.notif;
+
+import com.example.helloworld.healthserver.client.UserServerClient;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingTokenResolverTest {
+
+    private final UserServerClient userClient = mock(UserServerClient.class);
+    private final CachingTokenResolver resolver =
+            new CachingTokenResolver(userClient, null, new SimpleMeterRegistry(), 600, 60, 100);
+
+    private static FeignException.NotFound notFound() {
+        Request req = Request.create(Request.HttpMethod.GET, "/api/internal/couples/1/partner-id",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        return new FeignException.NotFound("not found", req, null, null);
+    }
+
+    @Test
+    @DisplayName("두 번째 조회부터는 유저서버를 부르지 않는다")
+    void cachesTokensAndPartner() {
+        when(userClient.latestTwo(1L)).thenReturn(ResponseEntity.ok(new UserServerClient.LatestTwoResponse(1L, "a1", "w1")));
+        when(userClient.partnerId(1L)).thenReturn(ResponseEntity.ok(new UserServerClient.PartnerIdResponse(2L)));
+
+        assertEquals(new TokenResolver.DeviceTokens("a1", "w1"), resolver.latestTokens(1L));
+        assertEquals(new TokenResolver.DeviceTokens("a1", "w1"), resolver.latestTokens(1L));
+        assertEquals(2L, resolver.partnerOf(1L));
+        assertEquals(2L, resolver.partnerOf(1L));
+
+        verify(userClient, times(1)).latestTwo(1L);
+        verify(userClient, times(1)).partnerId(1L);
+    }
+
+    @Test
+    @DisplayName("유저서버 무효화 메시지를 받으면 다시 조회한다")
+    void invalidatedByChangeEvent() {
+        when(userClient.latestTwo(1L))
+                .thenReturn(ResponseEntity.ok(new UserServerClient.LatestTwoResponse(1L, "old", null)))
+                .thenReturn(ResponseEntity.ok(new UserServerClient.LatestTwoResponse(1L, "new", null)));
+
+        assertEquals("old", resolver.latestTokens(1L).android());
+        resolver.onMessage(new DefaultMessage(CachingTokenResolver.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "3,1".getBytes(StandardCharsets.UTF_8)), null);
+        assertEquals("new", resolver.latestTokens(1L).android());
+        verify(userClient, times(2)).latestTwo(1L);
+    }
+
+    @Test
+    @DisplayName("커플 없음(404)/토큰 없음(204)은 캐시, 그 외 오류는 캐시하지 않고 전파")
+    void negativeCachingAndErrors() {
+        when(userClient.partnerId(1L)).thenThrow(notFound());
+        when(userClient.latestTwo(1L)).thenReturn(ResponseEntity.noContent().build());
+        when(userClient.latestTwo(5L)).thenThrow(new IllegalStateException("userserver down"))
+                .thenReturn(ResponseEntity.ok(new UserServerClient.LatestTwoResponse(5L, "a5", null)));
+
+        assertNull(resolver.partnerOf(1L));
+        assertNull(resolver.partnerOf(1L));
+        assertFalse(resolver.latestTokens(1L).present());
+        assertFalse(resolver.latestTokens(1L).present());
+        verify(userClient, times(1)).partnerId(1L);
+        verify(userClient, times(1)).latestTwo(1L);
+
+        assertThrows(IllegalStateException.class, () -> resolver.latestTokens(5L));
+        assertEquals("a5", resolver.latestTokens(5L).android());
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.helloworld.healthserver.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * health_data 대량 적재 방식 비교 (./gradlew loadTest)
+ * 1) 행별 INSERT ... RETURNING  — IDENTITY 엔티티의 repo.save 가 보내는 것과 같은 왕복
+ * 2) JDBC batch (HealthDataBulkRepositoryImpl.insertAll, 1000행 묶음)
+ * 3) COPY FROM STDIN (HealthDataBulkRepositoryImpl.copyAll)
+ * 그리고 요청 하나(트랜잭션 하나)에 실리는 묶음 크기별 JDBC batch vs COPY — app.bulk.copy-threshold 근거
+ *
+ * 실제 Postgres 가 필요하다: BENCH_PG_URL(예: jdbc:postgresql://localhost:5432/bench),
+ * BENCH_PG_USER, BENCH_PG_PASSWORD. 없으면 건너뛴다. 운영(application.yaml)과 같게 reWriteBatchedInserts=true 를 붙인다.
+ * 행 수는 -Dbench.rows (기본 1,000,000), 묶음 크기별 비교는 크기마다 -Dbench.crossover.rows (기본 100,000)
+ * 를 -Dbench.crossover.rounds (기본 3) 번, 순서를 번갈아 돌려 중앙값으로 비교한다.
+ * 테이블을 비우므로 버리는 DB 에서만 돌릴 것.
+ */
+@Tag("load")
+class BulkWriteLoadTest {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 1_000_000);
+    private static final int CHUNK = 1000;
+    private static final int CROSSOVER_ROWS = Integer.getInteger("bench.crossover.rows", 100_000);
+    private static final int CROSSOVER_ROUNDS = Integer.getInteger("bench.crossover.rounds", 3);
+    private static final int[] BATCH_SIZES = {10, 25, 50, 100, 250, 500, 1000, 5000};
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    private SingleConnectionDataSource ds;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+    private HealthDataBulkRepositoryImpl bulk;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getenv("BENCH_PG_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_PG_URL 미설정 — 건너뜀");
+        if (!url.contains("reWriteBatchedInserts")) url += (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true";
+        // 커넥션 하나를 계속 씀 (운영의 커넥션 풀처럼 요청마다 새로 연결하지 않음)
+        ds = new SingleConnectionDataSource(url,
+                System.getenv("BENCH_PG_USER"), System.getenv("BENCH_PG_PASSWORD"), true);
+        jdbc = new JdbcTemplate(ds);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+        bulk = new HealthDataBulkRepositoryImpl(jdbc, new PgCopyWriter(jdbc), Integer.MAX_VALUE);
+        jdbc.execute("""
+                CREATE TABLE IF NOT EXISTS health_data (
+                    health_id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    couple_id bigint NOT NULL,
+                    "date" timestamp(6) with time zone NOT NULL,
+                    stress double precision,
+                    heartrate integer)""");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ds != null) ds.destroy();
+    }
+
+    @Test
+    @DisplayName("행별 save vs JDBC batch vs COPY 처리량")
+    void compareWriters() {
+        IntFunction<HealthDataBulkRepository.Sample> gen =
+                i -> new HealthDataBulkRepository.Sample(T0.plusSeconds(i), (i % 100) / 100.0, 60 + i % 60);
+
+        long perRow = run("row-by-row save", () -> {
+            for (int i = 0; i < ROWS; i++) {
+                HealthDataBulkRepository.Sample s = gen.apply(i);
+                jdbc.update(con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "INSERT INTO health_data (couple_id, \"date\", stress, heartrate) VALUES (?, ?, ?, ?)",
+                            Statement.RETURN_GENERATED_KEYS);
+                    ps.setLong(1, 1L);
+                    ps.setTimestamp(2, Timestamp.from(s.date()));
+                    ps.setDouble(3, s.stress());
+                    ps.setInt(4, s.heartrate());
+                    return ps;
+                }, new GeneratedKeyHolder());
+            }
+        });
+
+        long batch = run("jdbc batch", () -> {
+            List<HealthDataBulkRepository.Sample> chunk = new ArrayList<>(CHUNK);
+            for (int i = 0; i < ROWS; i++) {
+                chunk.add(gen.apply(i));
+                if (chunk.size() == CHUNK || i == ROWS - 1) {
+                    bulk.insertAll(1L, chunk);
+                    chunk.clear();
+                }
+            }
+        });
+
+        long copy = run("copy", () ->
+                assertEquals(ROWS, bulk.copyAll(1L, () -> IntStream.range(0, ROWS).mapToObj(gen).iterator())));
+
+        System.out.printf("[BULK] rows=%d  save=%d ms  batch=%d ms (x%.1f)  copy=%d ms (x%.1f)%n",
+                ROWS, perRow, batch, (double) perRow / batch, copy, (double) perRow / copy);
+    }
+
+    @Test
+    @DisplayName("묶음(요청) 크기별 JDBC batch vs COPY — copy-threshold 교차점")
+    void batchVsCopyByRequestSize() {
+        HealthDataBulkRepositoryImpl batchOnly = new HealthDataBulkRepositoryImpl(jdbc, new PgCopyWriter(jdbc), Integer.MAX_VALUE);
+        Integer crossover = null;
+        for (int size : BATCH_SIZES) {
+            int requests = Math.max(1, CROSSOVER_ROWS / size);
+            List<HealthDataBulkRepository.Sample> chunk = IntStream.range(0, size)
+                    .mapToObj(i -> new HealthDataBulkRepository.Sample(T0.plusSeconds(i), (i % 100) / 100.0, 60 + i % 60))
+                    .toList();
+            // 라운드마다 순서를 번갈아 (드리프트 상쇄), 중앙값
+            long[] batchRounds = new long[CROSSOVER_ROUNDS];
+            long[] copyRounds = new long[CROSSOVER_ROUNDS];
+            for (int r = 0; r < CROSSOVER_ROUNDS; r++) {
+                if (r % 2 == 0) {
+                    batchRounds[r] = perRequest(requests, () -> batchOnly.insertAll(1L, chunk));
+                    copyRounds[r] = perRequest(requests, () -> bulk.copyAll(1L, chunk));
+                } else {
+                    copyRounds[r] = perRequest(requests, () -> bulk.copyAll(1L, chunk));
+                    batchRounds[r] = perRequest(requests, () -> batchOnly.insertAll(1L, chunk));
+                }
+            }
+            long batchMs = median(batchRounds);
+            long copyMs = median(copyRounds);
+            long rows = (long) requests * size;
+            System.out.printf("[BULK] size=%,5d x %,d requests  batch=%,d ms (%,.0f rows/s)  copy=%,d ms (%,.0f rows/s)  copy/batch=%.2f%n",
+                    size, requests, batchMs, rows * 1000.0 / Math.max(batchMs, 1),
+                    copyMs, rows * 1000.0 / Math.max(copyMs, 1), (double) copyMs / Math.max(batchMs, 1));
+            // ±10% 는 같은 걸로 본다 (1 CPU 박스에서 라운드 간 흔들림이 그 정도)
+            if (copyMs > batchMs * 1.1) {
+                crossover = null; // 더 큰 묶음에서 batch 가 확실히 이기면 교차점이 아님
+            } else if (crossover == null && copyMs < batchMs * 0.9) {
+                crossover = size;
+            }
+        }
+        System.out.printf("[BULK] COPY clearly faster (>10%%) from size >= %s, never clearly slower above (app.bulk.copy-threshold)%n",
+                crossover == null ? "none measured" : crossover);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        java.util.Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /** 요청 requests 번 (요청마다 트랜잭션 하나), 걸린 ms. 한 번 데워 두고 잰다 (준비된 문장/캐시) */
+    private long perRequest(int requests, Runnable insert) {
+        jdbc.execute("TRUNCATE health_data");
+        tx.executeWithoutResult(st -> insert.run());
+        jdbc.execute("TRUNCATE health_data");
+        long t0 = System.nanoTime();
+        for (int r = 0; r < requests; r++) tx.executeWithoutResult(st -> insert.run());
+        return (System.nanoTime() - t0) / 1_000_000;
+    }
+
+    private long run(String name, Runnable body) {
+        jdbc.execute("TRUNCATE health_data");
+        long t0 = System.nanoTime();
+        tx.executeWithoutResult(st -> body.run());
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        Long n = jdbc.queryForObject("SELECT count(*) FROM health_data", Long.class);
+        assertEquals(ROWS, n == null ? 0 : n);
+        System.out.printf("[BULK] %-16s %,d rows in %,d ms (%,.0f rows/s)%n", name, ROWS, ms, ROWS * 1000.0 / Math.max(ms, 1));
+        return ms;
+    }
+}
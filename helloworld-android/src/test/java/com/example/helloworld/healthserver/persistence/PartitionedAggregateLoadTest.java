@@ -0,0 +1,219 @@
+package com.example.helloworld.healthserver.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 하루치 전체 커플 집계(aggregateGlobalDailyBuckets) — 일반 테이블 vs 일 파티션 테이블 (./gradlew loadTest)
+ * 1) 기존 쿼리(전체 DISTINCT couple_id + LEFT JOIN) / 일반 테이블
+ * 2) 바꾼 쿼리(date 범위만) / 일반 테이블
+ * 3) 바꾼 쿼리 / 파티션 테이블 — 실행 계획에 그날 파티션 1개만 나오는지도 확인
+ * + 그날 샘플이 없는 커플은 행이 없음 (기존 쿼리는 전부 null 인 행을 냈음) — 소량 데이터로 바로 끝남
+ *
+ * 실제 Postgres 가 필요하다: BENCH_PG_URL, BENCH_PG_USER, BENCH_PG_PASSWORD. 없으면 건너뛴다.
+ * 행 수 -Dbench.rows (기본 1억), 커플 수 -Dbench.couples (기본 1000), 기간 -Dbench.days (기본 30일).
+ * bench_hd_plain / bench_hd_part 테이블을 만들고 끝나면 지운다. 1억 행 적재에 수 분~수십 분 걸림.
+ */
+@Tag("load")
+class PartitionedAggregateLoadTest {
+
+    private static final long ROWS = Long.getLong("bench.rows", 100_000_000L);
+    private static final int COUPLES = Integer.getInteger("bench.couples", 1_000);
+    private static final int DAYS = Integer.getInteger("bench.days", 30);
+    private static final int RUNS = 5;
+    private static final ZoneId ZONE = ZoneId.of("Asia/Seoul");
+    private static final LocalDate DAY0 = LocalDate.of(2025, 1, 1);
+
+    private static final String PLAIN = "bench_hd_plain";
+    private static final VitalsPartitions.Spec PART = new VitalsPartitions.Spec("bench_hd_part", "health_id",
+            VitalsPartitions.HEALTH_DATA.columns().replace("health_data_health_id_seq", "bench_hd_part_health_id_seq"),
+            Map.of("bench_hd_part_couple_date", "couple_id, \"date\" DESC"), VitalsPartitions.Granularity.DAY);
+
+    private SingleConnectionDataSource ds;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getenv("BENCH_PG_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_PG_URL 미설정 — 건너뜀");
+        ds = new SingleConnectionDataSource(url, System.getenv("BENCH_PG_USER"), System.getenv("BENCH_PG_PASSWORD"), true);
+        jdbc = new JdbcTemplate(ds);
+        dropTables();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (jdbc == null) return;
+        dropTables();
+        ds.destroy();
+    }
+
+    private void dropTables() {
+        jdbc.execute("DROP TABLE IF EXISTS " + PLAIN);
+        jdbc.execute("DROP TABLE IF EXISTS " + PART.table());
+        jdbc.execute("DROP SEQUENCE IF EXISTS " + PART.sequence());
+    }
+
+    @Test
+    @DisplayName("하루 집계: 일반 테이블(기존/새 쿼리) vs 파티션 테이블")
+    void dailyAggregate() {
+        load();
+
+        String current = query();
+        String legacy = legacyShape(current);
+
+        LocalDate day = DAY0.plusDays(DAYS / 2);
+        Timestamp from = Timestamp.from(day.atStartOfDay(ZONE).toInstant());
+        Timestamp to = Timestamp.from(day.plusDays(1).atStartOfDay(ZONE).toInstant());
+
+        long[] legacyPlain = time(sql(legacy, PLAIN), from, to);
+        long[] newPlain = time(sql(current, PLAIN), from, to);
+        long[] newPart = time(sql(current, PART.table()), from, to);
+        print("legacy query / plain", legacyPlain);
+        print("new query / plain", newPlain);
+        print("new query / partitioned", newPart);
+
+        List<String> plan = jdbc.queryForList("EXPLAIN " + sql(current, PART.table()), String.class, from, to);
+        Pattern partition = Pattern.compile(PART.table() + "_(p\\d+|default)");
+        long scanned = plan.stream().map(partition::matcher).filter(Matcher::find).map(Matcher::group).distinct().count();
+        System.out.printf("[PARTITION-LOAD] partitioned plan scans %d partition(s):%n  %s%n",
+                scanned, String.join("\n  ", plan));
+        assertEquals(1, scanned, "daily aggregate should prune to a single partition");
+    }
+
+    @Test
+    @DisplayName("그날 샘플이 없는 커플은 결과 행이 없다 (일반/파티션 테이블 모두, app.zone 자정 경계)")
+    void omitsCouplesWithoutSamplesThatDay() {
+        createPlain();
+        VitalsPartitions.create(jdbc, PART);
+        VitalsPartitions.ensureAhead(jdbc, PART, ZONE, DAY0, 3);
+        LocalDate day = DAY0.plusDays(1);
+        Instant from = day.atStartOfDay(ZONE).toInstant();
+        Instant to = day.plusDays(1).atStartOfDay(ZONE).toInstant();
+        for (String table : List.of(PLAIN, PART.table())) {
+            insert(table, 1, from);                       // 그날 00:00 (포함)
+            insert(table, 1, from.plusSeconds(5 * 3600));
+            insert(table, 2, from.minusMillis(1));        // 전날 23:59:59.999 만
+            insert(table, 2, to);                         // 다음날 00:00 (제외)
+            insert(table, 3, from.minusSeconds(86_400));  // 이틀 전만
+        }
+
+        for (String table : List.of(PLAIN, PART.table())) {
+            List<Map<String, Object>> rows = jdbc.queryForList(sql(query(), table), Timestamp.from(from), Timestamp.from(to));
+            assertEquals(List.of(1L), rows.stream().map(r -> ((Number) r.get("coupleId")).longValue()).toList(), table);
+            assertEquals(80.0, ((Number) rows.get(0).get("avgHr0")).doubleValue(), 1e-9, table);
+            assertEquals(80.0, ((Number) rows.get(0).get("avgHr1")).doubleValue(), 1e-9, table);
+            assertNull(rows.get(0).get("avgHr2"), table);
+        }
+        // 바꾸기 전 쿼리는 샘플 없는 커플 2, 3 에도 전부 null 인 행을 냈음
+        List<Map<String, Object>> legacy = jdbc.queryForList(sql(legacyShape(query()), PLAIN),
+                Timestamp.from(from), Timestamp.from(to));
+        assertEquals(3, legacy.size());
+    }
+
+    private void insert(String table, long coupleId, Instant at) {
+        jdbc.update("INSERT INTO %s (couple_id, \"date\", stress, heartrate) VALUES (?, ?, 0.5, 80)".formatted(table),
+                coupleId, Timestamp.from(at));
+    }
+
+    private static String query() {
+        try {
+            return HealthDataRepository.class
+                    .getMethod("aggregateGlobalDailyBuckets", Instant.class, Instant.class)
+                    .getAnnotation(Query.class).value();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void createPlain() {
+        jdbc.execute("""
+                CREATE TABLE %s (
+                  health_id BIGSERIAL PRIMARY KEY,
+                  couple_id BIGINT NOT NULL,
+                  "date"    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                  stress    DOUBLE PRECISION,
+                  heartrate INTEGER)""".formatted(PLAIN));
+    }
+
+    private void load() {
+        long t0 = System.nanoTime();
+        createPlain();
+        // 커플마다 DAYS 일에 고르게 흩어진 샘플 (서버에서 생성 → JVM 메모리 안 씀)
+        long perCouple = ROWS / COUPLES;
+        double stepSec = DAYS * 86_400.0 / perCouple;
+        jdbc.execute("""
+                INSERT INTO %s (couple_id, "date", stress, heartrate)
+                SELECT g %% %d,
+                       timestamptz '%s' + make_interval(secs => (g / %d) * %s),
+                       random(),
+                       (60 + random() * 60)::int
+                  FROM generate_series(0, %d) g""".formatted(PLAIN, COUPLES,
+                DAY0.atStartOfDay(ZONE).toOffsetDateTime(), COUPLES, String.valueOf(stepSec), ROWS - 1));
+        jdbc.execute("CREATE INDEX ON %s (couple_id, \"date\" DESC)".formatted(PLAIN));
+        long loadedPlain = System.nanoTime();
+
+        VitalsPartitions.create(jdbc, PART);
+        VitalsPartitions.ensureAhead(jdbc, PART, ZONE, DAY0, DAYS);
+        jdbc.execute("INSERT INTO %s (couple_id, \"date\", stress, heartrate) SELECT couple_id, \"date\", stress, heartrate FROM %s"
+                .formatted(PART.table(), PLAIN));
+        jdbc.execute("ANALYZE " + PLAIN);
+        jdbc.execute("ANALYZE " + PART.table());
+        System.out.printf("[PARTITION-LOAD] loaded %,d rows (%d couples, %d days): plain %,d s, partitioned %,d s%n",
+                ROWS, COUPLES, DAYS, (loadedPlain - t0) / 1_000_000_000L, (System.nanoTime() - loadedPlain) / 1_000_000_000L);
+        Long defaults = jdbc.queryForObject("SELECT count(*) FROM " + PART.table() + "_default", Long.class);
+        assertEquals(0L, defaults, "all rows should land in daily partitions");
+    }
+
+    /** 바꾸기 전 모양: 전체 테이블 DISTINCT couple_id 에 LEFT JOIN */
+    private static String legacyShape(String current) {
+        int fromAt = current.indexOf("FROM health_data hd");
+        String select = current.substring(0, fromAt).replace("hd.couple_id ", "couples.couple_id ");
+        return select + """
+                FROM (SELECT DISTINCT couple_id FROM health_data) AS couples
+                LEFT JOIN health_data hd ON couples.couple_id = hd.couple_id AND hd."date" >= :from AND hd."date" < :to
+                GROUP BY couples.couple_id
+                """;
+    }
+
+    private static String sql(String query, String table) {
+        return query.replace("health_data", table).replace(":from", "?").replace(":to", "?");
+    }
+
+    private long[] time(String sql, Timestamp from, Timestamp to) {
+        jdbc.queryForList(sql, from, to); // 예열 (버퍼 캐시)
+        long[] ms = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long t0 = System.nanoTime();
+            jdbc.queryForList(sql, from, to);
+            ms[i] = (System.nanoTime() - t0) / 1_000_000;
+        }
+        Arrays.sort(ms);
+        return ms;
+    }
+
+    private static void print(String label, long[] sortedMs) {
+        System.out.printf("[PARTITION-LOAD] %-24s min=%,d ms median=%,d ms max=%,d ms%n",
+                label, sortedMs[0], sortedMs[sortedMs.length / 2], sortedMs[sortedMs.length - 1]);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.helloworld.healthserver.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PgCopyWriterTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final CopyIn copyIn = mock(CopyIn.class);
+    private final CopyManager copyManager = mock(CopyManager.class);
+    private final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+    private final List<Integer> chunkSizes = new ArrayList<>();
+    private final List<String> copySql = new ArrayList<>();
+    private PgCopyWriter writer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Connection con = mock(Connection.class);
+        PGConnection pg = mock(PGConnection.class);
+        when(con.unwrap(PGConnection.class)).thenReturn(pg);
+        when(pg.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenAnswer(inv -> {
+            copySql.add(inv.getArgument(0));
+            return copyIn;
+        });
+        doAnswer(inv -> {
+            byte[] b = inv.getArgument(0);
+            int off = inv.getArgument(1), len = inv.getArgument(2);
+            sent.write(b, off, len);
+            chunkSizes.add(len);
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.endCopy()).thenAnswer(inv -> (long) sent.toString(StandardCharsets.UTF_8).lines().count());
+        when(jdbc.execute(any(ConnectionCallback.class))).thenAnswer(inv ->
+                inv.<ConnectionCallback<?>>getArgument(0).doInConnection(con));
+        writer = new PgCopyWriter(jdbc);
+    }
+
+    @Test
+    @DisplayName("행을 CSV 로 보내고 null 은 빈 칸(NULL)으로 쓴다")
+    void writesCsvRows() {
+        var repo = new StepsDataBulkRepositoryImpl(writer);
+        Instant t = Instant.parse("2025-01-01T09:30:00Z");
+
+        long n = repo.copyAll(7L, List.of(
+                new StepsDataBulkRepository.Row(t, 1200, 37.5, 127.0),
+                new StepsDataBulkRepository.Row(t.plusSeconds(60), null, null, null)));
+
+        assertEquals(2, n);
+        assertEquals("COPY steps_data (couple_id, \"date\", steps, latitude, longitude) FROM STDIN (FORMAT csv)",
+                copySql.get(0));
+        assertEquals("""
+                7,2025-01-01T09:30:00Z,1200,37.5,127.0
+                7,2025-01-01T09:31:00Z,,,
+                """, sent.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("큰 입력은 고정 크기 청크로 흘려보낸다 (전체를 메모리에 모으지 않음)")
+    void streamsInChunks() {
+        Instant t = Instant.parse("2025-01-01T00:00:00Z");
+        Iterable<HealthDataBulkRepository.Sample> rows = () -> IntStream.range(0, 20_000)
+                .mapToObj(i -> new HealthDataBulkRepository.Sample(t.plusSeconds(i), 0.5, 70 + i % 30))
+                .iterator();
+
+        long n = writer.<HealthDataBulkRepository.Sample>copy("health_data", "couple_id, \"date\", stress, heartrate",
+                rows, (s, line) -> line.add(1L).add(s.date()).add(s.stress()).add(s.heartrate()));
+
+        assertEquals(20_000, n);
+        assertTrue(chunkSizes.size() > 1);
+        assertTrue(chunkSizes.stream().allMatch(len -> len < 70 * 1024));
+    }
+
+    @Test
+    @DisplayName("행 생성 중 예외가 나면 COPY 를 취소한다")
+    void cancelsCopyOnFailure() throws Exception {
+        when(copyIn.isActive()).thenReturn(true);
+        Iterable<Integer> rows = () -> IntStream.range(0, 3).mapToObj(i -> {
+            if (i == 2) throw new IllegalStateException("boom");
+            return i;
+        }).iterator();
+
+        assertThrows(IllegalStateException.class, () ->
+                writer.<Integer>copy("t", "a", rows, (v, line) -> line.add(v)));
+        verify(copyIn).cancelCopy();
+        verify(copyIn, never()).endCopy();
+    }
+}
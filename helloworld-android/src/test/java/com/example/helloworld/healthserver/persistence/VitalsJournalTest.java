@@ -0,0 +1,88 @@
+package com.example.helloworld.healthserver.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VitalsJournalTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00.123456789Z");
+
+    @TempDir
+    Path dir;
+
+    private static List<VitalsJournal.Entry> entries(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> new VitalsJournal.Entry(i % 3, T0.plusSeconds(i),
+                        i % 2 == 0 ? i / 10.0 : null, i % 5 == 0 ? null : 60 + i, 1000L + i))
+                .toList();
+    }
+
+    @Test
+    @DisplayName("닫지 않고 죽어도 다시 열면 미반영분이 그대로 나온다 (null 포함)")
+    void recoversAfterCrash() {
+        VitalsJournal crashed = VitalsJournal.open(dir, 4, false);
+        crashed.append(entries(0, 10));   // 세그먼트 3개에 걸침
+        crashed.commit(3);
+        // close() 없이 버림 = 프로세스 크래시
+
+        VitalsJournal reopened = VitalsJournal.open(dir, 4, false);
+        assertEquals(7, reopened.pending());
+        assertEquals(1003L, reopened.oldestPendingMillis());
+        VitalsJournal.Batch batch = reopened.peek(100);
+        assertEquals(entries(3, 10), batch.entries());
+        assertEquals(10, batch.endSeq());
+    }
+
+    @Test
+    @DisplayName("찢어진 마지막 레코드는 버리고 그 자리부터 다시 쓴다")
+    void dropsTornRecord() throws Exception {
+        VitalsJournal j = VitalsJournal.open(dir, 8, false);
+        j.append(entries(0, 5));
+        j.close();
+        // 5번째 레코드(seq 4) 본문 일부를 깨뜨림 → CRC 불일치
+        try (RandomAccessFile f = new RandomAccessFile(dir.resolve("000000000000.seg").toFile(), "rw")) {
+            f.seek(4L * VitalsJournal.RECORD_BYTES + 20);
+            f.writeInt(0xDEADBEEF);
+        }
+
+        VitalsJournal reopened = VitalsJournal.open(dir, 8, false);
+        assertEquals(4, reopened.pending());
+        reopened.append(entries(100, 101));
+        assertEquals(entries(100, 101).get(0), reopened.peek(10).entries().get(4));
+    }
+
+    @Test
+    @DisplayName("commit 하면 checkpoint 가 남고 다 쓴 세그먼트는 지워진다")
+    void commitAdvancesCheckpointAndDeletesSegments() throws Exception {
+        VitalsJournal j = VitalsJournal.open(dir, 4, false);
+        j.append(entries(0, 10));
+        VitalsJournal.Batch first = j.peek(6);
+        assertEquals(entries(0, 6), first.entries());
+        j.commit(first.endSeq());
+
+        assertEquals(4, j.pending());
+        assertEquals(entries(6, 10), j.peek(100).entries());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of("000000000001.seg", "000000000002.seg", "checkpoint"),
+                    files.map(p -> p.getFileName().toString()).sorted().toList());
+        }
+
+        j.commit(10);
+        VitalsJournal reopened = VitalsJournal.open(dir, 4, false);
+        assertEquals(0, reopened.pending());
+        assertEquals(-1, reopened.oldestPendingMillis());
+        reopened.append(entries(10, 11));
+        assertEquals(11, reopened.peek(10).endSeq()); // 순번은 이어짐
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.helloworld.healthserver.persistence;
+
+import com.example.helloworld.healthserver.persistence.VitalsPartitions.Granularity;
+import com.example.helloworld.healthserver.persistence.VitalsPartitions.Partition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VitalsPartitionsTest {
+
+    private static final ZoneId KST = ZoneId.of("Asia/Seoul");
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 1);
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private void existing(String table, Partition... parts) {
+        when(jdbc.query(contains("pg_inherits"), any(RowMapper.class), eq(table))).thenReturn(List.of(parts));
+    }
+
+    private static Instant kst(String localDate) {
+        return LocalDate.parse(localDate).atStartOfDay(KST).toInstant();
+    }
+
+    @Test
+    @DisplayName("일 파티션은 app.zone 자정 경계로, legacy 와 겹치는 날은 건너뛰고 만든다")
+    void createsDailyPartitionsAfterLegacy() {
+        existing("health_data",
+                new Partition("health_data_legacy", null, kst("2025-01-03"), false),
+                new Partition("health_data_default", null, null, true));
+
+        int created = VitalsPartitions.ensureAhead(jdbc, VitalsPartitions.HEALTH_DATA, KST, TODAY, 3);
+
+        ArgumentCaptor<String> ddl = ArgumentCaptor.forClass(String.class);
+        verify(jdbc, times(2)).execute(ddl.capture());
+        assertEquals(2, created);
+        assertEquals(List.of(
+                "CREATE TABLE IF NOT EXISTS health_data_p20250103 PARTITION OF health_data " +
+                        "FOR VALUES FROM ('2025-01-03 00:00:00+09:00') TO ('2025-01-04 00:00:00+09:00')",
+                "CREATE TABLE IF NOT EXISTS health_data_p20250104 PARTITION OF health_data " +
+                        "FOR VALUES FROM ('2025-01-04 00:00:00+09:00') TO ('2025-01-05 00:00:00+09:00')"),
+                ddl.getAllValues());
+    }
+
+    @Test
+    @DisplayName("월 파티션: 이미 있는 달은 건너뛴다")
+    void createsMonthlyPartitions() {
+        existing("steps_data", new Partition("steps_data_p202501", kst("2025-01-01"), kst("2025-02-01"), false));
+
+        assertEquals(2, VitalsPartitions.ensureAhead(jdbc, VitalsPartitions.STEPS_DATA, KST, LocalDate.of(2025, 1, 20), 2));
+        verify(jdbc).execute(contains("steps_data_p202502 PARTITION OF steps_data FOR VALUES FROM ('2025-02-01 00:00:00+09:00')"));
+        verify(jdbc).execute(contains("steps_data_p202503"));
+    }
+
+    @Test
+    @DisplayName("보존 기간이 지난 파티션만 통째로 분리/삭제한다 (default 는 제외)")
+    @SuppressWarnings("unchecked")
+    void detachesExpiredPartitions() {
+        existing("health_data",
+                new Partition("health_data_default", null, null, true),
+                new Partition("health_data_legacy", null, kst("2025-01-03"), false),
+                new Partition("health_data_p20250103", kst("2025-01-03"), kst("2025-01-04"), false),
+                new Partition("health_data_p20250104", kst("2025-01-04"), kst("2025-01-05"), false));
+        when(jdbc.queryForObject(contains("pg_try_advisory_xact_lock"), eq(Boolean.class), eq("health_data")))
+                .thenReturn(true);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+
+        List<String> done = VitalsPartitions.detachBefore(jdbc, tx, VitalsPartitions.HEALTH_DATA, kst("2025-01-04"), true);
+
+        assertEquals(List.of("health_data_legacy", "health_data_p20250103"), done);
+        verify(jdbc).execute("ALTER TABLE health_data DETACH PARTITION health_data_legacy");
+        verify(jdbc).execute("DROP TABLE health_data_p20250103");
+        verify(jdbc, never()).execute(contains("health_data_p20250104"));
+    }
+
+    @Test
+    @DisplayName("변환 경계는 내일이 속한 구간의 다음 구간 시작")
+    void conversionBoundLeavesHeadroom() {
+        assertEquals(kst("2025-01-03"), VitalsPartitions.nextPeriodStart(Granularity.DAY, KST, TODAY));
+        assertEquals(kst("2025-03-01"), VitalsPartitions.nextPeriodStart(Granularity.MONTH, KST, LocalDate.of(2025, 1, 31)));
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.alarm.entity.Notification;
+import com.example.helloworld.healthserver.alarm.entity.NotificationOutbox;
+import com.example.helloworld.healthserver.alarm.repository.NotificationOutboxRepository;
+import com.example.helloworld.healthserver.alarm.repository.NotificationRepository;
+import com.example.helloworld.healthserver.alarm.service.AlertCooldownGate;
+import com.example.helloworld.healthserver.alarm.service.DeadTokenReporter;
+import com.example.helloworld.healthserver.alarm.service.FcmDispatcher;
+import com.example.helloworld.healthserver.alarm.service.FcmService;
+import com.example.helloworld.healthserver.alarm.service.NotificationOutboxService;
+import com.example.helloworld.healthserver.alarm.service.OutboxDispatcher;
+import com.example.helloworld.healthserver.alarm.service.RecipientStatusBuffer;
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.example.helloworld.healthserver.client.UserServerClient;
+import com.example.helloworld.healthserver.config.NotificationExecutorConfig;
+import com.example.helloworld.healthserver.config.UserPrincipal;
+import com.example.helloworld.healthserver.dto.HealthDtos;
+import com.example.helloworld.healthserver.notif.CachingTokenResolver;
+import com.example.helloworld.healthserver.notif.LocalPushTransport;
+import com.example.helloworld.healthserver.persistence.HealthDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 응급 알림 파이프라인 종단 부하 측정 (./gradlew loadTest)
+ * createAndCheckHealthData → (AI 대역) → notifications/outbox 저장 → 커밋 → OutboxDispatcher
+ * → FcmService → FcmDispatcher 마이크로배치 → LocalPushTransport 까지 실제 코드로 흘리고
+ * 수집 요청 시작 ~ 본인 ANDROID 푸시 발송 시점의 지연 분포를 출력한다.
+ * DB/유저서버/AI 서버는 메모리 대역 (지연만 흉내), 쿨다운은 꺼서 샘플마다 알림이 나가게 한다.
+ */
+@Tag("load")
+class AlertPipelineLoadTest {
+
+    private static final int SAMPLES = 2_000;
+    private static final int CLIENTS = 32;
+    private static final long AI_MS = 10;        // AI 서버 왕복
+    private static final long USER_MS = 2;       // 유저서버 토큰 조회 1회
+    private static final long PUSH_MS = 30;      // FCM sendEach 왕복 (+ jitter 20ms)
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long pct(long[] sorted, double p) {
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))]);
+    }
+
+    // notification_outbox 메모리 대역 (lockDue 는 가져간 행을 바로 가려서 SKIP LOCKED 흉내)
+    private static NotificationOutboxRepository inMemoryOutbox(Map<Long, NotificationOutbox> rows) {
+        AtomicLong ids = new AtomicLong();
+        NotificationOutboxRepository repo = mock(NotificationOutboxRepository.class);
+        when(repo.save(any())).thenAnswer(inv -> {
+            NotificationOutbox o = inv.getArgument(0);
+            ReflectionTestUtils.setField(o, "id", ids.incrementAndGet());
+            rows.put(o.getId(), o);
+            return o;
+        });
+        when(repo.lockDue(any(), anyInt())).thenAnswer(inv -> {
+            Instant now = inv.getArgument(0);
+            int limit = inv.getArgument(1);
+            synchronized (rows) {
+                List<NotificationOutbox> due = rows.values().stream()
+                        .filter(o -> o.getStatus() == NotificationOutbox.Status.PENDING && !o.getNextAttemptAt().isAfter(now))
+                        .limit(limit)
+                        .toList();
+                due.forEach(o -> ReflectionTestUtils.setField(o, "nextAttemptAt", Instant.MAX));
+                return due;
+            }
+        });
+        when(repo.findById(anyLong())).thenAnswer(inv -> Optional.ofNullable(rows.get(inv.<Long>getArgument(0))));
+        // 조건부 UPDATE 흉내: 임대 토큰이 같은 행만 반영 (워커가 들고 있는 객체가 곧 행이라 상태는 이미 바뀌어 있음)
+        when(repo.finishLease(anyLong(), any(), any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            synchronized (rows) {
+                NotificationOutbox row = rows.get(inv.<Long>getArgument(0));
+                if (row == null || !Objects.equals(row.getLeaseToken(), inv.getArgument(1))) return 0;
+                ReflectionTestUtils.setField(row, "status", NotificationOutbox.Status.valueOf(inv.getArgument(2)));
+                ReflectionTestUtils.setField(row, "nextAttemptAt", inv.getArgument(3));
+                ReflectionTestUtils.setField(row, "leaseToken", null);
+                return 1;
+            }
+        });
+        when(repo.countPending()).thenAnswer(inv -> rows.values().stream()
+                .filter(o -> o.getStatus() == NotificationOutbox.Status.PENDING).count());
+        return repo;
+    }
+
+    @Test
+    @DisplayName("수집 → 푸시 지연 분포 (p50/p95/p99)")
+    void ingestToPushLatency() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HealthDataServiceFixture.NoopTxManager txManager = new HealthDataServiceFixture.NoopTxManager();
+
+        // --- 외부 대역 ---
+        UserServerClient userClient = mock(UserServerClient.class);
+        when(userClient.latestTwo(anyLong())).thenAnswer(inv -> {
+            sleep(USER_MS);
+            Long uid = inv.getArgument(0);
+            return ResponseEntity.ok(new UserServerClient.LatestTwoResponse(uid, "a-" + uid, "w-" + uid));
+        });
+        when(userClient.partnerId(anyLong())).thenAnswer(inv -> {
+            sleep(USER_MS);
+            return ResponseEntity.ok(new UserServerClient.PartnerIdResponse(inv.<Long>getArgument(0) + 1_000_000));
+        });
+        when(userClient.latestByPlatform(anyLong(), anyString())).thenAnswer(inv -> {
+            sleep(USER_MS);
+            Long pid = inv.getArgument(0);
+            return ResponseEntity.ok(new UserServerClient.FcmTokenResponse(pid, "ANDROID", "p-" + pid));
+        });
+
+        AiServerClient ai = mock(AiServerClient.class);
+        when(ai.checkTelemetry(anyLong(), any())).thenAnswer(inv -> {
+            sleep(AI_MS);
+            return new AiServerClient.AnomalyResponse(true, true, "high", "emergency",
+                    List.of("HR>=150 for 120s"), null, null, null, null);
+        });
+
+        HealthDataRepository healthRepo = mock(HealthDataRepository.class);
+        when(healthRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        AtomicLong alarmIds = new AtomicLong();
+        NotificationRepository notifRepo = mock(NotificationRepository.class);
+        when(notifRepo.save(any())).thenAnswer(inv -> {
+            Notification n = inv.getArgument(0);
+            ReflectionTestUtils.setField(n, "alarmId", alarmIds.incrementAndGet());
+            return n;
+        });
+
+        Map<Long, NotificationOutbox> outboxRows = new ConcurrentHashMap<>();
+        NotificationOutboxRepository outboxRepo = inMemoryOutbox(outboxRows);
+
+        // --- 실제 파이프라인 ---
+        LocalPushTransport push = new LocalPushTransport(PUSH_MS, 20, 0, "bad", 0);
+        FcmDispatcher fcmDispatcher = new FcmDispatcher(push, registry, true, 500, 20, 50_000, 4);
+        fcmDispatcher.start();
+        FcmService fcmService = new FcmService(new CachingTokenResolver(userClient, null, registry, 600, 60, 50_000),
+                new DeadTokenReporter(userClient, registry, 200, 60, 10_000),
+                new RecipientStatusBuffer(userClient, registry, 500, 20_000),
+                fcmDispatcher);
+        var executor = new NotificationExecutorConfig(64, 16, true).emergencyNotificationExecutor(registry, 10_000);
+        OutboxDispatcher outboxDispatcher = new OutboxDispatcher(outboxRepo, fcmService, executor, txManager, registry,
+                2, 50, 200, 60, 8, 2000, 300_000, 7);
+        outboxDispatcher.start();
+        NotificationOutboxService outbox = new NotificationOutboxService(outboxRepo, outboxDispatcher, registry);
+        AlertCooldownGate cooldown = new AlertCooldownGate(
+                new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                registry, false, false, 600, 300);
+        HealthDataService service = new HealthDataServiceFixture().repo(healthRepo).ai(ai).notifications(notifRepo)
+                .outbox(outbox).cooldown(cooldown).registry(registry).txManager(txManager).build();
+
+        // --- 측정: 본인 ANDROID 푸시가 나간 시점 - 수집 요청 시작 ---
+        Map<Long, Long> startedAt = new ConcurrentHashMap<>();
+        long[] ingest = new long[SAMPLES];
+        long[] endToEnd = new long[SAMPLES];
+        CountDownLatch pushed = new CountDownLatch(SAMPLES);
+        push.addListener(rec -> {
+            if (!FcmService.ANDROID.equals(rec.request().label())) return;
+            Long uid = rec.request().ownerUserId();
+            Long t0 = startedAt.get(uid);
+            if (t0 != null) {
+                endToEnd[(int) (uid - 1)] = rec.sentAtNanos() - t0;
+                pushed.countDown();
+            }
+        });
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < SAMPLES; i++) {
+                final long uid = i + 1;
+                clients.execute(() -> {
+                    UserPrincipal user = new UserPrincipal(uid, uid, List.of());
+                    var req = new HealthDtos.CreateRequest(Instant.now(), 0.8, 160);
+                    long t0 = System.nanoTime();
+                    startedAt.put(uid, t0);
+                    service.createAndCheckHealthData(user, req);
+                    ingest[(int) (uid - 1)] = System.nanoTime() - t0;
+                });
+            }
+            assertTrue(pushed.await(120, TimeUnit.SECONDS), "not all alerts were pushed");
+            long wallMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            Arrays.sort(ingest);
+            Arrays.sort(endToEnd);
+            System.out.printf("[LOAD] alerts=%d clients=%d wall=%dms throughput=%.0f/s pushBatches=%d%n",
+                    SAMPLES, CLIENTS, wallMs, SAMPLES * 1000.0 / wallMs, push.batchCount());
+            System.out.printf("[LOAD] ingest      p50=%dms p95=%dms p99=%dms%n",
+                    pct(ingest, 0.5), pct(ingest, 0.95), pct(ingest, 0.99));
+            System.out.printf("[LOAD] ingest→push p50=%dms p95=%dms p99=%dms max=%dms%n",
+                    pct(endToEnd, 0.5), pct(endToEnd, 0.95), pct(endToEnd, 0.99), pct(endToEnd, 1.0));
+
+            assertTrue(push.batchCount() < SAMPLES * 3L, "pushes should be micro-batched");
+        } finally {
+            clients.shutdownNow();
+            outboxDispatcher.stop();
+            fcmDispatcher.shutdown();
+            executor.destroy();
+        }
+    }
+}
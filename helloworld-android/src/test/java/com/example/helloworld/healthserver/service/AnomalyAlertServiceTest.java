@@ -0,0 +1,94 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.alarm.entity.Notification;
+import com.example.helloworld.healthserver.alarm.repository.NotificationRepository;
+import com.example.helloworld.healthserver.alarm.service.AlertCooldownGate;
+import com.example.helloworld.healthserver.alarm.service.NotificationOutboxService;
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.example.helloworld.healthserver.config.UserPrincipal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AnomalyAlertServiceTest {
+
+    private static final AiServerClient.AnomalyResponse EMERGENCY = new AiServerClient.AnomalyResponse(
+            true, true, "high", "EMERGENCY", List.of("HR_HIGH"), null, null, null, null);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AiServerClient ai = mock(AiServerClient.class);
+    private final NotificationRepository notifications = mock(NotificationRepository.class);
+    private final NotificationOutboxService outbox = mock(NotificationOutboxService.class);
+    private final HealthDataServiceFixture.NoopTxManager txManager = new HealthDataServiceFixture.NoopTxManager();
+    private final AnomalyCheckService checks = new AnomalyCheckService(
+            new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+            new ObjectMapper().findAndRegisterModules(), txManager, registry,
+            false, 4, 10_000, 600, false);
+    private AnomalyAlertService service;
+
+    private final UserPrincipal user = new UserPrincipal(1L, 10L, List.of());
+    private final Instant t0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        // 실제 쿨다운 게이트 (로컬 티어만)
+        AlertCooldownGate cooldown = new AlertCooldownGate(
+                new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                registry, true, false, 600, 300);
+        AnomalyPreFilter preFilter = new AnomalyPreFilter(
+                new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                registry, false, false, 60, 720, 30, 10, 2.0, 0.1, 20, 30);
+        service = new AnomalyAlertService(ai, preFilter, checks, cooldown, notifications, outbox, txManager);
+        when(ai.checkTelemetry(anyLong(), any())).thenReturn(EMERGENCY);
+        when(notifications.save(any())).thenAnswer(inv -> Notification.builder().alarmId(7L).build());
+        // 첫 outbox 적재만 실패
+        doThrow(new IllegalStateException("outbox insert failed")).doNothing()
+                .when(outbox).enqueueEmergency(anyLong(), anyLong(), anyLong(), anyInt(), any(), any(), any(), any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        checks.stop();
+    }
+
+    @Test
+    @DisplayName("동기: outbox 적재가 실패해 롤백되면 쿨다운 예약도 풀려 다음 샘플이 다시 알림")
+    void failedOutboxInsertReleasesCooldownSync() {
+        assertThrows(IllegalStateException.class, () -> service.checkAndAlert(user, t0, 170, 0.9, true));
+        service.checkAndAlert(user, t0.plusSeconds(10), 172, 0.9, true);
+
+        verify(notifications, times(2)).save(any());
+        verify(outbox, times(2)).enqueueEmergency(anyLong(), anyLong(), anyLong(), anyInt(), any(), any(), any(), any(), any());
+
+        // 보낸 뒤에는 쿨다운으로 억제
+        service.checkAndAlert(user, t0.plusSeconds(20), 171, 0.9, true);
+        verify(outbox, times(2)).enqueueEmergency(anyLong(), anyLong(), anyLong(), anyInt(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("비동기: 워커의 알림 트랜잭션이 롤백되면 쿨다운 예약도 풀려 다음 샘플이 다시 알림")
+    void failedOutboxInsertReleasesCooldownAsync() throws Exception {
+        AnomalyCheckService.Check first = service.submit(user, t0, 170, 0.9);
+        assertTrue(checks.awaitIdle(2, TimeUnit.SECONDS));
+        assertEquals(AnomalyCheckService.Status.FAILED, checks.find(10L, first.checkId()).orElseThrow().status());
+
+        AnomalyCheckService.Check second = service.submit(user, t0.plusSeconds(10), 172, 0.9);
+        assertTrue(checks.awaitIdle(2, TimeUnit.SECONDS));
+        assertEquals(AnomalyCheckService.Status.DONE, checks.find(10L, second.checkId()).orElseThrow().status());
+
+        verify(outbox, times(2)).enqueueEmergency(anyLong(), anyLong(), anyLong(), anyInt(), any(), any(), any(), any(), any());
+    }
+}
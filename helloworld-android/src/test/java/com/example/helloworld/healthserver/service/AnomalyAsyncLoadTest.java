@@ -0,0 +1,159 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.example.helloworld.healthserver.config.UserPrincipal;
+import com.example.helloworld.healthserver.dto.HealthDtos;
+import com.example.helloworld.healthserver.persistence.HealthDataRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 동기 vs 비동기 이상탐지의 DB 커넥션 풀 여유 비교 (./gradlew loadTest)
+ * 트랜잭션 시작~종료 동안 커넥션 1개를 점유하는 풀 대역(POOL 개, Hikari 기본 10)으로
+ * 같은 부하를 흘리고 점유율/피크/풀 대기/수집 지연을 출력한다.
+ * 트랜잭션 경계는 서비스가 직접 잡는다: 동기 모드는 저장 트랜잭션 커밋 후 AI 왕복(AI_MS)을 트랜잭션 밖에서,
+ * 비동기 모드는 커밋 후 워커에서 기다린다 (어느 쪽도 AI 대기 동안 커넥션을 잡지 않아야 한다).
+ */
+@Tag("load")
+class AnomalyAsyncLoadTest {
+
+    private static final int POOL = 10;
+    private static final int REQUESTS = 2_000;
+    private static final int CLIENTS = 40;
+    private static final long AI_MS = 150;
+    private static final long INSERT_MS = 2;
+
+    /** begin 에서 풀 permit 획득, 종료 시 반납 — 점유 시간/피크/대기 집계 */
+    static class PoolTxManager extends AbstractPlatformTransactionManager {
+        final Semaphore pool = new Semaphore(POOL, true);
+        final AtomicInteger inUse = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final AtomicLong heldNanos = new AtomicLong();
+        final long[] waits = new long[REQUESTS * 3];
+        final AtomicInteger waitIdx = new AtomicInteger();
+
+        static class Tx { long acquiredAt; }
+
+        @Override protected Object doGetTransaction() { return new Tx(); }
+
+        @Override protected void doBegin(Object tx, TransactionDefinition def) {
+            long t0 = System.nanoTime();
+            pool.acquireUninterruptibly();
+            long now = System.nanoTime();
+            int i = waitIdx.getAndIncrement();
+            if (i < waits.length) waits[i] = now - t0;
+            peak.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+            ((Tx) tx).acquiredAt = now;
+        }
+
+        @Override protected void doCommit(DefaultTransactionStatus status) {}
+        @Override protected void doRollback(DefaultTransactionStatus status) {}
+
+        @Override protected void doCleanupAfterCompletion(Object tx) {
+            heldNanos.addAndGet(System.nanoTime() - ((Tx) tx).acquiredAt);
+            inUse.decrementAndGet();
+            pool.release();
+        }
+
+        long waitP99Ms() {
+            long[] w = Arrays.copyOf(waits, Math.min(waitIdx.get(), waits.length));
+            Arrays.sort(w);
+            return w.length == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(w[Math.min(w.length - 1, (int) (w.length * 0.99))]);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Result(String mode, long wallMs, long p50, long p99, PoolTxManager pool) {
+        void print() {
+            double heldMs = pool.heldNanos.get() / 1e6;
+            double meanActive = heldMs / wallMs;
+            System.out.printf("[ANOMALY-LOAD] %-5s wall=%,dms ingest p50=%dms p99=%dms | conn held/req=%.1fms " +
+                            "mean active=%.2f/%d peak=%d pool-wait p99=%dms headroom=%.0f%%%n",
+                    mode, wallMs, p50, p99, heldMs / REQUESTS, meanActive, POOL, pool.peak.get(),
+                    pool.waitP99Ms(), 100 * (1 - meanActive / POOL));
+        }
+    }
+
+    private Result run(String mode, Function<HealthDataService, Runnable> perRequest, boolean async) throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PoolTxManager txManager = new PoolTxManager();
+
+        HealthDataRepository repo = mock(HealthDataRepository.class);
+        when(repo.save(any())).thenAnswer(inv -> { sleep(INSERT_MS); return inv.getArgument(0); });
+        AiServerClient ai = mock(AiServerClient.class);
+        when(ai.checkTelemetry(anyLong(), any())).thenAnswer(inv -> {
+            sleep(AI_MS);
+            return new AiServerClient.AnomalyResponse(true, false, "low", "normal", List.of(), null, null, null, null);
+        });
+        AnomalyCheckService checks = new AnomalyCheckService(
+                new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                new ObjectMapper().findAndRegisterModules(), txManager, registry, false, 64, 10_000, 600, true);
+        HealthDataService service = new HealthDataServiceFixture()
+                .repo(repo).ai(ai).checks(checks).registry(registry).txManager(txManager).build();
+
+        Runnable call = perRequest.apply(service);
+        long[] lat = new long[REQUESTS];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long start = System.nanoTime();
+        for (int c = 0; c < CLIENTS; c++) {
+            clients.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < REQUESTS) {
+                    long t0 = System.nanoTime();
+                    call.run();
+                    lat[i] = System.nanoTime() - t0;
+                }
+            });
+        }
+        clients.shutdown();
+        assertTrue(clients.awaitTermination(5, TimeUnit.MINUTES));
+        if (async) assertTrue(checks.awaitIdle(2, TimeUnit.MINUTES));
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+        checks.stop();
+
+        Arrays.sort(lat);
+        return new Result(mode, wallMs, TimeUnit.NANOSECONDS.toMillis(lat[REQUESTS / 2]),
+                TimeUnit.NANOSECONDS.toMillis(lat[(int) (REQUESTS * 0.99)]), txManager);
+    }
+
+    @Test
+    @DisplayName("동기/비동기 이상탐지의 커넥션 점유 비교")
+    void connectionHeadroom() throws Exception {
+        UserPrincipal user = new UserPrincipal(1L, 10L, List.of());
+        HealthDtos.CreateRequest req = new HealthDtos.CreateRequest(Instant.now(), 0.3, 88);
+
+        run("sync", s -> () -> s.createAndCheckHealthData(user, req), false).print();
+        run("async", s -> () -> s.createAndSubmitHealthData(user, req), true).print();
+    }
+}
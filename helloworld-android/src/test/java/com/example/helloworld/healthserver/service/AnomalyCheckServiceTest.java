@@ -0,0 +1,101 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnomalyCheckServiceTest {
+
+    private static final AiServerClient.AnomalyResponse EMERGENCY = new AiServerClient.AnomalyResponse(
+            true, true, "high", "EMERGENCY", List.of("HR_HIGH"), null, null, null, null);
+
+    static class CountingTxManager extends AbstractPlatformTransactionManager {
+        final AtomicInteger begun = new AtomicInteger();
+        @Override protected Object doGetTransaction() { return new Object(); }
+        @Override protected void doBegin(Object tx, TransactionDefinition def) { begun.incrementAndGet(); }
+        @Override protected void doCommit(DefaultTransactionStatus status) {}
+        @Override protected void doRollback(DefaultTransactionStatus status) {}
+    }
+
+    private final CountingTxManager txManager = new CountingTxManager();
+    private final AnomalyCheckService checks = new AnomalyCheckService(
+            new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+            new ObjectMapper().findAndRegisterModules(), txManager, new SimpleMeterRegistry(),
+            false, 4, 10_000, 600, false);
+
+    @AfterEach
+    void tearDown() {
+        checks.stop();
+    }
+
+    @Test
+    @DisplayName("커밋 후에 AI 를 호출하고, 알림 저장은 별도 트랜잭션에서 돈다")
+    void evaluatesAfterCommitAndAlertsInOwnTransaction() throws Exception {
+        AtomicBoolean calledInsideIngestTx = new AtomicBoolean();
+        AtomicBoolean alertInTx = new AtomicBoolean();
+        TransactionTemplate ingestTx = new TransactionTemplate(txManager);
+
+        AnomalyCheckService.Check pending = ingestTx.execute(s -> checks.submit(10L,
+                () -> {
+                    calledInsideIngestTx.set(TransactionSynchronizationManager.isActualTransactionActive());
+                    return EMERGENCY;
+                },
+                resp -> alertInTx.set(TransactionSynchronizationManager.isActualTransactionActive())));
+
+        assertEquals(AnomalyCheckService.Status.PENDING, pending.status());
+        assertTrue(checks.awaitIdle(2, TimeUnit.SECONDS));
+
+        AnomalyCheckService.Check done = checks.find(10L, pending.checkId()).orElseThrow();
+        assertEquals(AnomalyCheckService.Status.DONE, done.status());
+        assertEquals(EMERGENCY, done.anomaly());
+        assertNotNull(done.completedAt());
+        assertFalse(calledInsideIngestTx.get());
+        assertTrue(alertInTx.get());
+        assertEquals(2, txManager.begun.get());
+    }
+
+    @Test
+    @DisplayName("수집이 롤백되면 평가하지 않고 FAILED")
+    void rollbackMarksFailedWithoutEvaluating() {
+        AtomicInteger aiCalls = new AtomicInteger();
+        TransactionTemplate ingestTx = new TransactionTemplate(txManager);
+
+        AnomalyCheckService.Check pending = ingestTx.execute(s -> {
+            s.setRollbackOnly();
+            return checks.submit(10L, () -> { aiCalls.incrementAndGet(); return EMERGENCY; }, r -> {});
+        });
+
+        assertEquals(AnomalyCheckService.Status.FAILED, checks.find(10L, pending.checkId()).orElseThrow().status());
+        assertEquals(0, aiCalls.get());
+    }
+
+    @Test
+    @DisplayName("AI 오류는 FAILED, 다른 커플의 check_id 는 보이지 않음")
+    void aiErrorFailsAndOtherCoupleCannotRead() throws Exception {
+        AnomalyCheckService.Check pending = checks.submit(10L, () -> {
+            throw new IllegalStateException("ai down");
+        }, r -> fail("alert must not run"));
+
+        assertTrue(checks.awaitIdle(2, TimeUnit.SECONDS));
+        assertEquals(AnomalyCheckService.Status.FAILED, checks.find(10L, pending.checkId()).orElseThrow().status());
+        assertTrue(checks.find(11L, pending.checkId()).isEmpty());
+        assertTrue(checks.find(10L, "unknown").isEmpty());
+    }
+}
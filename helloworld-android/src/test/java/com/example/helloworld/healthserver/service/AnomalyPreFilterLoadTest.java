@@ -0,0 +1,257 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.client.AiServerClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 사전 필터 재생 벤치 (./gradlew loadTest --tests '*AnomalyPreFilterLoadTest')
+ * 커플별 24시간 10초 틱 합성 트레이스(일주기 HR + AR 잡음, 운동, 드문 빈맥/서맥, 스트레스 구간)를
+ * anomaly.py 규칙 포팅본(AiRules)에 전부 보낸 결과와, 사전 필터가 통과시킨 샘플만 보낸 결과를 비교한다.
+ * 출력: AI 호출 감소율, 발생 경보(restrict/emergency 시작) 누락/추가, 앱에 보이는 mode 불일치, 샘플당 admit 비용.
+ * -Dbench.replicas=N (기본 1): 샘플을 N 개 필터(파드)에 라운드로빈으로 나누고 보냄 타이머는 공유 Redis 대역으로.
+ * -Dbench.shared=false 면 공유 없이 (redis.enabled=false 를 여러 레플리카에서 켠 경우). 이때는 경보 보존을 단언하지 않는다.
+ */
+@Tag("load")
+class AnomalyPreFilterLoadTest {
+
+    private static final int COUPLES = Integer.getInteger("bench.couples", 500);
+    private static final int REPLICAS = Integer.getInteger("bench.replicas", 1);
+    private static final boolean SHARED = Boolean.parseBoolean(System.getProperty("bench.shared", "true"));
+    private static final int TICKS = 24 * 360; // 10초 틱, 24시간
+    private static final long TICK_MS = 10_000;
+    private static final long T0 = Instant.parse("2025-09-01T00:00:00+09:00").toEpochMilli();
+
+    /** 커플 1쌍의 하루치 트레이스 (NaN = 결측) + 4시간 버킷 기준선 */
+    record Trace(float[] hr, float[] stress, double[][] hrBase, double[][] stressBase) {}
+
+    @Test
+    @DisplayName("재생 데이터에서 AI 호출 감소율/경보 보존/샘플당 비용")
+    void replay() {
+        Trace[] traces = new Trace[COUPLES];
+        for (int c = 0; c < COUPLES; c++) traces[c] = generate(new Random(1000L + c));
+        long samples = (long) COUPLES * TICKS;
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        long forwarded = 0, fullAlerts = 0, filteredAlerts = 0, missed = 0, extra = 0, modeMismatch = 0;
+        for (int c = 0; c < COUPLES; c++) {
+            Trace t = traces[c];
+            AnomalyPreFilter[] pods = pods(registry);
+            AiRules full = new AiRules(t);
+            AiRules filtered = new AiRules(t);
+            for (int i = 0; i < TICKS; i++) {
+                long ts = T0 + i * TICK_MS;
+                Integer hr = Float.isNaN(t.hr[i]) ? null : Math.round(t.hr[i]);
+                Double stress = Float.isNaN(t.stress[i]) ? null : (double) t.stress[i];
+
+                String fullMode = full.evaluate(ts, hr, stress);
+                boolean fullFired = full.fired;
+
+                String seen = "normal";
+                boolean filteredFired = false;
+                AnomalyPreFilter filter = pods[i % REPLICAS];
+                if (filter.admit(1L, Instant.ofEpochMilli(ts), hr, stress)) {
+                    forwarded++;
+                    seen = filtered.evaluate(ts, hr, stress);
+                    filteredFired = filtered.fired;
+                    filter.onResult(1L, Instant.ofEpochMilli(ts), response(seen));
+                }
+                if (fullFired) fullAlerts++;
+                if (filteredFired) filteredAlerts++;
+                if (fullFired && !filteredFired) missed++;
+                if (filteredFired && !fullFired) extra++;
+                if (!fullMode.equals(seen)) modeMismatch++;
+            }
+        }
+
+        // 샘플당 비용: JIT 예열 뒤 새 필터로 한 번 더 (AI 결과 반영 없이 admit 만)
+        long[] hrBox = new long[1];
+        for (int warm = 0; warm < 2; warm++) admitAll(traces, hrBox);
+        long t0 = System.nanoTime();
+        admitAll(traces, hrBox);
+        double nsPerSample = (System.nanoTime() - t0) / (double) samples;
+
+        double reduction = 100.0 * (samples - forwarded) / samples;
+        System.out.printf("[PREFILTER-LOAD] couples=%d replicas=%d shared=%b samples=%,d forwarded=%,d (%.1f%%) AI call reduction=%.1f%%%n",
+                COUPLES, REPLICAS, SHARED, samples, forwarded, 100.0 * forwarded / samples, reduction);
+        StringBuilder triggers = new StringBuilder();
+        registry.find("anomaly.prefilter.decisions").counters().forEach(c -> triggers.append(
+                String.format(" %s=%.1f%%", c.getId().getTag("trigger"), 100.0 * c.count() / samples)));
+        System.out.printf("[PREFILTER-LOAD] by trigger:%s%n", triggers);
+        System.out.printf("[PREFILTER-LOAD] alerts full=%d filtered=%d missed=%d extra=%d | app mode mismatch=%d (%.3f%%)%n",
+                fullAlerts, filteredAlerts, missed, extra, modeMismatch, 100.0 * modeMismatch / samples);
+        System.out.printf("[PREFILTER-LOAD] admit cost=%.0f ns/sample (single thread, %d forwarded in timing pass)%n",
+                nsPerSample, hrBox[0]);
+
+        assertTrue(reduction > 50, "pre-filter should skip most steady-state samples");
+        if (SHARED) assertTrue(missed <= fullAlerts / 100, "alerts must survive the pre-filter");
+    }
+
+    private static void admitAll(Trace[] traces, long[] forwardedOut) {
+        AnomalyPreFilter filter = filter(new SimpleMeterRegistry());
+        long fwd = 0;
+        for (int c = 0; c < traces.length; c++) {
+            Trace t = traces[c];
+            for (int i = 0; i < TICKS; i++) {
+                Integer hr = Float.isNaN(t.hr[i]) ? null : Math.round(t.hr[i]);
+                Double stress = Float.isNaN(t.stress[i]) ? null : (double) t.stress[i];
+                if (filter.admit((long) c, Instant.ofEpochMilli(T0 + i * TICK_MS), hr, stress)) fwd++;
+            }
+        }
+        forwardedOut[0] = fwd;
+    }
+
+    // 커플 1쌍의 파드별 필터, 보냄 타이머는 파드끼리 공유 (1개면 Redis 없음)
+    private static AnomalyPreFilter[] pods(SimpleMeterRegistry registry) {
+        if (REPLICAS == 1) return new AnomalyPreFilter[] {filter(registry)};
+        Map<String, String> store = new HashMap<>();
+        AnomalyPreFilter[] pods = new AnomalyPreFilter[REPLICAS];
+        for (int p = 0; p < REPLICAS; p++) {
+            pods[p] = AnomalyPreFilterTest.filter(SHARED ? AnomalyPreFilterTest.sharedRedis(store) : null, registry, true);
+        }
+        return pods;
+    }
+
+    private static AnomalyPreFilter filter(SimpleMeterRegistry registry) {
+        return AnomalyPreFilterTest.filter(null, registry, true);
+    }
+
+    private static AiServerClient.AnomalyResponse response(String mode) {
+        boolean anomaly = !"normal".equals(mode);
+        return new AiServerClient.AnomalyResponse(true, anomaly, anomaly ? "high" : "low", mode,
+                List.of(), null, null, null, null);
+    }
+
+    // ===== 합성 트레이스 =====
+
+    private static Trace generate(Random rnd) {
+        float[] hr = new float[TICKS];
+        float[] stress = new float[TICKS];
+        double rest = 62 + rnd.nextGaussian() * 6;
+        double stressBase = 0.25 + rnd.nextDouble() * 0.15;
+
+        // 이벤트: 운동 0~2회, 빈맥 5%, 서맥 3%, 스트레스 구간 0~2회
+        int[][] exercise = events(rnd, rnd.nextInt(3), 120, 360);
+        int[][] tachy = rnd.nextDouble() < 0.05 ? events(rnd, 1, 12, 30) : new int[0][];
+        int[][] brady = rnd.nextDouble() < 0.03 ? events(rnd, 1, 12, 30) : new int[0][];
+        int[][] stressUp = events(rnd, rnd.nextInt(3), 30, 90);
+        double[] exercisePeak = new double[exercise.length];
+        for (int k = 0; k < exercise.length; k++) exercisePeak[k] = 35 + rnd.nextDouble() * 60; // 일부는 150 초과
+
+        double hrNoise = 0, stressNoise = 0;
+        for (int i = 0; i < TICKS; i++) {
+            double hour = i / 360.0;
+            boolean asleep = hour < 6.5 || hour >= 23.5;
+            double circadian = asleep ? -8 : 6 * Math.sin(Math.PI * (hour - 6.5) / 17);
+            hrNoise = 0.9 * hrNoise + rnd.nextGaussian() * 1.3;
+            double h = rest + circadian + hrNoise;
+            for (int k = 0; k < exercise.length; k++) h += ramp(i, exercise[k]) * exercisePeak[k];
+            for (int[] e : tachy) if (i >= e[0] && i < e[1]) h = 165 + rnd.nextGaussian() * 4;
+            for (int[] e : brady) if (i >= e[0] && i < e[1]) h = 40 + rnd.nextGaussian() * 2;
+
+            stressNoise = 0.9 * stressNoise + rnd.nextGaussian() * 0.012;
+            double s = stressBase + (asleep ? -0.08 : 0) + stressNoise;
+            for (int[] e : stressUp) s += ramp(i, e) * 0.55;
+
+            hr[i] = rnd.nextDouble() < 0.02 ? Float.NaN : (float) h;
+            stress[i] = rnd.nextDouble() < 0.1 ? Float.NaN : (float) Math.min(1, Math.max(0, s));
+        }
+        return new Trace(hr, stress, bucketStats(hr, 4), bucketStats(stress, 0.05));
+    }
+
+    /** count 개 구간 [start, end) — 길이 minLen~maxLen 틱 */
+    private static int[][] events(Random rnd, int count, int minLen, int maxLen) {
+        int[][] out = new int[count][];
+        for (int k = 0; k < count; k++) {
+            int start = 400 + rnd.nextInt(TICKS - maxLen - 800);
+            out[k] = new int[]{start, start + minLen + rnd.nextInt(maxLen - minLen)};
+        }
+        return out;
+    }
+
+    /** 구간 안에서 양 끝 12틱(2분) 동안 0→1→0 으로 오르내림 */
+    private static double ramp(int i, int[] e) {
+        if (i < e[0] || i >= e[1]) return 0;
+        return Math.min(1, Math.min(i - e[0], e[1] - 1 - i) / 12.0);
+    }
+
+    /**
+     * user_tod_stats_daily 대역: 4시간 버킷별 (mean, std).
+     * 실제 통계는 여러 날에 걸쳐 쌓이므로 하루 평균 차이(dayStd)를 분산에 더한다.
+     */
+    private static double[][] bucketStats(float[] xs, double dayStd) {
+        double[][] out = new double[6][];
+        int per = TICKS / 6;
+        for (int b = 0; b < 6; b++) {
+            AnomalyPreFilter.RunningStats st = new AnomalyPreFilter.RunningStats();
+            for (int i = b * per; i < (b + 1) * per; i++) if (!Float.isNaN(xs[i])) st.add(xs[i]);
+            out[b] = new double[]{st.mean, Math.sqrt(st.std() * st.std() + dayStd * dayStd)};
+        }
+        return out;
+    }
+
+    // ===== anomaly.py (AnomalyDetector.evaluate) 포팅 =====
+
+    static final class AiRules {
+        private final Trace t;
+        int emgHrZ, emgStressZ, resHrHigh, resHrLow, resStress;
+        long emergencyUntil = Long.MIN_VALUE, restrictUntil = Long.MIN_VALUE;
+        boolean fired; // 이번 호출에서 새 경보가 발생했는지 (쿨다운 응답 제외)
+
+        AiRules(Trace t) { this.t = t; }
+
+        String evaluate(long ts, Integer hr, Double stressRaw) {
+            fired = false;
+            if (ts <= emergencyUntil) return "emergency";
+            int bucket = (int) (((ts - T0) / 3_600_000L) % 24) / 4;
+
+            if (hr != null) {
+                Double z = z(hr, t.hrBase[bucket]);
+                boolean emg = z != null && Math.abs(z) >= 5.0;
+                boolean hi = (z != null && z >= 2.5) || hr >= 150;
+                boolean lo = (z != null && z <= -2.5) || hr <= 45;
+                emgHrZ = emg ? emgHrZ + 1 : 0;
+                resHrHigh = hi ? resHrHigh + 1 : 0;
+                resHrLow = lo ? resHrLow + 1 : 0;
+            }
+            if (stressRaw != null) {
+                double s = stressRaw > 1.0 ? stressRaw / 100.0 : stressRaw;
+                Double z = z(s, t.stressBase[bucket]);
+                boolean emg = z != null && Math.abs(z) >= 5.0;
+                boolean res = (z != null && Math.abs(z) >= 2.5) || (z == null && s >= 0.85);
+                emgStressZ = emg ? emgStressZ + 1 : 0;
+                resStress = res ? resStress + 1 : 0;
+            }
+
+            if (emgHrZ >= 3 || emgStressZ >= 3) {
+                emgHrZ = emgStressZ = resHrHigh = resHrLow = resStress = 0;
+                restrictUntil = Long.MIN_VALUE;
+                emergencyUntil = ts + 3_600_000;
+                fired = true;
+                return "emergency";
+            }
+            if (ts <= restrictUntil) return "restrict";
+            if (resHrHigh >= 3 || resHrLow >= 3 || resStress >= 3) {
+                resHrHigh = resHrLow = resStress = 0;
+                restrictUntil = ts + 180_000;
+                fired = true;
+                return "restrict";
+            }
+            return "normal";
+        }
+
+        private static Double z(double x, double[] base) {
+            return base[1] <= 1e-6 ? null : (x - base[0]) / base[1];
+        }
+    }
+}
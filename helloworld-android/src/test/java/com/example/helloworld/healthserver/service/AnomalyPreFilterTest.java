@@ -0,0 +1,210 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.client.AiServerClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AnomalyPreFilterTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T03:00:00Z");
+    private static final Long COUPLE = 10L;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AnomalyPreFilter filter = filter(null, true);
+    private final Random rnd = new Random(7);
+    private int tick;
+
+    /** redis == null 이면 Redis 빈 없음 (로컬 전용) */
+    static AnomalyPreFilter filter(StringRedisTemplate redis, SimpleMeterRegistry registry, boolean enabled) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        if (redis != null) beans.addBean("redis", redis);
+        return new AnomalyPreFilter(beans.getBeanProvider(StringRedisTemplate.class), registry,
+                enabled, true, 60, 720, 30, 10, 2.0, 0.1, 20, 30);
+    }
+
+    private AnomalyPreFilter filter(StringRedisTemplate redis, boolean enabled) {
+        return filter(redis, registry, enabled);
+    }
+
+    /** 레플리카 간 공유 Redis 대역: GET + EXTEND 스크립트(늘어날 때만 저장)만 흉내 */
+    @SuppressWarnings("unchecked")
+    static StringRedisTemplate sharedRedis(Map<String, String> store) {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        when(ops.get(anyString())).thenAnswer(inv -> store.get(inv.<String>getArgument(0)));
+        when(redis.execute(any(RedisScript.class), anyList(), any(), any())).thenAnswer(inv -> {
+            String key = inv.<List<String>>getArgument(1).get(0);
+            String until = inv.getArgument(2);
+            store.merge(key, until, (a, b) -> Long.parseLong(a) >= Long.parseLong(b) ? a : b);
+            return 1L;
+        });
+        return redis;
+    }
+
+    private Instant nextTs() {
+        return T0.plusSeconds(10L * tick++);
+    }
+
+    private boolean normal() {
+        return normal(filter);
+    }
+
+    private boolean normal(AnomalyPreFilter f) {
+        return f.admit(COUPLE, nextTs(), 70 + rnd.nextInt(3) - 1, 0.3 + rnd.nextGaussian() * 0.01);
+    }
+
+    private void warmUp() {
+        for (int i = 0; i < 30; i++) assertTrue(normal(), "warm-up sample " + i);
+        for (int i = 0; i < 20; i++) normal();
+    }
+
+    // 두 파드에 번갈아 (서비스 라운드로빈)
+    private void warmUp(AnomalyPreFilter a, AnomalyPreFilter b) {
+        for (int i = 0; i < 60; i++) assertTrue(normal(i % 2 == 0 ? a : b), "warm-up sample " + i);
+        for (int i = 0; i < 40; i++) normal(i % 2 == 0 ? a : b);
+    }
+
+    @Test
+    @DisplayName("워밍업 후 평온한 샘플은 AI 로 보내지 않는다")
+    void skipsSteadyStateAfterWarmup() {
+        warmUp();
+        int forwarded = 0;
+        for (int i = 0; i < 200; i++) if (normal()) forwarded++;
+        assertTrue(forwarded < 30, "forwarded=" + forwarded);
+        assertTrue(registry.get("anomaly.prefilter.decisions").tag("result", "skip").counter().count() > 170);
+    }
+
+    @Test
+    @DisplayName("HR 즉시 임계 근처는 보내고, 이후 hold 동안 정상 샘플도 보낸 뒤 멈춘다")
+    void forwardsNearThresholdThenHoldsForCounterReset() {
+        warmUp();
+        assertTrue(filter.admit(COUPLE, nextTs(), 142, 0.3));
+        assertTrue(filter.admit(COUPLE, nextTs(), 41, 0.3));
+        // 마지막 후보 +20초까지는 HOLD 로 전달 → AI 의 연속 틱 카운터가 리셋됨
+        assertTrue(normal());
+        assertTrue(normal());
+        int forwarded = 0;
+        for (int i = 0; i < 10; i++) if (normal()) forwarded++;
+        assertTrue(forwarded <= 2, "forwarded=" + forwarded);
+    }
+
+    @Test
+    @DisplayName("z 스파이크와 스트레스 폴백 임계 근처는 전달")
+    void forwardsZSpikeAndStress() {
+        warmUp();
+        assertTrue(filter.admit(COUPLE, nextTs(), 95, 0.3));       // HR 은 70±1 → z 큼
+        tick += 10;                                                  // hold 지나게
+        assertTrue(filter.admit(COUPLE, nextTs(), 70, 0.8));       // 0.85 - 0.1 이상
+        tick += 10;
+        assertTrue(filter.admit(COUPLE, nextTs(), 70, 80.0));      // 0~100 스케일도 같은 기준
+    }
+
+    @Test
+    @DisplayName("AI 가 emergency 를 주면 쿨다운 동안은 전부 전달")
+    void forwardsEverythingWhileAiCooldownActive() {
+        warmUp();
+        Instant at = nextTs();
+        filter.onResult(COUPLE, at, new AiServerClient.AnomalyResponse(true, true, "critical", "emergency",
+                List.of("|HR_Z|>=5 x3"), null, null, new AiServerClient.Cooldown(true, null, 120), null));
+        for (int i = 0; i < 12; i++) assertTrue(normal(), "within cooldown " + i);
+        tick += 3;
+        int forwarded = 0;
+        for (int i = 0; i < 10; i++) if (normal()) forwarded++;
+        assertTrue(forwarded <= 2, "forwarded=" + forwarded);
+    }
+
+    @Test
+    @DisplayName("창 밖으로 밀려난 샘플은 통계에서 빠진다 (Welford 넣고 빼기)")
+    void slidingStatsMatchRecomputed() {
+        AnomalyPreFilter.RunningStats stats = new AnomalyPreFilter.RunningStats();
+        double[] xs = rnd.doubles(500, 50, 120).toArray();
+        int w = 60;
+        for (int i = 0; i < xs.length; i++) {
+            stats.add(xs[i]);
+            if (i >= w) stats.remove(xs[i - w]);
+        }
+        double mean = 0, m2 = 0;
+        for (int i = xs.length - w; i < xs.length; i++) mean += xs[i];
+        mean /= w;
+        for (int i = xs.length - w; i < xs.length; i++) m2 += (xs[i] - mean) * (xs[i] - mean);
+        assertEquals(w, stats.n);
+        assertEquals(mean, stats.mean, 1e-9);
+        assertEquals(Math.sqrt(m2 / (w - 1)), stats.std(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("긴 공백 뒤에는 다시 워밍업, 꺼져 있으면 항상 전달")
+    void rewarmsAfterGapAndPassesThroughWhenDisabled() {
+        warmUp();
+        tick += 6 * 61; // 61분 공백 → 창 비움
+        assertTrue(normal());
+
+        AnomalyPreFilter off = filter(null, false);
+        for (int i = 0; i < 100; i++) assertTrue(off.admit(COUPLE, nextTs(), 70, 0.3));
+    }
+
+    @Test
+    @DisplayName("레플리카 A 가 본 후보의 hold 는 Redis 로 공유 → B 의 다음 정상 샘플도 전달 (Redis 없으면 B 는 거름)")
+    void holdIsSharedAcrossReplicas() {
+        Map<String, String> store = new ConcurrentHashMap<>();
+        AnomalyPreFilter a = filter(sharedRedis(store), true);
+        AnomalyPreFilter b = filter(sharedRedis(store), true);
+        warmUp(a, b);
+        assertFalse(normal(b), "steady state is skipped");
+
+        assertTrue(a.admit(COUPLE, nextTs(), 142, 0.3));
+        assertTrue(normal(b), "B forwards inside A's hold");
+        assertTrue(normal(b));
+        assertTrue(registry.get("anomaly.prefilter.decisions").tag("trigger", "shared").counter().count() >= 1);
+        tick += 3; // hold(20초) 지남
+        int forwarded = 0;
+        for (int i = 0; i < 10; i++) if (normal(i % 2 == 0 ? a : b)) forwarded++;
+        assertTrue(forwarded <= 2, "forwarded=" + forwarded);
+
+        // 공유 안 하면 A 의 후보 직후 B 는 자기 창만 보고 거른다
+        AnomalyPreFilter la = filter(null, true);
+        AnomalyPreFilter lb = filter(null, true);
+        warmUp(la, lb);
+        assertTrue(la.admit(COUPLE, nextTs(), 142, 0.3));
+        assertFalse(normal(lb));
+    }
+
+    @Test
+    @DisplayName("한 레플리카가 받은 AI emergency 쿨다운 동안 다른 레플리카도 전부 전달")
+    void aiCooldownIsSharedAcrossReplicas() {
+        Map<String, String> store = new ConcurrentHashMap<>();
+        AnomalyPreFilter a = filter(sharedRedis(store), true);
+        AnomalyPreFilter b = filter(sharedRedis(store), true);
+        warmUp(a, b);
+        a.onResult(COUPLE, nextTs(), new AiServerClient.AnomalyResponse(true, true, "critical", "emergency",
+                List.of("|HR_Z|>=5 x3"), null, null, new AiServerClient.Cooldown(true, null, 120), null));
+        for (int i = 0; i < 11; i++) assertTrue(normal(b), "within cooldown " + i);
+    }
+
+    @Test
+    @DisplayName("공유 타이머를 못 읽으면 거르지 않고 전달 (fail-safe)")
+    void forwardsWhenRedisUnavailable() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        when(redis.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+        AnomalyPreFilter f = filter(redis, true);
+        for (int i = 0; i < 100; i++) assertTrue(normal(f), "sample " + i);
+        assertTrue(registry.get("anomaly.prefilter.decisions").tag("trigger", "redis_error").counter().count() > 0);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.helloworld.healthserver.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 일간 버킷 통계 스트리밍 내보내기 — 커플 100만 명 힙 사용량 (./gradlew loadTest --tests '*DailyStatsExportLoadTest')
+ * - health_bucket_stats 에 하루치 커플 × 6버킷을 서버에서 생성 (-Dbench.couples, 기본 1,000,000)
+ * - NDJSON 으로 내보내며 50ms 마다 GC 직후 힙(살아 있는 객체)을 샘플링 → 시작 대비 최대 증가량이 커플 수와 무관하게 작아야 함
+ *   (같은 결과를 List<StatsRow> 로 만들면 커플당 4행 → 100만 커플이면 수백 MB)
+ * - 내보내는 동안의 힙 최대 사용량(쓰레기 포함, 힙 풀별 peak 합)도 출력
+ * - 느린 클라이언트: 출력 스트림이 1MB 마다 잠깐씩 멈춤 → 쓰기가 막힌 동안 커서도 더 읽지 않음
+ *
+ * 실제 Postgres 가 필요하다: BENCH_PG_URL, BENCH_PG_USER, BENCH_PG_PASSWORD. 없으면 건너뛴다.
+ * bench_export 스키마에 테이블을 만들고 끝나면 지운다.
+ */
+@Tag("load")
+class DailyStatsExportLoadTest {
+
+    private static final int COUPLES = Integer.getInteger("bench.couples", 1_000_000);
+    private static final long MAX_HEAP_GROWTH = 64L * 1024 * 1024;
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 2);
+    private static final String SCHEMA = "bench_export";
+
+    private SingleConnectionDataSource ds;
+    private JdbcTemplate jdbc;
+    private DailyStatsExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getenv("BENCH_PG_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_PG_URL 미설정 — 건너뜀");
+        ds = new SingleConnectionDataSource(url, System.getenv("BENCH_PG_USER"), System.getenv("BENCH_PG_PASSWORD"), true);
+        jdbc = new JdbcTemplate(ds);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(ds);
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbc.execute("CREATE SCHEMA " + SCHEMA);
+        jdbc.execute("SET search_path TO " + SCHEMA);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HealthBucketRollup rollup = new HealthBucketRollup(jdbc, txManager, registry, true, 0, "Asia/Seoul");
+        rollup.ensureSchema();
+        exporter = new DailyStatsExporter(jdbc, txManager,
+                new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS),
+                rollup, registry, 1000, 31, "Asia/Seoul");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (jdbc == null) return;
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        ds.destroy();
+    }
+
+    @Test
+    @DisplayName("커플 100만 명 NDJSON 내보내기: 힙 증가량 일정")
+    void exportKeepsHeapFlat() throws Exception {
+        long t0 = System.nanoTime();
+        jdbc.update("""
+                INSERT INTO health_bucket_stats (couple_id, day, bucket, hr_n, hr_sum, hr_sumsq, st_n, st_sum, st_sumsq)
+                SELECT c, ?, b, 240, 240 * 75, 240 * 5700, 240, 240 * 40.0, 240 * 1700.0
+                  FROM generate_series(1, ?) c, generate_series(0, 5) b
+                """, Date.valueOf(DAY), COUPLES);
+        jdbc.execute("ANALYZE health_bucket_stats");
+        System.out.printf("[EXPORT-LOAD] loaded %,d couples x 6 buckets in %,d s%n",
+                COUPLES, (System.nanoTime() - t0) / 1_000_000_000L);
+
+        System.gc();
+        long baseline = liveHeap();
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+        AtomicLong peak = new AtomicLong(baseline);
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(liveHeap(), Math::max);
+                LockSupport.parkNanos(50_000_000L);
+            }
+        }, "heap-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        SlowSink out = new SlowSink();
+        t0 = System.nanoTime();
+        long lines = exporter.export(DAY, DAY, DailyStatsExporter.Format.NDJSON, out);
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        sampler.interrupt();
+        sampler.join();
+        long peakUsed = heapPools().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+
+        long growth = peak.get() - baseline;
+        System.out.printf("[EXPORT-LOAD] %,d lines, %,d MB written in %,d ms; live heap baseline %,d MB, peak growth %,d MB%n",
+                lines, out.bytes / (1024 * 1024), ms, baseline / (1024 * 1024), growth / (1024 * 1024));
+        System.out.printf("[EXPORT-LOAD] peak heap used during export %,d MB (garbage included, -Xmx %,d MB)%n",
+                peakUsed / (1024 * 1024), Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        assertEquals(4L * COUPLES, lines);
+        // GC 타이밍에 따라 출렁이므로 느슨한 상한 — 결과 전체를 들고 있으면 이보다 훨씬 큼
+        assertTrue(growth < MAX_HEAP_GROWTH, "heap grew by " + growth + " bytes");
+    }
+
+    private static Stream<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream().filter(p -> p.getType() == MemoryType.HEAP);
+    }
+
+    /** 직전 GC 직후 힙 사용량 합 (= 살아남은 객체). 다음 GC 전까지 쌓인 쓰레기는 빼고 봄 */
+    private static long liveHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools().toList()) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (afterGc != null) used += afterGc.getUsed();
+        }
+        return used;
+    }
+
+    /** 받은 바이트만 세고 버림. 1MB 마다 1ms 멈춰 느린 네트워크 흉내 */
+    private static final class SlowSink extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int n) {
+            long before = bytes >> 20;
+            bytes += n;
+            if ((bytes >> 20) != before) LockSupport.parkNanos(1_000_000L);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.helloworld.healthserver.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DailyStatsExporterTest {
+
+    private static final LocalDate D1 = LocalDate.of(2025, 1, 1);
+    private static final LocalDate D2 = LocalDate.of(2025, 1, 2);
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+    private final HealthBucketRollup rollup = mock(HealthBucketRollup.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private DailyStatsExporter exporter;
+    private int repeat = 1; // ROWS 를 커플 id 를 바꿔가며 몇 번 흘릴지
+
+    /** (day, coupleId, bucket, hrN, hrSum, hrSumSq) — 스트레스는 비움 */
+    private static final long[][] ROWS = {
+            {1, 1, 0, 2, 160, 13_000},
+            {1, 1, 5, 1, 75, 5_625},
+            {1, 2, 3, 1, 80, 6_400},
+            {2, 1, 0, 1, 90, 8_100},
+    };
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(rollup.enabled()).thenReturn(true);
+        exporter = new DailyStatsExporter(jdbc, txManager, objectMapper, rollup, new SimpleMeterRegistry(), 500, 31, "Asia/Seoul");
+        doAnswer(inv -> {
+            ResultSet rs = mock(ResultSet.class);
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (int k = 0; k < repeat; k++) {
+                for (long[] r : ROWS) {
+                    when(rs.getDate(1)).thenReturn(Date.valueOf(r[0] == 1 ? D1 : D2));
+                    when(rs.getLong(2)).thenReturn(r[1] + 10L * k);
+                    when(rs.getInt(3)).thenReturn((int) r[2]);
+                    when(rs.getLong(4)).thenReturn(r[3]);
+                    when(rs.getLong(5)).thenReturn(r[4]);
+                    when(rs.getLong(6)).thenReturn(r[5]);
+                    handler.processRow(rs);
+                }
+            }
+            return null;
+        }).when(jdbc).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private String export(DailyStatsExporter.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(D1, D2, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("NDJSON: (날짜, 커플)마다 4줄, daily-buckets 의 행과 같은 필드")
+    void writesNdjsonGroupedByDayAndCouple() throws Exception {
+        List<String> lines = export(DailyStatsExporter.Format.NDJSON).lines().toList();
+
+        assertEquals(12, lines.size());
+        var first = objectMapper.readTree(lines.get(0));
+        assertEquals("c1", first.get("user_ref").asText());
+        assertEquals("2025-01-01", first.get("as_of").asText());
+        assertEquals("hr", first.get("metric").asText());
+        assertEquals("avg", first.get("stat").asText());
+        assertEquals(80.0, first.get("v_0_4").asDouble());
+        assertTrue(first.get("v_4_8").isNull());
+        assertEquals(75.0, first.get("v_20_24").asDouble());
+        assertEquals("c2", objectMapper.readTree(lines.get(4)).get("user_ref").asText());
+        assertEquals("2025-01-02", objectMapper.readTree(lines.get(8)).get("as_of").asText());
+    }
+
+    @Test
+    @DisplayName("CSV: 헤더 + 빈 버킷은 빈 칸")
+    void writesCsv() throws Exception {
+        List<String> lines = export(DailyStatsExporter.Format.CSV).lines().toList();
+
+        assertEquals(13, lines.size());
+        assertEquals(DailyStatsExporter.CSV_HEADER, lines.get(0));
+        assertEquals("c1,2025-01-01,hr,avg,80.0,,,,,75.0", lines.get(1));
+        assertEquals("c1,2025-01-01,stress,avg,,,,,,", lines.get(3));
+    }
+
+    @Test
+    @DisplayName("forward-only 커서 + fetch-size 로 읽고, 읽기 전용 트랜잭션 안에서 돈다")
+    void readsThroughForwardOnlyCursor() throws Exception {
+        export(DailyStatsExporter.Format.NDJSON);
+
+        var creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbc).query(creator.capture(), any(RowCallbackHandler.class));
+        Connection con = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(con.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY))).thenReturn(ps);
+        creator.getValue().createPreparedStatement(con);
+        verify(ps).setFetchSize(500);
+        verify(txManager).getTransaction(argThat(def -> def.isReadOnly()));
+    }
+
+    @Test
+    @DisplayName("클라이언트가 끊으면 IOException 을 그대로 전파하고 트랜잭션은 롤백")
+    void propagatesClientAbort() {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        repeat = 1_000; // 쓰기 버퍼(64KB)를 넘겨 커서를 읽는 도중에 끊기도록
+
+        assertThrows(IOException.class, () -> exporter.export(D1, D2, DailyStatsExporter.Format.NDJSON, broken));
+        verify(txManager).rollback(any());
+        verify(txManager, never()).commit(any());
+    }
+
+    @Test
+    @DisplayName("기간/형식 검증")
+    void validatesRangeAndFormat() {
+        assertEquals(DailyStatsExporter.Format.CSV, exporter.validate(D1, D2, "csv"));
+        assertThrows(ResponseStatusException.class, () -> exporter.validate(D2, D1, "ndjson"));
+        assertThrows(ResponseStatusException.class, () -> exporter.validate(D1, D1.plusDays(31), "ndjson"));
+        assertThrows(ResponseStatusException.class, () -> exporter.validate(D1, D2, "xml"));
+    }
+}
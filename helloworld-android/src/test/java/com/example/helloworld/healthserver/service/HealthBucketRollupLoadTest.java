@@ -0,0 +1,177 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.dto.HealthDtos.StatsRow;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepositoryImpl;
+import com.example.helloworld.healthserver.persistence.HealthDataRepository;
+import com.example.helloworld.healthserver.persistence.PgCopyWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * health_bucket_stats 롤업 정합성 + 조회 시간 (./gradlew loadTest --tests '*HealthBucketRollupLoadTest')
+ * - 수집 경로(insertAll + record, write-behind 의 copyRows + record)로 적재한 롤업이
+ *   기존 집계 쿼리(aggregateGlobalDailyBuckets) 결과와 커플/버킷/지표별로 같은지
+ * - rebuild(day) 결과가 증분 롤업과 같은지
+ * - 같은 날 조회 시간: 기존 집계 vs 롤업 읽기
+ *
+ * 실제 Postgres 가 필요하다: BENCH_PG_URL, BENCH_PG_USER, BENCH_PG_PASSWORD. 없으면 건너뛴다.
+ * 커플 수 -Dbench.couples (기본 2000), 커플당 하루 샘플 -Dbench.samples (기본 500).
+ * bench_rollup 스키마에 테이블을 만들고 끝나면 지운다.
+ */
+@Tag("load")
+class HealthBucketRollupLoadTest {
+
+    private static final int COUPLES = Integer.getInteger("bench.couples", 2_000);
+    private static final int SAMPLES = Integer.getInteger("bench.samples", 500);
+    private static final ZoneId ZONE = ZoneId.of("Asia/Seoul");
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 2);
+    private static final String SCHEMA = "bench_rollup";
+
+    private SingleConnectionDataSource ds;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+    private HealthBucketRollup rollup;
+    private HealthDataBulkRepositoryImpl bulk;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getenv("BENCH_PG_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_PG_URL 미설정 — 건너뜀");
+        ds = new SingleConnectionDataSource(url, System.getenv("BENCH_PG_USER"), System.getenv("BENCH_PG_PASSWORD"), true);
+        jdbc = new JdbcTemplate(ds);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(ds);
+        tx = new TransactionTemplate(txManager);
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbc.execute("CREATE SCHEMA " + SCHEMA);
+        jdbc.execute("SET search_path TO " + SCHEMA);
+        jdbc.execute("""
+                CREATE TABLE health_data (
+                  health_id BIGSERIAL PRIMARY KEY,
+                  couple_id BIGINT NOT NULL,
+                  "date"    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                  stress    DOUBLE PRECISION,
+                  heartrate INTEGER)""");
+        rollup = new HealthBucketRollup(jdbc, txManager, new SimpleMeterRegistry(), true, 0, ZONE.getId());
+        rollup.ensureSchema();
+        bulk = new HealthDataBulkRepositoryImpl(jdbc, new PgCopyWriter(jdbc), 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (jdbc == null) return;
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        ds.destroy();
+    }
+
+    @Test
+    @DisplayName("증분 롤업 = 기존 집계 쿼리 = rebuild")
+    void rollupMatchesAggregateQuery() throws Exception {
+        load();
+
+        Timestamp from = Timestamp.from(DAY.atStartOfDay(ZONE).toInstant());
+        Timestamp to = Timestamp.from(DAY.plusDays(1).atStartOfDay(ZONE).toInstant());
+        String current = HealthDataRepository.class
+                .getMethod("aggregateGlobalDailyBuckets", Instant.class, Instant.class)
+                .getAnnotation(Query.class).value()
+                .replace(":from", "?").replace(":to", "?");
+
+        long t0 = System.nanoTime();
+        List<Map<String, Object>> expected = jdbc.queryForList(current, from, to);
+        long scanMs = (System.nanoTime() - t0) / 1_000_000;
+        t0 = System.nanoTime();
+        List<StatsRow> incremental = HealthDataService.rollupRows(DAY, rollup.day(DAY));
+        long rollupMs = (System.nanoTime() - t0) / 1_000_000;
+        System.out.printf("[BUCKET-ROLLUP-LOAD] %d couples x %d samples: aggregate scan %,d ms, rollup read %,d ms%n",
+                COUPLES, SAMPLES, scanMs, rollupMs);
+
+        assertMatches(expected, incremental);
+
+        rollup.rebuild(DAY);
+        assertMatches(expected, HealthDataService.rollupRows(DAY, rollup.day(DAY)));
+    }
+
+    /** 커플 절반은 동기 경로(insertAll), 절반은 write-behind 경로(copyRows) 로 — 각각 롤업과 같은 트랜잭션 */
+    private void load() {
+        Random rnd = new Random(42);
+        Instant start = DAY.atStartOfDay(ZONE).toInstant().minusSeconds(1_800); // 전날 마지막 30분도 섞음
+        long spanSec = 86_400 + 3_600;
+        for (long c = 1; c <= COUPLES; c++) {
+            List<HealthDataBulkRepository.Sample> samples = new ArrayList<>(SAMPLES);
+            for (int i = 0; i < SAMPLES; i++) {
+                Instant at = start.plusSeconds(rnd.nextLong(spanSec)).plusNanos(rnd.nextInt(1_000) * 1_000L);
+                Double stress = rnd.nextInt(20) == 0 ? null : rnd.nextDouble() * 100;
+                Integer hr = rnd.nextInt(20) == 0 ? null : 45 + rnd.nextInt(140);
+                samples.add(new HealthDataBulkRepository.Sample(at, stress, hr));
+            }
+            long coupleId = c;
+            if (c % 2 == 0) {
+                tx.executeWithoutResult(s -> {
+                    bulk.insertAll(coupleId, samples);
+                    rollup.record(coupleId, samples);
+                });
+            } else {
+                List<HealthDataBulkRepository.Row> rows = samples.stream()
+                        .map(s -> new HealthDataBulkRepository.Row(coupleId, s.date(), s.stress(), s.heartrate()))
+                        .toList();
+                rollup.atomically(() -> {
+                    bulk.copyRows(rows);
+                    rollup.record(rows);
+                    return null;
+                });
+            }
+        }
+        jdbc.execute("ANALYZE health_data");
+    }
+
+    private static void assertMatches(List<Map<String, Object>> expected, List<StatsRow> actual) {
+        Map<String, StatsRow> byKey = new HashMap<>();
+        for (StatsRow r : actual) byKey.put(r.userRef() + "/" + r.metric() + "/" + r.stat(), r);
+        assertEquals(expected.size() * 4, actual.size(), "same couples");
+
+        for (Map<String, Object> e : expected) {
+            String ref = "c" + e.get("coupleId");
+            check(e, "avgHr", byKey.get(ref + "/hr/avg"));
+            check(e, "stdHr", byKey.get(ref + "/hr/stddev"));
+            check(e, "avgSt", byKey.get(ref + "/stress/avg"));
+            check(e, "stdSt", byKey.get(ref + "/stress/stddev"));
+        }
+    }
+
+    private static void check(Map<String, Object> expected, String prefix, StatsRow row) {
+        Double[] got = {row.v0_4(), row.v4_8(), row.v8_12(), row.v12_16(), row.v16_20(), row.v20_24()};
+        for (int b = 0; b < 6; b++) {
+            Number want = (Number) expected.get(prefix + b);
+            String at = row.userRef() + " " + prefix + b;
+            if (want == null) {
+                assertNull(got[b], at);
+            } else {
+                double w = want.doubleValue();
+                assertEquals(w, got[b], Math.max(1e-9, Math.abs(w) * 1e-9), at);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.dto.HealthDtos.StatsRow;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository.Row;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository.Sample;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HealthBucketRollupTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+
+    private HealthBucketRollup rollup(boolean enabled) {
+        return new HealthBucketRollup(jdbc, mock(PlatformTransactionManager.class), registry, enabled, 0, "Asia/Seoul");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map.Entry<HealthBucketRollup.Key, HealthBucketRollup.Sums>> upserted() {
+        ArgumentCaptor<Collection<Map.Entry<HealthBucketRollup.Key, HealthBucketRollup.Sums>>> rows =
+                ArgumentCaptor.forClass(Collection.class);
+        verify(jdbc).batchUpdate(contains("ON CONFLICT"), rows.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        return new ArrayList<>(rows.getValue());
+    }
+
+    @Test
+    @DisplayName("샘플을 KST 날짜/4시간 버킷별로 합쳐 버킷당 1행만 키 순서로 upsert 한다")
+    void foldsSamplesIntoZoneBuckets() {
+        rollup(true).record(List.of(
+                new Row(2L, Instant.parse("2025-01-01T14:59:59Z"), 0.5, 80),  // KST 1/1 23:59 → bucket 5
+                new Row(1L, Instant.parse("2025-01-01T15:00:00Z"), 0.2, 70),  // KST 1/2 00:00 → bucket 0
+                new Row(1L, Instant.parse("2025-01-01T18:59:00Z"), null, 90), // KST 1/2 03:59 → bucket 0
+                new Row(1L, Instant.parse("2025-01-01T19:00:00Z"), 0.4, null) // KST 1/2 04:00 → bucket 1
+        ));
+
+        List<Map.Entry<HealthBucketRollup.Key, HealthBucketRollup.Sums>> rows = upserted();
+        assertEquals(List.of(
+                new HealthBucketRollup.Key(1L, LocalDate.of(2025, 1, 2), 0),
+                new HealthBucketRollup.Key(1L, LocalDate.of(2025, 1, 2), 1),
+                new HealthBucketRollup.Key(2L, LocalDate.of(2025, 1, 1), 5)), rows.stream().map(Map.Entry::getKey).toList());
+        HealthBucketRollup.Sums b0 = rows.get(0).getValue();
+        assertEquals(2, b0.hrN);
+        assertEquals(160, b0.hrSum);
+        assertEquals(70 * 70 + 90 * 90, b0.hrSumSq);
+        assertEquals(1, b0.stN);
+        assertEquals(0, rows.get(1).getValue().hrN);
+        assertEquals(3, registry.get("health.bucket.rollup.upserts").counter().count());
+    }
+
+    @Test
+    @DisplayName("합으로 계산한 평균/표본표준편차는 두 번 훑어 계산한 값과 같다")
+    void statsFromSumsMatchTwoPass() {
+        Random rnd = new Random(7);
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            samples.add(new Sample(Instant.parse("2025-01-01T00:00:00Z").plusSeconds(i % 3600),
+                    rnd.nextDouble() * 100, 55 + rnd.nextInt(120)));
+        }
+        rollup(true).record(9L, samples);
+        HealthBucketRollup.Sums s = upserted().get(0).getValue();
+        var stats = new HealthBucketRollup.BucketStats(9L, 2, s.hrN, s.hrSum, s.hrSumSq, s.stN, s.stSum, s.stSumSq);
+
+        double[] hr = samples.stream().mapToDouble(Sample::heartrate).toArray();
+        double[] st = samples.stream().mapToDouble(Sample::stress).toArray();
+        assertEquals(mean(hr), stats.hrAvg(), 1e-9);
+        assertEquals(stddevSamp(hr), stats.hrStddev(), 1e-9);
+        assertEquals(mean(st), stats.stAvg(), 1e-9);
+        assertEquals(stddevSamp(st), stats.stStddev(), 1e-9);
+
+        var single = new HealthBucketRollup.BucketStats(9L, 0, 1, 70, 4900, 0, 0, 0);
+        assertEquals(70.0, single.hrAvg());
+        assertNull(single.hrStddev()); // STDDEV_SAMP 와 같이 n=1 → null
+        assertNull(single.stAvg());
+    }
+
+    @Test
+    @DisplayName("여러 묶음으로 나눠 넣어도 upsert 누적 결과가 독립 계산(고정 +9h, 두 번 훑기)한 버킷 통계와 같다")
+    @SuppressWarnings("unchecked")
+    void matchesIndependentlyComputedBuckets() {
+        // 원본: 커플 3쌍, 3일에 걸친 무작위 시각 (자정/버킷 경계 포함), 결측 5%
+        Random rnd = new Random(11);
+        Instant start = Instant.parse("2025-01-01T12:00:00Z");
+        List<Row> all = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Instant at = start.plusSeconds(rnd.nextInt(3 * 86_400));
+            if (i % 500 == 0) at = Instant.parse("2025-01-02T15:00:00Z").minusSeconds(i % 1000 == 0 ? 1 : 0); // KST 자정 양옆
+            all.add(new Row(1L + rnd.nextInt(3), at,
+                    rnd.nextInt(20) == 0 ? null : rnd.nextDouble() * 100,
+                    rnd.nextInt(20) == 0 ? null : 50 + rnd.nextInt(130)));
+        }
+
+        // DB 대역: ON CONFLICT DO UPDATE 처럼 같은 키는 더함
+        Map<HealthBucketRollup.Key, HealthBucketRollup.Sums> table = new HashMap<>();
+        when(jdbc.batchUpdate(contains("ON CONFLICT"), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(inv -> {
+                    for (var e : inv.<Collection<Map.Entry<HealthBucketRollup.Key, HealthBucketRollup.Sums>>>getArgument(1)) {
+                        HealthBucketRollup.Sums cur = table.computeIfAbsent(e.getKey(), k -> new HealthBucketRollup.Sums());
+                        HealthBucketRollup.Sums add = e.getValue();
+                        cur.hrN += add.hrN;
+                        cur.hrSum += add.hrSum;
+                        cur.hrSumSq += add.hrSumSq;
+                        cur.stN += add.stN;
+                        cur.stSum += add.stSum;
+                        cur.stSumSq += add.stSumSq;
+                    }
+                    return new int[0][];
+                });
+
+        // 단건/커플 묶음(record(coupleId, samples))과 섞인 행(record(rows)) 경로를 번갈아
+        HealthBucketRollup rollup = rollup(true);
+        for (int from = 0, n; from < all.size(); from += n) {
+            n = Math.min(1 + rnd.nextInt(300), all.size() - from);
+            List<Row> chunk = all.subList(from, from + n);
+            if (rnd.nextBoolean()) {
+                rollup.record(chunk);
+            } else {
+                for (long c = 1; c <= 3; c++) {
+                    long couple = c;
+                    List<Sample> samples = chunk.stream().filter(r -> r.coupleId() == couple)
+                            .map(r -> new Sample(r.date(), r.stress(), r.heartrate())).toList();
+                    if (!samples.isEmpty()) rollup.record(couple, samples);
+                }
+            }
+        }
+
+        // 기대값: 고정 오프셋 산술로 KST 날짜/버킷, 두 번 훑어 평균/표본표준편차
+        Map<HealthBucketRollup.Key, List<Row>> expected = new TreeMap<>(
+                Comparator.comparingLong(HealthBucketRollup.Key::coupleId)
+                        .thenComparing(HealthBucketRollup.Key::day).thenComparingInt(HealthBucketRollup.Key::bucket));
+        for (Row r : all) {
+            long local = r.date().getEpochSecond() + 9 * 3600;
+            var key = new HealthBucketRollup.Key(r.coupleId(), LocalDate.ofEpochDay(Math.floorDiv(local, 86_400)),
+                    (int) (Math.floorMod(local, 86_400) / (4 * 3600)));
+            expected.computeIfAbsent(key, k -> new ArrayList<>()).add(r);
+        }
+        assertEquals(expected.keySet(), table.keySet());
+        assertTrue(expected.size() > 3 * 3 * 6, "spans several days: " + expected.size());
+
+        expected.forEach((key, rows) -> {
+            HealthBucketRollup.Sums s = table.get(key);
+            var stats = new HealthBucketRollup.BucketStats(key.coupleId(), key.bucket(),
+                    s.hrN, s.hrSum, s.hrSumSq, s.stN, s.stSum, s.stSumSq);
+            double[] hr = rows.stream().filter(r -> r.heartrate() != null).mapToDouble(Row::heartrate).toArray();
+            double[] st = rows.stream().filter(r -> r.stress() != null).mapToDouble(Row::stress).toArray();
+            assertEquals(hr.length, s.hrN, key.toString());
+            assertEquals(st.length, s.stN, key.toString());
+            assertStat(hr.length == 0 ? null : mean(hr), stats.hrAvg(), 1e-9, key + " hr avg");
+            assertStat(hr.length < 2 ? null : stddevSamp(hr), stats.hrStddev(), 1e-9, key + " hr stddev");
+            assertStat(st.length == 0 ? null : mean(st), stats.stAvg(), 1e-9, key + " stress avg");
+            assertStat(st.length < 2 ? null : stddevSamp(st), stats.stStddev(), 1e-7, key + " stress stddev");
+        });
+    }
+
+    private static void assertStat(Double expected, Double actual, double delta, String what) {
+        if (expected == null) {
+            assertNull(actual, what);
+        } else {
+            assertNotNull(actual, what);
+            assertEquals(expected, actual, delta, what);
+        }
+    }
+
+    @Test
+    @DisplayName("롤업 행을 커플당 4줄(hr/stress × avg/stddev)로 바꾸고 빈 버킷은 null")
+    void mapsRollupRowsToResponse() {
+        LocalDate day = LocalDate.of(2025, 1, 2);
+        List<StatsRow> rows = HealthDataService.rollupRows(day, List.of(
+                new HealthBucketRollup.BucketStats(1L, 0, 2, 160, 13_000, 1, 0.2, 0.04),
+                new HealthBucketRollup.BucketStats(1L, 3, 1, 75, 5_625, 0, 0, 0),
+                new HealthBucketRollup.BucketStats(2L, 5, 1, 80, 6_400, 1, 0.5, 0.25)));
+
+        assertEquals(8, rows.size());
+        StatsRow hrAvg = rows.get(0);
+        assertEquals("c1", hrAvg.userRef());
+        assertEquals("hr", hrAvg.metric());
+        assertEquals(80.0, hrAvg.v0_4());
+        assertNull(hrAvg.v4_8());
+        assertEquals(75.0, hrAvg.v12_16());
+        assertEquals(Math.sqrt(200), rows.get(1).v0_4(), 1e-9);
+        assertNull(rows.get(3).v0_4()); // stress stddev n=1
+        assertEquals("c2", rows.get(4).userRef());
+        assertEquals(80.0, rows.get(4).v20_24());
+    }
+
+    @Test
+    @DisplayName("꺼져 있으면 DB 를 건드리지 않고 atomically 는 그대로 실행만 한다")
+    void disabledIsNoop() {
+        HealthBucketRollup off = rollup(false);
+        off.record(1L, List.of(new Sample(Instant.now(), 0.1, 70)));
+        assertEquals("ran", off.atomically(() -> "ran"));
+        verifyNoInteractions(jdbc);
+    }
+
+    private static double mean(double[] xs) {
+        double s = 0;
+        for (double x : xs) s += x;
+        return s / xs.length;
+    }
+
+    private static double stddevSamp(double[] xs) {
+        double m = mean(xs), ss = 0;
+        for (double x : xs) ss += (x - m) * (x - m);
+        return Math.sqrt(ss / (xs.length - 1));
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.example.helloworld.healthserver.config.UserPrincipal;
+import com.example.helloworld.healthserver.dto.HealthDtos;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository.Sample;
+import com.example.helloworld.healthserver.persistence.HealthDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HealthDataBatchTest {
+
+    private final HealthDataRepository repo = mock(HealthDataRepository.class);
+    private final AiServerClient ai = mock(AiServerClient.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<String> txLog = new ArrayList<>();
+    private final HealthDataServiceFixture.NoopTxManager txManager = new HealthDataServiceFixture.NoopTxManager() {
+        @Override protected void doBegin(Object tx, TransactionDefinition def) { txLog.add("begin"); }
+        @Override protected void doCommit(DefaultTransactionStatus status) { txLog.add("commit"); }
+    };
+    private HealthDataService service;
+
+    private final UserPrincipal user = new UserPrincipal(1L, 10L, List.of());
+    private final Instant t0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        service = new HealthDataServiceFixture().repo(repo).ai(ai).registry(registry).txManager(txManager).build();
+        ReflectionTestUtils.setField(service, "batchMaxSamples", 5);
+        when(repo.insertAll(anyLong(), anyList())).thenAnswer(inv -> inv.<List<?>>getArgument(1).size());
+        when(ai.checkTelemetry(anyLong(), any())).thenReturn(
+                new AiServerClient.AnomalyResponse(true, false, "low", "normal", List.of(), null, null, null, null));
+    }
+
+    @Test
+    @DisplayName("샘플은 한 번에 저장되고 AI 는 윈도우 요약으로 1회만 호출된다")
+    void insertsOnceAndChecksOnce() {
+        var req = new HealthDtos.BatchRequest(List.of(
+                new HealthDtos.CreateRequest(t0.plusSeconds(20), 0.2, 80),
+                new HealthDtos.CreateRequest(t0, 0.1, 78),
+                new HealthDtos.CreateRequest(t0.plusSeconds(10), 0.7, 140)));
+
+        var resp = service.createAndCheckBatch(user, req);
+
+        assertEquals(3, resp.accepted());
+        assertEquals(t0, resp.windowFrom());
+        assertEquals(t0.plusSeconds(20), resp.windowTo());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Sample>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repo, times(1)).insertAll(eq(10L), rows.capture());
+        assertEquals(List.of(t0, t0.plusSeconds(10), t0.plusSeconds(20)),
+                rows.getValue().stream().map(Sample::date).toList(), "시간순 정렬");
+
+        ArgumentCaptor<AiServerClient.TelemetryRequest> tel = ArgumentCaptor.forClass(AiServerClient.TelemetryRequest.class);
+        verify(ai, times(1)).checkTelemetry(eq(10L), tel.capture());
+        assertEquals(140, tel.getValue().metrics().heartrate());
+        assertEquals(0.7, tel.getValue().metrics().stress());
+
+        assertEquals(3.0, registry.get("health.ingest.rows").tag("mode", "batch").counter().count());
+        assertEquals(1.0, registry.get("health.ingest.requests").tag("mode", "batch").counter().count());
+    }
+
+    @Test
+    @DisplayName("동기 모드: 저장 트랜잭션을 커밋한 뒤 AI 를 트랜잭션 밖에서 호출한다 (단건/배치)")
+    void callsAiOutsideTransaction() {
+        when(ai.checkTelemetry(anyLong(), any())).thenAnswer(inv -> {
+            txLog.add(TransactionSynchronizationManager.isActualTransactionActive() ? "ai-in-tx" : "ai");
+            return new AiServerClient.AnomalyResponse(true, false, "low", "normal", List.of(), null, null, null, null);
+        });
+
+        service.createAndCheckHealthData(user, new HealthDtos.CreateRequest(t0, 0.2, 80));
+        assertEquals(List.of("begin", "commit", "ai"), txLog);
+        verify(repo).save(any());
+
+        txLog.clear();
+        service.createAndCheckBatch(user, new HealthDtos.BatchRequest(List.of(
+                new HealthDtos.CreateRequest(t0, 0.1, 78), new HealthDtos.CreateRequest(t0.plusSeconds(1), 0.2, 80))));
+        assertEquals(List.of("begin", "commit", "ai"), txLog);
+    }
+
+    @Test
+    @DisplayName("윈도우 요약: 중앙값에서 더 멀리 벗어난 쪽 심박 (저심박 포함)")
+    void summaryPicksMostDeviantHeartRate() {
+        List<Sample> low = List.of(
+                new Sample(t0, null, 80), new Sample(t0.plusSeconds(1), null, 82),
+                new Sample(t0.plusSeconds(2), null, 40), new Sample(t0.plusSeconds(3), null, 90));
+        assertEquals(40, HealthDataService.summarizeWindow(low).heartrate());
+        assertNull(HealthDataService.summarizeWindow(low).stress());
+        assertEquals(t0.plusSeconds(3), HealthDataService.summarizeWindow(low).date());
+    }
+
+    @Test
+    @DisplayName("빈 배치는 400, 최대 건수 초과는 413")
+    void rejectsEmptyAndOversized() {
+        var empty = assertThrows(ResponseStatusException.class,
+                () -> service.createAndCheckBatch(user, new HealthDtos.BatchRequest(List.of())));
+        assertEquals(HttpStatus.BAD_REQUEST, empty.getStatusCode());
+
+        List<HealthDtos.CreateRequest> many = new ArrayList<>();
+        for (int i = 0; i < 6; i++) many.add(new HealthDtos.CreateRequest(t0.plusSeconds(i), 0.1, 70));
+        var big = assertThrows(ResponseStatusException.class,
+                () -> service.createAndCheckBatch(user, new HealthDtos.BatchRequest(many)));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, big.getStatusCode());
+        verifyNoInteractions(ai);
+    }
+
+    @Test
+    @DisplayName("비동기 모드: 사전 필터가 거른 샘플은 검사를 만들지 않고 바로 DONE (check_id 없음)")
+    void asyncSkippedSamplesAreAnsweredInline() {
+        AnomalyCheckService checks = mock(AnomalyCheckService.class);
+        AnomalyPreFilter preFilter = mock(AnomalyPreFilter.class); // admit/admitAll → false
+        HealthDataService async = new HealthDataServiceFixture().repo(repo).ai(ai).registry(registry)
+                .checks(checks).preFilter(preFilter).build();
+        ReflectionTestUtils.setField(async, "anomalyAsync", true);
+        ReflectionTestUtils.setField(async, "batchMaxSamples", 5);
+
+        var single = async.createAndSubmitHealthData(user, new HealthDtos.CreateRequest(t0, 0.1, 72));
+        assertNull(single.checkId());
+        assertEquals("DONE", single.status());
+        assertSame(AnomalyPreFilter.NOT_FORWARDED, single.anomaly());
+
+        var batch = async.createAndCheckBatch(user, new HealthDtos.BatchRequest(List.of(
+                new HealthDtos.CreateRequest(t0, 0.1, 72), new HealthDtos.CreateRequest(t0.plusSeconds(1), 0.1, 73))));
+        assertNull(batch.checkId());
+        assertSame(AnomalyPreFilter.NOT_FORWARDED, batch.anomaly());
+
+        verifyNoInteractions(checks, ai);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.alarm.repository.NotificationRepository;
+import com.example.helloworld.healthserver.alarm.service.AlertCooldownGate;
+import com.example.helloworld.healthserver.alarm.service.NotificationOutboxService;
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.example.helloworld.healthserver.persistence.HealthDataRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 테스트용 HealthDataService 조립. 안 넘긴 의존성은 목이나 꺼진(로컬 전용) 실제 구현으로 채운다.
+ * 의존성이 바뀌면 여기만 고친다.
+ */
+final class HealthDataServiceFixture {
+
+    // 트랜잭션 동기화(afterCommit)만 돌려주는 대역
+    static class NoopTxManager extends AbstractPlatformTransactionManager {
+        @Override protected Object doGetTransaction() { return new Object(); }
+        @Override protected void doBegin(Object tx, TransactionDefinition def) {}
+        @Override protected void doCommit(DefaultTransactionStatus status) {}
+        @Override protected void doRollback(DefaultTransactionStatus status) {}
+    }
+
+    private HealthDataRepository repo = mock(HealthDataRepository.class);
+    private AiServerClient ai = mock(AiServerClient.class);
+    private NotificationRepository notifications = mock(NotificationRepository.class);
+    private NotificationOutboxService outbox = mock(NotificationOutboxService.class);
+    private AlertCooldownGate cooldown = mock(AlertCooldownGate.class);
+    private AnomalyCheckService checks = mock(AnomalyCheckService.class);
+    private VitalsWriteBehind writeBehind = mock(VitalsWriteBehind.class);
+    private HealthBucketRollup rollup = mock(HealthBucketRollup.class);
+    private AnomalyPreFilter preFilter;
+    private MeterRegistry registry = new SimpleMeterRegistry();
+    private PlatformTransactionManager txManager = new NoopTxManager();
+
+    HealthDataServiceFixture repo(HealthDataRepository repo) { this.repo = repo; return this; }
+    HealthDataServiceFixture ai(AiServerClient ai) { this.ai = ai; return this; }
+    HealthDataServiceFixture notifications(NotificationRepository r) { this.notifications = r; return this; }
+    HealthDataServiceFixture outbox(NotificationOutboxService outbox) { this.outbox = outbox; return this; }
+    HealthDataServiceFixture cooldown(AlertCooldownGate cooldown) { this.cooldown = cooldown; return this; }
+    HealthDataServiceFixture checks(AnomalyCheckService checks) { this.checks = checks; return this; }
+    HealthDataServiceFixture writeBehind(VitalsWriteBehind writeBehind) { this.writeBehind = writeBehind; return this; }
+    HealthDataServiceFixture rollup(HealthBucketRollup rollup) { this.rollup = rollup; return this; }
+    HealthDataServiceFixture preFilter(AnomalyPreFilter preFilter) { this.preFilter = preFilter; return this; }
+    HealthDataServiceFixture registry(MeterRegistry registry) { this.registry = registry; return this; }
+    HealthDataServiceFixture txManager(PlatformTransactionManager txManager) { this.txManager = txManager; return this; }
+
+    HealthDataService build() {
+        VitalsWriter writer = new VitalsWriter(repo, writeBehind, rollup,
+                new RecentVitalsStore(new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                        registry, false, false, 3000, 60, 10, 128, 16, 60),
+                new LatestVitalsCache(new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                        new ObjectMapper(), registry, false, false, 1000, 72, 60),
+                registry);
+        AnomalyAlertService anomaly = new AnomalyAlertService(ai,
+                preFilter != null ? preFilter : new AnomalyPreFilter(
+                        new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                        registry, false, false, 60, 720, 30, 10, 2.0, 0.1, 20, 30),
+                checks, cooldown, notifications, outbox, txManager);
+        return new HealthDataService(repo, writer, anomaly, rollup, txManager);
+    }
+}
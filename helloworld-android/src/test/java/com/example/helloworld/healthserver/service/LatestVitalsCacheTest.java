@@ -0,0 +1,125 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.dto.response.HealthLatestResponse.HrItem;
+import com.example.helloworld.healthserver.dto.response.HealthLatestResponse.StepItem;
+import com.example.helloworld.healthserver.entity.HealthData;
+import com.example.helloworld.healthserver.entity.StepsData;
+import com.example.helloworld.healthserver.persistence.HealthDataRepository;
+import com.example.helloworld.healthserver.persistence.StepsDataRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LatestVitalsCacheTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T03:00:00.123456Z");
+    private static final Long COUPLE = 5L;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private LatestVitalsCache localOnly() {
+        return new LatestVitalsCache(new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                objectMapper, registry, true, false, 1000, 72, 60);
+    }
+
+    private double reads(String kind, String tier) {
+        return registry.get("vitals.latest.reads").tag("kind", kind).tag("tier", tier).counter().count();
+    }
+
+    @Test
+    @DisplayName("늦게 도착한 더 오래된 샘플은 최신값을 덮어쓰지 않는다")
+    void ignoresOutOfOrderWrites() {
+        LatestVitalsCache cache = localOnly();
+        assertNull(cache.get(COUPLE).hr());
+
+        cache.putHr(COUPLE, new HrItem(2L, T0.plusSeconds(10), 80, 0.5));
+        cache.putHr(COUPLE, new HrItem(1L, T0, 70, 0.3)); // 재전송/배치 지연
+        cache.putSteps(COUPLE, new StepItem(9L, T0, 1200, 37.5, 127.0));
+
+        LatestVitalsCache.Snapshot s = cache.get(COUPLE);
+        assertEquals(new HrItem(2L, T0.plusSeconds(10), 80, 0.5), s.hr());
+        assertEquals(1200, s.steps().steps());
+        assertEquals(1, reads("hr", "local"));
+        assertEquals(1, reads("hr", "miss"));
+    }
+
+    @Test
+    @DisplayName("HealthLatestService: 캐시에 있으면 DB 를 전혀 조회하지 않는다")
+    void latestServiceServesWithoutDb() {
+        LatestVitalsCache cache = localOnly();
+        HealthDataRepository healthRepo = mock(HealthDataRepository.class);
+        StepsDataRepository stepsRepo = mock(StepsDataRepository.class);
+        when(healthRepo.findFirstByCoupleIdAndDateGreaterThanEqualOrderByDateDesc(eq(COUPLE), any()))
+                .thenReturn(HealthData.builder().healthId(1L).coupleId(COUPLE).date(T0).heartrate(75).stress(0.2).build());
+        when(stepsRepo.findFirstByCoupleIdAndDateGreaterThanEqualOrderByDateDesc(eq(COUPLE), any()))
+                .thenReturn(StepsData.builder().stepsId(3L).coupleId(COUPLE).date(T0).steps(500).build());
+        HealthLatestService service = new HealthLatestService(healthRepo, stepsRepo,
+                new RecentVitalsStore(new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                        registry, false, false, 3000, 60, 10, 8, 4, 60), cache);
+
+        assertEquals(75, service.getLatest(COUPLE).heartrate().heartrate()); // miss → DB → 캐시 채움
+        verify(healthRepo).findFirstByCoupleIdAndDateGreaterThanEqualOrderByDateDesc(eq(COUPLE), any());
+        verify(stepsRepo).findFirstByCoupleIdAndDateGreaterThanEqualOrderByDateDesc(eq(COUPLE), any());
+
+        cache.putHr(COUPLE, new HrItem(2L, T0.plusSeconds(10), 88, 0.4)); // 수집 경로의 write-through
+        for (int i = 0; i < 3; i++) {
+            var r = service.getLatest(COUPLE);
+            assertEquals(88, r.heartrate().heartrate());
+            assertEquals(500, r.step().steps());
+        }
+        verifyNoMoreInteractions(healthRepo, stepsRepo);
+        assertEquals(3, reads("steps", "local"));
+    }
+
+    @Test
+    @DisplayName("Redis: 로컬에 없으면 Redis 에서 읽고, Redis 에 더 새 값이 있으면 로컬을 만료시킨다")
+    @SuppressWarnings("unchecked")
+    void readsThroughRedisAndYieldsToNewerRemote() throws Exception {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hash = mock(HashOperations.class);
+        when(redis.opsForHash()).thenReturn(hash);
+        HrItem remote = new HrItem(null, T0.plusSeconds(20), 90, 0.6); // 다른 레플리카가 쓴 값
+        when(hash.multiGet("vitals:latest:" + COUPLE, List.of("hr", "steps")))
+                .thenReturn(Arrays.asList(objectMapper.writeValueAsString(remote), null));
+        when(redis.execute(any(RedisScript.class), anyList(), any(), any(), any(), any())).thenReturn(0L);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("redis", redis);
+        LatestVitalsCache cache = new LatestVitalsCache(beans.getBeanProvider(StringRedisTemplate.class),
+                objectMapper, registry, true, true, 60_000, 72, 60);
+
+        cache.putHr(COUPLE, new HrItem(1L, T0, 70, 0.3));
+        assertEquals(remote, cache.get(COUPLE).hr()); // 로컬은 아직 Redis 를 안 읽음 → Redis
+        assertEquals(remote, cache.get(COUPLE).hr()); // local-ttl 안 → 로컬
+        assertEquals(1, reads("hr", "redis"));
+        assertEquals(1, reads("hr", "local"));
+        verify(hash, times(1)).multiGet(any(), anyCollection());
+
+        cache.putHr(COUPLE, new HrItem(3L, T0.plusSeconds(25), 95, 0.7)); // Redis 가 거절(0) → 로컬 만료
+        cache.get(COUPLE);
+        verify(hash, times(2)).multiGet(any(), anyCollection());
+    }
+
+    @Test
+    @DisplayName("꺼져 있으면 항상 빈 결과, 기록은 건너뛴다")
+    void disabledIsPassThrough() {
+        LatestVitalsCache off = new LatestVitalsCache(new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                objectMapper, registry, false, false, 1000, 72, 60);
+        off.putHr(COUPLE, new HrItem(1L, T0, 70, 0.3));
+        assertNull(off.get(COUPLE).hr());
+        assertNull(off.get(COUPLE).steps());
+    }
+}
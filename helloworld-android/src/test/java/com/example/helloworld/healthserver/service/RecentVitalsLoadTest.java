@@ -0,0 +1,195 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.entity.HealthData;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepositoryImpl;
+import com.example.helloworld.healthserver.persistence.PgCopyWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RecentVitalsStore 메모리/조회 지연 (./gradlew loadTest --tests '*RecentVitalsLoadTest')
+ * 1) 커플당 힙 사용량: 원시 배열 링버퍼 vs 같은 샘플을 HealthData 엔티티 리스트로 들고 있을 때
+ *    (-Dbench.couples, 기본 2만 — 테스트 JVM 기본 힙 512MB 안에서 둘 다 올라가는 크기)
+ * 2) 조회 지연: 최신 1건 / 최근 5분 구간을 메모리에서 (THREADS 스레드 동시)
+ * 3) (선택) 같은 조회를 Postgres 로 — BENCH_PG_URL/BENCH_PG_USER/BENCH_PG_PASSWORD 가 있을 때만.
+ *    health_data 에 벤치용 couple_id(9억 이상)를 넣고 끝나면 지운다.
+ */
+@Tag("load")
+class RecentVitalsLoadTest {
+
+    private static final int COUPLES = Integer.getInteger("bench.couples", 20_000);
+    private static final int THREADS = 8;
+    private static final int READS = 2_000_000;
+    private static final long TICK_S = 10;
+    private static final int SAMPLES = 60; // 10분 창 @10초
+    private static final long BENCH_COUPLE_BASE = 900_000_000L;
+
+    @Test
+    @DisplayName("커플당 메모리 + 메모리/DB 조회 지연")
+    void memoryAndReadLatency() throws Exception {
+        Instant now = Instant.now();
+
+        // 1) 메모리: 링버퍼
+        long before = usedHeap();
+        RecentVitalsStore store = new RecentVitalsStore(new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                new SimpleMeterRegistry(), true, false, 3000, 60, 10, 128, 16, 60);
+        fill(store, COUPLES, now);
+        long ringBytes = (usedHeap() - before) / COUPLES;
+
+        // 비교: 같은 샘플을 엔티티 리스트로
+        long before2 = usedHeap();
+        List<List<HealthData>> boxed = new ArrayList<>(COUPLES);
+        for (int c = 0; c < COUPLES; c++) {
+            List<HealthData> rows = new ArrayList<>(SAMPLES);
+            for (int i = 0; i < SAMPLES; i++) {
+                rows.add(HealthData.builder().healthId((long) c * SAMPLES + i).coupleId((long) c)
+                        .date(now.minusSeconds(TICK_S * (SAMPLES - i))).heartrate(60 + i).stress(0.3 + i / 1000.0).build());
+            }
+            boxed.add(rows);
+        }
+        long boxedBytes = (usedHeap() - before2) / COUPLES;
+        System.out.printf("[RECENT-LOAD] memory/couple: ring=%,d B (arrays %,d B, hr-capacity=128 steps-capacity=16) " +
+                        "vs HealthData list(%d samples)=%,d B | %d couples ≈ %,d MB%n",
+                ringBytes, store.arrayBytesPerCouple(), SAMPLES, boxedBytes, COUPLES, ringBytes * COUPLES >> 20);
+        boxed.clear();
+
+        // 2) 조회 지연 (메모리)
+        Instant from = now.minusSeconds(300);
+        long[] latest = timeReads(id -> store.latestHr(id).orElseThrow());
+        long[] range = timeReads(id -> store.hrBetween(id, from, now).orElseThrow());
+        print("memory latest", latest);
+        print("memory last-5m", range);
+
+        // 3) 조회 지연 (Postgres, 선택)
+        String url = System.getenv("BENCH_PG_URL");
+        if (url != null && !url.isBlank()) {
+            dbReads(url, now);
+        } else {
+            System.out.println("[RECENT-LOAD] BENCH_PG_URL 미설정 — DB 비교 건너뜀");
+        }
+
+        assertTrue(percentile(latest, 0.99) < 1_000_000, "in-memory latest p99 should be well under 1ms");
+    }
+
+    private static void fill(RecentVitalsStore store, int couples, Instant now) {
+        for (int c = 0; c < couples; c++) {
+            List<HealthDataBulkRepository.Sample> window = new ArrayList<>(SAMPLES);
+            for (int i = 0; i < SAMPLES; i++) {
+                window.add(new HealthDataBulkRepository.Sample(now.minusSeconds(TICK_S * (SAMPLES - 1 - i)),
+                        0.3 + i / 1000.0, 60 + i));
+            }
+            store.recordHr((long) c, window);
+            store.recordSteps((long) c, (long) c, now, 1000 + c % 5000, 37.5665, 126.978);
+        }
+    }
+
+    /** THREADS 스레드가 임의 커플을 READS 번 조회, 호출별 ns */
+    private static long[] timeReads(LongConsumer read) throws Exception {
+        // 예열
+        for (int i = 0; i < 200_000; i++) read.accept(ThreadLocalRandom.current().nextLong(COUPLES));
+        long[] lat = new long[READS];
+        int per = READS / THREADS;
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> fs = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int base = t * per;
+                fs.add(pool.submit(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    for (int i = 0; i < per; i++) {
+                        long id = rnd.nextLong(COUPLES);
+                        long t0 = System.nanoTime();
+                        read.accept(id);
+                        lat[base + i] = System.nanoTime() - t0;
+                    }
+                }));
+            }
+            for (Future<?> f : fs) f.get();
+        } finally {
+            pool.shutdown();
+        }
+        Arrays.sort(lat);
+        return lat;
+    }
+
+    private static void dbReads(String url, Instant now) {
+        // 커넥션 1개 재사용 (풀에서 꺼낸 커넥션과 같은 조건, 접속 비용 제외)
+        SingleConnectionDataSource ds = new SingleConnectionDataSource(url,
+                System.getenv("BENCH_PG_USER"), System.getenv("BENCH_PG_PASSWORD"), true);
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        HealthDataBulkRepositoryImpl bulk = new HealthDataBulkRepositoryImpl(jdbc, new PgCopyWriter(jdbc), 0);
+        int couples = 1_000;
+        try {
+            List<HealthDataBulkRepository.Row> rows = new ArrayList<>(couples * SAMPLES);
+            for (int c = 0; c < couples; c++) {
+                for (int i = 0; i < SAMPLES; i++) {
+                    rows.add(new HealthDataBulkRepository.Row(BENCH_COUPLE_BASE + c,
+                            now.minusSeconds(TICK_S * (SAMPLES - 1 - i)), 0.3, 60 + i));
+                }
+            }
+            bulk.copyRows(rows);
+            jdbc.execute("ANALYZE health_data");
+
+            int n = 5_000;
+            long[] latest = new long[n];
+            long[] range = new long[n];
+            java.sql.Timestamp from = java.sql.Timestamp.from(now.minusSeconds(300));
+            java.sql.Timestamp to = java.sql.Timestamp.from(now);
+            for (int i = 0; i < n; i++) {
+                long id = BENCH_COUPLE_BASE + ThreadLocalRandom.current().nextInt(couples);
+                long t0 = System.nanoTime();
+                jdbc.queryForList("SELECT health_id, \"date\", heartrate, stress FROM health_data " +
+                        "WHERE couple_id = ? ORDER BY \"date\" DESC LIMIT 1", id);
+                latest[i] = System.nanoTime() - t0;
+                t0 = System.nanoTime();
+                jdbc.queryForList("SELECT health_id, \"date\", heartrate, stress FROM health_data " +
+                        "WHERE couple_id = ? AND \"date\" BETWEEN ? AND ? ORDER BY \"date\" DESC", id, from, to);
+                range[i] = System.nanoTime() - t0;
+            }
+            Arrays.sort(latest);
+            Arrays.sort(range);
+            print("postgres latest", latest);
+            print("postgres last-5m", range);
+        } finally {
+            jdbc.update("DELETE FROM health_data WHERE couple_id >= ?", BENCH_COUPLE_BASE);
+            ds.destroy();
+        }
+    }
+
+    private static void print(String label, long[] sorted) {
+        System.out.printf("[RECENT-LOAD] %-17s p50=%,dns p99=%,dns p99.9=%,dns (n=%,d)%n", label,
+                percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999), sorted.length);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
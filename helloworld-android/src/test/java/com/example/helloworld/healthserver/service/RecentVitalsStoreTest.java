@@ -0,0 +1,249 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.dto.response.HealthLatestResponse.HrItem;
+import com.example.helloworld.healthserver.entity.HealthData;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository;
+import com.example.helloworld.healthserver.persistence.HealthDataRepository;
+import com.example.helloworld.healthserver.persistence.StepsDataRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RecentVitalsStoreTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T03:00:00.123456Z");
+    private static final Long COUPLE = 5L;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // 10분 창, HR 8건, 걸음 4건
+    private final RecentVitalsStore store = store(true);
+
+    // 복제 없음 (redis.enabled=false), max-lag 3초, 피어 만료 60초
+    private RecentVitalsStore store(boolean enabled) {
+        return new RecentVitalsStore(new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                registry, enabled, false, 3000, 60, 10, 8, 4, 60);
+    }
+
+    static class NoopTxManager extends AbstractPlatformTransactionManager {
+        @Override protected Object doGetTransaction() { return new Object(); }
+        @Override protected void doBegin(Object tx, TransactionDefinition def) {}
+        @Override protected void doCommit(DefaultTransactionStatus status) {}
+        @Override protected void doRollback(DefaultTransactionStatus status) {}
+    }
+
+    @Test
+    @DisplayName("기록한 최신값을 메모리에서 돌려주고, 값/µs 정밀도가 그대로 유지된다")
+    void servesLatestFromMemory() {
+        assertTrue(store.latestHr(COUPLE).isEmpty());
+
+        store.recordHr(COUPLE, 11L, T0, 72, 0.3);
+        store.recordHr(COUPLE, null, T0.plusSeconds(10), null, 42.5);
+        store.recordSteps(COUPLE, 7L, T0, 1200, 37.5665351, 126.9779692);
+
+        HrItem hr = store.latestHr(COUPLE).orElseThrow();
+        assertEquals(new HrItem(null, T0.plusSeconds(10), null, 42.5), hr);
+        assertEquals(new HrItem(11L, T0, 72, 0.3), store.hrBetween(COUPLE, T0, T0).orElseThrow().get(0));
+        var steps = store.latestSteps(COUPLE).orElseThrow();
+        assertEquals(37.5665351, steps.latitude());
+        assertEquals(126.9779692, steps.longitude());
+        assertEquals(1, registry.get("vitals.recent.reads").tag("kind", "latest_hr").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    @DisplayName("구간 조회는 보유 경계 안쪽만 메모리로, 밀려난 구간은 miss")
+    void rangeReadsRespectCoverage() {
+        for (int i = 0; i < 8; i++) store.recordHr(COUPLE, (long) i, T0.plusSeconds(10L * i), 70 + i, null);
+
+        assertTrue(store.hrBetween(COUPLE, T0.minusSeconds(1), T0.plusSeconds(60)).isEmpty()); // 첫 수집 이전
+        List<HrItem> items = store.hrBetween(COUPLE, T0, T0.plusSeconds(30)).orElseThrow();
+        assertEquals(List.of(73, 72, 71, 70), items.stream().map(HrItem::heartrate).toList()); // 최신순
+
+        // 용량 초과 → 가장 오래된 것 밀려남 → 그 구간은 DB
+        store.recordHr(COUPLE, 8L, T0.plusSeconds(80), 78, null);
+        assertTrue(store.hrBetween(COUPLE, T0, T0.plusSeconds(80)).isEmpty());
+        assertEquals(8, store.hrBetween(COUPLE, T0.plusSeconds(10), T0.plusSeconds(80)).orElseThrow().size());
+
+        // 10분 창 밖은 밀려남 (최신 1건 기준)
+        store.recordHr(COUPLE, 9L, T0.plusSeconds(700), 90, null);
+        assertTrue(store.hrBetween(COUPLE, T0.plusSeconds(80), T0.plusSeconds(700)).isEmpty());
+        assertEquals(1, store.hrBetween(COUPLE, T0.plusSeconds(100), T0.plusSeconds(700)).orElseThrow().size());
+    }
+
+    @Test
+    @DisplayName("늦게 온 샘플은 정렬 위치에 끼우고, 경계보다 오래된 샘플은 버린다")
+    void insertsLateSamplesInOrder() {
+        store.recordHr(COUPLE, List.of(
+                new HealthDataBulkRepository.Sample(T0.plusSeconds(20), null, 72),
+                new HealthDataBulkRepository.Sample(T0.plusSeconds(40), null, 74)));
+        store.recordHr(COUPLE, null, T0.plusSeconds(30), 73, null);
+        store.recordHr(COUPLE, null, T0.plusSeconds(10), 71, null); // 첫 수집(20초)보다 이전 → DB 에만
+
+        assertEquals(List.of(74, 73, 72), store.hrBetween(COUPLE, T0.plusSeconds(20), T0.plusSeconds(40))
+                .orElseThrow().stream().map(HrItem::heartrate).toList());
+        assertTrue(store.hrBetween(COUPLE, T0.plusSeconds(10), T0.plusSeconds(40)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("트랜잭션 안 기록은 커밋된 것만 반영된다")
+    void recordsOnlyAfterCommit() {
+        TransactionTemplate tx = new TransactionTemplate(new NoopTxManager());
+        tx.executeWithoutResult(s -> {
+            store.recordHr(COUPLE, 1L, T0, 70, null);
+            assertTrue(store.latestHr(COUPLE).isEmpty(), "visible before commit");
+        });
+        tx.executeWithoutResult(s -> {
+            store.recordHr(COUPLE, 2L, T0.plusSeconds(10), 99, null);
+            s.setRollbackOnly();
+        });
+        assertEquals(70, store.latestHr(COUPLE).orElseThrow().heartrate());
+    }
+
+    @Test
+    @DisplayName("HealthLatestService: miss 면 DB 에서 읽어 채우고, 이후엔 DB 를 건드리지 않는다")
+    void latestServiceSeedsFromDbOnMiss() {
+        HealthDataRepository healthRepo = mock(HealthDataRepository.class);
+        StepsDataRepository stepsRepo = mock(StepsDataRepository.class);
+        HealthData row = HealthData.builder().coupleId(COUPLE).date(T0).heartrate(80).stress(0.4).build();
+        when(healthRepo.findFirstByCoupleIdOrderByDateDesc(COUPLE)).thenReturn(row);
+        when(healthRepo.findByCoupleIdAndDateBetweenOrderByDateDesc(eq(COUPLE), any(), any())).thenReturn(List.of());
+        HealthLatestService service = new HealthLatestService(healthRepo, stepsRepo, store,
+                new LatestVitalsCache(new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                        new ObjectMapper(), registry, false, false, 1000, 72, 60));
+
+        assertEquals(80, service.getLatest(COUPLE).heartrate().heartrate());
+        assertEquals(80, service.getLatest(COUPLE).heartrate().heartrate());
+        verify(healthRepo, times(1)).findFirstByCoupleIdOrderByDateDesc(COUPLE);
+        verify(stepsRepo, times(2)).findFirstByCoupleIdOrderByDateDesc(COUPLE); // 걸음 기록 없음 → 매번 DB
+
+        // 최신 1건(T0)을 채웠으니 T0 이후 구간은 "샘플 없음"을 메모리가 답함
+        assertTrue(service.getRecent(COUPLE, 5).heartrate().isEmpty());
+        store.recordHr(COUPLE, 3L, Instant.now(), 77, null);
+        assertEquals(77, service.getRecent(COUPLE, 5).heartrate().get(0).heartrate());
+        verify(healthRepo, never()).findByCoupleIdAndDateBetweenOrderByDateDesc(eq(COUPLE), any(), any());
+
+        // 처음 보는 커플: 첫 구간 조회는 DB(빈 결과로 경계만 세움), 이후 수집분은 메모리에서
+        Long other = 6L;
+        assertTrue(service.getRecent(other, 5).heartrate().isEmpty());
+        store.recordHr(other, 4L, Instant.now(), 66, null);
+        assertEquals(66, service.getRecent(other, 5).heartrate().get(0).heartrate());
+        verify(healthRepo, times(1)).findByCoupleIdAndDateBetweenOrderByDateDesc(eq(other), any(), any());
+    }
+
+    @Test
+    @DisplayName("꺼져 있으면 기록/조회 모두 건너뛴다")
+    void disabledIsPassThrough() {
+        RecentVitalsStore off = store(false);
+        off.recordHr(COUPLE, 1L, T0, 70, null);
+        assertTrue(off.latestHr(COUPLE).isEmpty());
+        assertTrue(off.hrBetween(COUPLE, T0, T0).isEmpty());
+    }
+
+    /** 두 파드 + 동기 전달 pub/sub 대역. deliver=false 면 메시지 유실 */
+    private static final class Pods {
+        final long[] clock = {1_000};
+        final List<RecentVitalsFeed> subscribers = new ArrayList<>();
+        boolean deliver = true;
+        final RecentVitalsStore a, b;
+        final RecentVitalsFeed fa, fb;
+
+        Pods(SimpleMeterRegistry registry) {
+            StringRedisTemplate redis = mock(StringRedisTemplate.class);
+            when(redis.convertAndSend(eq(RecentVitalsFeed.CHANNEL), anyString())).thenAnswer(inv -> {
+                if (!deliver) return 0L;
+                byte[] body = inv.<String>getArgument(1).getBytes(StandardCharsets.UTF_8);
+                for (RecentVitalsFeed f : List.copyOf(subscribers)) {
+                    f.onMessage(new DefaultMessage(RecentVitalsFeed.CHANNEL.getBytes(StandardCharsets.UTF_8), body), null);
+                }
+                return (long) subscribers.size();
+            });
+            a = pod(registry);
+            b = pod(registry);
+            fa = a.replicateVia(redis, () -> clock[0]);
+            fb = b.replicateVia(redis, () -> clock[0]);
+            subscribers.add(fa);
+            subscribers.add(fb);
+        }
+
+        private static RecentVitalsStore pod(SimpleMeterRegistry registry) {
+            return new RecentVitalsStore(new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class),
+                    registry, true, true, 3000, 60, 10, 8, 4, 60);
+        }
+
+        /** 발행 스레드 한 바퀴 (시계를 ms 만큼 진행) */
+        void tick(long ms) {
+            clock[0] += ms;
+            fa.flush();
+            fb.flush();
+            fa.checkTrust();
+            fb.checkTrust();
+        }
+    }
+
+    @Test
+    @DisplayName("여러 레플리카: 한 파드가 커밋한 샘플을 다른 파드도 메모리에서 답함 (채널 확인 전에는 DB)")
+    void replicatesCommittedSamplesToOtherPods() {
+        Pods pods = new Pods(registry);
+        Instant t = Instant.now().plusSeconds(60).truncatedTo(ChronoUnit.MICROS); // 신뢰 회복 시 경계(현재 + max-lag) 뒤, DB 와 같은 µs
+        assertTrue(pods.b.latestHr(COUPLE).isEmpty());
+
+        pods.tick(1_000);  // 하트비트 → 메아리/피어 확인 → trusted
+        pods.a.recordHr(COUPLE, 11L, t, 72, 0.3);
+        pods.a.recordHr(COUPLE, List.of(new HealthDataBulkRepository.Sample(t.plusSeconds(10), 0.4, 75)));
+        pods.a.recordSteps(COUPLE, 7L, t, 1200, 37.5665351, 126.9779692);
+        assertTrue(pods.b.latestHr(COUPLE).isEmpty(), "not yet published");
+        pods.tick(10);
+
+        assertEquals(new HrItem(null, t.plusSeconds(10), 75, 0.4), pods.b.latestHr(COUPLE).orElseThrow());
+        assertEquals(List.of(new HrItem(null, t.plusSeconds(10), 75, 0.4), new HrItem(11L, t, 72, 0.3)),
+                pods.b.hrBetween(COUPLE, t, t.plusSeconds(10)).orElseThrow());
+        assertEquals(126.9779692, pods.b.latestSteps(COUPLE).orElseThrow().longitude());
+    }
+
+    @Test
+    @DisplayName("여러 레플리카: 메시지 유실(seq 끊김)이나 피어 침묵이면 메모리로 답하지 않음")
+    void dropsBuffersWhenReplicationCannotBeTrusted() {
+        Pods pods = new Pods(registry);
+        Instant t = Instant.now().plusSeconds(60).truncatedTo(ChronoUnit.MICROS);
+        pods.tick(1_000);
+        pods.a.recordHr(COUPLE, 1L, t, 70, null);
+        pods.tick(10);
+        assertEquals(70, pods.b.latestHr(COUPLE).orElseThrow().heartrate());
+
+        // 유실: B 는 71 을 못 받음 → 다음 메시지에서 끊김을 보고 비움
+        pods.a.recordHr(COUPLE, 2L, t.plusSeconds(10), 71, null);
+        pods.deliver = false;
+        pods.fa.flush();
+        pods.deliver = true;
+        pods.a.recordHr(COUPLE, 3L, t.plusSeconds(20), 72, null);
+        pods.tick(10);
+        assertTrue(pods.b.hrBetween(COUPLE, t, t.plusSeconds(20)).isEmpty(), "must not answer with a hole");
+        assertTrue(registry.get("vitals.recent.resets").counter().count() >= 1);
+
+        // 피어 침묵: A 의 하트비트가 max-lag 넘게 안 옴 → B 는 전부 DB
+        pods.b.recordHr(COUPLE, 4L, t.plusSeconds(30), 73, null);
+        assertEquals(73, pods.b.latestHr(COUPLE).orElseThrow().heartrate());
+        pods.clock[0] += 3_500;              // A 가 죽었거나 Redis 와 끊겨 아무것도 안 보냄
+        pods.fb.flush();
+        pods.fb.checkTrust();
+        assertFalse(pods.fb.trusted());
+        assertTrue(pods.b.latestHr(COUPLE).isEmpty());
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository;
+import com.example.helloworld.healthserver.persistence.HealthDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class VitalsWriteBehindTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private final List<VitalsWriteBehind> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(VitalsWriteBehind::stop);
+    }
+
+    private VitalsWriteBehind writeBehind(HealthDataRepository repo, SimpleMeterRegistry registry, int batchSize) {
+        VitalsWriteBehind w = new VitalsWriteBehind(repo, disabledRollup(registry), registry, true, dir.toString(),
+                1024, false, batchSize, 50, 100, 50);
+        w.start();
+        started.add(w);
+        return w;
+    }
+
+    private static HealthBucketRollup disabledRollup(SimpleMeterRegistry registry) {
+        return new HealthBucketRollup(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), registry,
+                false, 0, "Asia/Seoul");
+    }
+
+    private static List<HealthDataBulkRepository.Sample> samples(int n) {
+        return IntStream.range(0, n)
+                .mapToObj(i -> new HealthDataBulkRepository.Sample(T0.plusSeconds(i), 0.1, 70 + i))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<HealthDataBulkRepository.Row> capture(HealthDataRepository repo, List<HealthDataBulkRepository.Row> sink) {
+        when(repo.copyRows(any())).thenAnswer(inv -> {
+            List<HealthDataBulkRepository.Row> rows = inv.getArgument(0);
+            sink.addAll(rows);
+            return (long) rows.size();
+        });
+        return sink;
+    }
+
+    @Test
+    @DisplayName("DB 가 죽은 동안 받은 샘플은 재시작 후 저널에서 다시 반영된다")
+    void replaysJournalAfterRestart() throws Exception {
+        HealthDataRepository downRepo = mock(HealthDataRepository.class);
+        when(downRepo.copyRows(any())).thenThrow(new DataAccessResourceFailureException("db down"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VitalsWriteBehind first = writeBehind(downRepo, registry, 10);
+
+        assertTrue(first.offer(1L, samples(25)));
+        assertTrue(first.offer(2L, samples(5)));
+        verify(downRepo, timeout(2000).atLeastOnce()).copyRows(any());
+        assertEquals(30, registry.get("health.ingest.journal.pending").gauge().value());
+        first.stop(); // 마지막 드레인도 실패 → 저널에 남음
+        started.remove(first);
+
+        HealthDataRepository repo = mock(HealthDataRepository.class);
+        List<HealthDataBulkRepository.Row> rows = capture(repo, Collections.synchronizedList(new ArrayList<>()));
+        SimpleMeterRegistry registry2 = new SimpleMeterRegistry();
+        writeBehind(repo, registry2, 10);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (rows.size() < 30 && System.nanoTime() < deadline) Thread.sleep(20);
+        assertEquals(30, rows.size());
+        assertEquals(new HealthDataBulkRepository.Row(1L, T0, 0.1, 70), rows.get(0));
+        assertEquals(new HealthDataBulkRepository.Row(2L, T0.plusSeconds(4), 0.1, 74), rows.get(29));
+        assertEquals(0, registry2.get("health.ingest.journal.pending").gauge().value());
+        assertEquals(0, registry2.get("health.ingest.flush.lag").gauge().value());
+    }
+
+    @Test
+    @DisplayName("batch-size 에 못 미쳐도 max-delay 가 지나면 플러시된다")
+    void flushesPartialBatchAfterDelay() throws Exception {
+        HealthDataRepository repo = mock(HealthDataRepository.class);
+        List<HealthDataBulkRepository.Row> rows = capture(repo, Collections.synchronizedList(new ArrayList<>()));
+        VitalsWriteBehind w = writeBehind(repo, new SimpleMeterRegistry(), 1000);
+
+        w.offer(7L, samples(3));
+        verify(repo, timeout(2000)).copyRows(any());
+        // 호출 기록이 answer 실행보다 먼저 남으므로 캡처가 채워질 때까지 대기
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (rows.size() < 3 && System.nanoTime() < deadline) Thread.sleep(10);
+        assertEquals(3, rows.size());
+    }
+
+    @Test
+    @DisplayName("미반영분이 max-pending 을 넘으면 503, 꺼져 있으면 false")
+    void rejectsWhenBacklogFullAndFallsBackWhenDisabled() {
+        HealthDataRepository downRepo = mock(HealthDataRepository.class);
+        when(downRepo.copyRows(any())).thenThrow(new DataAccessResourceFailureException("db down"));
+        VitalsWriteBehind w = writeBehind(downRepo, new SimpleMeterRegistry(), 1000);
+
+        w.offer(1L, samples(100));
+        assertThrows(ResponseStatusException.class, () -> w.offer(1L, samples(1)));
+
+        SimpleMeterRegistry offRegistry = new SimpleMeterRegistry();
+        VitalsWriteBehind off = new VitalsWriteBehind(downRepo, disabledRollup(offRegistry), offRegistry, false, dir.toString(),
+                1024, false, 10, 50, 100, 50);
+        off.start();
+        assertFalse(off.offer(1L, samples(1)));
+    }
+
+    @Test
+    @DisplayName("트랜잭션 안의 offer 는 커밋 후에 기록, 롤백되면 저널에 남지 않는다")
+    void journalsOnlyAfterCommit() {
+        HealthDataRepository downRepo = mock(HealthDataRepository.class);
+        when(downRepo.copyRows(any())).thenThrow(new DataAccessResourceFailureException("db down"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VitalsWriteBehind w = writeBehind(downRepo, registry, 1000);
+        TransactionTemplate tx = new TransactionTemplate(new HealthDataServiceFixture.NoopTxManager());
+
+        tx.executeWithoutResult(s -> {
+            assertTrue(w.offer(1L, samples(3)));
+            assertEquals(0, registry.get("health.ingest.journal.pending").gauge().value(), "not before commit");
+            s.setRollbackOnly();
+        });
+        assertEquals(0, registry.get("health.ingest.journal.pending").gauge().value());
+
+        tx.executeWithoutResult(s -> assertTrue(w.offer(1L, samples(3))));
+        assertEquals(3, registry.get("health.ingest.journal.pending").gauge().value());
+    }
+
+    @Test
+    @DisplayName("동시에 offer 해도 미반영분은 max-pending 을 넘지 않는다")
+    void concurrentOffersRespectMaxPending() throws Exception {
+        HealthDataRepository downRepo = mock(HealthDataRepository.class);
+        when(downRepo.copyRows(any())).thenThrow(new DataAccessResourceFailureException("db down"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VitalsWriteBehind w = writeBehind(downRepo, registry, 1000); // max-pending 100
+
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        for (int t = 0; t < 16; t++) {
+            pool.execute(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        if (w.offer(1L, samples(1))) accepted.incrementAndGet();
+                    } catch (ResponseStatusException full) {
+                        // 503
+                    }
+                }
+            });
+        }
+        go.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, accepted.get());
+        assertEquals(100, registry.get("health.ingest.journal.pending").gauge().value());
+    }
+}
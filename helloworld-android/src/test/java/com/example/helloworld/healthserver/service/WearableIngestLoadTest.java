@@ -0,0 +1,182 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.example.helloworld.healthserver.config.UserPrincipal;
+import com.example.helloworld.healthserver.dto.HealthDtos;
+import com.example.helloworld.healthserver.entity.HealthData;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepositoryImpl;
+import com.example.helloworld.healthserver.persistence.HealthDataRepository;
+import com.example.helloworld.healthserver.persistence.PgCopyWriter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 웨어러블 수집: 샘플당 요청(POST /api/wearable) vs 윈도우 배치(POST /api/wearable/batch) rows/sec
+ * (./gradlew loadTest --tests '*WearableIngestLoadTest')
+ * HealthDataService 를 그대로 쓰고 저장만 실제 Postgres 로: 단건은 IDENTITY save 와 같은 INSERT ... RETURNING,
+ * 배치는 HealthDataBulkRepositoryImpl.insertAll. 트랜잭션은 Hikari 풀(POOL) 위 DataSourceTransactionManager.
+ * AI 는 즉시 normal 을 돌려주는 대역 (요청 수 차이만 보이도록).
+ *
+ * 실제 Postgres 가 필요하다: BENCH_PG_URL, BENCH_PG_USER, BENCH_PG_PASSWORD. 없으면 건너뛴다.
+ * 샘플 수 -Dbench.samples (기본 60,000), 윈도우 크기 -Dbench.window (기본 60).
+ * bench_wearable_ingest 스키마에 테이블을 만들고 끝나면 지운다.
+ */
+@Tag("load")
+class WearableIngestLoadTest {
+
+    private static final int SAMPLES = Integer.getInteger("bench.samples", 60_000);
+    private static final int WINDOW = Integer.getInteger("bench.window", 60);
+    private static final int CLIENTS = 16;
+    private static final int POOL = 10;
+    private static final String SCHEMA = "bench_wearable_ingest";
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    private HikariDataSource ds;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getenv("BENCH_PG_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_PG_URL 미설정 — 건너뜀");
+        ds = new HikariDataSource();
+        ds.setJdbcUrl(url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA + "&reWriteBatchedInserts=true");
+        ds.setUsername(System.getenv("BENCH_PG_USER"));
+        ds.setPassword(System.getenv("BENCH_PG_PASSWORD"));
+        ds.setMaximumPoolSize(POOL);
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbc.execute("CREATE SCHEMA " + SCHEMA);
+        jdbc.execute("""
+                CREATE TABLE health_data (
+                    health_id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    couple_id bigint NOT NULL,
+                    "date" timestamp(6) with time zone NOT NULL,
+                    stress double precision,
+                    heartrate integer)""");
+        jdbc.execute("CREATE INDEX ix_bench_hd_couple_date ON health_data (couple_id, \"date\")");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ds == null) return;
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        ds.close();
+    }
+
+    private HealthDataService service(SimpleMeterRegistry registry) {
+        HealthDataRepository repo = mock(HealthDataRepository.class);
+        when(repo.save(any())).thenAnswer(inv -> {
+            HealthData hd = inv.getArgument(0);
+            Long id = jdbc.execute((ConnectionCallback<Long>) con -> {
+                try (PreparedStatement ps = con.prepareStatement(
+                        "INSERT INTO health_data (couple_id, \"date\", stress, heartrate) VALUES (?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setLong(1, hd.getCoupleId());
+                    ps.setTimestamp(2, Timestamp.from(hd.getDate()));
+                    ps.setDouble(3, hd.getStress());
+                    ps.setInt(4, hd.getHeartrate());
+                    ps.executeUpdate();
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        rs.next();
+                        return rs.getLong(1);
+                    }
+                }
+            });
+            ReflectionTestUtils.setField(hd, "healthId", id);
+            return hd;
+        });
+        HealthDataBulkRepositoryImpl bulk = new HealthDataBulkRepositoryImpl(jdbc, new PgCopyWriter(jdbc), 50);
+        when(repo.insertAll(anyLong(), anyList())).thenAnswer(inv -> bulk.insertAll(inv.getArgument(0), inv.getArgument(1)));
+
+        AiServerClient ai = mock(AiServerClient.class);
+        when(ai.checkTelemetry(anyLong(), any())).thenReturn(
+                new AiServerClient.AnomalyResponse(true, false, "low", "normal", List.of(), null, null, null, null));
+        HealthDataService service = new HealthDataServiceFixture().repo(repo).ai(ai).registry(registry)
+                .txManager(new DataSourceTransactionManager(ds)).build();
+        ReflectionTestUtils.setField(service, "batchMaxSamples", 600);
+        return service;
+    }
+
+    private static HealthDtos.CreateRequest sample(int i) {
+        return new HealthDtos.CreateRequest(T0.plusSeconds(i), (i % 100) / 100.0, 60 + i % 60);
+    }
+
+    private static UserPrincipal watch(int i) {
+        long couple = i % 1_000 + 1;
+        return new UserPrincipal(couple, couple, List.of());
+    }
+
+    /** 요청 requests 개를 CLIENTS 스레드로, 걸린 ms */
+    private static long run(int requests, IntConsumer request) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long t0 = System.nanoTime();
+        for (int c = 0; c < CLIENTS; c++) {
+            clients.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < requests) request.accept(i);
+            });
+        }
+        clients.shutdown();
+        assertTrue(clients.awaitTermination(10, TimeUnit.MINUTES));
+        return Math.max(1, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    private static void print(String mode, int requests, int rows, long ms) {
+        System.out.printf("[INGEST-LOAD] %-6s rows=%,d requests=%,d wall=%,dms → %,.0f rows/s, %,.0f requests/s%n",
+                mode, rows, requests, ms, rows * 1000.0 / ms, requests * 1000.0 / ms);
+    }
+
+    @Test
+    @DisplayName("샘플당 요청 vs 윈도우 배치 rows/sec")
+    void singleVsBatch() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HealthDataService service = service(registry);
+
+        long singleMs = run(SAMPLES, i -> service.createAndCheckHealthData(watch(i), sample(i)));
+        assertEquals(SAMPLES, jdbc.queryForObject("SELECT count(*) FROM health_data", Long.class));
+        jdbc.execute("TRUNCATE health_data");
+
+        int windows = SAMPLES / WINDOW;
+        long batchMs = run(windows, w -> {
+            List<HealthDtos.CreateRequest> window = new ArrayList<>(WINDOW);
+            for (int k = 0; k < WINDOW; k++) window.add(sample(w * WINDOW + k));
+            service.createAndCheckBatch(watch(w), new HealthDtos.BatchRequest(window));
+        });
+        assertEquals((long) windows * WINDOW, jdbc.queryForObject("SELECT count(*) FROM health_data", Long.class));
+
+        print("single", SAMPLES, SAMPLES, singleMs);
+        print("batch", windows, windows * WINDOW, batchMs);
+        System.out.printf("[INGEST-LOAD] batch/single rows/s = %.1fx, requests per %,d rows: %,d → %,d (-%.1f%%)%n",
+                (double) singleMs / batchMs * windows * WINDOW / SAMPLES, SAMPLES, SAMPLES, windows,
+                100.0 * (SAMPLES - windows) / SAMPLES);
+    }
+}
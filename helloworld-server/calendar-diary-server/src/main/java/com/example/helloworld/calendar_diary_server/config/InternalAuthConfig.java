@@ -0,0 +1,18 @@
+package com.example.helloworld.calendar_diary_server.config;
+
+import com.example.helloworld.internalauth.InternalAuthVerifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class InternalAuthConfig {
+
+    // 게이트웨이(GatewayRedisAuthFilter)와 같은 비밀키로 X-Internal-* 서명 검증 (비어 있으면 기동 실패)
+    @Bean
+    public InternalAuthVerifier internalAuthVerifier(
+            @Value("${gateway.hmac-secret:}") String secret,
+            @Value("${security.internal.ts-window:30}") long tsWindowSec) {
+        return new InternalAuthVerifier(secret, tsWindowSec);
+    }
+}
@@ -1,60 +1,45 @@
 package com.example.helloworld.calendar_diary_server.config.security;
 
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
+import com.example.helloworld.internalauth.InternalAuthVerifier;
+import com.example.helloworld.internalauth.InternalAuthenticationFilter;
+import com.example.helloworld.internalauth.InternalIdentity;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
-import org.springframework.web.filter.OncePerRequestFilter;
-
-import java.io.IOException;
 
 @Slf4j
 @Component
-//요청이 들어올 때마다 헤더를 읽어 SecurityContext에 UserPrincipal을 저장하는 필터
-public class UserInfoAuthenticationFilter extends OncePerRequestFilter {
-
-    @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
-            throws ServletException, IOException {
-
-        String userId = request.getHeader("X-Internal-User-Id");
-        String coupleIdStr = request.getHeader("X-Internal-Couple-Id");
-        String genderHeader = request.getHeader("X-Internal-Role");
-
-        if (StringUtils.hasText(userId) && StringUtils.hasText(genderHeader)) {
-            try {
-                // ✨ 1. 헤더 값을 내부 Role로 변환하는 분기 처리 로직 호출
-                String mappedRole = mapGenderToRole(genderHeader);
+//요청이 들어올 때마다 서명 검증(internal-auth)된 헤더로 SecurityContext에 UserPrincipal을 저장하는 필터
+public class UserInfoAuthenticationFilter extends InternalAuthenticationFilter {
 
-                if (mappedRole == null) {
-                    log.warn("알 수 없는 Gender 헤더 값입니다: {}", genderHeader);
-                    filterChain.doFilter(request, response);
-                    return;
-                }
-
-                Long coupleId = StringUtils.hasText(coupleIdStr) ? Long.parseLong(coupleIdStr) : null;
-
-                // ✨ 2. 수정된 UserPrincipal 생성자를 사용하여 객체 생성
-                UserPrincipal userPrincipal = new UserPrincipal(Long.parseLong(userId), coupleId, mappedRole);
+    public UserInfoAuthenticationFilter(InternalAuthVerifier verifier) {
+        super(verifier);
+    }
 
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userPrincipal, null, userPrincipal.getAuthorities());
+    @Override
+    protected void onVerified(InternalIdentity identity, HttpServletRequest request) {
+        String genderHeader = identity.role();
+        if (genderHeader == null) return;
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                log.debug("SecurityContext에 사용자 인증 정보 저장: userId={}, coupleId={}, role={}", userId, coupleId, mappedRole);
+        // ✨ 1. 헤더 값을 내부 Role로 변환하는 분기 처리 로직 호출
+        String mappedRole = mapGenderToRole(genderHeader);
 
-            } catch (NumberFormatException e) {
-                log.error("헤더의 사용자 정보 파싱 오류: userId={}, coupleId={}", userId, coupleIdStr, e);
-            }
+        if (mappedRole == null) {
+            log.warn("알 수 없는 Gender 헤더 값입니다: {}", genderHeader);
+            return;
         }
 
+        // ✨ 2. 수정된 UserPrincipal 생성자를 사용하여 객체 생성
+        UserPrincipal userPrincipal = new UserPrincipal(identity.memberId(), identity.coupleId(), mappedRole);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                userPrincipal, null, userPrincipal.getAuthorities());
 
-        filterChain.doFilter(request, response);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        log.debug("SecurityContext에 사용자 인증 정보 저장: userId={}, coupleId={}, role={}",
+                identity.memberId(), identity.coupleId(), mappedRole);
     }
 
     /**
@@ -1,11 +1,13 @@
 package com.example.helloworld.gatewayserver;
 
+import com.example.helloworld.internalauth.TokenKeys;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
@@ -22,6 +24,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.slf4j.Logger;
@@ -39,17 +42,29 @@ public class GatewayRedisAuthFilter implements GlobalFilter {
     private final AntPathMatcher matcher = new AntPathMatcher();
     private final List<String> skipPaths;
     private final Duration redisTimeout;
+    private final boolean legacyKeys;
+
+    private static final String BLACKLISTED = "__blacklisted__";
+
+    // KEYS[1]=auth:{m:id}:bl:{hash}, KEYS[2]=auth:{m:id}:tok:{hash} (같은 슬롯) / ARGV[1]=블랙리스트 표식
+    // 블랙리스트 확인 + 토큰 조회를 한 번의 왕복으로
+    private static final RedisScript<String> LOOKUP = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then return ARGV[1] end
+            return redis.call('GET', KEYS[2])
+            """, String.class);
 
     public GatewayRedisAuthFilter(
             org.springframework.data.redis.core.ReactiveStringRedisTemplate redis,
             @Value("${gateway.hmac-secret}") String secret,
             @Value("${gateway.auth.skip-paths}") List<String> skipPaths,
-            @Value("${gateway.redis.timeout:2}") int timeoutSeconds
+            @Value("${gateway.redis.timeout:2}") int timeoutSeconds,
+            @Value("${gateway.redis.legacy-keys:true}") boolean legacyKeys
     ) {
         this.redis = redis;
         this.hmacKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
         this.skipPaths = skipPaths;
         this.redisTimeout = Duration.ofSeconds(timeoutSeconds);
+        this.legacyKeys = legacyKeys;
         log.info("GatewayRedisAuthFilter init: timeout={}s, skipPaths={}", timeoutSeconds, skipPaths);
     }
 
@@ -85,34 +100,71 @@ public class GatewayRedisAuthFilter implements GlobalFilter {
 
         final String token = auth.substring(7);
         final String hash = sha256B64(token);
-        final String blacklistKey = "blacklist:" + hash;
-        final String tokenKey = "token:" + hash;
+        final Long memberId = subjectOf(token);
 
         log.debug("RID={} checking token hash: {}", rid, hash);
 
-        return redis.hasKey(blacklistKey)
+        Mono<String> lookup = (memberId != null) ? lookupTagged(memberId, hash, rid) : Mono.empty();
+        if (legacyKeys) {
+            // 클러스터 키 전환 이전에 발급된 토큰 (token:/blacklist:) — 만료되면 legacy-keys=false
+            lookup = lookup.switchIfEmpty(Mono.defer(() -> lookupLegacy(hash, rid)));
+        }
+
+        return lookup
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(json -> {
+                    if (json.isEmpty()) return unauthorized(exWithRid, rid, "no_token_in_redis");
+                    if (BLACKLISTED.equals(json.get())) return unauthorized(exWithRid, rid, "blacklisted_token");
+                    log.debug("RID={} redis token data: {}", rid, json.get());
+                    return processTokenData(exWithRid, chain, json.get(), hash, rid);
+                });
+    }
+
+    private Mono<String> lookupTagged(Long memberId, String hash, String rid) {
+        return redis.execute(LOOKUP,
+                        List.of(TokenKeys.blacklist(memberId, hash), TokenKeys.token(memberId, hash)),
+                        List.of(BLACKLISTED))
+                .next()
+                .timeout(redisTimeout)
+                .onErrorResume(e -> {
+                    log.error("RID={} redis error looking up token: {}", rid, e.toString());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<String> lookupLegacy(String hash, String rid) {
+        return redis.hasKey(TokenKeys.LEGACY_BLACKLIST_PREFIX + hash)
                 .timeout(redisTimeout)
                 .onErrorResume(e -> {
                     log.error("RID={} redis error checking blacklist: {}", rid, e.toString());
                     return Mono.just(false); // 진단 단계: fail-open
                 })
-                .flatMap(blacklisted -> {
-                    if (Boolean.TRUE.equals(blacklisted)) {
-                        return unauthorized(exWithRid, rid, "blacklisted_token");
-                    }
-                    return redis.opsForValue().get(tokenKey)
-                            .timeout(redisTimeout)
-                            .doOnNext(json -> {
-                                if (json != null) log.debug("RID={} redis token data: {}", rid, json);
-                                else log.warn("RID={} no token data in redis for hash={}", rid, hash);
-                            })
-                            .onErrorResume(e -> {
-                                log.error("RID={} redis error fetching token: {}", rid, e.toString());
-                                return Mono.empty();
-                            })
-                            .flatMap(json -> processTokenData(exWithRid, chain, json, hash, rid))
-                            .switchIfEmpty(unauthorized(exWithRid, rid, "no_token_in_redis"));
-                });
+                .flatMap(blacklisted -> Boolean.TRUE.equals(blacklisted)
+                        ? Mono.just(BLACKLISTED)
+                        : redis.opsForValue().get(TokenKeys.LEGACY_TOKEN_PREFIX + hash)
+                                .timeout(redisTimeout)
+                                .onErrorResume(e -> {
+                                    log.error("RID={} redis error fetching token: {}", rid, e.toString());
+                                    return Mono.empty();
+                                }));
+    }
+
+    /**
+     * JWT payload 의 sub(memberId)만 꺼낸다 — 서명 검증 없음.
+     * 키 슬롯({m:memberId})을 고르는 용도일 뿐이고, 인증은 토큰 전체 해시로 키를 찾는 것으로 이뤄진다.
+     * (sub 를 위조하면 해당 회원 슬롯에 같은 해시 키가 없으므로 no_token)
+     */
+    private Long subjectOf(String jwt) {
+        int a = jwt.indexOf('.');
+        int b = (a < 0) ? -1 : jwt.indexOf('.', a + 1);
+        if (b < 0) return null;
+        try {
+            JsonNode sub = om.readTree(Base64.getUrlDecoder().decode(jwt.substring(a + 1, b))).get("sub");
+            return (sub == null) ? null : Long.valueOf(sub.asText());
+        } catch (Exception e) {
+            return null;
+        }
     }
 
     private Mono<Void> processTokenData(ServerWebExchange exchange, GatewayFilterChain chain,
@@ -1,14 +1,36 @@
 package com.example.helloworld.gatewayserver;
 
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class RedisConfig {
     @Bean
     public ReactiveStringRedisTemplate reactiveStringRedisTemplate(LettuceConnectionFactory cf) {
         return new ReactiveStringRedisTemplate(cf);
     }
-}
\ No newline at end of file
+
+    // Redis Cluster(spring.data.redis.cluster.nodes) 사용 시 토폴로지 갱신
+    // - 주기적 갱신 + MOVED/ASK/재연결 등 이벤트 기반(adaptive) 갱신 → 페일오버/리샤딩을 따라감
+    // - 단일 노드 모드에서는 ClusterClientOptions 의 일반 ClientOptions 부분만 적용됨
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer clusterTopologyRefresh(
+            @Value("${redis.cluster.refresh-period-seconds:30}") long refreshPeriodSec) {
+        ClusterTopologyRefreshOptions refresh = ClusterTopologyRefreshOptions.builder()
+                .enablePeriodicRefresh(Duration.ofSeconds(refreshPeriodSec))
+                .enableAllAdaptiveRefreshTriggers()
+                .dynamicRefreshSources(true)
+                .build();
+        return builder -> builder.clientOptions(ClusterClientOptions.builder()
+                .topologyRefreshOptions(refresh)
+                .build());
+    }
+}
@@ -1,7 +1,11 @@
 // src/main/java/com/example/helloworld/healthserver/dto/HealthDtos.java
 package com.example.helloworld.healthserver.dto;
 
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import io.swagger.v3.oas.annotations.media.Schema;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
@@ -15,6 +19,39 @@ public final class HealthDtos {
             Integer heartrate
     ) {}
 
+    // 배치 업로드 요청 (워치가 30~60초 모아서 전송)
+    public record BatchRequest(
+            List<CreateRequest> samples
+    ) {}
+
+    // 배치 업로드 응답: 저장 건수 + 윈도우 전체에 대한 이상탐지 결과 1건
+    // (비동기 이상탐지 모드면 anomaly 대신 check_id → /api/wearable/checks/{check_id} 폴링)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record BatchResponse(
+            int accepted,
+            @JsonProperty("window_from") Instant windowFrom,
+            @JsonProperty("window_to") Instant windowTo,
+            AiServerClient.AnomalyResponse anomaly,
+            @JsonProperty("check_id") String checkId
+    ) {}
+
+    // POST /api/wearable 응답: 동기 모드는 AI 응답 그대로, 비동기 모드는 검사 상태
+    @Schema(oneOf = {AiServerClient.AnomalyResponse.class, AnomalyCheckResponse.class})
+    public sealed interface WearableCheck permits AnomalyResult, AnomalyCheckResponse {}
+
+    // 동기 모드: AI 응답 본문을 감싸지 않고 그대로 직렬화
+    public record AnomalyResult(@JsonUnwrapped AiServerClient.AnomalyResponse anomaly) implements WearableCheck {}
+
+    // 비동기 이상탐지 상태: PENDING → DONE(anomaly 채워짐) | FAILED
+    // 사전 필터가 거른 샘플은 AI 호출 없이 바로 DONE (check_id 없음, 폴링 불필요)
+    public record AnomalyCheckResponse(
+            @JsonProperty("check_id") String checkId,
+            String status,
+            AiServerClient.AnomalyResponse anomaly,
+            @JsonProperty("submitted_at") Instant submittedAt,
+            @JsonProperty("completed_at") Instant completedAt
+    ) implements WearableCheck {}
+
     // 단건 조회 응답
     public record GetResponse(
             @JsonProperty("health_id") Long healthId,
@@ -28,8 +28,8 @@ public class HealthData {
     private Long coupleId;                 // 커플아이디 (필수라고 가정)
 
     // KST 등 타임존은 서비스/DB 설정에 따름. Instant로 저장(UTC 권장).
-    @Column(name = "date")
-    private Instant date;                  // 측정 시각 (nullable 허용)
+    @Column(name = "date", nullable = false)
+    private Instant date;                  // 측정 시각 (파티션 키 — 필수)
 
     @Column(name = "stress")
     private Double stress;                // 스트레스 (nullable)
@@ -0,0 +1,24 @@
+package com.example.helloworld.healthserver.persistence;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * health_data 다건 적재 — /api/wearable/batch, 백필/이력 가져오기 용
+ */
+public interface HealthDataBulkRepository {
+
+    record Sample(Instant date, Double stress, Integer heartrate) {}
+
+    /** 여러 커플이 섞인 행 (write-behind 플러시 용) */
+    record Row(Long coupleId, Instant date, Double stress, Integer heartrate) {}
+
+    /** JDBC batch INSERT, 묶음이 크면 COPY 로 전환. @return 삽입된 행 수 */
+    int insertAll(Long coupleId, List<Sample> samples);
+
+    /** COPY FROM STDIN 스트리밍 (수만 행 이상). @return 삽입된 행 수 */
+    long copyAll(Long coupleId, Iterable<Sample> samples);
+
+    /** 커플이 섞인 행을 COPY 한 번으로. @return 삽입된 행 수 */
+    long copyRows(Iterable<Row> rows);
+}
@@ -0,0 +1,64 @@
+package com.example.helloworld.healthserver.persistence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * HealthDataRepository 의 커스텀 프래그먼트.
+ * IDENTITY PK 라 JPA saveAll 은 행마다 INSERT 를 따로 보내므로 JdbcTemplate batch 로 한 번에 보낸다.
+ * (pgjdbc reWriteBatchedInserts=true 면 multi-row INSERT 로 재작성됨)
+ * copy-threshold 이상이면 COPY 로 보낸다 — 파싱/플랜/행별 프로토콜 비용이 없어 큰 묶음에서 더 빠르다.
+ * 기본 50: BulkWriteLoadTest 묶음 크기별 비교에서 50행부터 COPY 가 20~40% 빠르고 그 위로 batch 가 앞선 크기가 없음
+ * (10~25행은 비슷).
+ */
+public class HealthDataBulkRepositoryImpl implements HealthDataBulkRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO health_data (couple_id, \"date\", stress, heartrate) VALUES (?, ?, ?, ?)";
+
+    private static final String COPY_COLUMNS = "couple_id, \"date\", stress, heartrate";
+
+    private final JdbcTemplate jdbc;
+    private final PgCopyWriter copyWriter;
+    private final int copyThreshold;
+
+    public HealthDataBulkRepositoryImpl(JdbcTemplate jdbc, PgCopyWriter copyWriter,
+                                        @Value("${app.bulk.copy-threshold:50}") int copyThreshold) {
+        this.jdbc = jdbc;
+        this.copyWriter = copyWriter;
+        this.copyThreshold = copyThreshold;
+    }
+
+    @Override
+    public int insertAll(Long coupleId, List<Sample> samples) {
+        if (samples == null || samples.isEmpty()) return 0;
+        if (samples.size() >= copyThreshold) return Math.toIntExact(copyAll(coupleId, samples));
+        int[][] counts = jdbc.batchUpdate(INSERT_SQL, samples, samples.size(), (ps, s) -> {
+            ps.setLong(1, coupleId);
+            ps.setTimestamp(2, s.date() == null ? null : Timestamp.from(s.date()));
+            if (s.stress() == null) ps.setNull(3, Types.DOUBLE); else ps.setDouble(3, s.stress());
+            if (s.heartrate() == null) ps.setNull(4, Types.INTEGER); else ps.setInt(4, s.heartrate());
+        });
+        int n = 0;
+        for (int[] batch : counts) {
+            for (int c : batch) n += Math.max(c, 1); // SUCCESS_NO_INFO(-2) 도 1행으로
+        }
+        return n;
+    }
+
+    @Override
+    public long copyAll(Long coupleId, Iterable<Sample> samples) {
+        return copyWriter.copy("health_data", COPY_COLUMNS, samples, (s, line) -> line
+                .add(coupleId).add(s.date()).add(s.stress()).add(s.heartrate()));
+    }
+
+    @Override
+    public long copyRows(Iterable<Row> rows) {
+        return copyWriter.copy("health_data", COPY_COLUMNS, rows, (r, line) -> line
+                .add(r.coupleId()).add(r.date()).add(r.stress()).add(r.heartrate()));
+    }
+}
@@ -9,7 +9,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
-public interface HealthDataRepository extends JpaRepository<HealthData, Long> {
+public interface HealthDataRepository extends JpaRepository<HealthData, Long>, HealthDataBulkRepository {
 
     Optional<HealthData> findByHealthIdAndCoupleId(Long healthId, Long coupleId);
 
@@ -17,6 +17,9 @@ public interface HealthDataRepository extends JpaRepository<HealthData, Long> {
 
     HealthData findFirstByCoupleIdOrderByDateDesc(Long coupleId);
 
+    // 하한이 있으면 파티션 테이블에서 그 이후 파티션만 읽음 (없으면 모든 파티션 인덱스를 한 번씩)
+    HealthData findFirstByCoupleIdAndDateGreaterThanEqualOrderByDateDesc(Long coupleId, Instant since);
+
     List<HealthData> findByCoupleIdAndDateBetweenOrderByDateDesc(
             Long coupleId, Instant from, Instant to);
 
@@ -57,11 +60,13 @@ public interface HealthDataRepository extends JpaRepository<HealthData, Long> {
     }
 
     /**
-     * 지정된 날짜에 대해 모든 커플의 심박수/스트레스 통계를 4시간 단위 버킷으로 집계합니다.
+     * 지정된 날짜에 대해 그날 샘플이 있는 커플의 심박수/스트레스 통계를 4시간 단위 버킷으로 집계합니다.
+     * date 범위 조건만으로 읽으므로 파티션 테이블에서는 그날 파티션만 스캔합니다.
+     * (전체 테이블 DISTINCT couple_id 로 커플 목록을 만들지 않음 → 그날 샘플이 없는 커플 행은 나오지 않음)
      */
     @Query(value = """
     SELECT
-        couples.couple_id                                                                               AS "coupleId",
+        hd.couple_id                                                                                    AS "coupleId",
         -- Heart Rate AVG
         AVG(hd.heartrate) FILTER (WHERE ((EXTRACT(HOUR FROM (hd."date" AT TIME ZONE 'Asia/Seoul'))::int) / 4) = 0) AS "avgHr0",
         AVG(hd.heartrate) FILTER (WHERE ((EXTRACT(HOUR FROM (hd."date" AT TIME ZONE 'Asia/Seoul'))::int) / 4) = 1) AS "avgHr1",
@@ -90,12 +95,11 @@ public interface HealthDataRepository extends JpaRepository<HealthData, Long> {
         STDDEV_SAMP(hd.stress) FILTER (WHERE ((EXTRACT(HOUR FROM (hd."date" AT TIME ZONE 'Asia/Seoul'))::int) / 4) = 3) AS "stdSt3",
         STDDEV_SAMP(hd.stress) FILTER (WHERE ((EXTRACT(HOUR FROM (hd."date" AT TIME ZONE 'Asia/Seoul'))::int) / 4) = 4) AS "stdSt4",
         STDDEV_SAMP(hd.stress) FILTER (WHERE ((EXTRACT(HOUR FROM (hd."date" AT TIME ZONE 'Asia/Seoul'))::int) / 4) = 5) AS "stdSt5"
-    FROM
-        (SELECT DISTINCT couple_id FROM health_data) AS couples
-    LEFT JOIN
-        health_data hd ON couples.couple_id = hd.couple_id AND hd."date" >= :from AND hd."date" < :to
+    FROM health_data hd
+    WHERE hd."date" >= :from
+      AND hd."date" <  :to
     GROUP BY
-        couples.couple_id
+        hd.couple_id
     """, nativeQuery = true)
     List<GlobalDailyBucketStats> aggregateGlobalDailyBuckets(@Param("from") Instant from, @Param("to") Instant to);
 
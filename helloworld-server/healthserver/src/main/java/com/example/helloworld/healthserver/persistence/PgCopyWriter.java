@@ -0,0 +1,92 @@
+package com.example.helloworld.healthserver.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * PostgreSQL COPY ... FROM STDIN (CSV) 스트리밍 적재.
+ * 행을 64KB 단위로 CSV 인코딩해 바로 흘려보내므로 수십만~백만 행도 메모리에 쌓지 않는다.
+ * 백필 / Health Connect 이력 가져오기처럼 큰 묶음 전용 — 단건 저장은 그대로 JPA save.
+ * JdbcTemplate 커넥션을 쓰므로 진행 중인 트랜잭션에 참여하고 SQLException 은 DataAccessException 으로 변환된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class PgCopyWriter {
+
+    private static final int FLUSH_CHARS = 64 * 1024;
+
+    private final JdbcTemplate jdbc;
+
+    @FunctionalInterface
+    public interface RowWriter<T> {
+        void write(T row, CsvLine line);
+    }
+
+    /**
+     * @param table   대상 테이블
+     * @param columns 컬럼 목록 (예: {@code couple_id, "date", steps})
+     * @return COPY 된 행 수
+     */
+    public <T> long copy(String table, String columns, Iterable<? extends T> rows, RowWriter<T> writer) {
+        String sql = "COPY " + table + " (" + columns + ") FROM STDIN (FORMAT csv)";
+        Long copied = jdbc.execute((ConnectionCallback<Long>) con -> {
+            CopyIn in = con.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            try {
+                CsvLine line = new CsvLine(new StringBuilder(FLUSH_CHARS + 256));
+                for (T row : rows) {
+                    writer.write(row, line.begin());
+                    line.end();
+                    if (line.sb.length() >= FLUSH_CHARS) flush(in, line.sb);
+                }
+                flush(in, line.sb);
+                return in.endCopy();
+            } finally {
+                if (in.isActive()) in.cancelCopy(); // 예외 시 서버 쪽 COPY 중단 → 커넥션 재사용 가능
+            }
+        });
+        return copied == null ? 0 : copied;
+    }
+
+    private static void flush(CopyIn in, StringBuilder sb) throws java.sql.SQLException {
+        if (sb.isEmpty()) return;
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        in.writeToCopy(bytes, 0, bytes.length);
+        sb.setLength(0);
+    }
+
+    /** CSV 한 줄 — 숫자/시각만 다루므로 따옴표 이스케이프는 필요 없다. null 은 빈 칸(= NULL) */
+    public static final class CsvLine {
+        private final StringBuilder sb;
+        private boolean first;
+
+        CsvLine(StringBuilder sb) { this.sb = sb; }
+
+        CsvLine begin() { first = true; return this; }
+
+        void end() { sb.append('\n'); }
+
+        private StringBuilder sep() {
+            if (!first) sb.append(',');
+            first = false;
+            return sb;
+        }
+
+        public CsvLine add(Long v) { StringBuilder b = sep(); if (v != null) b.append(v.longValue()); return this; }
+
+        public CsvLine add(Integer v) { StringBuilder b = sep(); if (v != null) b.append(v.intValue()); return this; }
+
+        public CsvLine add(Double v) { StringBuilder b = sep(); if (v != null) b.append(v.doubleValue()); return this; }
+
+        public CsvLine add(Instant v) { StringBuilder b = sep(); if (v != null) b.append(v); return this; }
+
+        @Override
+        public String toString() { return sb.toString(); }
+    }
+}
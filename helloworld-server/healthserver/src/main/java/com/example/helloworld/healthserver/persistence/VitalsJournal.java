@@ -0,0 +1,250 @@
+package com.example.helloworld.healthserver.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 생체 샘플 write-behind 용 로컬 append-only 저널 (memory-mapped).
+ *
+ * - 고정 64바이트 레코드, 세그먼트 파일당 segmentRecords 개 → 순번(seq) 하나로 (세그먼트, 슬롯) 위치가 정해짐
+ * - 레코드는 본문 → CRC → 마커 순으로 써서, 중간에 죽어 찢어진 레코드는 재시작 시 끝으로 간주
+ * - checkpoint 파일에 DB 반영이 끝난 순번을 기록하고, 전부 반영된 세그먼트는 지운다
+ * - 재시작 시 checkpoint 부터 유효한 레코드 끝까지가 미반영분 → 그대로 다시 흘려보냄 (at-least-once)
+ *
+ * mmap 쓰기는 페이지 캐시에 남으므로 프로세스가 죽어도 보존된다. OS 장애까지 버티려면 force=true (레코드마다 msync).
+ * 디렉터리가 사라지면(파드 삭제 시 emptyDir 등) 미반영분도 사라진다 — 보존 범위는 디렉터리의 수명까지.
+ * 단일 프로세스 전용 — 인스턴스마다 자기 디렉터리를 써야 한다.
+ */
+@Slf4j
+public final class VitalsJournal implements Closeable {
+
+    public record Entry(long coupleId, Instant date, Double stress, Integer heartrate, long receivedAtMillis) {}
+
+    /** peek 결과: entries 를 DB 에 반영한 뒤 commit(endSeq) */
+    public record Batch(List<Entry> entries, long endSeq) {
+        public boolean isEmpty() { return entries.isEmpty(); }
+    }
+
+    static final int RECORD_BYTES = 64;
+    private static final int MARKER = 0x56544C31; // "VTL1"
+    private static final int CRC_OFFSET = 48;
+    private static final int HAS_STRESS = 1;
+    private static final int HAS_HEARTRATE = 2;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path dir;
+    private final int segmentRecords;
+    private final boolean force;
+    private final Map<Long, MappedByteBuffer> mapped = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer scratch = ByteBuffer.allocate(RECORD_BYTES);
+
+    private long writeSeq;     // 다음에 쓸 순번
+    private long committedSeq; // 이 순번 미만은 DB 반영 완료
+
+    private VitalsJournal(Path dir, int segmentRecords, boolean force) {
+        this.dir = dir;
+        this.segmentRecords = segmentRecords;
+        this.force = force;
+    }
+
+    /** 디렉터리를 열고 checkpoint ~ 마지막 유효 레코드까지 복구 */
+    public static VitalsJournal open(Path dir, int segmentRecords, boolean force) {
+        if (segmentRecords <= 0) throw new IllegalArgumentException("segmentRecords must be positive");
+        try {
+            Files.createDirectories(dir);
+            VitalsJournal j = new VitalsJournal(dir, segmentRecords, force);
+            j.recover();
+            return j;
+        } catch (IOException e) {
+            throw new UncheckedIOException("journal open failed: " + dir, e);
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Long> segs = listSegments();
+        Long checkpoint = readCheckpoint();
+        long firstSeq = segs.isEmpty() ? 0 : segs.get(0) * segmentRecords;
+        committedSeq = (checkpoint != null) ? Math.max(checkpoint, 0) : firstSeq;
+
+        long seq = committedSeq;
+        while (segs.contains(seq / segmentRecords) && isValid(segment(seq / segmentRecords), slotOffset(seq))) {
+            seq++;
+        }
+        writeSeq = seq;
+
+        // 찢어진 레코드 이후에 남은 세그먼트는 쓸모없음 (순서대로 쓰므로 정상이면 없음)
+        for (long s : segs) {
+            if (s > writeSeq / segmentRecords) {
+                mapped.remove(s);
+                Files.deleteIfExists(segmentPath(s));
+            }
+        }
+        if (writeSeq > committedSeq) {
+            log.info("[INGEST-JOURNAL] recovered {} unflushed samples from {}", writeSeq - committedSeq, dir);
+        }
+    }
+
+    public synchronized void append(List<Entry> entries) {
+        for (Entry e : entries) {
+            long seq = writeSeq;
+            MappedByteBuffer buf = segment(seq / segmentRecords);
+            int off = slotOffset(seq);
+            encode(e);
+            // 마커는 마지막에 → 본문이 다 써진 레코드만 유효
+            buf.put(off + 4, scratch.array(), 4, RECORD_BYTES - 4);
+            buf.putInt(off, MARKER);
+            if (force) buf.force(off, RECORD_BYTES);
+            writeSeq = seq + 1;
+        }
+    }
+
+    /** 미반영분 + entries 가 maxPending 이하일 때만 기록 (검사와 기록이 같은 잠금 안). @return 기록했으면 true */
+    public synchronized boolean appendWithin(List<Entry> entries, long maxPending) {
+        if (pending() + entries.size() > maxPending) return false;
+        append(entries);
+        return true;
+    }
+
+    /** committedSeq 부터 최대 max 건 (같은 flusher 가 commit 하기 전까지는 같은 구간을 돌려줌) */
+    public synchronized Batch peek(int max) {
+        long end = Math.min(writeSeq, committedSeq + max);
+        List<Entry> out = new ArrayList<>((int) (end - committedSeq));
+        for (long seq = committedSeq; seq < end; seq++) {
+            out.add(decode(segment(seq / segmentRecords), slotOffset(seq)));
+        }
+        return new Batch(out, end);
+    }
+
+    /** endSeq 미만이 DB 에 반영됨 → checkpoint 기록 + 다 쓴 세그먼트 삭제 */
+    public synchronized void commit(long endSeq) {
+        if (endSeq <= committedSeq) return;
+        if (endSeq > writeSeq) throw new IllegalArgumentException("commit beyond write position");
+        try {
+            Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+            Files.writeString(tmp, Long.toString(endSeq));
+            Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("journal checkpoint failed", e);
+        }
+        long oldFirst = committedSeq / segmentRecords;
+        committedSeq = endSeq;
+        for (long s = oldFirst; s < committedSeq / segmentRecords; s++) {
+            mapped.remove(s);
+            try {
+                Files.deleteIfExists(segmentPath(s));
+            } catch (IOException e) {
+                log.warn("[INGEST-JOURNAL] segment delete failed: {}", segmentPath(s), e);
+            }
+        }
+    }
+
+    /** 아직 DB 에 반영되지 않은 샘플 수 */
+    public synchronized long pending() {
+        return writeSeq - committedSeq;
+    }
+
+    /** 가장 오래된 미반영 샘플의 수신 시각 (없으면 -1) */
+    public synchronized long oldestPendingMillis() {
+        if (writeSeq == committedSeq) return -1;
+        return segment(committedSeq / segmentRecords).getLong(slotOffset(committedSeq) + 40);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (force) mapped.values().forEach(MappedByteBuffer::force);
+        mapped.clear();
+    }
+
+    // ===== 내부 =====
+
+    private void encode(Entry e) {
+        scratch.clear();
+        int flags = (e.stress() != null ? HAS_STRESS : 0) | (e.heartrate() != null ? HAS_HEARTRATE : 0);
+        scratch.putInt(0, 0)
+                .putInt(4, flags)
+                .putLong(8, e.coupleId())
+                .putLong(16, e.date().getEpochSecond())
+                .putInt(24, e.date().getNano())
+                .putInt(28, e.heartrate() != null ? e.heartrate() : 0)
+                .putDouble(32, e.stress() != null ? e.stress() : 0d)
+                .putLong(40, e.receivedAtMillis());
+        crc.reset();
+        crc.update(scratch.array(), 4, CRC_OFFSET - 4);
+        scratch.putInt(CRC_OFFSET, (int) crc.getValue());
+    }
+
+    private static Entry decode(ByteBuffer buf, int off) {
+        int flags = buf.getInt(off + 4);
+        return new Entry(
+                buf.getLong(off + 8),
+                Instant.ofEpochSecond(buf.getLong(off + 16), buf.getInt(off + 24)),
+                (flags & HAS_STRESS) != 0 ? buf.getDouble(off + 32) : null,
+                (flags & HAS_HEARTRATE) != 0 ? buf.getInt(off + 28) : null,
+                buf.getLong(off + 40));
+    }
+
+    private boolean isValid(ByteBuffer buf, int off) {
+        if (buf.getInt(off) != MARKER) return false;
+        byte[] body = new byte[CRC_OFFSET - 4];
+        buf.get(off + 4, body);
+        crc.reset();
+        crc.update(body);
+        return buf.getInt(off + CRC_OFFSET) == (int) crc.getValue();
+    }
+
+    private int slotOffset(long seq) {
+        return (int) (seq % segmentRecords) * RECORD_BYTES;
+    }
+
+    private MappedByteBuffer segment(long index) {
+        return mapped.computeIfAbsent(index, i -> {
+            try (FileChannel ch = FileChannel.open(segmentPath(i),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // 매핑은 채널을 닫아도 유지됨. 새 파일은 0 으로 채워져 마커가 없음
+                return ch.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException("journal segment map failed: " + segmentPath(i), e);
+            }
+        });
+    }
+
+    private Path segmentPath(long index) {
+        return dir.resolve(String.format("%012d%s", index, SEGMENT_SUFFIX));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.endsWith(SEGMENT_SUFFIX))
+                    .map(n -> Long.parseLong(n.substring(0, n.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Long readCheckpoint() throws IOException {
+        Path p = dir.resolve(CHECKPOINT);
+        if (!Files.exists(p)) return null;
+        String s = Files.readString(p).trim();
+        return s.isEmpty() ? null : Long.parseLong(s);
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.helloworld.healthserver.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * health_data / steps_data: "date" 기준 RANGE 파티션 DDL (audit_access_events 의 AuditSchema 와 같은 방식)
+ *
+ * - health_data 는 일 단위, steps_data 는 월 단위. 경계는 app.zone 자정 → 하루 집계가 파티션 1개만 읽음
+ * - PK 는 (id, date) — 파티션 키가 PK 에 들어가야 함. id 는 시퀀스 기본값이라 IDENTITY 엔티티의 INSERT ... RETURNING 그대로 동작
+ * - 인덱스는 부모에 한 번 만들면 파티션마다 생성/연결됨
+ * - 만들어 둔 범위 밖 시각은 default 파티션이 받음 (미리 만들어 두면 비어 있음)
+ * - 기존 비파티션 테이블은 convert() 가 "<table>_legacy" 파티션(MINVALUE ~ 경계)으로 붙임 — 행 복사 없음
+ * 생성 DDL 은 IF NOT EXISTS, 변환/분리는 테이블별 advisory lock 안에서 → 여러 인스턴스가 동시에 돌려도 된다.
+ */
+public final class VitalsPartitions {
+
+    public enum Granularity { DAY, MONTH }
+
+    /** indexes: 이름 → 컬럼 목록 (엔티티 @Index 와 같은 이름) */
+    public record Spec(String table, String idColumn, String columns, Map<String, String> indexes,
+                       Granularity granularity) {
+
+        String sequence() {
+            return table + "_" + idColumn + "_seq";
+        }
+
+        String legacy() {
+            return table + "_legacy";
+        }
+    }
+
+    /** 파티션 1개. lower/upper 가 null 이면 MINVALUE/MAXVALUE (default 파티션은 둘 다 null) */
+    public record Partition(String name, Instant lower, Instant upper, boolean isDefault) {}
+
+    public static final Spec HEALTH_DATA = new Spec("health_data", "health_id", """
+            health_id BIGINT NOT NULL DEFAULT nextval('health_data_health_id_seq'),
+            couple_id BIGINT NOT NULL,
+            "date"    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+            stress    DOUBLE PRECISION,
+            heartrate INTEGER
+            """, orderedMap("idx_hd_couple_date", "couple_id, \"date\" DESC"), Granularity.DAY);
+
+    public static final Spec STEPS_DATA = new Spec("steps_data", "steps_id", """
+            steps_id  BIGINT NOT NULL DEFAULT nextval('steps_data_steps_id_seq'),
+            couple_id BIGINT NOT NULL,
+            "date"    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+            steps     INTEGER,
+            latitude  DOUBLE PRECISION,
+            longitude DOUBLE PRECISION
+            """, orderedMap("idx_steps_couple_date", "couple_id, \"date\"", "idx_steps_date", "\"date\""),
+            Granularity.MONTH);
+
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssxxx");
+    private static final DateTimeFormatter DAY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private VitalsPartitions() {}
+
+    /** 'p' = 파티션 테이블, 'r' = 일반 테이블, null = 없음 */
+    public static Character kind(JdbcTemplate jdbc, String table) {
+        String k = jdbc.query("SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)",
+                rs -> rs.next() ? rs.getString(1) : null, table);
+        return k == null ? null : k.charAt(0);
+    }
+
+    /** 부모 테이블 + 시퀀스 + 인덱스 + default 파티션 */
+    public static void create(JdbcTemplate jdbc, Spec spec) {
+        jdbc.execute("CREATE SEQUENCE IF NOT EXISTS " + spec.sequence());
+        jdbc.execute("""
+                CREATE TABLE IF NOT EXISTS %s (
+                %s,
+                  PRIMARY KEY (%s, "date")
+                ) PARTITION BY RANGE ("date")
+                """.formatted(spec.table(), spec.columns().strip(), spec.idColumn()));
+        jdbc.execute("ALTER SEQUENCE %s OWNED BY %s.%s".formatted(spec.sequence(), spec.table(), spec.idColumn()));
+        spec.indexes().forEach((name, cols) ->
+                jdbc.execute("CREATE INDEX IF NOT EXISTS %s ON %s (%s)".formatted(name, spec.table(), cols)));
+        jdbc.execute("CREATE TABLE IF NOT EXISTS %1$s_default PARTITION OF %1$s DEFAULT".formatted(spec.table()));
+    }
+
+    /**
+     * today 가 속한 구간부터 ahead 개 뒤까지 파티션을 만든다 (이미 있으면 건너뜀).
+     * legacy 등 다른 파티션과 겹치는 구간은 건너뛴다. default 에 그 구간 행이 이미 있으면 Postgres 가 거절 → 예외
+     * @return 새로 만든 파티션 수
+     */
+    public static int ensureAhead(JdbcTemplate jdbc, Spec spec, ZoneId zone, LocalDate today, int ahead) {
+        List<Partition> existing = partitions(jdbc, spec.table());
+        int created = 0;
+        LocalDate start = periodStart(spec.granularity(), today);
+        for (int i = 0; i <= ahead; i++) {
+            LocalDate from = plus(spec.granularity(), start, i);
+            LocalDate to = plus(spec.granularity(), start, i + 1);
+            String name = partitionName(spec, from);
+            Instant lo = from.atStartOfDay(zone).toInstant();
+            Instant hi = to.atStartOfDay(zone).toInstant();
+            if (existing.stream().anyMatch(p -> p.name().equals(name) || overlaps(p, lo, hi))) continue;
+            jdbc.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')"
+                    .formatted(name, spec.table(), bound(from, zone), bound(to, zone)));
+            created++;
+        }
+        return created;
+    }
+
+    /**
+     * 상한이 cutoff 이하인 파티션(legacy 포함)을 분리, drop=true 면 삭제까지. 행 단위 DELETE 없음
+     * @return 분리한 파티션 이름
+     */
+    public static List<String> detachBefore(JdbcTemplate jdbc, TransactionTemplate tx, Spec spec,
+                                            Instant cutoff, boolean drop) {
+        List<String> done = new ArrayList<>();
+        for (Partition p : partitions(jdbc, spec.table())) {
+            if (p.isDefault() || p.upper() == null || p.upper().isAfter(cutoff)) continue;
+            Boolean ok = tx.execute(s -> {
+                if (!tryLock(jdbc, spec)) return false;
+                jdbc.execute("ALTER TABLE %s DETACH PARTITION %s".formatted(spec.table(), p.name()));
+                if (drop) jdbc.execute("DROP TABLE " + p.name());
+                return true;
+            });
+            if (Boolean.TRUE.equals(ok)) done.add(p.name());
+        }
+        return done;
+    }
+
+    public static List<Partition> partitions(JdbcTemplate jdbc, String table) {
+        return jdbc.query("""
+                SELECT c.relname,
+                       (regexp_match(pg_get_expr(c.relpartbound, c.oid), 'FROM \\(''([^'']+)''\\)'))[1]::timestamptz AS lower,
+                       (regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''([^'']+)''\\)'))[1]::timestamptz   AS upper,
+                       pg_get_expr(c.relpartbound, c.oid) = 'DEFAULT' AS is_default
+                  FROM pg_inherits i
+                  JOIN pg_class c ON c.oid = i.inhrelid
+                 WHERE i.inhparent = to_regclass(?)
+                 ORDER BY c.relname
+                """, (rs, n) -> new Partition(rs.getString(1), instant(rs.getTimestamp(2)),
+                instant(rs.getTimestamp(3)), rs.getBoolean(4)), table);
+    }
+
+    /**
+     * 기존 일반 테이블을 파티션 테이블로 바꾼다. 기존 테이블은 이름만 바꿔 "[MINVALUE, bound)" 파티션으로 붙임.
+     * 1) (온라인) (id, date) 유니크 인덱스 CONCURRENTLY + CHECK(date < bound) NOT VALID → VALIDATE
+     *    → 붙일 때 전체 스캔/인덱스 빌드를 잠금 안에서 하지 않음
+     * 2) (짧은 트랜잭션, ACCESS EXCLUSIVE) 이름 변경 → 부모 생성 → 시퀀스를 기존 max(id) 이후로 → ATTACH
+     * bound 이후 시각의 행이 이미 있거나 date 가 null 인 행이 있으면 VALIDATE 에서 실패 → CHECK 를 지우고 예외 (테이블 그대로).
+     * 1) 과 2) 사이에 bound 이후 시각으로 들어오는 INSERT 는 CHECK 에 걸리므로 bound 는 넉넉히 미래로 줄 것.
+     * @return 변환했으면 true (이미 파티션 테이블이거나 없으면 false)
+     */
+    public static boolean convert(JdbcTemplate jdbc, TransactionTemplate tx, Spec spec, Instant bound) {
+        if (!Character.valueOf('r').equals(kind(jdbc, spec.table()))) return false;
+        String t = spec.table();
+        String check = t + "_legacy_bound";
+
+        jdbc.execute("CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS %s_legacy_id_date ON %s (%s, \"date\")"
+                .formatted(t, t, spec.idColumn()));
+        Integer has = jdbc.queryForObject(
+                "SELECT count(*) FROM pg_constraint WHERE conname = ? AND conrelid = to_regclass(?)",
+                Integer.class, check, t);
+        if (has == null || has == 0) {
+            jdbc.execute("ALTER TABLE %s ADD CONSTRAINT %s CHECK (\"date\" IS NOT NULL AND \"date\" < '%s') NOT VALID"
+                    .formatted(t, check, bound));
+        }
+        try {
+            jdbc.execute("ALTER TABLE %s VALIDATE CONSTRAINT %s".formatted(t, check));
+        } catch (RuntimeException e) {
+            // 검증 못 한 CHECK 는 새 INSERT 에는 걸리므로 남겨 두지 않음
+            jdbc.execute("ALTER TABLE %s DROP CONSTRAINT IF EXISTS %s".formatted(t, check));
+            throw e;
+        }
+
+        return Boolean.TRUE.equals(tx.execute(s -> {
+            jdbc.execute("SELECT pg_advisory_xact_lock(hashtext('" + t + "'))");
+            if (!Character.valueOf('r').equals(kind(jdbc, t))) return false; // 다른 인스턴스가 먼저 변환
+            String legacyBound = jdbc.queryForObject(
+                    "SELECT substring(pg_get_constraintdef(oid) from '''([^'']+)''') FROM pg_constraint " +
+                            "WHERE conname = ? AND conrelid = to_regclass(?)", String.class, check, t);
+
+            jdbc.execute("LOCK TABLE %s IN ACCESS EXCLUSIVE MODE".formatted(t));
+            jdbc.execute("ALTER TABLE %s RENAME TO %s".formatted(t, spec.legacy()));
+            // 이름이 겹치는 PK/인덱스는 _legacy 를 붙임 → 부모가 같은 이름을 씀. 같은 정의의 인덱스는 ATTACH 때 연결됨
+            jdbc.queryForList("SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'p'",
+                            String.class, spec.legacy())
+                    .forEach(c -> jdbc.execute("ALTER TABLE %s RENAME CONSTRAINT %s TO %s_legacy"
+                            .formatted(spec.legacy(), c, c)));
+            jdbc.queryForList("SELECT indexname FROM pg_indexes WHERE tablename = ? AND indexname NOT LIKE '%\\_legacy%'",
+                            String.class, spec.legacy())
+                    .forEach(i -> jdbc.execute("ALTER INDEX %s RENAME TO %s_legacy".formatted(i, i)));
+            jdbc.execute("ALTER TABLE %s ALTER COLUMN \"date\" SET NOT NULL".formatted(spec.legacy())); // 검증된 CHECK 로 스캔 생략
+            jdbc.execute("ALTER TABLE %s ALTER COLUMN %s DROP IDENTITY IF EXISTS".formatted(spec.legacy(), spec.idColumn()));
+            jdbc.execute("ALTER TABLE %s ALTER COLUMN %s DROP DEFAULT".formatted(spec.legacy(), spec.idColumn()));
+
+            create(jdbc, spec);
+            jdbc.queryForObject("SELECT setval('%1$s', GREATEST((SELECT COALESCE(MAX(%2$s), 0) FROM %3$s), " +
+                            "(SELECT last_value FROM %1$s)))".formatted(spec.sequence(), spec.idColumn(), spec.legacy()),
+                    Long.class);
+            jdbc.execute("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM (MINVALUE) TO ('%s')"
+                    .formatted(t, spec.legacy(), legacyBound));
+            return true;
+        }));
+    }
+
+    /** 같은 테이블 유지보수(분리/변환)가 다른 인스턴스에서 진행 중이면 false — 트랜잭션 안에서 호출 */
+    static boolean tryLock(JdbcTemplate jdbc, Spec spec) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT pg_try_advisory_xact_lock(hashtext(?))",
+                Boolean.class, spec.table()));
+    }
+
+    /** today 가 속한 구간의 다음 구간 시작 — convert() 경계 기본값 (내일 시각 샘플도 받도록 하루 여유) */
+    public static Instant nextPeriodStart(Granularity g, ZoneId zone, LocalDate today) {
+        return plus(g, periodStart(g, today.plusDays(1)), 1).atStartOfDay(zone).toInstant();
+    }
+
+    public static String partitionName(Spec spec, LocalDate periodStart) {
+        return spec.table() + "_p" + periodStart.format(spec.granularity() == Granularity.DAY ? DAY_SUFFIX : MONTH_SUFFIX);
+    }
+
+    private static LocalDate periodStart(Granularity g, LocalDate d) {
+        return g == Granularity.DAY ? d : d.withDayOfMonth(1);
+    }
+
+    private static LocalDate plus(Granularity g, LocalDate d, int n) {
+        return g == Granularity.DAY ? d.plusDays(n) : d.plusMonths(n);
+    }
+
+    private static String bound(LocalDate d, ZoneId zone) {
+        return ZonedDateTime.of(d.atStartOfDay(), zone).format(BOUND);
+    }
+
+    private static boolean overlaps(Partition p, Instant lo, Instant hi) {
+        if (p.isDefault()) return false;
+        boolean startsBeforeHi = p.lower() == null || p.lower().isBefore(hi);
+        boolean endsAfterLo = p.upper() == null || p.upper().isAfter(lo);
+        return startsBeforeHi && endsAfterLo;
+    }
+
+    private static Instant instant(Timestamp ts) {
+        return ts == null ? null : ts.toInstant();
+    }
+
+    private static Map<String, String> orderedMap(String... kv) {
+        Map<String, String> m = new LinkedHashMap<>();
+        for (int i = 0; i < kv.length; i += 2) m.put(kv[i], kv[i + 1]);
+        return m;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.alarm.repository.NotificationRepository;
+import com.example.helloworld.healthserver.alarm.service.AlertCooldownGate;
+import com.example.helloworld.healthserver.alarm.service.NotificationOutboxService;
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.example.helloworld.healthserver.config.UserPrincipal;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * AI 이상탐지 + 이상 시 응급 알림 (수집 경로 공용)
+ * - 사전 필터(AnomalyPreFilter)가 거른 샘플은 AI 호출 없이 normal
+ * - 동기: AI 호출은 트랜잭션 밖 (수집 트랜잭션이 커밋된 뒤 호출할 것), 알림 저장만 짧은 트랜잭션
+ * - 비동기: AnomalyCheckService 에 넘겨 커밋 후 워커에서 (사전 필터가 거른 샘플은 호출측이 바로 응답, 저장 안 함)
+ */
+@Slf4j
+@Component
+public class AnomalyAlertService {
+
+    private static final Set<String> ANOMALY_MODES = Set.of("RESTRICT", "EMERGENCY");
+
+    private final AiServerClient aiServerClient;
+    private final AnomalyPreFilter preFilter;
+    private final AnomalyCheckService anomalyChecks;
+    private final AlertCooldownGate alertCooldown;
+    private final NotificationRepository notificationRepository;
+    private final NotificationOutboxService notificationOutbox;
+    private final TransactionTemplate tx;
+
+    public AnomalyAlertService(AiServerClient aiServerClient,
+                               AnomalyPreFilter preFilter,
+                               AnomalyCheckService anomalyChecks,
+                               AlertCooldownGate alertCooldown,
+                               NotificationRepository notificationRepository,
+                               NotificationOutboxService notificationOutbox,
+                               PlatformTransactionManager txManager) {
+        this.aiServerClient = aiServerClient;
+        this.preFilter = preFilter;
+        this.anomalyChecks = anomalyChecks;
+        this.alertCooldown = alertCooldown;
+        this.notificationRepository = notificationRepository;
+        this.notificationOutbox = notificationOutbox;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /** 사전 필터: AI 로 보낼 샘플인지 (단건) */
+    public boolean admit(Long coupleId, Instant timestamp, Integer heartrate, Double stress) {
+        return preFilter.admit(coupleId, timestamp, heartrate, stress);
+    }
+
+    /** 사전 필터: 윈도우 중 하나라도 보낼 샘플이면 true (시각순 정렬) */
+    public boolean admitAll(Long coupleId, List<HealthDataBulkRepository.Sample> sorted) {
+        return preFilter.admitAll(coupleId, sorted);
+    }
+
+    /** 동기 모드: AI 호출 + 이상 시 알림. 트랜잭션 밖에서 호출 (AI 왕복 동안 DB 커넥션을 잡지 않도록) */
+    public AiServerClient.AnomalyResponse checkAndAlert(UserPrincipal user, Instant timestamp, Integer heartrate,
+                                                        Double stress, boolean forward) {
+        if (!forward) return AnomalyPreFilter.NOT_FORWARDED;
+        AiServerClient.AnomalyResponse resp = callAi(user, timestamp, heartrate, stress);
+        alertIfAnomalous(user, heartrate, resp);
+        return resp;
+    }
+
+    /** 비동기 모드: 트랜잭션 안이면 커밋 후 워커에서 AI 호출 → check_id 로 결과 폴링. 사전 필터를 통과한 샘플만 */
+    public AnomalyCheckService.Check submit(UserPrincipal user, Instant timestamp, Integer heartrate, Double stress) {
+        return anomalyChecks.submit(user.getCoupleId(),
+                () -> callAi(user, timestamp, heartrate, stress),
+                resp -> alertIfAnomalous(user, heartrate, resp));
+    }
+
+    public Optional<AnomalyCheckService.Check> find(Long coupleId, String checkId) {
+        return anomalyChecks.find(coupleId, checkId);
+    }
+
+    private AiServerClient.AnomalyResponse callAi(UserPrincipal user, Instant timestamp, Integer heartrate, Double stress) {
+        // AI 서버 요청 바디 생성
+        String userRef = "u" + user.getUserId();
+        String isoTimestamp = timestamp.atZone(ZoneId.of("Asia/Seoul"))
+                .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+
+        AiServerClient.Metrics metrics = new AiServerClient.Metrics(heartrate, stress);
+        AiServerClient.TelemetryRequest telemetryRequest = new AiServerClient.TelemetryRequest(userRef, isoTimestamp, metrics);
+
+        // AI 서버 호출
+        AiServerClient.AnomalyResponse resp;
+        try {
+            resp = aiServerClient.checkTelemetry(user.getCoupleId(), telemetryRequest);
+        } catch (feign.FeignException.Unauthorized e) {
+            log.debug("AI server 401 Unauthorized (check app token): {}", e.contentUTF8());
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "AI server unauthorized");
+        } catch (feign.FeignException e) {
+            log.debug("AI server error status={}, body={}", e.status(), e.contentUTF8());
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "AI server error");
+        }
+        preFilter.onResult(user.getCoupleId(), timestamp, resp); // restrict/emergency 면 쿨다운 동안 전부 전달
+        return resp;
+    }
+
+    // 쿨다운 예약 + notifications 저장 + outbox 적재는 같은 트랜잭션 (호출측 트랜잭션이 있으면 참여)
+    // → 저장/적재가 실패해 롤백되면 쿨다운 예약도 풀려 다음 샘플이 다시 알림
+    private void alertIfAnomalous(UserPrincipal user, Integer heartrate, AiServerClient.AnomalyResponse resp) {
+        // 이상 징후면 FCM (총 3건: 본인 ANDROID 1, 본인 WATCH 1, 파트너 ANDROID 1)
+        // 같은 커플·모드·이유로 쿨다운 중이면 억제 (restrict → emergency 격상은 통과)
+        if (resp == null || resp.mode() == null || !ANOMALY_MODES.contains(resp.mode().toUpperCase())) {
+            String mode = (resp != null && resp.mode() != null) ? resp.mode() : "normal or null";
+            log.debug("AI server reported mode '{}'. No FCM notification is needed.", mode);
+            return;
+        }
+        String title = "심박수 이상 감지";
+        String body  = String.format("현재 심박수가 %dBPM을 초과했습니다. 상태를 확인해주세요.",
+                Optional.ofNullable(heartrate).orElse(0));
+
+        tx.executeWithoutResult(s -> {
+            AlertCooldownGate.Decision cooldown = alertCooldown.admit(user.getCoupleId(), resp.mode(), resp.reasons());
+            if (!cooldown.send()) {
+                log.debug("[ALERT-COOLDOWN] suppressed couple={} mode={} reasons={}",
+                        user.getCoupleId(), resp.mode(), resp.reasons());
+                return;
+            }
+            var notif = com.example.helloworld.healthserver.alarm.entity.Notification.builder()
+                    .alarmType(com.example.helloworld.healthserver.alarm.domain.AlarmType.EMERGENCY)
+                    .coupleId(user.getCoupleId())
+                    .alarmTitle(title)
+                    .alarmMsg(body)
+                    .createdAt(java.sql.Timestamp.from(Instant.now()))
+                    .build();
+
+            notif = notificationRepository.save(notif);     // ★ DB insert
+            Long alarmId = notif.getAlarmId();              // ★ 여기서 얻음
+
+            // FCM 3건 발송은 outbox 로 (같은 트랜잭션) → 커밋 후 OutboxDispatcher 가 발송 + recipients 업서트
+            notificationOutbox.enqueueEmergency(
+                    alarmId,
+                    user.getCoupleId(),
+                    user.getUserId(),
+                    Optional.ofNullable(heartrate).orElse(0),
+                    resp.mode(),
+                    resp.riskLevel(),
+                    resp.reasons(),
+                    cooldown.restrictCooldownUntil(),
+                    cooldown.emergencyCooldownUntil()
+            );
+        });
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.example.helloworld.healthserver.config.BulkheadTaskExecutor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 비동기 이상탐지 (app.anomaly.async.enabled=true)
+ *
+ * - 수집 트랜잭션이 커밋된 뒤 워커에서 AI 호출 → 요청 스레드/DB 커넥션이 AI 지연을 기다리지 않음
+ * - AI 호출은 트랜잭션 밖, 이상 시 알림 저장(notifications + outbox)만 짧은 트랜잭션으로
+ * - 결과는 check_id 로 폴링 (GET /api/wearable/checks/{checkId}), 이상 징후 알림은 기존처럼 FCM 푸시
+ * - 결과 저장: 로컬 맵 + Redis(레플리카 간 폴링용, result-ttl 후 만료). Redis 장애 시 로컬만
+ * - 동시 AI 호출 수는 bulkhead(max-concurrency)로 제한, 대기 작업은 버리지 않음
+ *
+ * 지표: anomaly.check.latency{result=done|failed} (제출→완료), anomaly.check.pending,
+ *       notif.executor.*{lane=anomaly}
+ */
+@Slf4j
+@Component
+public class AnomalyCheckService {
+
+    public enum Status { PENDING, DONE, FAILED }
+
+    public record Check(String checkId, Long coupleId, Status status, AiServerClient.AnomalyResponse anomaly,
+                        Instant submittedAt, Instant completedAt) {
+
+        Check complete(Status s, AiServerClient.AnomalyResponse resp) {
+            return new Check(checkId, coupleId, s, resp, submittedAt, Instant.now());
+        }
+    }
+
+    private final ConcurrentHashMap<String, Check> local = new ConcurrentHashMap<>();
+    private final ObjectProvider<StringRedisTemplate> redisProvider;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final BulkheadTaskExecutor executor;
+    private final MeterRegistry registry;
+
+    private final boolean redisEnabled;
+    private final Duration resultTtl;
+
+    public AnomalyCheckService(
+            ObjectProvider<StringRedisTemplate> redisProvider,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager txManager,
+            MeterRegistry registry,
+            @Value("${app.anomaly.async.redis.enabled:true}") boolean redisEnabled,
+            @Value("${app.anomaly.async.max-concurrency:32}") int maxConcurrency,
+            @Value("${app.anomaly.async.max-queued:10000}") int maxQueued,
+            @Value("${app.anomaly.async.result-ttl-seconds:600}") long resultTtlSeconds,
+            @Value("${app.anomaly.async.virtual-threads:true}") boolean virtualThreads
+    ) {
+        this.redisProvider = redisProvider;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(txManager);
+        this.registry = registry;
+        this.redisEnabled = redisEnabled;
+        this.resultTtl = Duration.ofSeconds(resultTtlSeconds);
+        this.executor = new BulkheadTaskExecutor("anomaly",
+                virtualThreads,
+                new Semaphore(maxConcurrency, true), null,
+                maxConcurrency, maxQueued, BulkheadTaskExecutor.Overflow.CALLER_RUNS, registry);
+        registry.gauge("anomaly.check.pending", local,
+                m -> m.values().stream().filter(c -> c.status() == Status.PENDING).count());
+    }
+
+    /**
+     * 이상탐지를 예약하고 PENDING 상태를 바로 돌려준다.
+     * 트랜잭션 안이면 커밋 후 실행 (롤백되면 FAILED), 아니면 즉시 실행.
+     *
+     * @param evaluate    AI 호출 (트랜잭션 밖에서 실행)
+     * @param alertInTx   AI 결과로 알림 저장 — 새 트랜잭션 안에서 실행
+     */
+    public Check submit(Long coupleId, Supplier<AiServerClient.AnomalyResponse> evaluate,
+                        Consumer<AiServerClient.AnomalyResponse> alertInTx) {
+        Check pending = new Check(UUID.randomUUID().toString(), coupleId, Status.PENDING, null, Instant.now(), null);
+        save(pending);
+
+        TxCallbacks.afterCompletion(() -> dispatch(pending, evaluate, alertInTx),
+                () -> save(pending.complete(Status.FAILED, null))); // 저장이 롤백됨 → 평가하지 않음
+        return pending;
+    }
+
+    private void dispatch(Check pending, Supplier<AiServerClient.AnomalyResponse> evaluate,
+                          Consumer<AiServerClient.AnomalyResponse> alertInTx) {
+        executor.execute(() -> {
+            Status result = Status.FAILED;
+            AiServerClient.AnomalyResponse resp = null;
+            try {
+                resp = evaluate.get();
+                AiServerClient.AnomalyResponse r = resp;
+                tx.executeWithoutResult(s -> alertInTx.accept(r));
+                result = Status.DONE;
+            } catch (Exception e) {
+                log.warn("[ANOMALY-ASYNC] check {} failed couple={}: {}", pending.checkId(), pending.coupleId(), e.toString());
+            } finally {
+                save(pending.complete(result, resp));
+                Timer.builder("anomaly.check.latency")
+                        .description("Async anomaly check, submit to result")
+                        .tag("result", result.name().toLowerCase())
+                        .publishPercentiles(0.5, 0.99)
+                        .register(registry)
+                        .record(Duration.between(pending.submittedAt(), Instant.now()));
+            }
+        });
+    }
+
+    /** 본인 커플의 결과만 (다른 커플/만료 → empty) */
+    public Optional<Check> find(Long coupleId, String checkId) {
+        Check c = local.get(checkId);
+        if (c == null) c = loadRemote(checkId);
+        return Optional.ofNullable(c).filter(x -> x.coupleId().equals(coupleId));
+    }
+
+    private void save(Check c) {
+        local.put(c.checkId(), c);
+        StringRedisTemplate redis = redisEnabled ? redisProvider.getIfAvailable() : null;
+        if (redis == null) return;
+        try {
+            redis.opsForValue().set(redisKey(c.checkId()), objectMapper.writeValueAsString(c), resultTtl);
+        } catch (Exception e) {
+            log.warn("[ANOMALY-ASYNC] redis save failed, local only: {}", e.getMessage());
+        }
+    }
+
+    private Check loadRemote(String checkId) {
+        StringRedisTemplate redis = redisEnabled ? redisProvider.getIfAvailable() : null;
+        if (redis == null) return null;
+        try {
+            String json = redis.opsForValue().get(redisKey(checkId));
+            return json == null ? null : objectMapper.readValue(json, Check.class);
+        } catch (Exception e) {
+            log.warn("[ANOMALY-ASYNC] redis load failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String redisKey(String checkId) {
+        return "anomaly:check:" + checkId;
+    }
+
+    @Scheduled(fixedDelayString = "${app.anomaly.async.purge-ms:60000}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(resultTtl);
+        local.values().removeIf(c -> c.submittedAt().isBefore(cutoff));
+    }
+
+    // 진행 중 작업은 BulkheadTaskExecutor 종료 대기 (최대 10초)
+    @PreDestroy
+    public void stop() {
+        executor.destroy();
+    }
+
+    boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (local.values().stream().anyMatch(c -> c.status() == Status.PENDING)) {
+            if (System.nanoTime() > deadline) return false;
+            Thread.sleep(5);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,353 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.client.AiServerClient;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AI 서버(/v1/telemetry) 호출 전 커플 단위 스트리밍 사전 필터 (app.anomaly.prefilter.enabled=true)
+ *
+ * AI 규칙(ai_server/services/anomaly.py): 연속 3틱 동안 HR>=150 / HR<=45 / |HR_Z|>=2.5(restrict), >=5(emergency),
+ * |STRESS_Z|>=2.5 (기준선 없으면 stress>=0.85). 규칙 경계 근처 샘플만 AI 로 보내고 나머지는 로컬에서 normal 로 응답한다.
+ *
+ * - 최근 window-minutes 샘플을 원시 배열 링버퍼(long 시각 / float HR / float 스트레스)에 두고
+ *   평균·분산은 Welford 방식으로 넣고 뺄 때마다 갱신 → 샘플당 O(1), 박싱/할당 없음
+ * - 후보: 워밍업(샘플 부족) | HR 이 즉시값 임계 ±margin 안 | 로컬 |z| >= z-forward | 스트레스 폴백 임계 근처
+ * - 지속 타이머: 후보 구간이 끝나도 hold-seconds 동안은 계속 보냄 → AI 의 연속 틱 카운터가 정상 샘플로 리셋되도록
+ * - AI 가 restrict/emergency 를 돌려주면 쿨다운이 끝날 때까지 전부 보냄 (앱에 보이는 mode 가 동기 모드와 같게)
+ *
+ * 로컬 기준선(최근 1시간)과 AI 기준선(일간 4시간 버킷)이 다르므로 z-forward 는 AI 임계(2.5)보다 넉넉히 낮게 둔다.
+ *
+ * 레플리카가 여럿일 때 (같은 커플 샘플이 여러 파드로 흩어짐):
+ * - 보냄 타이머(hold, AI 쿨다운)는 Redis 키 anomaly:prefilter:{c:coupleId}:fwd (값: 샘플 시각 기준 만료 ms) 로 공유
+ *   → 한 파드가 후보를 보거나 AI 가 restrict/emergency 를 주면 다른 파드도 그 시각까지 전부 보냄
+ *   로컬 판단이 skip 일 때만 GET 1회 (AI 호출보다 훨씬 쌈), 후보/AI 결과는 늘어날 때만 덮어쓰는 Lua 로 기록
+ * - Redis 장애 시 skip 대신 보냄 (fail-safe: 필터가 없는 것과 같음)
+ * - 링버퍼 기준선은 파드별: 파드마다 그 커플 샘플의 일부만 보므로 워밍업이 레플리카 수만큼 길어지고(그동안은 보냄)
+ *   z 는 같은 분포의 표본으로 추정한다. 즉시값 임계(HR/스트레스)는 상태가 없어 영향 없음
+ * - app.anomaly.prefilter.redis.enabled=false 면 타이머도 파드 로컬 → 단일 인스턴스(또는 커플 단위 고정 라우팅) 전제.
+ *   이 상태로 여러 레플리카에서 켜면 다른 파드가 본 후보 직후 샘플을 거를 수 있어 AI 의 연속 틱 판정이 빠질 수 있다
+ *
+ * 지표: anomaly.prefilter.decisions{result=forward|skip, trigger}, anomaly.prefilter.couples
+ */
+@Slf4j
+@Component
+public class AnomalyPreFilter {
+
+    /** 보내지 않은 샘플에 대한 응답 (AI 의 정상 응답과 같은 모양) */
+    public static final AiServerClient.AnomalyResponse NOT_FORWARDED =
+            new AiServerClient.AnomalyResponse(true, false, "low", "normal", List.of(), null, null, null, null);
+
+    enum Trigger {
+        WARMUP, HR_HIGH, HR_LOW, HR_Z, STRESS, HOLD, AI_ACTIVE,
+        SHARED,      // 다른 레플리카가 기록한 보냄 타이머
+        REDIS_ERROR; // 공유 타이머를 못 읽어서 보냄
+
+        /** 이 샘플 자체가 규칙 경계 근처 (→ hold 를 다른 레플리카와 공유) */
+        boolean candidate() {
+            return this == HR_HIGH || this == HR_LOW || this == HR_Z || this == STRESS;
+        }
+    }
+
+    // anomaly.py AnomalyConfig 와 같은 값
+    private static final float HR_INST_HIGH = 150f;
+    private static final float HR_INST_LOW = 45f;
+    private static final float STRESS_ABS_FALLBACK = 0.85f;
+    private static final long RESTRICT_COOLDOWN_MS = 180_000;
+    private static final long EMERGENCY_COOLDOWN_MS = 3_600_000;
+
+    // KEYS[1]=anomaly:prefilter:{c:coupleId}:fwd / ARGV: until(샘플 시각 ms), ttl ms
+    // 저장된 만료가 더 늦으면 0 (줄이지 않음)
+    private static final DefaultRedisScript<Long> EXTEND = new DefaultRedisScript<>(
+            "local cur = redis.call('GET', KEYS[1]) " +
+            "if cur and tonumber(cur) >= tonumber(ARGV[1]) then return 0 end " +
+            "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1", Long.class);
+
+    private final ConcurrentHashMap<Long, CoupleWindow> windows = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ObjectProvider<StringRedisTemplate> redisProvider;
+    private final MeterRegistry registry;
+
+    private final boolean enabled;
+    private final boolean redisEnabled;
+    private final int capacity;
+    private final long windowMs;
+    private final int minSamples;
+    private final double hrMargin;
+    private final double zForward;
+    private final double stressMargin;
+    private final long holdMs;
+    private final long idleMs;
+
+    public AnomalyPreFilter(
+            ObjectProvider<StringRedisTemplate> redisProvider,
+            MeterRegistry registry,
+            @Value("${app.anomaly.prefilter.enabled:false}") boolean enabled,
+            @Value("${app.anomaly.prefilter.redis.enabled:true}") boolean redisEnabled,
+            @Value("${app.anomaly.prefilter.window-minutes:60}") long windowMinutes,
+            @Value("${app.anomaly.prefilter.capacity:720}") int capacity,
+            @Value("${app.anomaly.prefilter.min-samples:30}") int minSamples,
+            @Value("${app.anomaly.prefilter.hr-margin:10}") double hrMargin,
+            @Value("${app.anomaly.prefilter.z-forward:2.0}") double zForward,
+            @Value("${app.anomaly.prefilter.stress-margin:0.1}") double stressMargin,
+            @Value("${app.anomaly.prefilter.hold-seconds:20}") long holdSeconds,
+            @Value("${app.anomaly.prefilter.idle-minutes:30}") long idleMinutes
+    ) {
+        this.redisProvider = redisProvider;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.redisEnabled = redisEnabled;
+        this.windowMs = windowMinutes * 60_000;
+        this.capacity = capacity;
+        this.minSamples = minSamples;
+        this.hrMargin = hrMargin;
+        this.zForward = zForward;
+        this.stressMargin = stressMargin;
+        this.holdMs = holdSeconds * 1000;
+        this.idleMs = idleMinutes * 60_000;
+        registry.gauge("anomaly.prefilter.couples", windows, Map::size);
+        if (enabled && !redisEnabled) {
+            log.warn("[PREFILTER] redis disabled: forward timers are per-pod, run a single replica or route by couple");
+        }
+    }
+
+    /** 샘플을 창에 반영하고 AI 로 보낼지 결정 (꺼져 있으면 항상 true) */
+    public boolean admit(Long coupleId, Instant ts, Integer heartrate, Double stress) {
+        if (!enabled || coupleId == null) return true;
+        long now = ts.toEpochMilli();
+        CoupleWindow w = window(coupleId);
+        Trigger t = w.observe(now, heartrate, stress);
+        if (t == null) t = shared(coupleId, w, now);
+        else if (t.candidate()) publish(coupleId, now + holdMs);
+        count(t);
+        return t != null;
+    }
+
+    /** 배치 윈도우: 모든 샘플을 순서대로 반영하고 하나라도 후보면 true */
+    public boolean admitAll(Long coupleId, List<HealthDataBulkRepository.Sample> sorted) {
+        if (!enabled || coupleId == null) return true;
+        CoupleWindow w = window(coupleId);
+        Trigger first = null;
+        long lastCandidate = Long.MIN_VALUE;
+        for (HealthDataBulkRepository.Sample s : sorted) {
+            long now = s.date().toEpochMilli();
+            Trigger t = w.observe(now, s.heartrate(), s.stress());
+            if (first == null) first = t;
+            if (t != null && t.candidate()) lastCandidate = now;
+        }
+        if (first == null) first = shared(coupleId, w, sorted.get(0).date().toEpochMilli());
+        if (lastCandidate != Long.MIN_VALUE) publish(coupleId, lastCandidate + holdMs);
+        count(first);
+        return first != null;
+    }
+
+    /** AI 응답 반영: restrict/emergency 면 쿨다운 동안 전부 보냄 */
+    public void onResult(Long coupleId, Instant ts, AiServerClient.AnomalyResponse resp) {
+        if (!enabled || coupleId == null || resp == null || resp.mode() == null) return;
+        String mode = resp.mode().toLowerCase(Locale.ROOT);
+        long hold;
+        if (resp.cooldown() != null && resp.cooldown().active() && resp.cooldown().secsLeft() != null) {
+            hold = resp.cooldown().secsLeft() * 1000L;
+        } else if ("emergency".equals(mode)) {
+            hold = EMERGENCY_COOLDOWN_MS;
+        } else if ("restrict".equals(mode)) {
+            hold = RESTRICT_COOLDOWN_MS;
+        } else {
+            return;
+        }
+        long until = ts.toEpochMilli() + hold;
+        window(coupleId).markActive(until);
+        publish(coupleId, until);
+    }
+
+    // 로컬이 skip 일 때: 다른 레플리카가 기록한 보냄 타이머 확인 (본 만료는 로컬에도 반영 → 끝날 때까지 다시 안 읽음)
+    private Trigger shared(Long coupleId, CoupleWindow w, long now) {
+        StringRedisTemplate redis = redisEnabled ? redisProvider.getIfAvailable() : null;
+        if (redis == null) return null;
+        try {
+            String v = redis.opsForValue().get(redisKey(coupleId));
+            if (v == null) return null;
+            long until = Long.parseLong(v);
+            if (until < now) return null;
+            w.markActive(until);
+            return Trigger.SHARED;
+        } catch (Exception ex) {
+            log.warn("[PREFILTER] redis read failed couple={}, forwarding: {}", coupleId, ex.getMessage());
+            return Trigger.REDIS_ERROR;
+        }
+    }
+
+    // 보냄 타이머 공유 (늘어날 때만). 실패해도 이 파드는 로컬 타이머로 계속 보냄
+    private void publish(Long coupleId, long until) {
+        StringRedisTemplate redis = redisEnabled ? redisProvider.getIfAvailable() : null;
+        if (redis == null) return;
+        long ttl = Math.max(1, until - System.currentTimeMillis()) + holdMs; // 샘플 시각과 벽시계 차이 여유
+        try {
+            redis.execute(EXTEND, List.of(redisKey(coupleId)), Long.toString(until), Long.toString(ttl));
+        } catch (Exception ex) {
+            log.warn("[PREFILTER] redis publish failed couple={}: {}", coupleId, ex.getMessage());
+        }
+    }
+
+    // 같은 커플 키는 한 슬롯 (Redis Cluster)
+    private static String redisKey(Long coupleId) {
+        return "anomaly:prefilter:{c:" + coupleId + "}:fwd";
+    }
+
+    private CoupleWindow window(Long coupleId) {
+        return windows.computeIfAbsent(coupleId, id -> new CoupleWindow(capacity));
+    }
+
+    private void count(Trigger t) {
+        String key = t == null ? "skip" : t.name();
+        counters.computeIfAbsent(key, k -> Counter.builder("anomaly.prefilter.decisions")
+                .description("Telemetry samples forwarded to / kept from the AI server")
+                .tag("result", t == null ? "skip" : "forward")
+                .tag("trigger", t == null ? "none" : t.name().toLowerCase(Locale.ROOT))
+                .register(registry)).increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.anomaly.prefilter.purge-ms:300000}")
+    public void purgeIdle() {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        windows.values().removeIf(w -> w.lastSeen() < cutoff);
+    }
+
+    /** 창 평균/분산 — 넣고 빼기 모두 O(1) (Welford) */
+    static final class RunningStats {
+        int n;
+        double mean;
+        double m2;
+
+        void add(double x) {
+            n++;
+            double d = x - mean;
+            mean += d / n;
+            m2 += d * (x - mean);
+        }
+
+        void remove(double x) {
+            if (n <= 1) { n = 0; mean = 0; m2 = 0; return; }
+            double d = x - mean;
+            n--;
+            mean -= d / n;
+            m2 -= d * (x - mean);
+            if (m2 < 0) m2 = 0; // 부동소수 오차
+        }
+
+        double std() {
+            return n > 1 ? Math.sqrt(m2 / (n - 1)) : 0;
+        }
+    }
+
+    /** 커플 1쌍의 최근 샘플 링버퍼 + 타이머 (인스턴스 락으로 보호) */
+    final class CoupleWindow {
+        private final long[] ts;
+        private final float[] hr;
+        private final float[] stress; // 0~1, 없으면 NaN
+        private int head;             // 가장 오래된 슬롯
+        private int size;
+        private final RunningStats hrStats = new RunningStats();
+        private final RunningStats stressStats = new RunningStats();
+
+        private long holdUntil = Long.MIN_VALUE;     // 마지막 후보 + hold
+        private long activeUntil = Long.MIN_VALUE;   // AI 쿨다운 끝
+        private volatile long lastSeen;
+
+        CoupleWindow(int capacity) {
+            this.ts = new long[capacity];
+            this.hr = new float[capacity];
+            this.stress = new float[capacity];
+        }
+
+        long lastSeen() {
+            return lastSeen;
+        }
+
+        synchronized void markActive(long until) {
+            activeUntil = Math.max(activeUntil, until);
+        }
+
+        /** @return 보낼 이유 (null = 보내지 않음) */
+        synchronized Trigger observe(long now, Integer heartrate, Double stressRaw) {
+            lastSeen = System.currentTimeMillis();
+            evictOlderThan(now - windowMs);
+
+            float h = heartrate == null ? Float.NaN : heartrate;
+            float s = stressRaw == null ? Float.NaN
+                    : (float) (stressRaw > 1.0 ? stressRaw / 100.0 : stressRaw); // AI 와 같은 0~100 → 0~1
+
+            Trigger candidate = classify(h, s);
+            // 후보 샘플은 mean ± z-forward·std 로 잘라서 반영 → 운동처럼 긴 상승 구간에도 기준선이 금방 따라가지 않음
+            push(now, clip(h, hrStats, 1.0), clip(s, stressStats, 0.02));
+
+            if (candidate != null) {
+                holdUntil = Math.max(holdUntil, now + holdMs);
+                return candidate;
+            }
+            if (now <= activeUntil) return Trigger.AI_ACTIVE;
+            if (now <= holdUntil) return Trigger.HOLD;
+            return null;
+        }
+
+        // z 는 현재 샘플을 넣기 전 창 기준
+        private Trigger classify(float h, float s) {
+            if (hrStats.n < minSamples) return Trigger.WARMUP;
+            if (!Float.isNaN(h)) {
+                if (h >= HR_INST_HIGH - hrMargin) return Trigger.HR_HIGH;
+                if (h <= HR_INST_LOW + hrMargin / 2) return Trigger.HR_LOW;
+                if (Math.abs(h - hrStats.mean) >= zForward * Math.max(hrStats.std(), 1.0)) return Trigger.HR_Z;
+            }
+            if (!Float.isNaN(s)) {
+                if (s >= STRESS_ABS_FALLBACK - stressMargin) return Trigger.STRESS;
+                if (stressStats.n >= minSamples
+                        && Math.abs(s - stressStats.mean) >= zForward * Math.max(stressStats.std(), 0.02)) {
+                    return Trigger.STRESS;
+                }
+            }
+            return null;
+        }
+
+        private float clip(float x, RunningStats st, double stdFloor) {
+            if (Float.isNaN(x) || st.n < minSamples) return x;
+            double band = zForward * Math.max(st.std(), stdFloor);
+            return (float) Math.max(st.mean - band, Math.min(st.mean + band, x));
+        }
+
+        private void push(long now, float h, float s) {
+            if (size == ts.length) evictOne();
+            int slot = (head + size) % ts.length;
+            ts[slot] = now;
+            hr[slot] = h;
+            stress[slot] = s;
+            size++;
+            if (!Float.isNaN(h)) hrStats.add(h);
+            if (!Float.isNaN(s)) stressStats.add(s);
+        }
+
+        private void evictOlderThan(long cutoff) {
+            while (size > 0 && ts[head] < cutoff) evictOne();
+        }
+
+        private void evictOne() {
+            if (!Float.isNaN(hr[head])) hrStats.remove(hr[head]);
+            if (!Float.isNaN(stress[head])) stressStats.remove(stress[head]);
+            head = (head + 1) % ts.length;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.dto.HealthDtos.StatsRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 일간 버킷 통계 스트리밍 내보내기 (분석 파이프라인용, GET /api/wearable/daily-buckets/export)
+ *
+ * - 한 줄 = StatsRow 1건 (커플·날짜당 hr/stress × avg/stddev 4줄), NDJSON 또는 CSV
+ * - 읽기: 읽기 전용 트랜잭션 안에서 forward-only 커서 + fetch-size → 드라이버가 fetch-size 행씩만 들고 있음
+ *   (PgJDBC 는 autocommit 이 꺼져 있어야 커서로 읽음)
+ * - 쓰기: 응답 스트림에 바로 씀. 클라이언트가 느리면 write 가 막히고 그동안 다음 fetch 도 안 함 → 메모리는 커플 수와 무관
+ * - 소스: 롤업(app.vitals.bucket-rollup.enabled)이 켜져 있으면 health_bucket_stats, 아니면 health_data 를
+ *   (날짜, 커플, 버킷) 으로 묶어 같은 (n, sum, sumsq) 모양으로 읽음 (정렬/집계는 DB 쪽)
+ * - 기간은 from~to (app.zone 날짜, 양끝 포함), 최대 max-days 일. 커넥션을 내보내는 동안 잡고 있으므로 제한함
+ *
+ * 지표: health.export.daily_stats (소요), health.export.daily_stats.lines{format}
+ */
+@Slf4j
+@Component
+public class DailyStatsExporter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    static final String CSV_HEADER = "user_ref,as_of,metric,stat,v_0_4,v_4_8,v_8_12,v_12_16,v_16_20,v_20_24";
+
+    private static final String ROLLUP_SQL = """
+            SELECT day, couple_id, bucket, hr_n, hr_sum, hr_sumsq, st_n, st_sum, st_sumsq
+              FROM health_bucket_stats
+             WHERE day >= ? AND day <= ?
+             ORDER BY day, couple_id
+            """;
+
+    private static final String RAW_SQL = """
+            SELECT ("date" AT TIME ZONE ?)::date AS day, couple_id,
+                   (EXTRACT(HOUR FROM ("date" AT TIME ZONE ?))::int) / 4 AS bucket,
+                   COUNT(heartrate), COALESCE(SUM(heartrate), 0), COALESCE(SUM(heartrate::bigint * heartrate), 0),
+                   COUNT(stress), COALESCE(SUM(stress), 0), COALESCE(SUM(stress * stress), 0)
+              FROM health_data
+             WHERE "date" >= ? AND "date" < ?
+             GROUP BY 1, 2, 3
+             ORDER BY 1, 2
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readTx;
+    private final ObjectMapper objectMapper;
+    private final HealthBucketRollup rollup;
+    private final MeterRegistry registry;
+    private final int fetchSize;
+    private final int maxDays;
+    private final ZoneId zone;
+    private final Timer exportTimer;
+
+    public DailyStatsExporter(
+            JdbcTemplate jdbc,
+            PlatformTransactionManager txManager,
+            ObjectMapper objectMapper,
+            HealthBucketRollup rollup,
+            MeterRegistry registry,
+            @Value("${app.export.daily-stats.fetch-size:1000}") int fetchSize,
+            @Value("${app.export.daily-stats.max-days:31}") int maxDays,
+            @Value("${app.zone:Asia/Seoul}") String appZone
+    ) {
+        this.jdbc = jdbc;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.rollup = rollup;
+        this.registry = registry;
+        this.fetchSize = fetchSize;
+        this.maxDays = maxDays;
+        this.zone = ZoneId.of(appZone);
+        this.exportTimer = Timer.builder("health.export.daily_stats")
+                .description("Streaming export of daily bucket stats")
+                .register(registry);
+    }
+
+    /** 스트림을 열기 전에 검증 (응답 헤더가 나가기 전이라 400 으로 돌려줄 수 있음) */
+    public Format validate(LocalDate from, LocalDate to, String format) {
+        if (from == null || to == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from, to are required (YYYY-MM-DD)");
+        }
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must not be before from");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > maxDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "range must be at most " + maxDays + " days");
+        }
+        try {
+            return Format.valueOf(format == null ? "NDJSON" : format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+        }
+    }
+
+    /** from~to 통계를 out 에 씀 (out 은 닫지 않음). @return 쓴 줄 수 (CSV 헤더 제외) */
+    public long export(LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) writer.write(CSV_HEADER + "\n");
+        Emitter emitter = new Emitter(row -> writeRow(writer, format, row));
+
+        long t0 = System.nanoTime();
+        try {
+            readTx.executeWithoutResult(s -> {
+                if (rollup.enabled()) {
+                    query(ROLLUP_SQL, emitter, Date.valueOf(from), Date.valueOf(to));
+                } else {
+                    query(RAW_SQL, emitter, zone.getId(), zone.getId(),
+                            Timestamp.from(from.atStartOfDay(zone).toInstant()),
+                            Timestamp.from(to.plusDays(1).atStartOfDay(zone).toInstant()));
+                }
+                emitter.finish();
+            });
+            writer.flush();
+        } catch (UncheckedIOException e) { // 클라이언트가 끊음 → 트랜잭션/커서 정리 후 그대로 전파
+            log.info("[STATS-EXPORT] aborted {}~{} after {} lines: {}", from, to, emitter.lines(), e.getCause().toString());
+            throw e.getCause();
+        } finally {
+            exportTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+            registry.counter("health.export.daily_stats.lines", "format", format.extension()).increment(emitter.lines());
+        }
+        log.info("[STATS-EXPORT] {}~{} {} lines={} source={}", from, to, format.extension(), emitter.lines(),
+                rollup.enabled() ? "rollup" : "health_data");
+        return emitter.lines();
+    }
+
+    private void query(String sql, Emitter emitter, Object... args) {
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.length; i++) ps.setObject(i + 1, args[i]);
+            return ps;
+        }, rs -> {
+            emitter.accept(rs.getDate(1).toLocalDate(), new HealthBucketRollup.BucketStats(
+                    rs.getLong(2), rs.getInt(3),
+                    rs.getLong(4), rs.getLong(5), rs.getLong(6),
+                    rs.getLong(7), rs.getDouble(8), rs.getDouble(9)));
+        });
+    }
+
+    private void writeRow(Writer w, Format format, StatsRow row) throws IOException {
+        if (format == Format.NDJSON) {
+            w.write(objectMapper.writeValueAsString(row));
+        } else {
+            w.write(row.userRef());
+            w.write(',');
+            w.write(row.asOf().toString());
+            w.write(',');
+            w.write(row.metric());
+            w.write(',');
+            w.write(row.stat());
+            for (Double v : new Double[]{row.v0_4(), row.v4_8(), row.v8_12(), row.v12_16(), row.v16_20(), row.v20_24()}) {
+                w.write(',');
+                if (v != null) w.write(Double.toString(v));
+            }
+        }
+        w.write('\n');
+    }
+
+    interface Sink {
+        void write(StatsRow row) throws IOException;
+    }
+
+    /**
+     * (날짜, 커플) 순으로 오는 버킷 행을 커플 단위로 모아 4줄씩 내보냄. 들고 있는 건 한 커플의 최대 6버킷뿐
+     */
+    static final class Emitter {
+        private final Sink sink;
+        private final List<HealthBucketRollup.BucketStats> group = new ArrayList<>(6);
+        private LocalDate day;
+        private long lines;
+
+        Emitter(Sink sink) {
+            this.sink = sink;
+        }
+
+        void accept(LocalDate rowDay, HealthBucketRollup.BucketStats stats) {
+            if (!group.isEmpty() && (!rowDay.equals(day) || stats.coupleId() != group.get(0).coupleId())) flush();
+            day = rowDay;
+            group.add(stats);
+        }
+
+        void finish() {
+            if (!group.isEmpty()) flush();
+        }
+
+        long lines() {
+            return lines;
+        }
+
+        private void flush() {
+            try {
+                for (StatsRow row : HealthDataService.rollupRows(day, group)) {
+                    sink.write(row);
+                    lines++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            group.clear();
+        }
+    }
+}
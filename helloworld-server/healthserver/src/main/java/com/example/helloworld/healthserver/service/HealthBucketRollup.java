@@ -0,0 +1,278 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 커플별 하루 4시간 버킷 롤업 health_bucket_stats (app.vitals.bucket-rollup.enabled=true)
+ *
+ * - 수집 경로가 health_data 와 같은 트랜잭션에서 (n, sum, sumsq) 를 더함 (INSERT ... ON CONFLICT DO UPDATE)
+ *   묶음은 버킷별로 먼저 합쳐 키 순서대로 upsert → 행 수만큼이 아니라 버킷 수만큼, 트랜잭션 간 교착 없음
+ * - 평균/표본표준편차는 합으로 계산 → /daily-buckets 는 그날 롤업 행만 읽음 (health_data 스캔/AT TIME ZONE 없음)
+ * - 하루/버킷 경계는 app.zone (기본 Asia/Seoul, 기존 집계 쿼리와 같음)
+ * - rebuild(day): 그날 롤업을 health_data 에서 다시 계산 (켜기 전 기간 채우기, 누락/수동 수정 보정).
+ *   매일 새벽 어제분을 다시 계산하고, 기동 시 backfill-days 만큼 채움
+ *
+ * 지표: health.bucket.rollup.upserts (upsert 한 버킷 수), health.bucket.rollup.rebuild
+ */
+@Slf4j
+@Component
+public class HealthBucketRollup {
+
+    public static final String TABLE = "health_bucket_stats";
+
+    record Key(long coupleId, LocalDate day, int bucket) {}
+
+    /** 한 버킷 누적값. 심박은 정수라 합/제곱합을 long 으로 정확히 보관 */
+    static final class Sums {
+        long hrN, hrSum, hrSumSq;
+        long stN;
+        double stSum, stSumSq;
+
+        void add(Double stress, Integer heartrate) {
+            if (heartrate != null) {
+                hrN++;
+                hrSum += heartrate;
+                hrSumSq += (long) heartrate * heartrate;
+            }
+            if (stress != null) {
+                stN++;
+                stSum += stress;
+                stSumSq += stress * stress;
+            }
+        }
+    }
+
+    /** 롤업 1행 (읽기용) */
+    public record BucketStats(long coupleId, int bucket,
+                              long hrN, long hrSum, long hrSumSq,
+                              long stN, double stSum, double stSumSq) {
+
+        public Double hrAvg() {
+            return hrN == 0 ? null : (double) hrSum / hrN;
+        }
+
+        /** STDDEV_SAMP 와 같음 (n < 2 → null). 분자 n·Σx² − (Σx)² 를 정수로 계산 */
+        public Double hrStddev() {
+            if (hrN < 2) return null;
+            double num = (double) (hrN * hrSumSq - hrSum * hrSum);
+            return Math.sqrt(Math.max(0, num / ((double) hrN * (hrN - 1))));
+        }
+
+        public Double stAvg() {
+            return stN == 0 ? null : stSum / stN;
+        }
+
+        public Double stStddev() {
+            if (stN < 2) return null;
+            double num = stSumSq - stSum * stSum / stN;
+            return Math.sqrt(Math.max(0, num / (stN - 1)));
+        }
+    }
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO health_bucket_stats (couple_id, day, bucket, hr_n, hr_sum, hr_sumsq, st_n, st_sum, st_sumsq)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (couple_id, day, bucket) DO UPDATE SET
+              hr_n     = health_bucket_stats.hr_n     + EXCLUDED.hr_n,
+              hr_sum   = health_bucket_stats.hr_sum   + EXCLUDED.hr_sum,
+              hr_sumsq = health_bucket_stats.hr_sumsq + EXCLUDED.hr_sumsq,
+              st_n     = health_bucket_stats.st_n     + EXCLUDED.st_n,
+              st_sum   = health_bucket_stats.st_sum   + EXCLUDED.st_sum,
+              st_sumsq = health_bucket_stats.st_sumsq + EXCLUDED.st_sumsq
+            """;
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparingLong(Key::coupleId)
+            .thenComparing(Key::day).thenComparingInt(Key::bucket);
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final ZoneId zone;
+    private final int backfillDays;
+
+    private final Counter upserts;
+    private final Timer rebuildTimer;
+
+    public HealthBucketRollup(
+            JdbcTemplate jdbc,
+            PlatformTransactionManager txManager,
+            MeterRegistry registry,
+            @Value("${app.vitals.bucket-rollup.enabled:false}") boolean enabled,
+            @Value("${app.vitals.bucket-rollup.backfill-days:0}") int backfillDays,
+            @Value("${app.zone:Asia/Seoul}") String appZone
+    ) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.enabled = enabled;
+        this.zone = ZoneId.of(appZone);
+        this.backfillDays = backfillDays;
+        this.upserts = Counter.builder("health.bucket.rollup.upserts")
+                .description("Bucket rows upserted into health_bucket_stats on ingest")
+                .register(registry);
+        this.rebuildTimer = Timer.builder("health.bucket.rollup.rebuild")
+                .description("Rebuild of one day of health_bucket_stats from health_data")
+                .register(registry);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    // ===== 수집 (호출측 트랜잭션 안에서) =====
+
+    public void record(Long coupleId, List<HealthDataBulkRepository.Sample> samples) {
+        if (!enabled || coupleId == null) return;
+        Map<Key, Sums> sums = new TreeMap<>(KEY_ORDER);
+        for (HealthDataBulkRepository.Sample s : samples) fold(sums, coupleId, s.date(), s.stress(), s.heartrate());
+        upsert(sums);
+    }
+
+    /** 커플이 섞인 행 (write-behind 플러시) */
+    public void record(List<HealthDataBulkRepository.Row> rows) {
+        if (!enabled) return;
+        Map<Key, Sums> sums = new TreeMap<>(KEY_ORDER);
+        for (HealthDataBulkRepository.Row r : rows) fold(sums, r.coupleId(), r.date(), r.stress(), r.heartrate());
+        upsert(sums);
+    }
+
+    /** 켜져 있으면 action 과 롤업을 한 트랜잭션으로 (write-behind COPY 처럼 트랜잭션 밖에서 불리는 적재용) */
+    public <T> T atomically(Supplier<T> action) {
+        return enabled ? tx.execute(s -> action.get()) : action.get();
+    }
+
+    private void fold(Map<Key, Sums> sums, Long coupleId, Instant date, Double stress, Integer heartrate) {
+        if (coupleId == null || date == null) return;
+        ZonedDateTime local = date.atZone(zone);
+        sums.computeIfAbsent(new Key(coupleId, local.toLocalDate(), local.getHour() / 4), k -> new Sums())
+                .add(stress, heartrate);
+    }
+
+    private void upsert(Map<Key, Sums> sums) {
+        if (sums.isEmpty()) return;
+        List<Map.Entry<Key, Sums>> rows = new ArrayList<>(sums.entrySet());
+        jdbc.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, e) -> {
+            Key k = e.getKey();
+            Sums v = e.getValue();
+            ps.setLong(1, k.coupleId());
+            ps.setDate(2, Date.valueOf(k.day()));
+            ps.setInt(3, k.bucket());
+            ps.setLong(4, v.hrN);
+            ps.setLong(5, v.hrSum);
+            ps.setLong(6, v.hrSumSq);
+            ps.setLong(7, v.stN);
+            ps.setDouble(8, v.stSum);
+            ps.setDouble(9, v.stSumSq);
+        });
+        upserts.increment(rows.size());
+    }
+
+    // ===== 조회 =====
+
+    /** 그날 샘플이 있는 커플의 버킷 행, (couple_id, bucket) 순 */
+    public List<BucketStats> day(LocalDate day) {
+        return jdbc.query("""
+                SELECT couple_id, bucket, hr_n, hr_sum, hr_sumsq, st_n, st_sum, st_sumsq
+                  FROM health_bucket_stats
+                 WHERE day = ?
+                 ORDER BY couple_id, bucket
+                """, (rs, i) -> new BucketStats(rs.getLong(1), rs.getInt(2),
+                rs.getLong(3), rs.getLong(4), rs.getLong(5),
+                rs.getLong(6), rs.getDouble(7), rs.getDouble(8)), Date.valueOf(day));
+    }
+
+    // ===== 스키마 / 재계산 =====
+
+    public void ensureSchema() {
+        jdbc.execute("""
+                CREATE TABLE IF NOT EXISTS health_bucket_stats (
+                  couple_id BIGINT           NOT NULL,
+                  day       DATE             NOT NULL,
+                  bucket    SMALLINT         NOT NULL,
+                  hr_n      BIGINT           NOT NULL DEFAULT 0,
+                  hr_sum    BIGINT           NOT NULL DEFAULT 0,
+                  hr_sumsq  BIGINT           NOT NULL DEFAULT 0,
+                  st_n      BIGINT           NOT NULL DEFAULT 0,
+                  st_sum    DOUBLE PRECISION NOT NULL DEFAULT 0,
+                  st_sumsq  DOUBLE PRECISION NOT NULL DEFAULT 0,
+                  PRIMARY KEY (couple_id, day, bucket)
+                )""");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS ix_health_bucket_stats_day ON health_bucket_stats (day, couple_id)");
+    }
+
+    /**
+     * 그날 롤업을 health_data 에서 다시 계산해 교체. @return 버킷 행 수
+     * 테이블을 SHARE ROW EXCLUSIVE 로 잠가 진행 중인 수집 트랜잭션(이미 upsert 한 것)이 끝난 뒤 스냅샷을 잡음
+     * → 커밋된 행은 재계산에, 아직 upsert 전인 행은 이후 upsert 로 — 한 번씩만 반영. 잠금 동안 수집 upsert 는 대기
+     */
+    public int rebuild(LocalDate day) {
+        Timestamp from = Timestamp.from(day.atStartOfDay(zone).toInstant());
+        Timestamp to = Timestamp.from(day.plusDays(1).atStartOfDay(zone).toInstant());
+        long t0 = System.nanoTime();
+        Integer n = tx.execute(s -> {
+            jdbc.execute("LOCK TABLE health_bucket_stats IN SHARE ROW EXCLUSIVE MODE");
+            jdbc.update("DELETE FROM health_bucket_stats WHERE day = ?", Date.valueOf(day));
+            return jdbc.update("""
+                    INSERT INTO health_bucket_stats (couple_id, day, bucket, hr_n, hr_sum, hr_sumsq, st_n, st_sum, st_sumsq)
+                    SELECT couple_id, ?, (EXTRACT(HOUR FROM ("date" AT TIME ZONE ?))::int) / 4,
+                           COUNT(heartrate), COALESCE(SUM(heartrate), 0), COALESCE(SUM(heartrate::bigint * heartrate), 0),
+                           COUNT(stress), COALESCE(SUM(stress), 0), COALESCE(SUM(stress * stress), 0)
+                      FROM health_data
+                     WHERE "date" >= ? AND "date" < ?
+                     GROUP BY 1, 3
+                    """, Date.valueOf(day), zone.getId(), from, to);
+        });
+        rebuildTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        return n == null ? 0 : n;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareOnStartup() {
+        if (!enabled) return;
+        try {
+            ensureSchema();
+            LocalDate today = LocalDate.now(zone);
+            for (int i = backfillDays; i >= 1; i--) rebuild(today.minusDays(i));
+            if (backfillDays > 0) rebuild(today);
+        } catch (Exception e) {
+            log.warn("[BUCKET-ROLLUP] startup schema/backfill failed: {}", e.toString());
+        }
+    }
+
+    @Scheduled(cron = "${app.vitals.bucket-rollup.rebuild-cron:0 40 3 * * *}", zone = "${app.zone:Asia/Seoul}")
+    public void rebuildYesterday() {
+        if (!enabled) return;
+        LocalDate day = LocalDate.now(zone).minusDays(1);
+        try {
+            int rows = rebuild(day);
+            log.info("[BUCKET-ROLLUP] rebuilt {} ({} bucket rows)", day, rows);
+        } catch (Exception e) {
+            log.warn("[BUCKET-ROLLUP] rebuild {} failed: {}", day, e.toString());
+        }
+    }
+}
@@ -1,116 +1,174 @@
 package com.example.helloworld.healthserver.service;
 
-import com.example.helloworld.healthserver.alarm.repository.NotificationRepository;
 import com.example.helloworld.healthserver.client.AiServerClient;
-import com.example.helloworld.healthserver.alarm.service.FcmService;
 import com.example.helloworld.healthserver.config.UserPrincipal;
 import com.example.helloworld.healthserver.dto.HealthDtos;
 import com.example.helloworld.healthserver.dto.HealthDtos.*;
 import com.example.helloworld.healthserver.entity.HealthData;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository;
 import com.example.helloworld.healthserver.persistence.HealthDataRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.*;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
+/**
+ * 웨어러블 수집 진입점 — 저장은 VitalsWriter, 이상탐지/알림은 AnomalyAlertService
+ * - 동기 모드: 저장 트랜잭션을 먼저 커밋하고 AI 는 트랜잭션 밖에서 호출 (AI 왕복 동안 DB 커넥션을 잡지 않음)
+ * - 비동기 모드: 저장 + 검사 예약을 한 트랜잭션으로, AI 는 커밋 후 워커에서
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class HealthDataService {
 
     private final HealthDataRepository repo;
-    private final NotificationRepository notificationRepository;
-    private final AiServerClient aiServerClient;
-    private final FcmService fcmService;
+    private final VitalsWriter writer;
+    private final AnomalyAlertService anomaly;
+    private final HealthBucketRollup rollup;
+    private final TransactionTemplate tx;
+
+    @Value("${app.wearable.batch.max-samples:600}")
+    private int batchMaxSamples;
+
+    // true 면 수집은 202 로 바로 응답하고 AI 이상탐지는 워커에서 (결과는 /api/wearable/checks/{id} 폴링)
+    @Value("${app.anomaly.async.enabled:false}")
+    private boolean anomalyAsync;
 
     @Value("${app.zone:Asia/Seoul}")
     private String appZone;
 
-    /** 프론트 /api/wearable 진입점: DB 저장 후 AI 호출, AI 응답을 그대로 리턴 */
-    private static final Set<String> ANOMALY_MODES = Set.of("RESTRICT", "EMERGENCY");
+    public HealthDataService(HealthDataRepository repo,
+                             VitalsWriter writer,
+                             AnomalyAlertService anomaly,
+                             HealthBucketRollup rollup,
+                             PlatformTransactionManager txManager) {
+        this.repo = repo;
+        this.writer = writer;
+        this.anomaly = anomaly;
+        this.rollup = rollup;
+        this.tx = new TransactionTemplate(txManager);
+    }
 
-    @Transactional
+    /** 프론트 /api/wearable 진입점: DB 저장(write-behind 면 저널 기록) 커밋 후 AI 호출, AI 응답을 그대로 리턴 */
     public AiServerClient.AnomalyResponse createAndCheckHealthData(UserPrincipal user, HealthDtos.CreateRequest req) {
-        // 1) DB 저장
-        Instant timestamp = (req.date() != null) ? req.date() : Instant.now();
-        HealthData healthData = HealthData.builder()
-                .coupleId(user.getCoupleId())
-                .date(timestamp)
-                .stress(req.stress())
-                .heartrate(req.heartrate())
-                .build();
-        repo.save(healthData);
-
-        // 2) AI 서버 요청 바디 생성
-        String userRef = "u" + user.getUserId();
-        String isoTimestamp = timestamp.atZone(ZoneId.of("Asia/Seoul"))
-                .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
-
-        AiServerClient.Metrics metrics = new AiServerClient.Metrics(req.heartrate(), req.stress());
-        AiServerClient.TelemetryRequest telemetryRequest = new AiServerClient.TelemetryRequest(userRef, isoTimestamp, metrics);
-
-        // 3) AI 서버 호출
-        AiServerClient.AnomalyResponse resp;
-        try {
-            resp = aiServerClient.checkTelemetry(user.getCoupleId(), telemetryRequest);
-        } catch (feign.FeignException.Unauthorized e) {
-            log.debug("AI server 401 Unauthorized (check app token): {}", e.contentUTF8());
-            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "AI server unauthorized");
-        } catch (feign.FeignException e) {
-            log.debug("AI server error status={}, body={}", e.status(), e.contentUTF8());
-            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "AI server error");
+        Instant timestamp = tx.execute(s -> writer.store(user.getCoupleId(), req.date(), req.stress(), req.heartrate()));
+        boolean forward = anomaly.admit(user.getCoupleId(), timestamp, req.heartrate(), req.stress());
+        return anomaly.checkAndAlert(user, timestamp, req.heartrate(), req.stress(), forward);
+    }
+
+    public boolean isAnomalyAsync() {
+        return anomalyAsync;
+    }
+
+    /**
+     * 비동기 모드: 저장만 하고 이상탐지는 커밋 후 워커에서 → check_id 로 결과 폴링
+     * 사전 필터가 거른 샘플은 검사를 만들지 않고 DONE(normal) 을 바로 돌려준다 (check_id 없음)
+     */
+    public HealthDtos.AnomalyCheckResponse createAndSubmitHealthData(UserPrincipal user, HealthDtos.CreateRequest req) {
+        return tx.execute(s -> {
+            Instant timestamp = writer.store(user.getCoupleId(), req.date(), req.stress(), req.heartrate());
+            if (!anomaly.admit(user.getCoupleId(), timestamp, req.heartrate(), req.stress())) {
+                Instant now = Instant.now();
+                return new HealthDtos.AnomalyCheckResponse(null, AnomalyCheckService.Status.DONE.name(),
+                        AnomalyPreFilter.NOT_FORWARDED, now, now);
+            }
+            return toCheckResponse(anomaly.submit(user, timestamp, req.heartrate(), req.stress()));
+        });
+    }
+
+    public HealthDtos.AnomalyCheckResponse getAnomalyCheck(Long coupleId, String checkId) {
+        return anomaly.find(coupleId, checkId)
+                .map(HealthDataService::toCheckResponse)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "check not found"));
+    }
+
+    private static HealthDtos.AnomalyCheckResponse toCheckResponse(AnomalyCheckService.Check c) {
+        return new HealthDtos.AnomalyCheckResponse(c.checkId(), c.status().name(), c.anomaly(),
+                c.submittedAt(), c.completedAt());
+    }
+
+    /**
+     * 배치 업로드: 샘플을 JDBC batch 로 한 번에 저장하고 윈도우 전체에 대해 AI 이상탐지를 1회만 호출
+     * - 윈도우 요약값: 심박은 윈도우 중앙값에서 가장 멀리 벗어난 샘플(고/저 모두), 스트레스는 최댓값, 시각은 마지막 샘플
+     */
+    public HealthDtos.BatchResponse createAndCheckBatch(UserPrincipal user, HealthDtos.BatchRequest req) {
+        if (req == null || req.samples() == null || req.samples().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "samples는 필수");
         }
+        if (req.samples().size() > batchMaxSamples) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "samples는 최대 " + batchMaxSamples + "건");
+        }
+
+        Instant now = Instant.now();
+        List<HealthDataBulkRepository.Sample> samples = req.samples().stream()
+                .filter(Objects::nonNull)
+                .map(r -> new HealthDataBulkRepository.Sample(r.date() != null ? r.date() : now, r.stress(), r.heartrate()))
+                .sorted(Comparator.comparing(HealthDataBulkRepository.Sample::date))
+                .toList();
+        if (samples.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "samples는 필수");
+        }
+        HealthDataBulkRepository.Sample summary = summarizeWindow(samples);
+        Instant from = samples.get(0).date();
+
+        // 비동기: 저장 + 검사 예약을 한 트랜잭션으로 (AI 는 커밋 후 워커에서)
+        if (anomalyAsync) {
+            return tx.execute(s -> {
+                int inserted = writer.storeAll(user.getCoupleId(), samples);
+                if (!anomaly.admitAll(user.getCoupleId(), samples)) { // 거른 윈도우는 검사 없이 바로 응답
+                    return new HealthDtos.BatchResponse(inserted, from, summary.date(), AnomalyPreFilter.NOT_FORWARDED, null);
+                }
+                AnomalyCheckService.Check check = anomaly.submit(user, summary.date(), summary.heartrate(), summary.stress());
+                return new HealthDtos.BatchResponse(inserted, from, summary.date(), null, check.checkId());
+            });
+        }
+
+        // 동기: 1) 일괄 저장 커밋 → 2) 윈도우 요약 1건으로 AI 호출 + 이상 시 알림 (트랜잭션 밖)
+        int inserted = tx.execute(s -> writer.storeAll(user.getCoupleId(), samples));
+        boolean forward = anomaly.admitAll(user.getCoupleId(), samples);
+        AiServerClient.AnomalyResponse resp =
+                anomaly.checkAndAlert(user, summary.date(), summary.heartrate(), summary.stress(), forward);
 
-        // 4) 이상 징후면 FCM (총 3건: 본인 ANDROID 1, 본인 WATCH 1, 파트너 ANDROID 1)
-        if (resp != null && resp.mode() != null && ANOMALY_MODES.contains(resp.mode().toUpperCase())) {
-            String title = "심박수 이상 감지";
-            String body  = String.format("현재 심박수가 %dBPM을 초과했습니다. 상태를 확인해주세요.",
-                    Optional.ofNullable(req.heartrate()).orElse(0));
-
-            var notif = com.example.helloworld.healthserver.alarm.entity.Notification.builder()
-                    .alarmType(com.example.helloworld.healthserver.alarm.domain.AlarmType.EMERGENCY) // import 주의
-                    .coupleId(user.getCoupleId())
-                    .alarmTitle(title)
-                    .alarmMsg(body)
-                    .createdAt(java.sql.Timestamp.from(Instant.now()))
-                    .build();
-
-            notif = notificationRepository.save(notif);     // ★ DB insert
-            Long alarmId = notif.getAlarmId();              // ★ 여기서 얻음
-
-            // FCM 3건 발송 + 유저서버 recipients 업서트
-            fcmService.sendEmergencyTripleWithAiResponse(
-                    user.getUserId(),
-                    Optional.ofNullable(req.heartrate()).orElse(0),
-                    resp.mode(),
-                    resp.riskLevel(),
-                    resp.reasons()
-            );
-        }else {
-            String mode = (resp != null && resp.mode() != null) ? resp.mode() : "normal or null";
-            log.debug("AI server reported mode '{}'. No FCM notification is needed.", mode);
+        return new HealthDtos.BatchResponse(inserted, from, summary.date(), resp, null);
+    }
+
+    // 정렬된 윈도우 → 대표 샘플 1건
+    static HealthDataBulkRepository.Sample summarizeWindow(List<HealthDataBulkRepository.Sample> sorted) {
+        Instant last = sorted.get(sorted.size() - 1).date();
+
+        int[] hrs = sorted.stream().map(HealthDataBulkRepository.Sample::heartrate)
+                .filter(Objects::nonNull).mapToInt(Integer::intValue).sorted().toArray();
+        Integer hr = null;
+        if (hrs.length > 0) {
+            int median = hrs[hrs.length / 2];
+            // 동률이면 더 높은 쪽 (고심박이 더 위험한 경우가 많음)
+            hr = (hrs[hrs.length - 1] - median >= median - hrs[0]) ? hrs[hrs.length - 1] : hrs[0];
         }
+        Double stress = sorted.stream().map(HealthDataBulkRepository.Sample::stress)
+                .filter(Objects::nonNull).max(Double::compare).orElse(null);
 
-        return resp;
+        return new HealthDataBulkRepository.Sample(last, stress, hr);
     }
 
     @Transactional
     public GetResponse create(Long coupleId, CreateRequest req) {
         HealthData hd = HealthData.builder()
                 .coupleId(coupleId)
-                .date(req.date())
+                .date(req.date() != null ? req.date() : Instant.now()) // 파티션 키라 null 불가
                 .stress(req.stress())
                 .heartrate(req.heartrate())
 //                .steps(req.steps())
                 .build();
         hd = repo.save(hd);
+        rollup.record(coupleId, List.of(new HealthDataBulkRepository.Sample(hd.getDate(), hd.getStress(), hd.getHeartrate())));
         return toGet(hd);
     }
 
@@ -171,6 +229,10 @@ public class HealthDataService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "date is required (YYYY-MM-DD)");
         }
 
+        if (rollup.enabled()) {
+            return new GlobalDailyStatsResponse(rollupRows(date, rollup.day(date)));
+        }
+
         ZoneId zone = ZoneId.of(appZone);
         Instant from = date.atStartOfDay(zone).toInstant();
         Instant to = date.plusDays(1).atStartOfDay(zone).toInstant();
@@ -210,6 +272,29 @@ public class HealthDataService {
         return new GlobalDailyStatsResponse(finalRows);
     }
 
+    /** 롤업 행(couple_id, bucket 순)을 커플당 hr avg/stddev, stress avg/stddev 4줄로. 샘플 없는 버킷은 null */
+    static List<StatsRow> rollupRows(LocalDate date, List<HealthBucketRollup.BucketStats> buckets) {
+        List<StatsRow> rows = new ArrayList<>();
+        int i = 0;
+        while (i < buckets.size()) {
+            long coupleId = buckets.get(i).coupleId();
+            Double[][] v = new Double[4][6];
+            for (; i < buckets.size() && buckets.get(i).coupleId() == coupleId; i++) {
+                HealthBucketRollup.BucketStats b = buckets.get(i);
+                v[0][b.bucket()] = b.hrAvg();
+                v[1][b.bucket()] = b.hrStddev();
+                v[2][b.bucket()] = b.stAvg();
+                v[3][b.bucket()] = b.stStddev();
+            }
+            String userRef = "c" + coupleId;
+            rows.add(new StatsRow(userRef, date, "hr", "avg", v[0][0], v[0][1], v[0][2], v[0][3], v[0][4], v[0][5]));
+            rows.add(new StatsRow(userRef, date, "hr", "stddev", v[1][0], v[1][1], v[1][2], v[1][3], v[1][4], v[1][5]));
+            rows.add(new StatsRow(userRef, date, "stress", "avg", v[2][0], v[2][1], v[2][2], v[2][3], v[2][4], v[2][5]));
+            rows.add(new StatsRow(userRef, date, "stress", "stddev", v[3][0], v[3][1], v[3][2], v[3][3], v[3][4], v[3][5]));
+        }
+        return rows;
+    }
+
 
 
 
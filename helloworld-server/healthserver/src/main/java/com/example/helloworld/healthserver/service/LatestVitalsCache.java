@@ -0,0 +1,234 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.dto.response.HealthLatestResponse.HrItem;
+import com.example.helloworld.healthserver.dto.response.HealthLatestResponse.StepItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 커플별 최신 심박/걸음 write-through 캐시 (app.vitals.latest-cache.enabled=true)
+ *
+ * - 로컬 맵(커플당 불변 Entry 1개) + Redis 해시 vitals:latest:{coupleId} (hr, hr:ts, steps, steps:ts)
+ * - 수집 경로(HealthDataService, StepsDataService)가 커밋 후 갱신, DB 조회 결과로도 채움
+ * - 순서 역전 방지: 샘플 시각이 더 새롭거나 같을 때만 덮어씀. 로컬은 compute, Redis 는 Lua 로 비교 후 저장
+ *   (Redis 에 더 새 값이 있으면 로컬 항목을 만료시켜 다음 조회가 Redis 를 보게 함)
+ * - Redis 사용 시 로컬 항목은 Redis 에서 읽은 뒤 local-ttl-ms 동안만 유효 (다른 레플리카 수집분 반영 지연 상한)
+ *   Redis 를 끄면 로컬이 기준 (단일 인스턴스 전제). Redis 장애 시 로컬만
+ *
+ * 지표: vitals.latest.reads{kind=hr|steps, tier=local|redis|miss} (miss → DB)
+ */
+@Slf4j
+@Component
+public class LatestVitalsCache {
+
+    /** 캐시 조회 결과. 필드가 null 이면 그 항목은 캐시에 없음 → DB */
+    public record Snapshot(HrItem hr, StepItem steps) {
+        static final Snapshot EMPTY = new Snapshot(null, null);
+    }
+
+    private record Entry(HrItem hr, StepItem steps, long loadedAt, long touchedAt) {
+
+        Entry withHr(HrItem v) {
+            return newer(hr == null ? null : hr.date(), v.date()) ? new Entry(v, steps, loadedAt, now()) : this;
+        }
+
+        Entry withSteps(StepItem v) {
+            return newer(steps == null ? null : steps.date(), v.date()) ? new Entry(hr, v, loadedAt, now()) : this;
+        }
+
+        Entry stale() {
+            return new Entry(hr, steps, 0, touchedAt);
+        }
+    }
+
+    private static final String HR = "hr";
+    private static final String STEPS = "steps";
+
+    // KEYS[1]=vitals:latest:{coupleId} / ARGV: field, ts(µs), json, ttlSec
+    // 저장된 시각이 더 새로우면 0 (덮어쓰지 않음)
+    private static final DefaultRedisScript<Long> PUT_IF_NEWER = new DefaultRedisScript<>("""
+            local cur = redis.call('HGET', KEYS[1], ARGV[1] .. ':ts')
+            if cur and tonumber(cur) > tonumber(ARGV[2]) then
+              return 0
+            end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[3], ARGV[1] .. ':ts', ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            return 1
+            """, Long.class);
+
+    private final ConcurrentHashMap<Long, Entry> local = new ConcurrentHashMap<>();
+    private final ObjectProvider<StringRedisTemplate> redisProvider;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final boolean redisEnabled;
+    private final long localTtlMs;
+    private final long redisTtlSeconds;
+    private final long idleMs;
+
+    private final Counter hrLocal, hrRedis, hrMiss, stepsLocal, stepsRedis, stepsMiss;
+
+    public LatestVitalsCache(
+            ObjectProvider<StringRedisTemplate> redisProvider,
+            ObjectMapper objectMapper,
+            MeterRegistry registry,
+            @Value("${app.vitals.latest-cache.enabled:false}") boolean enabled,
+            @Value("${app.vitals.latest-cache.redis.enabled:true}") boolean redisEnabled,
+            @Value("${app.vitals.latest-cache.local-ttl-ms:1000}") long localTtlMs,
+            @Value("${app.vitals.latest-cache.redis-ttl-hours:72}") long redisTtlHours,
+            @Value("${app.vitals.latest-cache.idle-minutes:60}") long idleMinutes
+    ) {
+        this.redisProvider = redisProvider;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.redisEnabled = redisEnabled;
+        this.localTtlMs = localTtlMs;
+        this.redisTtlSeconds = redisTtlHours * 3600;
+        this.idleMs = idleMinutes * 60_000;
+
+        this.hrLocal = counter(registry, HR, "local");
+        this.hrRedis = counter(registry, HR, "redis");
+        this.hrMiss = counter(registry, HR, "miss");
+        this.stepsLocal = counter(registry, STEPS, "local");
+        this.stepsRedis = counter(registry, STEPS, "redis");
+        this.stepsMiss = counter(registry, STEPS, "miss");
+        registry.gaugeMapSize("vitals.latest.local.size", List.of(), local);
+    }
+
+    private static Counter counter(MeterRegistry registry, String kind, String tier) {
+        return Counter.builder("vitals.latest.reads")
+                .description("Latest-vitals reads served from the local map, Redis, or missed (DB)")
+                .tag("kind", kind)
+                .tag("tier", tier)
+                .register(registry);
+    }
+
+    // ===== 조회 =====
+
+    /** 로컬 → Redis(HMGET 1회). DB 는 보지 않음 */
+    public Snapshot get(Long coupleId) {
+        if (!enabled || coupleId == null) return Snapshot.EMPTY;
+
+        Entry e = local.get(coupleId);
+        if (e != null && fresh(e)) {
+            (e.hr() != null ? hrLocal : hrMiss).increment();
+            (e.steps() != null ? stepsLocal : stepsMiss).increment();
+            return new Snapshot(e.hr(), e.steps());
+        }
+
+        Entry remote = loadRemote(coupleId);
+        if (remote == null) { // Redis 장애 → 로컬만 (없으면 DB)
+            if (e == null) {
+                hrMiss.increment();
+                stepsMiss.increment();
+                return Snapshot.EMPTY;
+            }
+            (e.hr() != null ? hrLocal : hrMiss).increment();
+            (e.steps() != null ? stepsLocal : stepsMiss).increment();
+            return new Snapshot(e.hr(), e.steps());
+        }
+        Entry merged = local.merge(coupleId, remote, (cur, r) -> {
+            Entry m = new Entry(cur.hr(), cur.steps(), r.loadedAt(), r.touchedAt());
+            if (r.hr() != null) m = m.withHr(r.hr());
+            if (r.steps() != null) m = m.withSteps(r.steps());
+            return m;
+        });
+        (merged.hr() != null ? hrRedis : hrMiss).increment();
+        (merged.steps() != null ? stepsRedis : stepsMiss).increment();
+        return new Snapshot(merged.hr(), merged.steps());
+    }
+
+    private boolean fresh(Entry e) {
+        return !redisOn() || now() - e.loadedAt() < localTtlMs;
+    }
+
+    // ===== 갱신 (트랜잭션 안이면 커밋 후) =====
+
+    public void putHr(Long coupleId, HrItem item) {
+        if (!enabled || coupleId == null || item == null || item.date() == null) return;
+        TxCallbacks.afterCommit(() -> {
+            local.compute(coupleId, (k, e) -> (e == null ? empty() : e).withHr(item));
+            writeRemote(coupleId, HR, item.date(), item);
+        });
+    }
+
+    public void putSteps(Long coupleId, StepItem item) {
+        if (!enabled || coupleId == null || item == null || item.date() == null) return;
+        TxCallbacks.afterCommit(() -> {
+            local.compute(coupleId, (k, e) -> (e == null ? empty() : e).withSteps(item));
+            writeRemote(coupleId, STEPS, item.date(), item);
+        });
+    }
+
+    // 새 항목은 Redis 를 쓰면 "아직 안 읽음"(loadedAt=0) → 다른 항목이 필요할 때 Redis 를 한 번 봄
+    private Entry empty() {
+        long now = now();
+        return new Entry(null, null, redisOn() ? 0 : now, now);
+    }
+
+    @Scheduled(fixedDelayString = "${app.vitals.latest-cache.purge-ms:300000}")
+    public void purgeIdle() {
+        long cutoff = now() - idleMs;
+        local.values().removeIf(e -> e.touchedAt() < cutoff);
+    }
+
+    // ===== Redis =====
+
+    private boolean redisOn() {
+        return redisEnabled && redisProvider.getIfAvailable() != null;
+    }
+
+    private void writeRemote(Long coupleId, String field, Instant date, Object item) {
+        StringRedisTemplate redis = redisEnabled ? redisProvider.getIfAvailable() : null;
+        if (redis == null) return;
+        try {
+            Long stored = redis.execute(PUT_IF_NEWER, List.of(redisKey(coupleId)), field,
+                    String.valueOf(RecentVitalsStore.micros(date)), objectMapper.writeValueAsString(item),
+                    String.valueOf(redisTtlSeconds));
+            if (stored != null && stored == 0L) {
+                local.computeIfPresent(coupleId, (k, e) -> e.stale()); // 다른 레플리카가 더 새 값을 씀
+            }
+        } catch (Exception e) {
+            log.warn("[VITALS-LATEST] redis write failed couple={}, local only: {}", coupleId, e.getMessage());
+        }
+    }
+
+    private Entry loadRemote(Long coupleId) {
+        StringRedisTemplate redis = redisEnabled ? redisProvider.getIfAvailable() : null;
+        if (redis == null) return null;
+        try {
+            List<Object> v = redis.opsForHash().multiGet(redisKey(coupleId), List.of(HR, STEPS));
+            HrItem hr = v.get(0) == null ? null : objectMapper.readValue((String) v.get(0), HrItem.class);
+            StepItem steps = v.get(1) == null ? null : objectMapper.readValue((String) v.get(1), StepItem.class);
+            long now = now();
+            return new Entry(hr, steps, now, now);
+        } catch (Exception e) {
+            log.warn("[VITALS-LATEST] redis load failed couple={}: {}", coupleId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String redisKey(Long coupleId) {
+        return "vitals:latest:" + coupleId;
+    }
+
+    private static boolean newer(Instant current, Instant candidate) {
+        return current == null || !candidate.isBefore(current);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.helloworld.healthserver.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * RecentVitalsStore 레플리카 간 복제 (Redis pub/sub 채널 vitals:recent:replicate)
+ *
+ * - 커밋된 샘플 기록을 큐에 넣고 발행 스레드가 flush-ms 마다 한 메시지로 모아 보냄. 헤더: origin(파드 UUID)|seq(1부터 연속)
+ *   보낼 게 없어도 heartbeat 간격마다 빈 메시지 → 피어/자기 자신이 살아 있음을 확인
+ * - 수신은 자체 리스너 컨테이너(동기 디스패치)로 받아 origin 별 순서를 지킴. seq 가 끊기면(유실, 큐 넘침, 발행 실패) 보관분 비움
+ * - trusted(): 내 메시지가 max-lag 안에 되돌아왔고(구독이 살아 있음) 아는 피어가 전부 max-lag 안에 보냈을 때만 true
+ *   → 아니면 저장소는 메모리로 답하지 않음(DB). 신뢰를 되찾는 순간 보관분을 비우고 새로 시작
+ * - 종료 시 bye(seq=-1) 를 보내 피어가 바로 잊게 함. bye 없이 사라진 피어는 peer-expiry 뒤 잊음 (그동안 피어들은 DB 로 답함)
+ */
+@Slf4j
+final class RecentVitalsFeed implements MessageListener {
+
+    static final String CHANNEL = "vitals:recent:replicate";
+    private static final long BYE = -1;
+    private static final int QUEUE_CAPACITY = 100_000;
+    private static final int MAX_RECORDS_PER_MESSAGE = 1_000;
+    private static final long FLUSH_MS = 10;
+
+    /** 복제 대상 저장소 */
+    interface Sink {
+        /** 다른 파드가 커밋한 샘플 기록 반영 */
+        void apply(String record);
+
+        /** 빠졌을 수 있는 보관분을 버림 */
+        void reset(String reason);
+    }
+
+    private static final class Peer {
+        volatile long seq;
+        volatile long seenAt;
+
+        Peer(long seq, long seenAt) {
+            this.seq = seq;
+            this.seenAt = seenAt;
+        }
+    }
+
+    private final String origin = UUID.randomUUID().toString();
+    private final StringRedisTemplate redis;
+    private final Sink sink;
+    private final LongSupplier clock;
+    private final long maxLagMs;
+    private final long heartbeatMs;
+    private final long peerExpiryMs;
+
+    private final BlockingQueue<String> outbox = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean dropped = new AtomicBoolean();
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+
+    private long seq;           // 발행 스레드 전용
+    private long lastSentAt;    // 발행 스레드 전용
+    private long echoedSeq;     // 수신 스레드 전용
+    private volatile long echoAt;
+    private volatile boolean trusted;
+
+    private RedisMessageListenerContainer container;
+    private Thread publisher;
+    private volatile boolean running;
+
+    RecentVitalsFeed(StringRedisTemplate redis, Sink sink, LongSupplier clock, long maxLagMs, long peerExpiryMs) {
+        this.redis = redis;
+        this.sink = sink;
+        this.clock = clock;
+        this.maxLagMs = maxLagMs;
+        this.heartbeatMs = Math.max(FLUSH_MS, maxLagMs / 3);
+        this.peerExpiryMs = peerExpiryMs;
+    }
+
+    void start() {
+        RedisConnectionFactory cf = redis.getConnectionFactory();
+        if (cf != null) {
+            container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(cf);
+            container.setTaskExecutor(new SyncTaskExecutor()); // origin 별 seq 순서대로 처리
+            container.addMessageListener(this, new ChannelTopic(CHANNEL));
+            container.afterPropertiesSet();
+            container.start();
+        }
+        running = true;
+        publisher = new Thread(this::publishLoop, "vitals-recent-feed");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    void stop() {
+        running = false;
+        if (publisher != null) {
+            publisher.interrupt();
+            try {
+                publisher.join(TimeUnit.SECONDS.toMillis(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            redis.convertAndSend(CHANNEL, origin + "|" + BYE);
+        } catch (Exception e) {
+            log.debug("[VITALS-FEED] bye failed: {}", e.getMessage());
+        }
+        if (container != null) {
+            try {
+                container.destroy();
+            } catch (Exception e) {
+                log.debug("[VITALS-FEED] listener shutdown failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** 커밋된 샘플 기록을 발행 대기열에 넣음. 넘치면 버리고 다음 메시지의 seq 를 건너뜀 → 피어가 끊김으로 봄 */
+    void publish(String record) {
+        if (!outbox.offer(record)) dropped.set(true);
+    }
+
+    boolean trusted() {
+        return trusted;
+    }
+
+    private void publishLoop() {
+        while (running) {
+            try {
+                Thread.sleep(FLUSH_MS);
+                flush();
+                checkTrust();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("[VITALS-FEED] publish loop error: {}", e.toString());
+            }
+        }
+    }
+
+    /** 대기열을 한 메시지로 발행 (비었으면 heartbeat 간격마다 빈 메시지). @return 보낸 기록 수 */
+    int flush() {
+        long now = clock.getAsLong();
+        List<String> batch = new ArrayList<>();
+        outbox.drainTo(batch, MAX_RECORDS_PER_MESSAGE);
+        if (batch.isEmpty() && now - lastSentAt < heartbeatMs) return 0;
+        if (dropped.getAndSet(false)) seq++; // 빈 seq → 수신측 보관분 비움
+        seq++;
+        StringBuilder msg = new StringBuilder(origin).append('|').append(seq);
+        for (String r : batch) msg.append('\n').append(r);
+        try {
+            redis.convertAndSend(CHANNEL, msg.toString());
+            lastSentAt = now;
+        } catch (Exception e) {
+            // 이 seq 는 건너뛴 셈 → 복구 후 피어가 끊김으로 봄. 내 메아리도 끊겨 trusted 가 풀림
+            log.warn("[VITALS-FEED] publish failed, {} records lost for peers: {}", batch.size(), e.getMessage());
+        }
+        return batch.size();
+    }
+
+    /** 메아리/피어 하트비트 기준으로 신뢰 여부 갱신, 못 믿다가 믿게 되면 보관분 비움 */
+    void checkTrust() {
+        long now = clock.getAsLong();
+        peers.values().removeIf(p -> now - p.seenAt > peerExpiryMs);
+        boolean ok = echoAt != 0 && now - echoAt <= maxLagMs;
+        for (Peer p : peers.values()) ok &= now - p.seenAt <= maxLagMs;
+        if (ok && !trusted) sink.reset("feed trusted again");
+        trusted = ok;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int nl = body.indexOf('\n');
+        String head = nl < 0 ? body : body.substring(0, nl);
+        int bar = head.lastIndexOf('|');
+        String from;
+        long s;
+        try {
+            from = head.substring(0, bar);
+            s = Long.parseLong(head.substring(bar + 1));
+        } catch (RuntimeException e) {
+            log.warn("[VITALS-FEED] malformed message ignored: {}", head);
+            return;
+        }
+        long now = clock.getAsLong();
+        if (s == BYE) {
+            peers.remove(from);
+            return;
+        }
+
+        boolean gap;
+        if (origin.equals(from)) {
+            gap = echoedSeq != 0 && s != echoedSeq + 1;
+            echoedSeq = s;
+            echoAt = now;
+        } else {
+            Peer p = peers.get(from);
+            // 처음 보는 피어: 내가 구독 전이었으면(메아리 전) 중간부터 받는 게 정상, 아니면 1부터여야 함
+            gap = (p == null) ? echoedSeq != 0 && s != 1 : s != p.seq + 1;
+            if (p == null) {
+                peers.put(from, new Peer(s, now));
+            } else {
+                p.seq = s;
+                p.seenAt = now;
+            }
+        }
+        if (gap) sink.reset("seq gap from " + from);
+        if (nl < 0 || origin.equals(from)) return; // 내 기록은 이미 로컬에 반영됨
+        for (String r : body.substring(nl + 1).split("\n")) {
+            try {
+                sink.apply(r);
+            } catch (RuntimeException e) {
+                log.warn("[VITALS-FEED] bad record ignored: {}", r);
+            }
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.dto.response.HealthLatestResponse.HrItem;
+import com.example.helloworld.healthserver.dto.response.HealthLatestResponse.StepItem;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 커플별 최근 생체/걸음 샘플 인메모리 보관소 (app.vitals.recent.enabled=true)
+ *
+ * - 커플마다 원시 배열 링버퍼(시각 long(µs) / id long / HR int / 스트레스 float, 걸음은 int + 위경도 double)
+ *   → HealthData/StepsData 엔티티 박싱 없이 최근 window-minutes(최대 capacity 건)만 보관
+ * - 수집 경로(HealthDataService, StepsDataService)가 커밋 후 기록, DB 조회 결과로도 채움(seed)
+ * - 링마다 "이 시각 이후는 빠짐없이 보유" 경계(coveredFrom)를 두고, 조회 구간이 그 안이면 메모리, 아니면 DB
+ *   (오래된 샘플을 밀어내면 경계가 올라감 → 틀린 부분 결과를 주지 않음)
+ * - id 는 단건 동기 저장일 때만 알 수 있음. 배치/write-behind 로 들어온 샘플은 health_id 가 null
+ *
+ * 여러 레플리카: 같은 커플 샘플이 여러 파드로 들어오므로 커밋된 샘플을 RecentVitalsFeed(Redis pub/sub)로 서로 복제.
+ * - 복제 지연(보통 수십 ms, 상한 max-lag-ms) 동안은 다른 파드 수집분이 안 보일 수 있음 (LatestVitalsCache local-ttl 과 같은 성격)
+ * - 유실을 알아채거나(seq 끊김) 채널을 못 믿으면(메아리/피어 하트비트가 max-lag 초과) 메모리로 답하지 않고 DB,
+ *   다시 믿게 되면 보관분을 비우고 그 시각(+max-lag) 이전 샘플로는 새 링의 보유 경계를 잡지 않음
+ *   (비운 뒤 window 동안 구간 조회는 DB — 기동 직후와 같음)
+ * - app.vitals.recent.redis.enabled=false 거나 Redis 가 없으면 복제 없음 → 단일 인스턴스(또는 커플 단위 sticky 라우팅) 전제
+ *
+ * 지표: vitals.recent.reads{kind=latest_hr|latest_steps|hr_range, result=hit|miss}, vitals.recent.couples,
+ *       vitals.recent.resets (복제 유실/신뢰 회복으로 비운 횟수)
+ */
+@Slf4j
+@Component
+public class RecentVitalsStore implements RecentVitalsFeed.Sink {
+
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    private final ConcurrentHashMap<Long, CoupleBuffer> buffers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ObjectProvider<StringRedisTemplate> redisProvider;
+    private final MeterRegistry registry;
+    private final Counter resets;
+
+    private final boolean enabled;
+    private final boolean redisEnabled;
+    private final long maxLagMs;
+    private final long peerExpiryMs;
+    private final long windowMicros;
+    private final int hrCapacity;
+    private final int stepsCapacity;
+    private final long idleMs;
+
+    private RecentVitalsFeed feed;              // null = 복제 없음 (단일 인스턴스)
+    private volatile long floorMicros = Long.MIN_VALUE; // 새 링의 보유 경계 하한 (비운 시각 + max-lag)
+
+    public RecentVitalsStore(
+            ObjectProvider<StringRedisTemplate> redisProvider,
+            MeterRegistry registry,
+            @Value("${app.vitals.recent.enabled:false}") boolean enabled,
+            @Value("${app.vitals.recent.redis.enabled:true}") boolean redisEnabled,
+            @Value("${app.vitals.recent.replication.max-lag-ms:3000}") long maxLagMs,
+            @Value("${app.vitals.recent.replication.peer-expiry-seconds:60}") long peerExpirySeconds,
+            @Value("${app.vitals.recent.window-minutes:10}") long windowMinutes,
+            @Value("${app.vitals.recent.hr-capacity:128}") int hrCapacity,
+            @Value("${app.vitals.recent.steps-capacity:16}") int stepsCapacity,
+            @Value("${app.vitals.recent.idle-minutes:60}") long idleMinutes
+    ) {
+        this.redisProvider = redisProvider;
+        this.registry = registry;
+        this.resets = Counter.builder("vitals.recent.resets")
+                .description("Recent-vitals buffers dropped because replication could not be trusted")
+                .register(registry);
+        this.enabled = enabled;
+        this.redisEnabled = redisEnabled;
+        this.maxLagMs = maxLagMs;
+        this.peerExpiryMs = peerExpirySeconds * 1000;
+        this.windowMicros = windowMinutes * 60_000_000L;
+        this.hrCapacity = hrCapacity;
+        this.stepsCapacity = stepsCapacity;
+        this.idleMs = idleMinutes * 60_000;
+        registry.gauge("vitals.recent.couples", buffers, Map::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        StringRedisTemplate redis = redisEnabled ? redisProvider.getIfAvailable() : null;
+        if (redis == null) {
+            log.warn("[VITALS-RECENT] no replication (redis off): run a single replica or route ingest by couple");
+            return;
+        }
+        replicateVia(redis, System::currentTimeMillis).start();
+    }
+
+    RecentVitalsFeed replicateVia(StringRedisTemplate redis, LongSupplier clock) {
+        feed = new RecentVitalsFeed(redis, this, clock, maxLagMs, peerExpiryMs);
+        return feed;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (feed != null) feed.stop();
+    }
+
+    // ===== 기록 (트랜잭션 안이면 커밋 후, 다른 레플리카로 복제) =====
+
+    public void recordHr(Long coupleId, Long healthId, Instant date, Integer heartrate, Double stress) {
+        if (!enabled || coupleId == null) return;
+        TxCallbacks.afterCommit(() -> {
+            buffer(coupleId).hr.add(micros(date), healthId, heartrate, stress);
+            replicate(hrRecord(coupleId, healthId, date, heartrate, stress));
+        });
+    }
+
+    /** 배치/write-behind 저장분 (id 모름) */
+    public void recordHr(Long coupleId, List<HealthDataBulkRepository.Sample> samples) {
+        if (!enabled || coupleId == null) return;
+        TxCallbacks.afterCommit(() -> {
+            HrRing ring = buffer(coupleId).hr;
+            for (HealthDataBulkRepository.Sample s : samples) {
+                ring.add(micros(s.date()), null, s.heartrate(), s.stress());
+                replicate(hrRecord(coupleId, null, s.date(), s.heartrate(), s.stress()));
+            }
+        });
+    }
+
+    public void recordSteps(Long coupleId, Long stepsId, Instant date, Integer steps, Double latitude, Double longitude) {
+        if (!enabled || coupleId == null) return;
+        TxCallbacks.afterCommit(() -> {
+            buffer(coupleId).steps.add(micros(date), stepsId, steps, latitude, longitude);
+            replicate(stepsRecord(coupleId, stepsId, date, steps, latitude, longitude));
+        });
+    }
+
+    // ===== 복제 (RecentVitalsFeed) — 기록: H|couple|µs|id|hr|stress, S|couple|µs|id|steps|lat|lng (null 은 빈 칸) =====
+
+    private void replicate(String record) {
+        if (feed != null) feed.publish(record);
+    }
+
+    static String hrRecord(Long coupleId, Long id, Instant date, Integer hr, Double stress) {
+        return "H|" + coupleId + "|" + micros(date) + "|" + str(id) + "|" + str(hr) + "|" + str(stress);
+    }
+
+    static String stepsRecord(Long coupleId, Long id, Instant date, Integer steps, Double lat, Double lng) {
+        return "S|" + coupleId + "|" + micros(date) + "|" + str(id) + "|" + str(steps) + "|" + str(lat) + "|" + str(lng);
+    }
+
+    @Override
+    public void apply(String record) {
+        if (!enabled) return;
+        String[] f = record.split("\\|", -1);
+        Long coupleId = Long.valueOf(f[1]);
+        long t = Long.parseLong(f[2]);
+        Long id = f[3].isEmpty() ? null : Long.valueOf(f[3]);
+        switch (f[0]) {
+            case "H" -> buffer(coupleId).hr.add(t, id, f[4].isEmpty() ? null : Integer.valueOf(f[4]),
+                    f[5].isEmpty() ? null : Double.valueOf(f[5]));
+            case "S" -> buffer(coupleId).steps.add(t, id, f[4].isEmpty() ? null : Integer.valueOf(f[4]),
+                    f[5].isEmpty() ? null : Double.valueOf(f[5]), f[6].isEmpty() ? null : Double.valueOf(f[6]));
+            default -> throw new IllegalArgumentException(f[0]);
+        }
+    }
+
+    @Override
+    public void reset(String reason) {
+        floorMicros = micros(Instant.now()) + maxLagMs * 1000;
+        buffers.clear();
+        resets.increment();
+        log.info("[VITALS-RECENT] buffers dropped: {}", reason);
+    }
+
+    private static String str(Object v) {
+        return v == null ? "" : v.toString();
+    }
+
+    // ===== 조회 (empty = 메모리로 답할 수 없음 → DB) =====
+
+    // 복제를 못 믿는 동안은 전부 DB
+    private CoupleBuffer readable(Long coupleId) {
+        return enabled && (feed == null || feed.trusted()) ? buffers.get(coupleId) : null;
+    }
+
+    public Optional<HrItem> latestHr(Long coupleId) {
+        CoupleBuffer b = readable(coupleId);
+        HrItem item = (b == null) ? null : b.hr.latest();
+        return hitOrMiss("latest_hr", Optional.ofNullable(item));
+    }
+
+    public Optional<StepItem> latestSteps(Long coupleId) {
+        CoupleBuffer b = readable(coupleId);
+        StepItem item = (b == null) ? null : b.steps.latest();
+        return hitOrMiss("latest_steps", Optional.ofNullable(item));
+    }
+
+    /** from~to(양끝 포함) 심박/스트레스 샘플, 최신순 — findByCoupleIdAndDateBetweenOrderByDateDesc 와 같은 결과 */
+    public Optional<List<HrItem>> hrBetween(Long coupleId, Instant from, Instant to) {
+        CoupleBuffer b = readable(coupleId);
+        List<HrItem> items = (b == null) ? null : b.hr.between(micros(from), micros(to));
+        return hitOrMiss("hr_range", Optional.ofNullable(items));
+    }
+
+    /**
+     * DB 에서 읽은 "from ~ 현재" 결과(최신순)로 빈 링을 채움. 이미 수집분이 있으면 건드리지 않음.
+     * from 이후 DB 행이 전부 들어있어야 하므로 구간 끝이 현재인 조회 결과만 넘길 것.
+     */
+    public void seedHr(Long coupleId, Instant from, List<HrItem> newestFirst) {
+        if (!enabled || coupleId == null) return;
+        HrRing ring = buffer(coupleId).hr;
+        synchronized (ring) {
+            if (ring.size > 0) return;
+            ring.coveredFrom = Math.max(micros(from), floorMicros); // 넘치면 add 가 밀어내면서 경계를 올림
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                HrItem it = newestFirst.get(i);
+                ring.add(micros(it.date()), it.healthId(), it.heartrate(), it.stress());
+            }
+        }
+    }
+
+    public void seedSteps(Long coupleId, Instant from, StepItem latest) {
+        if (!enabled || coupleId == null) return;
+        StepsRing ring = buffer(coupleId).steps;
+        synchronized (ring) {
+            if (ring.size > 0) return;
+            ring.coveredFrom = Math.max(micros(from), floorMicros);
+            ring.add(micros(latest.date()), latest.stepsId(), latest.steps(), latest.latitude(), latest.longitude());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.vitals.recent.purge-ms:300000}")
+    public void purgeIdle() {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        buffers.values().removeIf(b -> b.lastSeen < cutoff);
+    }
+
+    /** 커플 1쌍이 차지하는 배열 바이트 (객체 헤더 제외) */
+    long arrayBytesPerCouple() {
+        return (long) hrCapacity * (8 + 8 + 4 + 4) + (long) stepsCapacity * (8 + 8 + 4 + 8 + 8);
+    }
+
+    private CoupleBuffer buffer(Long coupleId) {
+        CoupleBuffer b = buffers.computeIfAbsent(coupleId, id -> new CoupleBuffer());
+        b.lastSeen = System.currentTimeMillis();
+        return b;
+    }
+
+    private <T> Optional<T> hitOrMiss(String kind, Optional<T> result) {
+        if (enabled) {
+            String r = result.isPresent() ? "hit" : "miss";
+            counters.computeIfAbsent(kind + ":" + r, k -> Counter.builder("vitals.recent.reads")
+                    .description("Recent-vitals reads served from memory (hit) or sent to the DB (miss)")
+                    .tag("kind", kind)
+                    .tag("result", r)
+                    .register(registry)).increment();
+        }
+        return result;
+    }
+
+    // DB(timestamptz) 와 같은 µs 정밀도
+    static long micros(Instant t) {
+        return Math.addExact(Math.multiplyExact(t.getEpochSecond(), 1_000_000L), t.getNano() / 1_000);
+    }
+
+    static Instant instant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000);
+    }
+
+    private final class CoupleBuffer {
+        final HrRing hr = new HrRing(hrCapacity);
+        final StepsRing steps = new StepsRing(stepsCapacity);
+        volatile long lastSeen = System.currentTimeMillis();
+    }
+
+    /**
+     * 시각 오름차순 링버퍼 공통부 (ts/id). 값 배열은 하위 클래스가 가짐. 인스턴스 락으로 보호.
+     * 늦게 도착한 샘플은 정렬 위치에 끼워 넣고, coveredFrom 보다 오래된 샘플은 버림.
+     */
+    abstract class Ring {
+        final long[] ts;
+        final long[] ids;   // 0 = id 모름
+        int head;           // 가장 오래된 슬롯
+        int size;
+        long coveredFrom = Long.MAX_VALUE;
+
+        Ring(int capacity) {
+            this.ts = new long[capacity];
+            this.ids = new long[capacity];
+        }
+
+        abstract void move(int from, int to);
+
+        int slot(int i) {
+            return (head + i) % ts.length;
+        }
+
+        /** 정렬 위치에 빈 슬롯을 만들어 물리 인덱스 반환, 보관 범위 밖이면 -1 */
+        int reserve(long t, Long id) {
+            if (size == 0 && coveredFrom == Long.MAX_VALUE) coveredFrom = Math.max(t, floorMicros);
+            if (t < coveredFrom) return -1;
+            if (size == ts.length) {
+                evictOldest();
+                if (t < coveredFrom) return -1;
+            }
+            int pos = size;
+            while (pos > 0 && ts[slot(pos - 1)] > t) pos--;
+            for (int i = size; i > pos; i--) {
+                ts[slot(i)] = ts[slot(i - 1)];
+                ids[slot(i)] = ids[slot(i - 1)];
+                move(slot(i - 1), slot(i));
+            }
+            size++;
+            int s = slot(pos);
+            ts[s] = t;
+            ids[s] = (id == null) ? 0 : id;
+            return s;
+        }
+
+        // 가장 최신 샘플 기준 window 밖은 밀어냄 (최신 1건은 항상 남음)
+        void trim() {
+            long cutoff = ts[slot(size - 1)] - windowMicros;
+            while (ts[head] < cutoff) evictOldest();
+        }
+
+        private void evictOldest() {
+            coveredFrom = Math.max(coveredFrom, ts[head] + 1);
+            head = (head + 1) % ts.length;
+            size--;
+        }
+
+        Long id(int s) {
+            return ids[s] == 0 ? null : ids[s];
+        }
+    }
+
+    final class HrRing extends Ring {
+        final int[] hr;
+        final float[] stress; // 없으면 NaN
+
+        HrRing(int capacity) {
+            super(capacity);
+            this.hr = new int[capacity];
+            this.stress = new float[capacity];
+        }
+
+        @Override
+        void move(int from, int to) {
+            hr[to] = hr[from];
+            stress[to] = stress[from];
+        }
+
+        synchronized void add(long t, Long id, Integer heartrate, Double stressValue) {
+            int s = reserve(t, id);
+            if (s < 0) return;
+            hr[s] = (heartrate == null) ? NULL_INT : heartrate;
+            stress[s] = (stressValue == null) ? Float.NaN : stressValue.floatValue();
+            trim();
+        }
+
+        synchronized HrItem latest() {
+            return size == 0 ? null : item(slot(size - 1));
+        }
+
+        synchronized List<HrItem> between(long from, long to) {
+            if (from < coveredFrom) return null; // 빈 링이어도 경계가 있으면 "해당 구간 샘플 없음"이 답
+            List<HrItem> out = new ArrayList<>();
+            for (int i = size - 1; i >= 0 && ts[slot(i)] >= from; i--) {
+                if (ts[slot(i)] <= to) out.add(item(slot(i)));
+            }
+            return out;
+        }
+
+        private HrItem item(int s) {
+            return new HrItem(id(s), instant(ts[s]), hr[s] == NULL_INT ? null : hr[s], toDouble(stress[s]));
+        }
+    }
+
+    final class StepsRing extends Ring {
+        final int[] steps;
+        final double[] lat; // 좌표는 float 로는 ~1m 오차 → double, 없으면 NaN
+        final double[] lng;
+
+        StepsRing(int capacity) {
+            super(capacity);
+            this.steps = new int[capacity];
+            this.lat = new double[capacity];
+            this.lng = new double[capacity];
+        }
+
+        @Override
+        void move(int from, int to) {
+            steps[to] = steps[from];
+            lat[to] = lat[from];
+            lng[to] = lng[from];
+        }
+
+        synchronized void add(long t, Long id, Integer stepsValue, Double latitude, Double longitude) {
+            int s = reserve(t, id);
+            if (s < 0) return;
+            steps[s] = (stepsValue == null) ? NULL_INT : stepsValue;
+            lat[s] = (latitude == null) ? Double.NaN : latitude;
+            lng[s] = (longitude == null) ? Double.NaN : longitude;
+            trim();
+        }
+
+        synchronized StepItem latest() {
+            if (size == 0) return null;
+            int s = slot(size - 1);
+            return new StepItem(id(s), instant(ts[s]), steps[s] == NULL_INT ? null : steps[s],
+                    Double.isNaN(lat[s]) ? null : lat[s], Double.isNaN(lng[s]) ? null : lng[s]);
+        }
+    }
+
+    // float 로 저장한 값을 원래 10진 표기로 (0.3f → 0.3, 7자리 이하 유효숫자는 그대로 복원)
+    private static Double toDouble(float f) {
+        return Float.isNaN(f) ? null : Double.valueOf(Float.toString(f));
+    }
+}
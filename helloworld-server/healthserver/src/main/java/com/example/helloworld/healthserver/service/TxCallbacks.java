@@ -0,0 +1,45 @@
+package com.example.helloworld.healthserver.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** 트랜잭션 콜백 공용 헬퍼 */
+final class TxCallbacks {
+
+    private TxCallbacks() {}
+
+    /**
+     * 트랜잭션 안이면 커밋 후 실행 (롤백되면 실행 안 함), 밖이면 바로 실행.
+     * 커밋 후 콜백에서 던진 예외는 커밋 호출측으로 전파된다
+     */
+    static void afterCommit(Runnable r) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            r.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                r.run();
+            }
+        });
+    }
+
+    /**
+     * 트랜잭션 안이면 끝난 뒤 커밋이면 onCommit, 롤백(또는 상태 모름)이면 onRollback. 밖이면 바로 onCommit.
+     * 완료 후 콜백의 예외는 스프링이 로그만 남기고 삼킨다
+     */
+    static void afterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) onCommit.run();
+                else onRollback.run();
+            }
+        });
+    }
+}
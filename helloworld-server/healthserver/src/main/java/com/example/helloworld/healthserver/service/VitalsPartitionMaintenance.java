@@ -0,0 +1,128 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.persistence.VitalsPartitions;
+import com.example.helloworld.healthserver.persistence.VitalsPartitions.Spec;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * health_data(일) / steps_data(월) 파티션 유지보수 (app.vitals.partitioning.enabled=true)
+ *
+ * - 기동 시 + 매일 새벽: 테이블이 없으면 파티션 테이블로 생성, 앞으로 days-ahead 일 / months-ahead 달 파티션 미리 생성
+ * - 기존 일반 테이블은 convert-existing=true 일 때만 변환 (행 복사 없이 legacy 파티션으로 붙임, VitalsPartitions.convert)
+ * - 보존: *-retention-days 보다 오래된 파티션을 통째로 분리(retention-mode=detach, 보관/덤프용) 또는 삭제(drop).
+ *   0 이면 보존 정책 없음. 행 단위 DELETE 는 하지 않음
+ * - 실패해도 기존 파티션/default 파티션으로 수집은 계속됨 → 경고 로그만
+ *
+ * 지표: vitals.partitions.maintenance{table, action=created|detached|failed}
+ */
+@Slf4j
+@Component
+public class VitalsPartitionMaintenance {
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final MeterRegistry registry;
+
+    private final boolean enabled;
+    private final boolean convertExisting;
+    private final int daysAhead;
+    private final int monthsAhead;
+    private final int healthRetentionDays;
+    private final int stepsRetentionDays;
+    private final boolean drop;
+    private final ZoneId zone;
+
+    public VitalsPartitionMaintenance(
+            JdbcTemplate jdbc,
+            PlatformTransactionManager txManager,
+            MeterRegistry registry,
+            @Value("${app.vitals.partitioning.enabled:false}") boolean enabled,
+            @Value("${app.vitals.partitioning.convert-existing:false}") boolean convertExisting,
+            @Value("${app.vitals.partitioning.days-ahead:7}") int daysAhead,
+            @Value("${app.vitals.partitioning.months-ahead:2}") int monthsAhead,
+            @Value("${app.vitals.partitioning.health-retention-days:0}") int healthRetentionDays,
+            @Value("${app.vitals.partitioning.steps-retention-days:0}") int stepsRetentionDays,
+            @Value("${app.vitals.partitioning.retention-mode:detach}") String retentionMode,
+            @Value("${app.zone:Asia/Seoul}") String appZone
+    ) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.registry = registry;
+        this.enabled = enabled;
+        this.convertExisting = convertExisting;
+        this.daysAhead = daysAhead;
+        this.monthsAhead = monthsAhead;
+        this.healthRetentionDays = healthRetentionDays;
+        this.stepsRetentionDays = stepsRetentionDays;
+        this.drop = "drop".equalsIgnoreCase(retentionMode);
+        this.zone = ZoneId.of(appZone);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${app.vitals.partitioning.cron:0 20 3 * * *}", zone = "${app.zone:Asia/Seoul}")
+    public void maintain() {
+        if (!enabled) return;
+        LocalDate today = LocalDate.now(zone);
+        maintain(VitalsPartitions.HEALTH_DATA, daysAhead, healthRetentionDays, today);
+        maintain(VitalsPartitions.STEPS_DATA, monthsAhead, stepsRetentionDays, today);
+    }
+
+    private void maintain(Spec spec, int ahead, int retentionDays, LocalDate today) {
+        try {
+            Character kind = VitalsPartitions.kind(jdbc, spec.table());
+            if (kind == null) {
+                VitalsPartitions.create(jdbc, spec);
+            } else if (kind == 'r') {
+                if (!convertExisting) {
+                    log.warn("[VITALS-PARTITION] {} is not partitioned; set app.vitals.partitioning.convert-existing=true",
+                            spec.table());
+                    return;
+                }
+                Instant bound = VitalsPartitions.nextPeriodStart(spec.granularity(), zone, today);
+                if (VitalsPartitions.convert(jdbc, tx, spec, bound)) {
+                    log.info("[VITALS-PARTITION] {} converted, existing rows attached as {}_legacy (< {})",
+                            spec.table(), spec.table(), bound);
+                }
+            }
+
+            int created = VitalsPartitions.ensureAhead(jdbc, spec, zone, today, ahead);
+            count(spec, "created", created);
+
+            if (retentionDays > 0) {
+                Instant cutoff = today.atStartOfDay(zone).toInstant().minus(Duration.ofDays(retentionDays));
+                List<String> detached = VitalsPartitions.detachBefore(jdbc, tx, spec, cutoff, drop);
+                count(spec, "detached", detached.size());
+                if (!detached.isEmpty()) {
+                    log.info("[VITALS-PARTITION] {} {} {}", drop ? "dropped" : "detached", spec.table(), detached);
+                }
+            }
+        } catch (Exception e) {
+            count(spec, "failed", 1);
+            log.warn("[VITALS-PARTITION] maintenance failed table={}: {}", spec.table(), e.toString());
+        }
+    }
+
+    private void count(Spec spec, String action, int n) {
+        if (n <= 0) return;
+        registry.counter("vitals.partitions.maintenance", "table", spec.table(), "action", action).increment(n);
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository;
+import com.example.helloworld.healthserver.persistence.HealthDataRepository;
+import com.example.helloworld.healthserver.persistence.VitalsJournal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 생체 샘플 write-behind 수집 (app.ingest.write-behind.enabled=true 일 때만 동작)
+ *
+ * - offer(): 수집 트랜잭션 커밋 후 샘플을 로컬 mmap 저널(VitalsJournal)에 붙이고 바로 반환 → 요청이 DB 커밋을 기다리지 않음
+ * - flusher 스레드: batch-size 건이 모이거나 가장 오래된 샘플이 max-delay 를 넘기면 COPY 한 번으로 health_data 반영
+ *   → 커밋 비용을 수천 건에 나눠 냄. 반영 후 저널 checkpoint 전진
+ * - DB 실패 시 저널에 그대로 두고 retry-backoff 후 재시도. 재시작하면 checkpoint 이후분을 다시 흘려보냄
+ * - 보존 범위는 저널 디렉터리의 수명까지. k8s 배포는 파드별 emptyDir 이라 컨테이너 재시작(OOM/크래시)은 버티고,
+ *   파드 종료(롤링/HPA 축소) 때는 stop() 의 마지막 반영에 기댄다. 노드 장애 시 미반영분(최대 max-delay-ms 분량 + DB 장애 중 적체)은 잃는다
+ * - 미반영분이 max-pending 을 넘으면 503 (디스크/지연 무한 증가 방지)
+ *
+ * 꺼져 있으면 offer() 가 false → 호출측이 기존처럼 동기 저장.
+ * 지표: health.ingest.journal.pending, health.ingest.flush.lag (가장 오래된 미반영 샘플 나이),
+ *       health.ingest.flush (배치 소요), health.ingest.flush.batch_size, health.ingest.flush.errors
+ */
+@Slf4j
+@Component
+public class VitalsWriteBehind {
+
+    private final HealthDataRepository repo;
+    private final HealthBucketRollup rollup;
+    private final MeterRegistry registry;
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentRecords;
+    private final boolean force;
+    private final int batchSize;
+    private final long maxDelayMs;
+    private final long maxPending;
+    private final long retryBackoffMs;
+
+    private final Semaphore wakeSignal = new Semaphore(0);
+    private volatile VitalsJournal journal;
+    private volatile boolean running;
+    private Thread flusher;
+
+    private final Timer flushTimer;
+    private final DistributionSummary flushBatch;
+    private final Counter flushErrors;
+
+    public VitalsWriteBehind(
+            HealthDataRepository repo,
+            HealthBucketRollup rollup,
+            MeterRegistry registry,
+            @Value("${app.ingest.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.ingest.write-behind.dir:/var/lib/healthserver/journal}") String dir,
+            @Value("${app.ingest.write-behind.segment-records:262144}") int segmentRecords,
+            @Value("${app.ingest.write-behind.force:false}") boolean force,
+            @Value("${app.ingest.write-behind.batch-size:5000}") int batchSize,
+            @Value("${app.ingest.write-behind.max-delay-ms:500}") long maxDelayMs,
+            @Value("${app.ingest.write-behind.max-pending:2000000}") long maxPending,
+            @Value("${app.ingest.write-behind.retry-backoff-ms:2000}") long retryBackoffMs
+    ) {
+        this.repo = repo;
+        this.rollup = rollup;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.segmentRecords = segmentRecords;
+        this.force = force;
+        this.batchSize = batchSize;
+        this.maxDelayMs = maxDelayMs;
+        this.maxPending = maxPending;
+        this.retryBackoffMs = retryBackoffMs;
+
+        this.flushTimer = Timer.builder("health.ingest.flush")
+                .description("Write-behind batch flush to health_data")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.flushBatch = DistributionSummary.builder("health.ingest.flush.batch_size").register(registry);
+        this.flushErrors = Counter.builder("health.ingest.flush.errors").register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        journal = VitalsJournal.open(dir, segmentRecords, force);
+        Gauge.builder("health.ingest.journal.pending", this, w -> w.pending())
+                .description("Samples acknowledged but not yet in health_data")
+                .register(registry);
+        Gauge.builder("health.ingest.flush.lag", this, w -> w.lagSeconds())
+                .description("Age of the oldest unflushed sample")
+                .baseUnit("seconds")
+                .register(registry);
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "vitals-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 저널 기록을 맡으면 true. 트랜잭션 안이면 커밋 후에 기록 (롤백된 요청의 샘플은 남기지 않음), 밖이면 바로 기록.
+     * 꺼져 있으면 false → 호출측이 동기 저장
+     * @throws ResponseStatusException 503 미반영분이 max-pending 초과 (커밋 후 기록 시점에 넘쳐도 커밋 호출측으로 전파)
+     */
+    public boolean offer(Long coupleId, List<HealthDataBulkRepository.Sample> samples) {
+        VitalsJournal j = journal;
+        if (j == null) return false;
+        if (j.pending() + samples.size() > maxPending) throw backlogFull(); // 빠른 거절, 확정 검사는 append 에서
+        TxCallbacks.afterCommit(() -> append(j, coupleId, samples));
+        return true;
+    }
+
+    private void append(VitalsJournal j, Long coupleId, List<HealthDataBulkRepository.Sample> samples) {
+        long now = System.currentTimeMillis();
+        List<VitalsJournal.Entry> entries = samples.stream()
+                .map(s -> new VitalsJournal.Entry(coupleId, s.date(), s.stress(), s.heartrate(), now))
+                .toList();
+        if (!j.appendWithin(entries, maxPending)) throw backlogFull();
+        if (j.pending() >= batchSize && wakeSignal.availablePermits() == 0) wakeSignal.release();
+    }
+
+    private static ResponseStatusException backlogFull() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "수집 대기열 초과");
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                long oldest = journal.oldestPendingMillis();
+                long due = (oldest < 0) ? maxDelayMs : oldest + maxDelayMs - System.currentTimeMillis();
+                if (journal.pending() < batchSize && due > 0) {
+                    wakeSignal.tryAcquire(due, TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                flushOnce();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                flushErrors.increment();
+                log.warn("[INGEST-FLUSH] flush failed (pending={}), retry in {}ms: {}",
+                        journal.pending(), retryBackoffMs, e.toString());
+                sleepQuietly(retryBackoffMs);
+            }
+        }
+    }
+
+    /** 저널 앞부분 최대 batch-size 건을 COPY 로 반영하고 checkpoint 전진. @return 반영 건수 */
+    int flushOnce() {
+        VitalsJournal.Batch batch = journal.peek(batchSize);
+        if (batch.isEmpty()) return 0;
+        long t0 = System.nanoTime();
+        List<HealthDataBulkRepository.Row> rows = batch.entries().stream()
+                .map(e -> new HealthDataBulkRepository.Row(e.coupleId(), e.date(), e.stress(), e.heartrate()))
+                .toList();
+        rollup.atomically(() -> { // 롤업이 켜져 있으면 COPY 와 버킷 upsert 를 한 트랜잭션으로
+            repo.copyRows(rows);
+            rollup.record(rows);
+            return null;
+        });
+        journal.commit(batch.endSeq());
+        flushTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        flushBatch.record(batch.entries().size());
+        return batch.entries().size();
+    }
+
+    private long pending() {
+        VitalsJournal j = journal;
+        return j == null ? 0 : j.pending();
+    }
+
+    private double lagSeconds() {
+        VitalsJournal j = journal;
+        long oldest = (j == null) ? -1 : j.oldestPendingMillis();
+        return oldest < 0 ? 0 : (System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 종료 시 남은 분량을 한 번 더 반영 시도. 실패해도 저널에 남아 다음 기동 때 재반영
+    @PreDestroy
+    public void stop() {
+        if (journal == null) return;
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            while (flushOnce() > 0) { /* drain */ }
+        } catch (Exception e) {
+            // 디렉터리가 파드와 함께 지워지면(emptyDir) 여기 남은 건 잃는다
+            log.error("[INGEST-FLUSH] final drain failed, {} samples stay in journal {}: {}",
+                    journal.pending(), dir, e.toString());
+        }
+        journal.close();
+        journal = null;
+    }
+}
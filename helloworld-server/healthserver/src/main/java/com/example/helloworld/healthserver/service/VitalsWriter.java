@@ -0,0 +1,77 @@
+package com.example.helloworld.healthserver.service;
+
+import com.example.helloworld.healthserver.dto.response.HealthLatestResponse;
+import com.example.helloworld.healthserver.entity.HealthData;
+import com.example.helloworld.healthserver.persistence.HealthDataBulkRepository;
+import com.example.helloworld.healthserver.persistence.HealthDataRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 웨어러블 샘플 저장 (단건/배치 공용) — 호출측 트랜잭션 안에서 호출
+ * - write-behind 모드면 저널에 붙이고 플러시는 백그라운드, 아니면 health_data INSERT + 버킷 롤업
+ * - 최근 값 버퍼/최신값 캐시 갱신
+ *
+ * 지표: health.ingest.requests{mode}, health.ingest.rows{mode}, health.ingest.batch_size
+ */
+@Component
+@RequiredArgsConstructor
+public class VitalsWriter {
+
+    private final HealthDataRepository repo;
+    private final VitalsWriteBehind writeBehind;
+    private final HealthBucketRollup rollup;
+    private final RecentVitalsStore recent;
+    private final LatestVitalsCache latestCache;
+    private final MeterRegistry meterRegistry;
+
+    /** 단건 저장, 저장된 시각(date 없으면 now)을 돌려준다 */
+    public Instant store(Long coupleId, Instant date, Double stress, Integer heartrate) {
+        Instant timestamp = (date != null) ? date : Instant.now();
+        Long healthId = null;
+        List<HealthDataBulkRepository.Sample> sample =
+                List.of(new HealthDataBulkRepository.Sample(timestamp, stress, heartrate));
+        if (!writeBehind.offer(coupleId, sample)) {
+            HealthData healthData = HealthData.builder()
+                    .coupleId(coupleId)
+                    .date(timestamp)
+                    .stress(stress)
+                    .heartrate(heartrate)
+                    .build();
+            repo.save(healthData);
+            healthId = healthData.getHealthId(); // IDENTITY: persist 시 같은 인스턴스에 채워짐
+            rollup.record(coupleId, sample);
+        }
+        recent.recordHr(coupleId, healthId, timestamp, heartrate, stress);
+        latestCache.putHr(coupleId, new HealthLatestResponse.HrItem(healthId, timestamp, heartrate, stress));
+        recordIngest("single", 1);
+        return timestamp;
+    }
+
+    /** 시각순 정렬된 샘플 일괄 저장 (JDBC batch / COPY), 저장 건수를 돌려준다 */
+    public int storeAll(Long coupleId, List<HealthDataBulkRepository.Sample> sorted) {
+        int inserted;
+        if (writeBehind.offer(coupleId, sorted)) {
+            inserted = sorted.size();
+        } else {
+            inserted = repo.insertAll(coupleId, sorted);
+            rollup.record(coupleId, sorted);
+        }
+        recent.recordHr(coupleId, sorted);
+        HealthDataBulkRepository.Sample newest = sorted.get(sorted.size() - 1);
+        latestCache.putHr(coupleId, new HealthLatestResponse.HrItem(null, newest.date(), newest.heartrate(), newest.stress()));
+        recordIngest("batch", inserted);
+        meterRegistry.summary("health.ingest.batch_size").record(inserted);
+        return inserted;
+    }
+
+    // 행/요청 수 → rows/sec, requests/sec (mode=single|batch)
+    private void recordIngest(String mode, int rows) {
+        meterRegistry.counter("health.ingest.requests", "mode", mode).increment();
+        meterRegistry.counter("health.ingest.rows", "mode", mode).increment(rows);
+    }
+}
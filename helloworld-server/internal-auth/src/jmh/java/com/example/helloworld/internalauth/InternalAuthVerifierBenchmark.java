@@ -0,0 +1,69 @@
+package com.example.helloworld.internalauth;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기존 방식(요청마다 Mac.getInstance + String.format + Base64 디코딩) 과 InternalAuthVerifier 비교
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class InternalAuthVerifierBenchmark {
+
+    private static final String SECRET = "benchmark-gateway-secret";
+
+    private InternalAuthVerifier verifier;
+    private SecretKeySpec key;
+    private String uid = "123456";
+    private String coupleId = "654321";
+    private String role = "A";
+    private String ts;
+    private String sig;
+
+    @Setup
+    public void setUp() {
+        verifier = new InternalAuthVerifier(SECRET, Long.MAX_VALUE / 2);
+        key = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        ts = String.valueOf(Instant.now().getEpochSecond());
+        sig = verifier.sign(uid, coupleId, role, ts);
+    }
+
+    @Benchmark
+    public boolean legacyPerRequestMac() throws Exception {
+        String payload = String.format("%s|%s|%s|%s", uid, coupleId, role, ts);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(key);
+        byte[] expected = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        byte[] actual = Base64.getDecoder().decode(sig);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean legacyPerRequestMacContended() throws Exception {
+        return legacyPerRequestMac();
+    }
+
+    @Benchmark
+    public boolean pooledVerifier() {
+        return verifier.isValid(uid, coupleId, role, ts, sig);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean pooledVerifierContended() {
+        return verifier.isValid(uid, coupleId, role, ts, sig);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.helloworld.internalauth;
+
+/**
+ * 게이트웨이(GatewayRedisAuthFilter)가 서명해서 내려주는 내부 헤더 이름
+ */
+public final class InternalAuthHeaders {
+
+    public static final String USER_ID = "X-Internal-User-Id";
+    public static final String COUPLE_ID = "X-Internal-Couple-Id";
+    public static final String ROLE = "X-Internal-Role";
+    public static final String TS = "X-Internal-Ts";
+    public static final String SIG = "X-Internal-Sig";
+    public static final String TOKEN_HASH = "X-Internal-Token-Hash";
+
+    private InternalAuthHeaders() {}
+}
@@ -0,0 +1,200 @@
+package com.example.helloworld.internalauth;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 게이트웨이 서명 검증: HMAC-SHA256("uid|coupleId|role|ts") 를 Base64 로 비교 + 타임스탬프 윈도우.
+ *
+ * 요청마다 Mac.getInstance / String.format / Base64 디코딩을 하지 않도록
+ * - 초기화된 Mac 과 작업 버퍼를 풀에서 꺼내 재사용
+ * - 페이로드는 헤더 문자를 바로 바이트 버퍼에 기록 (ASCII 가 아니면 UTF-8 경로)
+ * - 기대값을 Base64 로 인코딩해 헤더 문자열과 상수 시간 비교
+ */
+public final class InternalAuthVerifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LEN = 32;
+    private static final int SIG_B64_LEN = 44; // Base64(32 bytes), padding 포함
+    private static final int PAYLOAD_CAPACITY = 256;
+
+    private final SecretKeySpec key;
+    private final Mac prototype;
+    private final long tsWindowSec;
+    private final LongSupplier epochSeconds;
+
+    private final ConcurrentLinkedQueue<Scratch> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final int maxPooled;
+
+    // 스레드 하나가 검증 1회 동안 독점하는 Mac + 버퍼
+    private static final class Scratch {
+        final Mac mac;
+        final byte[] payload = new byte[PAYLOAD_CAPACITY];
+        final byte[] digest = new byte[MAC_LEN];
+        final byte[] b64 = new byte[SIG_B64_LEN];
+
+        Scratch(Mac mac) { this.mac = mac; }
+    }
+
+    public InternalAuthVerifier(String secret, long tsWindowSec) {
+        this(secret, tsWindowSec, 64, () -> Instant.now().getEpochSecond());
+    }
+
+    public InternalAuthVerifier(String secret, long tsWindowSec, int maxPooled, LongSupplier epochSeconds) {
+        if (secret == null || secret.isBlank()) {
+            // 시크릿 없이 뜨면 모든 요청이 401 이 되므로 기동 시점에 멈춤
+            throw new IllegalStateException("gateway.hmac-secret is not set: set env GATEWAY_HMAC_SECRET "
+                    + "(k8s secret gateway-hmac-secret) to the same key the gateway signs X-Internal-* headers with");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.tsWindowSec = tsWindowSec;
+        this.maxPooled = maxPooled;
+        this.epochSeconds = epochSeconds;
+        this.prototype = newMac();
+    }
+
+    /**
+     * @return 서명/타임스탬프가 유효하고 숫자 헤더가 파싱되면 InternalIdentity, 아니면 null
+     */
+    public InternalIdentity verify(String uid, String coupleId, String role, String ts, String sig, String tokenHash) {
+        if (!isValid(uid, coupleId, role, ts, sig)) return null;
+        try {
+            Long memberId = Long.valueOf(uid);
+            Long couple = hasText(coupleId) ? Long.valueOf(coupleId) : null;
+            return new InternalIdentity(memberId, couple, hasText(role) ? role : null, tokenHash);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** 서명 + 타임스탬프 윈도우만 검사 */
+    public boolean isValid(String uid, String coupleId, String role, String ts, String sig) {
+        if (!hasText(uid) || !hasText(ts) || sig == null || sig.length() != SIG_B64_LEN) return false;
+
+        // 싼 검사 먼저: 윈도우 밖이면 HMAC 계산 안 함
+        long timestamp;
+        try {
+            timestamp = Long.parseLong(ts);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Math.abs(epochSeconds.getAsLong() - timestamp) > tsWindowSec) return false;
+
+        Scratch s = borrow();
+        try {
+            int n = writePayload(s.payload, uid, coupleId, role, ts);
+            if (n >= 0) {
+                s.mac.update(s.payload, 0, n);
+            } else {
+                s.mac.update(payloadString(uid, coupleId, role, ts).getBytes(StandardCharsets.UTF_8));
+            }
+            s.mac.doFinal(s.digest, 0);
+            Base64.getEncoder().encode(s.digest, s.b64);
+            return constantTimeEquals(s.b64, sig);
+        } catch (ShortBufferException e) {
+            return false;
+        } finally {
+            release(s);
+        }
+    }
+
+    /** 게이트웨이와 동일한 서명 생성 (테스트/내부 호출용) */
+    public String sign(String uid, String coupleId, String role, String ts) {
+        Scratch s = borrow();
+        try {
+            byte[] out = s.mac.doFinal(payloadString(uid, coupleId, role, ts).getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(out);
+        } finally {
+            release(s);
+        }
+    }
+
+    // "uid|coupleId|role|ts" 를 버퍼에 기록. ASCII 가 아니거나 넘치면 -1
+    private static int writePayload(byte[] buf, String uid, String coupleId, String role, String ts) {
+        int p = writeAscii(buf, 0, uid);
+        if (p < 0 || p >= buf.length) return -1;
+        buf[p++] = '|';
+        p = writeAscii(buf, p, coupleId);
+        if (p < 0 || p >= buf.length) return -1;
+        buf[p++] = '|';
+        p = writeAscii(buf, p, role);
+        if (p < 0 || p >= buf.length) return -1;
+        buf[p++] = '|';
+        return writeAscii(buf, p, ts);
+    }
+
+    private static int writeAscii(byte[] buf, int pos, String s) {
+        if (s == null) return pos;
+        int len = s.length();
+        if (pos + len > buf.length) return -1;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c > 0x7F) return -1;
+            buf[pos + i] = (byte) c;
+        }
+        return pos + len;
+    }
+
+    private static String payloadString(String uid, String coupleId, String role, String ts) {
+        return (uid == null ? "" : uid) + '|' + (coupleId == null ? "" : coupleId) + '|'
+                + (role == null ? "" : role) + '|' + (ts == null ? "" : ts);
+    }
+
+    // 길이는 이미 같음을 확인. 내용은 전체를 다 비교 (조기 종료 없음)
+    private static boolean constantTimeEquals(byte[] expected, String actual) {
+        int diff = 0;
+        for (int i = 0; i < expected.length; i++) {
+            diff |= expected[i] ^ actual.charAt(i);
+        }
+        return diff == 0;
+    }
+
+    private Scratch borrow() {
+        Scratch s = pool.poll();
+        if (s != null) {
+            pooled.decrementAndGet();
+            return s;
+        }
+        return new Scratch(copyMac());
+    }
+
+    private void release(Scratch s) {
+        s.mac.reset();
+        if (pooled.incrementAndGet() <= maxPooled) {
+            pool.offer(s);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    private Mac copyMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            return newMac();
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private static boolean hasText(String s) {
+        return s != null && !s.isBlank();
+    }
+}
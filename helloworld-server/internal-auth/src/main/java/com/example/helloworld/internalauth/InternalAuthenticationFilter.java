@@ -0,0 +1,62 @@
+package com.example.helloworld.internalauth;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 서비스 공통 내부 인증 필터.
+ * X-Internal-* 헤더 서명을 검증하고, 통과한 경우에만 onVerified() 로 인증 컨텍스트를 만들게 한다.
+ * 요청 차단/허용 결정은 각 서비스의 SecurityConfig 에 맡긴다 (항상 체인 진행).
+ */
+public abstract class InternalAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(InternalAuthenticationFilter.class);
+
+    private final InternalAuthVerifier verifier;
+
+    protected InternalAuthenticationFilter(InternalAuthVerifier verifier) {
+        this.verifier = verifier;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String uid = request.getHeader(InternalAuthHeaders.USER_ID);
+        InternalIdentity identity = null;
+        if (uid != null) {
+            identity = verifier.verify(
+                    uid,
+                    request.getHeader(InternalAuthHeaders.COUPLE_ID),
+                    request.getHeader(InternalAuthHeaders.ROLE),
+                    request.getHeader(InternalAuthHeaders.TS),
+                    request.getHeader(InternalAuthHeaders.SIG),
+                    request.getHeader(InternalAuthHeaders.TOKEN_HASH));
+            if (identity == null) {
+                log.warn("INTERNAL_AUTH_REJECTED: invalid signature or timestamp. uid={}, path={}",
+                        uid, request.getRequestURI());
+            }
+        }
+
+        if (identity != null) {
+            onVerified(identity, request);
+        } else {
+            onUnverified(request);
+        }
+        chain.doFilter(request, response);
+    }
+
+    /** 서명 검증 통과 → SecurityContext 등 서비스별 인증 처리 */
+    protected abstract void onVerified(InternalIdentity identity, HttpServletRequest request);
+
+    /** 헤더가 없거나 검증 실패 (기본: 아무것도 하지 않음 → 익명) */
+    protected void onUnverified(HttpServletRequest request) {
+    }
+}
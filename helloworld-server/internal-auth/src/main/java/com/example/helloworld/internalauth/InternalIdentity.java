@@ -0,0 +1,11 @@
+package com.example.helloworld.internalauth;
+
+/**
+ * 서명 검증을 통과한 내부 헤더 값
+ *
+ * @param memberId  X-Internal-User-Id
+ * @param coupleId  X-Internal-Couple-Id (없으면 null)
+ * @param role      X-Internal-Role ("A" / "B", 없으면 null)
+ * @param tokenHash X-Internal-Token-Hash (서명 대상 아님, 참고용)
+ */
+public record InternalIdentity(Long memberId, Long coupleId, String role, String tokenHash) {}
@@ -0,0 +1,39 @@
+package com.example.helloworld.internalauth;
+
+/**
+ * 액세스 토큰 저장소(Redis) 키 레이아웃 — user-server(쓰기)와 gateway(읽기)가 공유
+ *
+ * 한 회원의 키는 해시태그 {m:memberId} 로 같은 슬롯에 모인다 → Redis Cluster 에서도
+ * 멀티키 Lua 스크립트(등록/폐기/전체 폐기)를 그대로 쓸 수 있다.
+ * <pre>
+ *   auth:{m:42}:tok:{hash}  -> JSON { active, memberId, coupleId, role, exp }
+ *   auth:{m:42}:bl:{hash}   -> "1" (TTL = 남은 수명)
+ *   auth:{m:42}:tokens      -> set{hash...}
+ * </pre>
+ * hash 는 sha256 Base64 라 '{' '}' 를 포함하지 않는다.
+ */
+public final class TokenKeys {
+
+    // 클러스터 전환 이전 키 (단일 노드, 슬롯 분산). 전환 기간 동안만 읽기/정리에 사용
+    public static final String LEGACY_TOKEN_PREFIX = "token:";
+    public static final String LEGACY_BLACKLIST_PREFIX = "blacklist:";
+    public static final String LEGACY_USER_TOKENS_PREFIX = "user_tokens:";
+
+    private TokenKeys() {}
+
+    public static String memberPrefix(long memberId) {
+        return "auth:{m:" + memberId + "}:";
+    }
+
+    public static String token(long memberId, String hash) {
+        return memberPrefix(memberId) + "tok:" + hash;
+    }
+
+    public static String blacklist(long memberId, String hash) {
+        return memberPrefix(memberId) + "bl:" + hash;
+    }
+
+    public static String memberTokens(long memberId) {
+        return memberPrefix(memberId) + "tokens";
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.helloworld.internalauth.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 감사 이벤트 저장소 (audit_access_events, 월 파티션) — 서비스에서 @Import(AuditConfig.class) 로 사용
+ * - 필터는 writer.offer() 만 호출, 전용 스레드가 배치 INSERT
+ * - 파티션은 기동 시 + 매일 새벽에 이번 달 ~ months-ahead 달까지 미리 생성
+ * - 같은 작업에서 default 파티션 행 수를 확인: 0 이 아니면 ERROR 로그 + audit.partition.default_rows 게이지
+ *   (미리 만든 범위 밖 시각이 들어왔다는 뜻이고, 그 달 파티션은 default 를 비우기 전엔 만들 수 없음)
+ *
+ * 지표: audit.events.written / dropped / pending, audit.partition.default_rows, audit.partition.maintenance.failures
+ */
+@Configuration
+public class AuditConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditConfig.class);
+
+    private final DataSource dataSource;
+    private final int monthsAhead;
+    private final AtomicLong defaultRows = new AtomicLong();
+    private final Counter maintenanceFailures;
+
+    public AuditConfig(DataSource dataSource,
+                       MeterRegistry registry,
+                       @Value("${audit.partition.months-ahead:2}") int monthsAhead) {
+        this.dataSource = dataSource;
+        this.monthsAhead = monthsAhead;
+        Gauge.builder("audit.partition.default_rows", defaultRows, AtomicLong::get)
+                .description("Rows in audit_access_events_default (should stay 0; alert when > 0)")
+                .register(registry);
+        this.maintenanceFailures = Counter.builder("audit.partition.maintenance.failures")
+                .description("Failed audit partition maintenance runs")
+                .register(registry);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public AuditEventWriter auditEventWriter(
+            MeterRegistry registry,
+            @Value("${audit.writer.queue-capacity:50000}") int queueCapacity,
+            @Value("${audit.writer.batch-size:500}") int batchSize,
+            @Value("${audit.writer.flush-interval-ms:500}") long flushIntervalMs) {
+        AuditEventWriter writer = new AuditEventWriter(dataSource, queueCapacity, batchSize, flushIntervalMs);
+        FunctionCounter.builder("audit.events.written", writer, AuditEventWriter::written)
+                .description("Audit events persisted to audit_access_events").register(registry);
+        FunctionCounter.builder("audit.events.dropped", writer, AuditEventWriter::dropped)
+                .description("Audit events dropped (queue full or insert failed)").register(registry);
+        Gauge.builder("audit.events.pending", writer, AuditEventWriter::pending)
+                .description("Audit events waiting in the writer queue").register(registry);
+        return writer;
+    }
+
+    @Bean
+    public AuditEventQuery auditEventQuery() {
+        return new AuditEventQuery(dataSource);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitionsOnStartup() {
+        ensurePartitions();
+    }
+
+    @Scheduled(cron = "${audit.partition.cron:0 10 3 * * *}")
+    public void ensurePartitions() {
+        try {
+            AuditSchema.ensure(dataSource, LocalDate.now(), monthsAhead);
+        } catch (Exception e) {
+            // 파티션이 없어도 default 파티션으로 들어가므로 요청 처리에는 영향 없음 (아래 default 행 수로 드러남)
+            maintenanceFailures.increment();
+            log.error("[AUDIT] partition maintenance failed: {}", e.toString());
+        }
+        try {
+            long rows = AuditSchema.defaultPartitionRows(dataSource);
+            defaultRows.set(rows);
+            if (rows > 0) {
+                log.error("[AUDIT] {} rows in {}_default — create the missing monthly partitions "
+                        + "(move those rows out of default first)", rows, AuditSchema.TABLE);
+            }
+        } catch (Exception e) {
+            maintenanceFailures.increment();
+            log.error("[AUDIT] default partition check failed: {}", e.toString());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.helloworld.internalauth.audit;
+
+import java.time.Instant;
+
+/**
+ * 인증된 요청 1건의 감사 이벤트 (헬스케어 컴플라이언스)
+ *
+ * @param id         저장 후 부여되는 id (쓰기 시 null)
+ * @param occurredAt 요청 시각 (파티션 키)
+ * @param service    기록한 서비스 (user-server / health-server ...)
+ */
+public record AuditEvent(
+        Long id,
+        Instant occurredAt,
+        String service,
+        Long memberId,
+        Long coupleId,
+        String role,
+        String method,
+        String path,
+        String clientIp
+) {
+    public static AuditEvent access(String service, Long memberId, Long coupleId, String role,
+                                    String method, String path, String clientIp) {
+        return new AuditEvent(null, Instant.now(), service, memberId, coupleId, role, method, path, clientIp);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.helloworld.internalauth.audit;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 회원/커플 기준 감사 이벤트 조회 (최신순, keyset 페이지네이션)
+ * cursor = "{occurredAtEpochMicros}:{id}" → (occurred_at, id) < cursor 인 다음 페이지
+ * from/to 로 범위를 주면 해당 월 파티션만 스캔한다.
+ */
+public class AuditEventQuery {
+
+    public record Page(List<AuditEvent> items, String nextCursor) {}
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final DataSource dataSource;
+
+    public AuditEventQuery(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public Page find(Long memberId, Long coupleId, Instant from, Instant to, String cursor, int size)
+            throws SQLException {
+        if (memberId == null && coupleId == null) {
+            throw new IllegalArgumentException("memberId or coupleId is required");
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        StringBuilder sql = new StringBuilder("""
+                SELECT id, occurred_at, service, member_id, couple_id, role, method, path, client_ip
+                  FROM %s
+                 WHERE 1 = 1
+                """.formatted(AuditSchema.TABLE));
+        List<Object> args = new ArrayList<>();
+        if (memberId != null) { sql.append(" AND member_id = ?"); args.add(memberId); }
+        if (coupleId != null) { sql.append(" AND couple_id = ?"); args.add(coupleId); }
+        if (from != null) { sql.append(" AND occurred_at >= ?"); args.add(Timestamp.from(from)); }
+        if (to != null) { sql.append(" AND occurred_at < ?"); args.add(Timestamp.from(to)); }
+
+        Cursor c = Cursor.parse(cursor);
+        if (c != null) {
+            sql.append(" AND (occurred_at, id) < (?, ?)");
+            args.add(Timestamp.from(c.occurredAt()));
+            args.add(c.id());
+        }
+        sql.append(" ORDER BY occurred_at DESC, id DESC LIMIT ?");
+        args.add(limit + 1);
+
+        List<AuditEvent> items = new ArrayList<>(limit + 1);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) items.add(map(rs));
+            }
+        }
+
+        String next = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            AuditEvent last = items.get(limit - 1);
+            next = new Cursor(last.occurredAt(), last.id()).format();
+        }
+        return new Page(items, next);
+    }
+
+    private static AuditEvent map(ResultSet rs) throws SQLException {
+        return new AuditEvent(
+                rs.getLong("id"),
+                rs.getTimestamp("occurred_at").toInstant(),
+                rs.getString("service"),
+                (Long) rs.getObject("member_id"),
+                (Long) rs.getObject("couple_id"),
+                rs.getString("role"),
+                rs.getString("method"),
+                rs.getString("path"),
+                rs.getString("client_ip"));
+    }
+
+    private record Cursor(Instant occurredAt, long id) {
+        static Cursor parse(String s) {
+            if (s == null || s.isBlank()) return null;
+            int sep = s.indexOf(':');
+            if (sep <= 0) throw new IllegalArgumentException("invalid cursor");
+            try {
+                long micros = Long.parseLong(s.substring(0, sep));
+                long id = Long.parseLong(s.substring(sep + 1));
+                return new Cursor(Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                        Math.floorMod(micros, 1_000_000L) * 1_000L), id);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid cursor");
+            }
+        }
+
+        String format() {
+            long micros = occurredAt.getEpochSecond() * 1_000_000L + occurredAt.getNano() / 1_000;
+            return micros + ":" + id;
+        }
+    }
+}
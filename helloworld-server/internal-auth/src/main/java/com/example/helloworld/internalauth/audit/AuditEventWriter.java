@@ -0,0 +1,175 @@
+package com.example.helloworld.internalauth.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 감사 이벤트 비동기 배치 저장
+ * - 요청 스레드는 offer() 만 호출 (큐가 가득 차면 즉시 false, 절대 블록하지 않음)
+ * - 전용 스레드가 batch-size 또는 flush-interval 마다 멀티로우 INSERT
+ * - DB 실패 시 한 번 재시도 후 버리고 dropped 로 집계 (요청 처리에는 영향 없음)
+ */
+public class AuditEventWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditEventWriter.class);
+    private static final int COLUMNS = 8;
+    // PostgreSQL 한 문장의 바인드 파라미터 상한 (프로토콜이 int16 개수)
+    static final int MAX_BIND_PARAMS = 32_767;
+
+    private final DataSource dataSource;
+    private final BlockingQueue<AuditEvent> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public AuditEventWriter(DataSource dataSource, int queueCapacity, int batchSize, long flushIntervalMs) {
+        if (batchSize < 1 || batchSize * COLUMNS > MAX_BIND_PARAMS) {
+            throw new IllegalArgumentException("audit batch-size must be 1.." + MAX_BIND_PARAMS / COLUMNS + ": " + batchSize);
+        }
+        if (queueCapacity < 1 || flushIntervalMs < 1) {
+            throw new IllegalArgumentException("audit queue-capacity and flush-interval-ms must be positive");
+        }
+        this.dataSource = dataSource;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        worker = new Thread(this::runLoop, "audit-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** @return 큐에 넣었으면 true, 가득 차서 버렸으면 false */
+    public boolean offer(AuditEvent event) {
+        if (queue.offer(event)) return true;
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    public long written() { return written.get(); }
+    public long dropped() { return dropped.get(); }
+    public long failedBatches() { return failedBatches.get(); }
+    public int pending() { return queue.size(); }
+
+    private void runLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long waitNs = deadline - System.nanoTime();
+                    if (waitNs <= 0) break;
+                    AuditEvent e = queue.poll(waitNs, TimeUnit.NANOSECONDS);
+                    if (e == null) break;
+                    batch.add(e);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                if (!batch.isEmpty()) {
+                    writeWithRetry(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException ie) {
+                // close() 에서 깨움 → 남은 큐를 batch-size 씩 비우고 종료
+                do {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    if (!batch.isEmpty()) writeWithRetry(batch);
+                    batch.clear();
+                } while (!queue.isEmpty());
+                return;
+            }
+        }
+    }
+
+    private void writeWithRetry(List<AuditEvent> batch) {
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                insert(batch);
+                written.addAndGet(batch.size());
+                return;
+            } catch (SQLException e) {
+                if (attempt == 2) {
+                    failedBatches.incrementAndGet();
+                    dropped.addAndGet(batch.size());
+                    log.warn("[AUDIT] batch insert failed, dropped {} events: {}", batch.size(), e.toString());
+                }
+            }
+        }
+    }
+
+    void insert(List<AuditEvent> batch) throws SQLException {
+        if (batch.isEmpty() || batch.size() > batchSize) {
+            throw new IllegalArgumentException("batch must hold 1.." + batchSize + " events: " + batch.size());
+        }
+        StringBuilder sql = new StringBuilder(96 + batch.size() * 20)
+                .append("INSERT INTO ").append(AuditSchema.TABLE)
+                .append(" (occurred_at, service, member_id, couple_id, role, method, path, client_ip) VALUES ");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) sql.append(',');
+            sql.append("(?,?,?,?,?,?,?,?)");
+        }
+
+        try (Connection c = dataSource.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql.toString())) {
+            int p = 1;
+            for (AuditEvent e : batch) {
+                ps.setTimestamp(p++, Timestamp.from(e.occurredAt()));
+                ps.setString(p++, e.service());
+                setLong(ps, p++, e.memberId());
+                setLong(ps, p++, e.coupleId());
+                ps.setString(p++, e.role());
+                ps.setString(p++, e.method());
+                ps.setString(p++, truncate(e.path(), 512));
+                ps.setString(p++, e.clientIp());
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    private static void setLong(PreparedStatement ps, int idx, Long v) throws SQLException {
+        if (v == null) ps.setNull(idx, Types.BIGINT);
+        else ps.setLong(idx, v);
+    }
+
+    private static String truncate(String s, int max) {
+        return (s == null || s.length() <= max) ? s : s.substring(0, max);
+    }
+
+    @Override
+    public void close() {
+        Thread t;
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+            t = worker;
+        }
+        t.interrupt();
+        try {
+            t.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.helloworld.internalauth.audit;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * audit_access_events: occurred_at 기준 월 단위 RANGE 파티션 테이블
+ * - (member_id, occurred_at, id) / (couple_id, occurred_at, id) 인덱스 → 회원/커플별 최신순 페이지 조회
+ * - 파티션이 아직 없는 달은 default 파티션이 받는다
+ * 모든 DDL 은 IF NOT EXISTS 라 여러 인스턴스가 동시에 실행해도 된다.
+ */
+public final class AuditSchema {
+
+    public static final String TABLE = "audit_access_events";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private AuditSchema() {}
+
+    public static void ensure(DataSource dataSource, LocalDate today, int monthsAhead) throws SQLException {
+        try (Connection c = dataSource.getConnection(); Statement st = c.createStatement()) {
+            st.execute("""
+                CREATE TABLE IF NOT EXISTS %s (
+                  id          BIGSERIAL,
+                  occurred_at TIMESTAMPTZ NOT NULL,
+                  service     VARCHAR(40) NOT NULL,
+                  member_id   BIGINT,
+                  couple_id   BIGINT,
+                  role        VARCHAR(20),
+                  method      VARCHAR(10),
+                  path        VARCHAR(512),
+                  client_ip   VARCHAR(64),
+                  PRIMARY KEY (occurred_at, id)
+                ) PARTITION BY RANGE (occurred_at)
+                """.formatted(TABLE));
+            st.execute("CREATE INDEX IF NOT EXISTS ix_%1$s_member ON %1$s (member_id, occurred_at DESC, id DESC)"
+                    .formatted(TABLE));
+            st.execute("CREATE INDEX IF NOT EXISTS ix_%1$s_couple ON %1$s (couple_id, occurred_at DESC, id DESC)"
+                    .formatted(TABLE));
+            st.execute("CREATE TABLE IF NOT EXISTS %1$s_default PARTITION OF %1$s DEFAULT".formatted(TABLE));
+
+            YearMonth first = YearMonth.from(today);
+            for (int i = 0; i <= monthsAhead; i++) {
+                YearMonth m = first.plusMonths(i);
+                st.execute("""
+                    CREATE TABLE IF NOT EXISTS %1$s_%2$s PARTITION OF %1$s
+                      FOR VALUES FROM ('%3$s') TO ('%4$s')
+                    """.formatted(TABLE, m.format(SUFFIX), m.atDay(1), m.plusMonths(1).atDay(1)));
+            }
+        }
+    }
+
+    /** default 파티션의 행 수 (정상이면 0). 어긋난 경우에도 오래 걸리지 않도록 상한까지만 셈 */
+    public static long defaultPartitionRows(DataSource dataSource) throws SQLException {
+        try (Connection c = dataSource.getConnection(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery(
+                     "SELECT count(*) FROM (SELECT 1 FROM %s_default LIMIT 1000000) t".formatted(TABLE))) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.helloworld.internalauth.audit;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLException;
+import java.time.Instant;
+
+/**
+ * 감사 이벤트 조회 (회원/커플 기준 최신순, cursor 페이지네이션) — 서비스에서 @Import 로 사용
+ * 게이트웨이 서명 헤더만으로는 열리지 않아야 하므로 서비스가 이 경로를 X-App-Token 으로 막는다
+ * (userserver: AppTokenFilter, healthserver: SecurityConfig).
+ */
+@RestController
+@RequestMapping("/api/internal/audit")
+public class InternalAuditController {
+
+    private final AuditEventQuery auditQuery;
+
+    public InternalAuditController(AuditEventQuery auditQuery) {
+        this.auditQuery = auditQuery;
+    }
+
+    @GetMapping("/events")
+    public AuditEventQuery.Page events(
+            @RequestParam(required = false) Long memberId,
+            @RequestParam(required = false) Long coupleId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        try {
+            return auditQuery.find(memberId, coupleId, from, to, cursor, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (SQLException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "audit query failed", e);
+        }
+    }
+}
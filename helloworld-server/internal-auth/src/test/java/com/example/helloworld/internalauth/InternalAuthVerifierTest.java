@@ -0,0 +1,109 @@
+package com.example.helloworld.internalauth;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InternalAuthVerifierTest {
+
+    private static final String SECRET = "test-gateway-secret";
+    private static final long NOW = 1_700_000_000L;
+
+    private final InternalAuthVerifier verifier = new InternalAuthVerifier(SECRET, 30, 4, () -> NOW);
+
+    // GatewayRedisAuthFilter 와 같은 방식(String.format + Mac.getInstance)으로 서명
+    private static String gatewaySign(String uid, String coupleId, String role, String ts) throws Exception {
+        String payload = String.format("%s|%s|%s|%s",
+                uid, coupleId != null ? coupleId : "", role != null ? role : "", ts);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return Base64.getEncoder().encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("게이트웨이 서명과 호환되고 헤더 값을 파싱한다")
+    void acceptsGatewaySignature() throws Exception {
+        String ts = String.valueOf(NOW);
+        String sig = gatewaySign("42", "7", "A", ts);
+
+        InternalIdentity id = verifier.verify("42", "7", "A", ts, sig, "hash");
+
+        assertNotNull(id);
+        assertEquals(42L, id.memberId());
+        assertEquals(7L, id.coupleId());
+        assertEquals("A", id.role());
+        assertEquals("hash", id.tokenHash());
+    }
+
+    @Test
+    @DisplayName("커플/역할이 없는 서명도 검증된다")
+    void acceptsMissingOptionalHeaders() throws Exception {
+        String ts = String.valueOf(NOW);
+        InternalIdentity id = verifier.verify("42", null, null, ts, gatewaySign("42", null, null, ts), null);
+
+        assertNotNull(id);
+        assertNull(id.coupleId());
+        assertNull(id.role());
+    }
+
+    @Test
+    @DisplayName("값이 바뀌면 거절한다")
+    void rejectsTamperedHeaders() throws Exception {
+        String ts = String.valueOf(NOW);
+        String sig = gatewaySign("42", "7", "A", ts);
+
+        assertNull(verifier.verify("43", "7", "A", ts, sig, null));
+        assertNull(verifier.verify("42", "8", "A", ts, sig, null));
+        assertNull(verifier.verify("42", "7", "B", ts, sig, null));
+        assertNull(verifier.verify("42", "7", "A", ts, sig.substring(1) + "A", null));
+        assertNull(verifier.verify("42", "7", "A", ts, "short", null));
+    }
+
+    @Test
+    @DisplayName("타임스탬프 윈도우 밖이면 거절한다")
+    void rejectsOutsideWindow() throws Exception {
+        String old = String.valueOf(NOW - 31);
+        String future = String.valueOf(NOW + 31);
+        String edge = String.valueOf(NOW - 30);
+
+        assertNull(verifier.verify("42", "7", "A", old, gatewaySign("42", "7", "A", old), null));
+        assertNull(verifier.verify("42", "7", "A", future, gatewaySign("42", "7", "A", future), null));
+        assertNotNull(verifier.verify("42", "7", "A", edge, gatewaySign("42", "7", "A", edge), null));
+        assertNull(verifier.verify("42", "7", "A", "abc", gatewaySign("42", "7", "A", "abc"), null));
+    }
+
+    @Test
+    @DisplayName("ASCII 가 아닌 값도 UTF-8 경로로 같은 결과를 낸다")
+    void nonAsciiPayloadFallsBackToUtf8() throws Exception {
+        String ts = String.valueOf(NOW);
+        assertTrue(verifier.isValid("42", "7", "역할", ts, gatewaySign("42", "7", "역할", ts)));
+    }
+
+    @Test
+    @DisplayName("풀에서 재사용한 Mac 도 이전 상태가 남지 않는다")
+    void pooledMacIsReset() throws Exception {
+        String ts = String.valueOf(NOW);
+        for (int i = 0; i < 20; i++) {
+            String uid = String.valueOf(i);
+            assertNull(verifier.verify(uid, "7", "A", ts, "x".repeat(44), null));
+            assertNotNull(verifier.verify(uid, "7", "A", ts, gatewaySign(uid, "7", "A", ts), null));
+        }
+        assertEquals(verifier.sign("1", "7", "A", ts), gatewaySign("1", "7", "A", ts));
+    }
+
+    @Test
+    @DisplayName("시크릿이 비어 있으면 기동 시점에 설정 이름을 알려주며 실패한다")
+    void failsFastWithoutSecret() {
+        for (String secret : new String[]{null, "", "  "}) {
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> new InternalAuthVerifier(secret, 30));
+            assertTrue(e.getMessage().contains("GATEWAY_HMAC_SECRET"), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.helloworld.internalauth;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenKeysTest {
+
+    // Redis Cluster 규칙: 첫 '{' 와 그 뒤 첫 '}' 사이(비어있지 않으면)만 슬롯 계산에 사용
+    private static String hashTag(String key) {
+        int s = key.indexOf('{');
+        if (s < 0) return key;
+        int e = key.indexOf('}', s + 1);
+        if (e < 0 || e == s + 1) return key;
+        return key.substring(s + 1, e);
+    }
+
+    @Test
+    @DisplayName("한 회원의 토큰/블랙리스트/토큰 set 키는 같은 해시태그(같은 슬롯)를 쓴다")
+    void memberKeysShareSlot() {
+        String hash = "q1w2e3+/r4t5y6==";
+        String tag = hashTag(TokenKeys.memberTokens(42));
+
+        assertEquals("m:42", tag);
+        assertEquals(tag, hashTag(TokenKeys.token(42, hash)));
+        assertEquals(tag, hashTag(TokenKeys.blacklist(42, hash)));
+        assertNotEquals(tag, hashTag(TokenKeys.memberTokens(43)));
+    }
+
+    @Test
+    @DisplayName("토큰 해시가 키 이름에 그대로 들어가고 회원별로 구분된다")
+    void keysAreDistinct() {
+        String hash = "abc=";
+        assertEquals("auth:{m:7}:tok:abc=", TokenKeys.token(7, hash));
+        assertEquals("auth:{m:7}:bl:abc=", TokenKeys.blacklist(7, hash));
+        assertEquals("auth:{m:7}:tokens", TokenKeys.memberTokens(7));
+    }
+}
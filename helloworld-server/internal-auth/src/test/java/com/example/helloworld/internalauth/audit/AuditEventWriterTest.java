@@ -0,0 +1,78 @@
+package com.example.helloworld.internalauth.audit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditEventWriterTest {
+
+    /** INSERT 마다 VALUES 행 수를 기록하는 가짜 DataSource */
+    private static DataSource recording(List<Integer> rowsPerInsert) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (ds, m, args) -> {
+                    if (!m.getName().equals("getConnection")) throw new UnsupportedOperationException(m.getName());
+                    return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                            (con, cm, cargs) -> switch (cm.getName()) {
+                                case "prepareStatement" -> {
+                                    int rows = ((String) cargs[0]).split("\\(\\?", -1).length - 1;
+                                    yield Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                            new Class<?>[]{PreparedStatement.class}, (ps, pm, pargs) -> {
+                                                if (pm.getName().equals("executeUpdate")) {
+                                                    rowsPerInsert.add(rows);
+                                                    return rows;
+                                                }
+                                                return null;
+                                            });
+                                }
+                                case "close" -> null;
+                                default -> throw new UnsupportedOperationException(cm.getName());
+                            });
+                });
+    }
+
+    private static AuditEvent event(long i) {
+        return AuditEvent.access("test", i, i, "F", "GET", "/api/x", "127.0.0.1");
+    }
+
+    @Test
+    @DisplayName("batch-size 는 PostgreSQL 바인드 파라미터 상한 안이어야 한다")
+    void rejectsBatchSizeOverBindLimit() {
+        DataSource ds = recording(new CopyOnWriteArrayList<>());
+        assertThrows(IllegalArgumentException.class, () -> new AuditEventWriter(ds, 100, 0, 500));
+        assertThrows(IllegalArgumentException.class, () -> new AuditEventWriter(ds, 100, 5_000, 500));
+        assertThrows(IllegalArgumentException.class, () -> new AuditEventWriter(ds, 0, 10, 500));
+        assertDoesNotThrow(() -> new AuditEventWriter(ds, 100, AuditEventWriter.MAX_BIND_PARAMS / 8, 500));
+    }
+
+    @Test
+    @DisplayName("insert 는 1..batch-size 건만 받는다")
+    void insertChecksBatchBounds() {
+        AuditEventWriter writer = new AuditEventWriter(recording(new CopyOnWriteArrayList<>()), 100, 3, 500);
+        assertThrows(IllegalArgumentException.class, () -> writer.insert(List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> writer.insert(List.of(event(1), event(2), event(3), event(4))));
+    }
+
+    @Test
+    @DisplayName("종료 시 남은 큐도 batch-size 씩 나눠 저장한다")
+    void closeDrainsBacklogInBatches() {
+        List<Integer> rowsPerInsert = new CopyOnWriteArrayList<>();
+        AuditEventWriter writer = new AuditEventWriter(recording(rowsPerInsert), 1_000, 10, 60_000);
+        writer.start();
+        for (int i = 0; i < 95; i++) assertTrue(writer.offer(event(i)));
+        writer.close();
+
+        assertEquals(95, rowsPerInsert.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(rowsPerInsert.stream().allMatch(n -> n >= 1 && n <= 10), rowsPerInsert.toString());
+        assertEquals(95, writer.written());
+        assertEquals(0, writer.dropped());
+    }
+}
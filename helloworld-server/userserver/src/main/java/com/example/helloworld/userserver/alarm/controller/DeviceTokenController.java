@@ -3,6 +3,8 @@ package com.example.helloworld.userserver.alarm.controller;
 import com.example.helloworld.userserver.alarm.dto.FcmTokenResponse;
 import com.example.helloworld.userserver.alarm.entity.DeviceToken;
 import com.example.helloworld.userserver.alarm.persistence.DeviceTokenRepository;
+import com.example.helloworld.userserver.alarm.service.DeviceTokenTouchBuffer;
+import com.example.helloworld.userserver.alarm.service.PushRecipientEvents;
 import com.example.helloworld.userserver.member.util.InternalPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -20,6 +22,8 @@ public class DeviceTokenController {
 
 
     private final DeviceTokenRepository repo;
+    private final DeviceTokenTouchBuffer touchBuffer;
+    private final PushRecipientEvents pushRecipientEvents;
 
     public record RegisterReq(String token,String platform) {}
     public record UnregisterReq(String token) {}
@@ -38,7 +42,10 @@ public class DeviceTokenController {
             @RequestBody RegisterReq body) {
         var auth = requireAuth(principal);
         String pf = normalize(body.platform());
-        repo.upsert(auth.memberId(), body.token(),pf); // 2. principal에서 사용자 ID 사용
+        // 신규 토큰만 즉시 upsert, 나머지는 last_seen 합쳐서 반영
+        if (touchBuffer.register(auth.memberId(), body.token(), pf)) {
+            pushRecipientEvents.changed(auth.memberId()); // 헬스서버 토큰 캐시 무효화
+        }
         return ResponseEntity.noContent().build();
     }
 
@@ -57,6 +64,8 @@ public class DeviceTokenController {
             @RequestBody UnregisterReq body) {
         var auth = requireAuth(principal);
         repo.deactivate(auth.memberId(), body.token()); // 2. principal에서 사용자 ID 사용
+        touchBuffer.forget(auth.memberId(), body.token());
+        pushRecipientEvents.changed(auth.memberId());
         return ResponseEntity.noContent().build();
     }
 }
@@ -1,6 +1,7 @@
 package com.example.helloworld.userserver.alarm.controller;
 
-import com.example.helloworld.userserver.member.persistence.CoupleRepository;
+import com.example.helloworld.userserver.member.entity.MemberCouple;
+import com.example.helloworld.userserver.member.persistence.MemberCoupleRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,13 +16,14 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class InternalCoupleController {
 
-    private final CoupleRepository coupleRepo;
+    private final MemberCoupleRepository memberCoupleRepo;
 
     public record PartnerIdResponse(Long partnerId) {}
 
     @GetMapping("/{userId}/partner-id")
     public ResponseEntity<PartnerIdResponse> partnerId(@PathVariable Long userId) {
-        return coupleRepo.findPartnerIdByUserId(userId)
+        return memberCoupleRepo.findById(userId)
+                .map(MemberCouple::getPartnerId)
                 .map(id -> ResponseEntity.ok(new PartnerIdResponse(id)))
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
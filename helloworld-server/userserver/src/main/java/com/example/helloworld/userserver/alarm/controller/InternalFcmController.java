@@ -1,10 +1,13 @@
 package com.example.helloworld.userserver.alarm.controller;
 
 import com.example.helloworld.userserver.alarm.persistence.DeviceTokenRepository;
+import com.example.helloworld.userserver.alarm.service.DeviceTokenTouchBuffer;
+import com.example.helloworld.userserver.alarm.service.PushRecipientEvents;
 import com.example.helloworld.userserver.member.persistence.CoupleRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -17,9 +20,13 @@ import java.util.List;
 public class InternalFcmController {
 
     private final DeviceTokenRepository repo;
+    private final DeviceTokenTouchBuffer touchBuffer;
+    private final PushRecipientEvents pushRecipientEvents;
 
     public record LatestTwoResponse(Long userId, String androidToken, String watchToken) {}
     public record FcmTokenResponse(Long userId, String platform, String token) {}
+    public record DeadToken(Long userId, String token, String reason) {}
+    public record DeactivateTokensReq(List<DeadToken> tokens) {}
 
     // 별칭 매핑 (조회시에만 사용)
     private static List<String> aliases(String key) {
@@ -57,4 +64,20 @@ public class InternalFcmController {
         return t.map(dt -> ResponseEntity.ok(new FcmTokenResponse(userId, platform.toUpperCase(), dt.getToken())))
                 .orElseGet(() -> ResponseEntity.noContent().build());
     }
-}
\ No newline at end of file
+
+    // 헬스서버가 FCM 발송 중 수집한 dead 토큰(UNREGISTERED/INVALID_ARGUMENT)을 일괄 비활성화
+    @PostMapping("/tokens/deactivate")
+    @Transactional
+    public ResponseEntity<Void> deactivateTokens(@RequestBody DeactivateTokensReq req) {
+        if (req == null || req.tokens() == null || req.tokens().isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        for (DeadToken t : req.tokens()) {
+            if (t.userId() == null || t.token() == null || t.token().isBlank()) continue;
+            repo.deactivate(t.userId(), t.token());
+            touchBuffer.forget(t.userId(), t.token());
+        }
+        pushRecipientEvents.changed(req.tokens().stream().map(DeadToken::userId).toArray(Long[]::new));
+        return ResponseEntity.noContent().build();
+    }
+}
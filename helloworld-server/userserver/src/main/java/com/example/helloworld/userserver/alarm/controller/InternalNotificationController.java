@@ -1,6 +1,7 @@
 package com.example.helloworld.userserver.alarm.controller;
 
 import com.example.helloworld.userserver.alarm.entity.NotificationRecipient;
+import com.example.helloworld.userserver.alarm.persistence.NotificationRecipientBulkRepository;
 import com.example.helloworld.userserver.alarm.persistence.NotificationRecipientRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -11,6 +12,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/internal/notifications")
 @RequiredArgsConstructor
@@ -19,6 +22,7 @@ public class InternalNotificationController {
 
     // 헬스서버가 집계 결과만 전달
     public record UpsertReq(Long alarmId, Long userId, String status, String messageId, String failReason) {}
+    public record UpsertBatchReq(List<UpsertReq> items) {}
 
     @PostMapping("/recipients/upsert")
     @Transactional
@@ -43,6 +47,21 @@ public class InternalNotificationController {
         return ResponseEntity.noContent().build();
     }
 
+    // 헬스서버 버퍼가 모아서 보내는 다건 업서트 (멀티로우 INSERT ... ON CONFLICT 한 번)
+    @PostMapping("/recipients/upsert-batch")
+    @Transactional
+    public ResponseEntity<Void> upsertRecipients(@RequestBody UpsertBatchReq req) {
+        if (req == null || req.items() == null || req.items().isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        List<NotificationRecipientBulkRepository.Row> rows = req.items().stream()
+                .map(i -> new NotificationRecipientBulkRepository.Row(
+                        i.alarmId(), i.userId(), i.status(), i.messageId(), i.failReason()))
+                .toList();
+        repo.upsertAll(rows);
+        return ResponseEntity.noContent().build();
+    }
+
     private void applyStatus(NotificationRecipient rec, String status, String msgId, String reason) {
         String s = status == null ? "" : status.toUpperCase();
         if ("SENT".equals(s)) rec.markSent(msgId);
@@ -0,0 +1,23 @@
+package com.example.helloworld.userserver.alarm.persistence;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * device_tokens.last_seen_at 일괄 갱신 / 재활성화 (JDBC batch)
+ */
+public interface DeviceTokenBulkRepository {
+
+    record Touch(Long userId, String token, Instant seenAt) {}
+
+    /** @return 입력 순서대로 갱신된 행 수 (0이면 행이 없거나 비활성) */
+    int[] touchAll(List<Touch> touches);
+
+    record Revive(Long userId, String token, String platform, Instant seenAt) {}
+
+    /**
+     * 등록(seenAt) 이후에 비활성화되지 않은 토큰만 다시 활성 upsert (행이 없으면 새로 넣음)
+     * @return 입력 순서대로 쓰인 행 수 (0이면 seenAt 이후에 비활성화됨 → 그대로 둠)
+     */
+    int[] reviveAll(List<Revive> revives);
+}
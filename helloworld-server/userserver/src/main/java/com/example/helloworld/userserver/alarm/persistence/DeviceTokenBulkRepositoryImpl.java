@@ -0,0 +1,54 @@
+package com.example.helloworld.userserver.alarm.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * DeviceTokenRepository 의 커스텀 프래그먼트.
+ * 활성 토큰의 last_seen_at 만 앞으로 당긴다 (늦게 도착한 값으로 되돌리지 않음).
+ * 다른 인스턴스에서 비활성화된 토큰은 그 뒤의 등록이었을 때만 다시 활성화한다.
+ */
+@RequiredArgsConstructor
+public class DeviceTokenBulkRepositoryImpl implements DeviceTokenBulkRepository {
+
+    private static final String TOUCH_SQL = """
+            UPDATE device_tokens
+               SET last_seen_at = GREATEST(last_seen_at, ?)
+             WHERE user_id = ? AND token = ? AND is_active = TRUE
+            """;
+
+    // 비활성화(deactivate)는 last_seen_at = now() 를 남김 → 그보다 늦은 등록만 되살린다
+    private static final String REVIVE_SQL = """
+            INSERT INTO device_tokens(user_id, token, platform, is_active, created_at, last_seen_at)
+            VALUES (?, ?, ?, TRUE, now(), ?)
+            ON CONFLICT ON CONSTRAINT ux_device_token
+            DO UPDATE SET
+              is_active = TRUE,
+              platform = EXCLUDED.platform,
+              last_seen_at = GREATEST(device_tokens.last_seen_at, EXCLUDED.last_seen_at)
+            WHERE device_tokens.is_active
+               OR device_tokens.last_seen_at IS NULL
+               OR device_tokens.last_seen_at < EXCLUDED.last_seen_at
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    @Override
+    public int[] touchAll(List<Touch> touches) {
+        if (touches == null || touches.isEmpty()) return new int[0];
+        return jdbc.batchUpdate(TOUCH_SQL, touches.stream()
+                .map(t -> new Object[]{Timestamp.from(t.seenAt()), t.userId(), t.token()})
+                .toList());
+    }
+
+    @Override
+    public int[] reviveAll(List<Revive> revives) {
+        if (revives == null || revives.isEmpty()) return new int[0];
+        return jdbc.batchUpdate(REVIVE_SQL, revives.stream()
+                .map(r -> new Object[]{r.userId(), r.token(), r.platform(), Timestamp.from(r.seenAt())})
+                .toList());
+    }
+}
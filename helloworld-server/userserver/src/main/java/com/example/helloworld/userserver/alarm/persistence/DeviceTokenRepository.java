@@ -13,7 +13,7 @@ import java.util.Optional;
 import java.sql.Timestamp;
 import java.util.List;
 
-public interface DeviceTokenRepository extends JpaRepository<DeviceToken, Long> {
+public interface DeviceTokenRepository extends JpaRepository<DeviceToken, Long>, DeviceTokenBulkRepository {
 
     List<DeviceToken> findByUserIdAndIsActiveTrue(Long userId);
 
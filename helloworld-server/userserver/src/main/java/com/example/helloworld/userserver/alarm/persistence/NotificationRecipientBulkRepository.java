@@ -0,0 +1,14 @@
+package com.example.helloworld.userserver.alarm.persistence;
+
+import java.util.List;
+
+/**
+ * notification_recipients 다건 업서트 (멀티로우 INSERT ... ON CONFLICT)
+ */
+public interface NotificationRecipientBulkRepository {
+
+    record Row(Long alarmId, Long userId, String status, String messageId, String failReason) {}
+
+    /** @return 반영된 행 수 */
+    int upsertAll(List<Row> rows);
+}
@@ -0,0 +1,80 @@
+package com.example.helloworld.userserver.alarm.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NotificationRecipientRepository 의 커스텀 프래그먼트.
+ * 같은 (alarm_id, recipient_user_id)가 한 문장에 두 번 들어가면 ON CONFLICT가 실패하므로 마지막 값만 남긴다.
+ */
+@RequiredArgsConstructor
+public class NotificationRecipientBulkRepositoryImpl implements NotificationRecipientBulkRepository {
+
+    // PostgreSQL 바인드 파라미터 한도(65535) 안쪽으로 끊어서 실행
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbc;
+
+    @Override
+    public int upsertAll(List<Row> rows) {
+        if (rows == null || rows.isEmpty()) return 0;
+
+        Map<String, Row> dedup = new LinkedHashMap<>();
+        for (Row r : rows) {
+            if (r.alarmId() == null || r.userId() == null) continue;
+            dedup.put(r.alarmId() + ":" + r.userId(), r);
+        }
+        List<Row> unique = new ArrayList<>(dedup.values());
+
+        int affected = 0;
+        for (int from = 0; from < unique.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Row> chunk = unique.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, unique.size()));
+            affected += upsertChunk(chunk);
+        }
+        return affected;
+    }
+
+    private int upsertChunk(List<Row> chunk) {
+        StringBuilder sql = new StringBuilder(128 + chunk.size() * 64);
+        sql.append("""
+                INSERT INTO notification_recipients
+                  (alarm_id, recipient_user_id, status, message_id, fail_reason, created_at, sent_at)
+                VALUES
+                """);
+        Object[] args = new Object[chunk.size() * 6];
+        int i = 0;
+        for (int n = 0; n < chunk.size(); n++) {
+            Row r = chunk.get(n);
+            String status = normalize(r.status());
+            if (n > 0) sql.append(",\n");
+            sql.append("(?, ?, ?, ?, ?, now(), CASE WHEN ? = 'SENT' THEN now() ELSE NULL END)");
+            args[i++] = r.alarmId();
+            args[i++] = r.userId();
+            args[i++] = status;
+            args[i++] = "SENT".equals(status) ? r.messageId() : null;
+            args[i++] = "FAILED".equals(status) ? r.failReason() : null;
+            args[i++] = status;
+        }
+        sql.append("""
+
+                ON CONFLICT (alarm_id, recipient_user_id)
+                DO UPDATE SET
+                  status = EXCLUDED.status,
+                  message_id = EXCLUDED.message_id,
+                  fail_reason = EXCLUDED.fail_reason,
+                  sent_at = CASE WHEN EXCLUDED.status = 'SENT' THEN now() ELSE NULL END
+                """);
+        return jdbc.update(sql.toString(), args);
+    }
+
+    // InternalNotificationController.applyStatus 와 같은 규칙: SENT / FAILED 외에는 PENDING
+    private static String normalize(String status) {
+        String s = status == null ? "" : status.toUpperCase();
+        return ("SENT".equals(s) || "FAILED".equals(s)) ? s : "PENDING";
+    }
+}
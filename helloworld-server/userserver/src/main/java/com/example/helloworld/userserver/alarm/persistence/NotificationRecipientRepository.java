@@ -8,7 +8,8 @@ import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
-public interface NotificationRecipientRepository extends JpaRepository<NotificationRecipient, Long> {
+public interface NotificationRecipientRepository extends JpaRepository<NotificationRecipient, Long>,
+        NotificationRecipientBulkRepository {
     Optional<NotificationRecipient> findByAlarmIdAndRecipientUserId(Long alarmId, Long recipientUserId);
 
     @Modifying
@@ -0,0 +1,194 @@
+package com.example.helloworld.userserver.alarm.service;
+
+import com.example.helloworld.userserver.alarm.persistence.DeviceTokenBulkRepository;
+import com.example.helloworld.userserver.alarm.persistence.DeviceTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * /api/fcm/register 는 앱 실행마다 호출되는데 대부분 last_seen_at 갱신뿐이다.
+ * - 처음 보는 (user, token) 이거나 플랫폼이 바뀐 경우 → 즉시 upsert (동기)
+ * - 이미 활성으로 알고 있는 토큰 → last_seen 만 메모리에 합쳐 두고 주기적으로 일괄 UPDATE
+ * - 일괄 UPDATE 결과가 0행이면(다른 인스턴스에서 비활성화 등) 그 등록 시각 기준으로 다시 활성 upsert
+ *   (비활성화가 등록보다 늦었으면 그대로 둠) → 되살린 회원은 PushRecipientEvents 로 헬스서버 캐시 무효화
+ */
+@Slf4j
+@Component
+public class DeviceTokenTouchBuffer {
+
+    private record Key(Long userId, String token) {}
+    private record Known(String platform, long confirmedAt) {}
+    private record Pending(Instant seenAt, String platform) {}
+
+    private final DeviceTokenRepository repo;
+    private final PushRecipientEvents pushRecipientEvents;
+    private final int batchSize;
+    private final long knownTtlMillis;
+    private final int maxKnown;
+
+    // 최근 upsert 로 활성 상태가 확인된 토큰
+    private final Map<Key, Known> known = new ConcurrentHashMap<>();
+    // 아직 DB 에 반영되지 않은 last_seen (같은 키는 마지막 값으로 합쳐짐)
+    private final Map<Key, Pending> pendingTouches = new ConcurrentHashMap<>();
+
+    private final Counter syncUpserts;
+    private final Counter coalescedTouches;
+    private final Counter flushedTouches;
+    private final Counter revivedTokens;
+
+    public DeviceTokenTouchBuffer(
+            DeviceTokenRepository repo,
+            PushRecipientEvents pushRecipientEvents,
+            MeterRegistry registry,
+            @Value("${fcm.token-touch.batch-size:500}") int batchSize,
+            @Value("${fcm.token-touch.known-ttl-minutes:30}") long knownTtlMinutes,
+            @Value("${fcm.token-touch.max-known:100000}") int maxKnown
+    ) {
+        this.repo = repo;
+        this.pushRecipientEvents = pushRecipientEvents;
+        this.batchSize = batchSize;
+        this.knownTtlMillis = knownTtlMinutes * 60_000L;
+        this.maxKnown = maxKnown;
+        this.syncUpserts = Counter.builder("fcm.token.register.upsert")
+                .description("Token registrations written synchronously (new token or platform change)")
+                .register(registry);
+        this.coalescedTouches = Counter.builder("fcm.token.register.coalesced")
+                .description("Token registrations absorbed into the last-seen buffer")
+                .register(registry);
+        this.flushedTouches = Counter.builder("fcm.token.touch.flushed")
+                .description("last_seen_at rows written by the batched flush")
+                .register(registry);
+        this.revivedTokens = Counter.builder("fcm.token.touch.revived")
+                .description("Buffered registrations re-activated after the token was deactivated elsewhere")
+                .register(registry);
+        registry.gaugeMapSize("fcm.token.touch.pending", List.of(), pendingTouches);
+    }
+
+    /** @return DB 에 즉시 upsert 했으면 true (새 토큰/플랫폼 변경 → 최신 토큰이 바뀌었을 수 있음) */
+    public boolean register(Long userId, String token, String platform) {
+        Key key = new Key(userId, token);
+        long now = System.currentTimeMillis();
+        Known k = known.get(key);
+        if (k != null && k.platform().equals(platform) && now - k.confirmedAt() < knownTtlMillis) {
+            pendingTouches.merge(key, new Pending(Instant.ofEpochMilli(now), platform), DeviceTokenTouchBuffer::later);
+            coalescedTouches.increment();
+            return false;
+        }
+
+        repo.upsert(userId, token, platform);
+        syncUpserts.increment();
+        pendingTouches.remove(key); // 방금 now() 로 기록됨
+        if (known.size() < maxKnown) {
+            known.put(key, new Known(platform, now));
+        }
+        return true;
+    }
+
+    /** 비활성화된 토큰은 버퍼에서 제거 (다음 등록 시 다시 활성화 upsert) */
+    public void forget(Long userId, String token) {
+        Key key = new Key(userId, token);
+        known.remove(key);
+        pendingTouches.remove(key);
+    }
+
+    @Scheduled(fixedDelayString = "${fcm.token-touch.flush-interval-ms:30000}")
+    public void flush() {
+        evictExpired();
+        if (pendingTouches.isEmpty()) return;
+
+        List<Key> keys = new ArrayList<>(batchSize);
+        List<Pending> batch = new ArrayList<>(batchSize);
+        for (Key key : pendingTouches.keySet()) {
+            Pending p = pendingTouches.remove(key);
+            if (p == null) continue;
+            keys.add(key);
+            batch.add(p);
+            if (batch.size() >= batchSize) {
+                if (!write(keys, batch)) return;
+                keys.clear();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) write(keys, batch);
+    }
+
+    private boolean write(List<Key> keys, List<Pending> batch) {
+        try {
+            List<DeviceTokenBulkRepository.Touch> touches = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                touches.add(new DeviceTokenBulkRepository.Touch(keys.get(i).userId(), keys.get(i).token(), batch.get(i).seenAt()));
+            }
+            int[] counts = repo.touchAll(touches);
+            flushedTouches.increment(batch.size());
+            List<Integer> missed = new ArrayList<>();
+            for (int i = 0; i < counts.length && i < keys.size(); i++) {
+                if (counts[i] == 0) missed.add(i); // 행 없음/비활성
+            }
+            if (!missed.isEmpty()) revive(keys, batch, missed);
+            return true;
+        } catch (Exception e) {
+            // 다음 주기에 재시도 (그 사이 들어온 더 최신 값은 유지)
+            for (int i = 0; i < keys.size(); i++) {
+                pendingTouches.merge(keys.get(i), batch.get(i), DeviceTokenTouchBuffer::later);
+            }
+            log.warn("[FCM-TOKEN] last_seen flush failed size={} : {}", batch.size(), e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * touch 가 0행인 키: 다른 인스턴스에서 unregister/dead 토큰 비활성화됐거나 행이 지워진 경우.
+     * 앱이 그 뒤에 다시 등록한 것이면 예전처럼 upsert 로 되살리고, 아니면(비활성화가 더 늦음) known 에서만 뺀다.
+     */
+    private void revive(List<Key> keys, List<Pending> batch, List<Integer> missed) {
+        for (int i : missed) known.remove(keys.get(i));
+        List<DeviceTokenBulkRepository.Revive> revives = missed.stream()
+                .map(i -> new DeviceTokenBulkRepository.Revive(
+                        keys.get(i).userId(), keys.get(i).token(), batch.get(i).platform(), batch.get(i).seenAt()))
+                .toList();
+        int[] counts;
+        try {
+            counts = repo.reviveAll(revives);
+        } catch (Exception e) {
+            // touch 는 이미 반영됨 → 재시도 대신 다음 등록이 upsert 경로로 (known 에서 뺐으므로)
+            log.warn("[FCM-TOKEN] revive failed size={} : {}", revives.size(), e.toString());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Long> revivedUsers = new ArrayList<>();
+        for (int j = 0; j < counts.length && j < revives.size(); j++) {
+            if (counts[j] == 0) continue;
+            Key key = keys.get(missed.get(j));
+            if (known.size() < maxKnown) known.put(key, new Known(revives.get(j).platform(), now));
+            revivedUsers.add(key.userId());
+        }
+        if (revivedUsers.isEmpty()) return;
+        revivedTokens.increment(revivedUsers.size());
+        pushRecipientEvents.changed(revivedUsers.toArray(Long[]::new)); // 헬스서버 토큰 캐시 무효화
+    }
+
+    private static Pending later(Pending a, Pending b) {
+        return a.seenAt().isAfter(b.seenAt()) ? a : b;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        known.entrySet().removeIf(e -> now - e.getValue().confirmedAt() >= knownTtlMillis);
+    }
+
+    @PreDestroy
+    void drainOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.helloworld.userserver.alarm.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 헬스서버 푸시 수신자 캐시(CachingTokenResolver) 무효화 이벤트
+ * - FCM 토큰 등록/해제, 커플 연동/해제 시 해당 회원 id 를 pub/sub 로 보냄
+ * - 트랜잭션 안이면 커밋 후에 (롤백된 변경으로 캐시를 지우지 않도록)
+ * - Redis 장애 시 헬스서버 캐시는 TTL 안에 만료됨
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PushRecipientEvents {
+
+    // 헬스서버 CachingTokenResolver.CHANNEL 과 같은 값
+    static final String CHANNEL = "push-recipients:invalidate";
+
+    private final StringRedisTemplate redis;
+
+    public void changed(Long... memberIds) {
+        List<Long> ids = Arrays.stream(memberIds).filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { publish(ids); }
+            });
+        } else {
+            publish(ids);
+        }
+    }
+
+    private void publish(List<Long> ids) {
+        try {
+            redis.convertAndSend(CHANNEL, ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (Exception ex) {
+            log.warn("[PUSH-RECIPIENTS] publish failed ids={} : {}", ids, ex.toString());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.helloworld.userserver.auth.application;
 
+import com.example.helloworld.userserver.alarm.service.PushRecipientEvents;
 import com.example.helloworld.userserver.auth.application.command.LoginCommand;
 import com.example.helloworld.userserver.auth.application.result.LoginResult;
 import com.example.helloworld.userserver.auth.jwt.JwtProvider;
@@ -12,7 +13,7 @@ import com.example.helloworld.userserver.auth.token.TokenHashes;
 import com.example.helloworld.userserver.exception.HelloWordException;
 import com.example.helloworld.userserver.exception.code.AuthErrorCode;
 import com.example.helloworld.userserver.member.entity.Member;
-import com.example.helloworld.userserver.member.persistence.CoupleRepository;
+import com.example.helloworld.userserver.member.persistence.MemberCoupleRepository;
 import com.example.helloworld.userserver.member.persistence.MemberRepository;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken.Payload;
 import io.jsonwebtoken.Jwts;
@@ -39,7 +40,8 @@ public class AuthService {
     private final JwtProvider jwtProvider;
     private final RefreshTokenRepository refreshTokenRepository;
     private final TokenCacheService tokenCacheService;
-    private final CoupleRepository coupleRepository;
+    private final MemberCoupleRepository memberCoupleRepository;
+    private final PushRecipientEvents pushRecipientEvents;
 
     @Value("${jwt.refresh.expire}")     // ms 단위
     private long refreshMillis;
@@ -47,13 +49,8 @@ public class AuthService {
     private record CoupleInfo(Long coupleId, String role) {}
 
     private CoupleInfo resolveCoupleInfo(Long memberId) {
-        return coupleRepository.findByUserA_IdOrUserB_Id(memberId, memberId)
-                .map(c -> {
-                    String role = (c.getUserA() != null && c.getUserA().getId().equals(memberId)) ? "A"
-                            : (c.getUserB() != null && c.getUserB().getId().equals(memberId)) ? "B"
-                            : null;
-                    return new CoupleInfo(c.getId(), role);
-                })
+        return memberCoupleRepository.findById(memberId)
+                .map(mc -> new CoupleInfo(mc.getCoupleId(), mc.getRole()))
                 .orElse(new CoupleInfo(null, null));
     }
 
@@ -170,7 +167,8 @@ public class AuthService {
         }
         if (accessToken != null && !accessToken.isBlank()) {
             long remain = jwtProvider.getAccessTokenRemainingSeconds(accessToken);
-            tokenCacheService.blacklistAccessToken(accessToken, remain);
+            Long memberId = jwtProvider.parseAccessSubject(accessToken); // 블랙리스트 키가 회원 단위 슬롯
+            tokenCacheService.blacklistAccessToken(memberId, accessToken, remain);
         }
     }
 
@@ -180,7 +178,9 @@ public class AuthService {
         if (!memberRepository.existsById(memberId)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
+        Long partnerId = memberCoupleRepository.findById(memberId).map(mc -> mc.getPartnerId()).orElse(null);
         memberRepository.deleteById(memberId);
+        pushRecipientEvents.changed(memberId, partnerId); // 헬스서버 토큰/파트너 캐시
     }
 
     // --- 기존 헬퍼들 ---
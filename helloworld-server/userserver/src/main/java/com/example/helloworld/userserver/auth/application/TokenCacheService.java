@@ -1,41 +1,87 @@
 package com.example.helloworld.userserver.auth.application;
 
 
+import com.example.helloworld.internalauth.TokenKeys;
 import com.example.helloworld.userserver.auth.token.TokenHashes;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * TokenCacheService
  *
  * - 원문 토큰은 저장하지 않고 sha256Base64 해시만 Redis key로 사용.
- * - token:{hash} -> JSON { active, memberId, coupleId, role, exp }
- * - user_tokens:{memberId} -> set{hash1, hash2, ...}
- * - blacklist:{hash} -> "1" (TTL = remaining lifetime)
+ * - 키 레이아웃은 internal-auth 의 TokenKeys (gateway 와 공유). 회원 단위 해시태그 {m:memberId}
+ *   - auth:{m:id}:tok:{hash} -> JSON { active, memberId, coupleId, role, exp }
+ *   - auth:{m:id}:tokens     -> set{hash1, hash2, ...}
+ *   - auth:{m:id}:bl:{hash}  -> "1" (TTL = remaining lifetime)
+ * - 한 회원의 키가 같은 슬롯이라 등록/폐기/전체 폐기를 Lua 한 번으로 처리 (Redis Cluster 호환)
+ * - app.token-cache.legacy-keys=true 인 동안은 이전 키(token:/blacklist:/user_tokens:)도 폐기 대상에 포함
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class TokenCacheService {
 
     private final StringRedisTemplate redis;
     private final ObjectMapper om = new ObjectMapper();
+    private final boolean legacyKeys;
 
     // 안전 캡(초) — 너무 큰 TTL을 막기 위해
     private static final long MAX_CACHE_TTL_SECONDS = 720000000;
+    private static final long DEFAULT_BLACKLIST_SECONDS = 60;
 
-    private String tokenKey(String hash) { return "token:" + hash; }
-    private String blacklistKey(String hash) { return "blacklist:" + hash; }
-    private String userTokensKey(Long memberId) { return "user_tokens:" + memberId; }
+    // KEYS[1]=tok, KEYS[2]=tokens set / ARGV: json, ttlSec, hash
+    private static final DefaultRedisScript<Long> REGISTER = new DefaultRedisScript<>("""
+            redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+            redis.call('SADD', KEYS[2], ARGV[3])
+            if redis.call('TTL', KEYS[2]) < tonumber(ARGV[2]) then
+              redis.call('EXPIRE', KEYS[2], ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS[1]=bl, KEYS[2]=tok, KEYS[3]=tokens set / ARGV: ttlSec, hash
+    private static final DefaultRedisScript<Long> BLACKLIST = new DefaultRedisScript<>("""
+            redis.call('SET', KEYS[1], '1', 'EX', ARGV[1])
+            redis.call('DEL', KEYS[2])
+            redis.call('SREM', KEYS[3], ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS[1]=tokens set, KEYS[2i]=tok_i, KEYS[2i+1]=bl_i / ARGV[1]=default ttl, ARGV[i+1]=hash_i
+    // 블랙리스트 TTL = 토큰 키의 남은 TTL (토큰 TTL 이 곧 남은 수명). 처리한 해시만 SREM → 사이에 등록된 토큰은 남음
+    private static final DefaultRedisScript<Long> REVOKE_ALL = new DefaultRedisScript<>("""
+            local n = 0
+            for i = 2, #KEYS, 2 do
+              local ttl = redis.call('TTL', KEYS[i])
+              if ttl < 1 then ttl = tonumber(ARGV[1]) end
+              redis.call('SET', KEYS[i + 1], '1', 'EX', ttl)
+              redis.call('DEL', KEYS[i])
+              redis.call('SREM', KEYS[1], ARGV[n + 2])
+              n = n + 1
+            end
+            return n
+            """, Long.class);
+
+    public TokenCacheService(
+            StringRedisTemplate redis,
+            @Value("${app.token-cache.legacy-keys:true}") boolean legacyKeys
+    ) {
+        this.redis = redis;
+        this.legacyKeys = legacyKeys;
+    }
 
     /**
      * Register an access token in Redis.
@@ -47,7 +93,6 @@ public class TokenCacheService {
      */
     public void registerAccessToken(String accessToken, Long memberId, Long coupleId, String role, long accessExpMs) {
         String hash = TokenHashes.sha256B64(accessToken);
-        String key = tokenKey(hash);
 
         long nowMs = System.currentTimeMillis();
         long ttlSec = Math.max(1, (accessExpMs - nowMs) / 1000L);
@@ -63,12 +108,10 @@ public class TokenCacheService {
             else node.putNull("role");
             node.put("exp", accessExpMs / 1000L); // epoch seconds
 
-            redis.opsForValue().set(key, node.toString(), Duration.ofSeconds(ttlSec));
-
-            // add token hash to user's set and keep a TTL on the set at least as long as token ttl
-            String setKey = userTokensKey(memberId);
-            redis.opsForSet().add(setKey, hash);
-            redis.expire(setKey, Duration.ofSeconds(ttlSec));
+            // 토큰 JSON + 회원 토큰 set 등록을 한 번에 (set TTL 은 가장 긴 토큰 이상으로 유지)
+            redis.execute(REGISTER,
+                    List.of(TokenKeys.token(memberId, hash), TokenKeys.memberTokens(memberId)),
+                    node.toString(), String.valueOf(ttlSec), hash);
         } catch (Exception e) {
             log.error("Failed to register access token in redis for memberId={}: {}", memberId, e.getMessage());
             throw new IllegalStateException(e);
@@ -77,15 +120,19 @@ public class TokenCacheService {
 
     /**
      * Blacklist a token given its hash (sha256B64). TTL should be remaining lifetime.
-     * Also deletes token:{hash} to force cache miss.
+     * Also deletes the token entry to force cache miss.
      */
-    public void blacklistTokenByHash(String hash, long remainingSeconds) {
-        String blKey = blacklistKey(hash);
+    public void blacklistTokenByHash(Long memberId, String hash, long remainingSeconds) {
+        long ttl = Math.max(1, remainingSeconds);
         try {
-            long ttl = Math.max(1, remainingSeconds);
-            redis.opsForValue().set(blKey, "1", Duration.ofSeconds(ttl));
-            // optionally delete token entry to force miss immediately
-            redis.delete(tokenKey(hash));
+            redis.execute(BLACKLIST,
+                    List.of(TokenKeys.blacklist(memberId, hash), TokenKeys.token(memberId, hash),
+                            TokenKeys.memberTokens(memberId)),
+                    String.valueOf(ttl), hash);
+            if (legacyKeys) {
+                redis.opsForValue().set(TokenKeys.LEGACY_BLACKLIST_PREFIX + hash, "1", Duration.ofSeconds(ttl));
+                redis.delete(TokenKeys.LEGACY_TOKEN_PREFIX + hash);
+            }
         } catch (Exception e) {
             log.warn("Failed to blacklist token {}: {}", hash, e.getMessage());
         }
@@ -94,49 +141,53 @@ public class TokenCacheService {
     /**
      * Blacklist an access token by its raw value (convenience).
      */
-    public void blacklistAccessToken(String accessToken, long remainingSeconds) {
+    public void blacklistAccessToken(Long memberId, String accessToken, long remainingSeconds) {
         String hash = TokenHashes.sha256B64(accessToken);
-        blacklistTokenByHash(hash, remainingSeconds);
+        blacklistTokenByHash(memberId, hash, remainingSeconds);
     }
 
     /**
      * Revoke all access tokens for a member:
-     * - iterate user_tokens:{memberId} set
-     * - for each hash: if token:{hash} exists parse exp -> set blacklist:{hash} TTL accordingly; delete token:{hash}
-     * - delete the user_tokens set
+     * - SMEMBERS auth:{m:id}:tokens
+     * - 스크립트 한 번으로 각 토큰 blacklist(TTL=남은 수명) + 토큰 키 삭제 + set 에서 제거
      */
     public void revokeAllAccessTokensForMember(Long memberId) {
-        String setKey = userTokensKey(memberId);
+        String setKey = TokenKeys.memberTokens(memberId);
         try {
             Set<String> hashes = redis.opsForSet().members(setKey);
-            if (hashes == null || hashes.isEmpty()) {
-                // nothing to revoke
-                return;
-            }
-            for (String hash : hashes) {
-                String tkKey = tokenKey(hash);
-                String json = redis.opsForValue().get(tkKey);
-                long remaining = 60; // default fallback
-                if (json != null) {
-                    try {
-                        JsonNode node = om.readTree(json);
-                        long exp = node.path("exp").asLong(Instant.now().getEpochSecond() + 60);
-                        long now = Instant.now().getEpochSecond();
-                        remaining = Math.max(1, exp - now);
-                    } catch (Exception ignore) {}
+            if (hashes != null && !hashes.isEmpty()) {
+                List<String> keys = new ArrayList<>(1 + hashes.size() * 2);
+                List<String> args = new ArrayList<>(1 + hashes.size());
+                keys.add(setKey);
+                args.add(String.valueOf(DEFAULT_BLACKLIST_SECONDS));
+                for (String hash : hashes) {
+                    keys.add(TokenKeys.token(memberId, hash));
+                    keys.add(TokenKeys.blacklist(memberId, hash));
+                    args.add(hash);
                 }
-                // set blacklist + remove token key
-                redis.opsForValue().set(blacklistKey(hash), "1", Duration.ofSeconds(Math.max(1, remaining)));
-                redis.delete(tkKey);
+                redis.execute(REVOKE_ALL, keys, args.toArray());
             }
-            // finally remove the set
-            redis.delete(setKey);
+            if (legacyKeys) revokeAllLegacy(memberId);
         } catch (Exception e) {
             log.error("Failed to revoke all access tokens for member {}: {}", memberId, e.getMessage());
             // don't rethrow to avoid cascade failure; caller can handle logging/alerts
         }
     }
 
+    // 클러스터 전환 이전에 발급된 토큰 (token:/blacklist:/user_tokens:) — 키마다 개별 명령
+    private void revokeAllLegacy(Long memberId) {
+        String setKey = TokenKeys.LEGACY_USER_TOKENS_PREFIX + memberId;
+        Set<String> hashes = redis.opsForSet().members(setKey);
+        if (hashes == null || hashes.isEmpty()) return;
+        for (String hash : hashes) {
+            String tkKey = TokenKeys.LEGACY_TOKEN_PREFIX + hash;
+            long remaining = remainingSeconds(redis.opsForValue().get(tkKey));
+            redis.opsForValue().set(TokenKeys.LEGACY_BLACKLIST_PREFIX + hash, "1", Duration.ofSeconds(remaining));
+            redis.delete(tkKey);
+        }
+        redis.delete(setKey);
+    }
+
     /**
      * Update token JSON fields (coupleId / role) for a specific raw access token.
      * - used after user registers and coupleId becomes available.
@@ -167,52 +218,66 @@ public class TokenCacheService {
 
 
     public int updateAllTokensForMember(Long memberId, Long coupleId, String role) {
-        String setKey = userTokensKey(memberId);              // user_tokens:{memberId}
         try {
-            Set<String> hashes = redis.opsForSet().members(setKey);
-            if (hashes == null || hashes.isEmpty()) return 0;
+            int updated = updateTokens(
+                    redis.opsForSet().members(TokenKeys.memberTokens(memberId)),
+                    hash -> TokenKeys.token(memberId, hash), coupleId, role);
+            if (legacyKeys) {
+                updated += updateTokens(
+                        redis.opsForSet().members(TokenKeys.LEGACY_USER_TOKENS_PREFIX + memberId),
+                        hash -> TokenKeys.LEGACY_TOKEN_PREFIX + hash, coupleId, role);
+            }
+            return updated;
+        } catch (Exception e) {
+            log.warn("Failed to update tokens for memberId={}: {}", memberId, e.getMessage());
+            return 0;
+        }
+    }
 
-            int updated = 0;
-            for (String hash : hashes) {
-                String tkKey = tokenKey(hash);                // token:{hash}
-                String json = redis.opsForValue().get(tkKey);
-                if (json == null) continue;
+    private int updateTokens(Set<String> hashes, Function<String, String> keyOf,
+                             Long coupleId, String role) throws Exception {
+        if (hashes == null || hashes.isEmpty()) return 0;
 
-                ObjectNode node = (ObjectNode) om.readTree(json);
+        int updated = 0;
+        for (String hash : hashes) {
+            String tkKey = keyOf.apply(hash);
+            String json = redis.opsForValue().get(tkKey);
+            if (json == null) continue;
 
-                // 전달된 값으로 upsert
-                if (coupleId != null) node.put("coupleId", String.valueOf(coupleId));
-                else node.putNull("coupleId");
+            ObjectNode node = (ObjectNode) om.readTree(json);
 
-                if (role != null) node.put("role", role);
-                else node.putNull("role");
+            // 전달된 값으로 upsert
+            if (coupleId != null) node.put("coupleId", String.valueOf(coupleId));
+            else node.putNull("coupleId");
 
-                Long ttlSec = redis.getExpire(tkKey);
-                if (ttlSec == null || ttlSec <= 0) ttlSec = MAX_CACHE_TTL_SECONDS;
+            if (role != null) node.put("role", role);
+            else node.putNull("role");
 
-                redis.opsForValue().set(tkKey, node.toString(), Duration.ofSeconds(ttlSec));
-                updated++;
-            }
-            return updated;
-        } catch (Exception e) {
-            log.warn("Failed to update tokens for memberId={}: {}", memberId, e.getMessage());
-            return 0;
+            Long ttlSec = redis.getExpire(tkKey);
+            if (ttlSec == null || ttlSec <= 0) ttlSec = MAX_CACHE_TTL_SECONDS;
+
+            redis.opsForValue().set(tkKey, node.toString(), Duration.ofSeconds(ttlSec));
+            updated++;
         }
+        return updated;
     }
 
     /**
      * Optional: helper to compute remaining seconds for a given token hash (returns >=1)
      */
-    public long computeRemainingSecondsForTokenHash(String hash) {
-        String json = redis.opsForValue().get(tokenKey(hash));
-        if (json == null) return 60;
+    public long computeRemainingSecondsForTokenHash(Long memberId, String hash) {
+        return remainingSeconds(redis.opsForValue().get(TokenKeys.token(memberId, hash)));
+    }
+
+    private long remainingSeconds(String json) {
+        if (json == null) return DEFAULT_BLACKLIST_SECONDS;
         try {
             JsonNode node = om.readTree(json);
-            long exp = node.path("exp").asLong(Instant.now().getEpochSecond() + 60);
+            long exp = node.path("exp").asLong(Instant.now().getEpochSecond() + DEFAULT_BLACKLIST_SECONDS);
             long now = Instant.now().getEpochSecond();
             return Math.max(1, exp - now);
         } catch (Exception e) {
-            return 60;
+            return DEFAULT_BLACKLIST_SECONDS;
         }
     }
-}
\ No newline at end of file
+}
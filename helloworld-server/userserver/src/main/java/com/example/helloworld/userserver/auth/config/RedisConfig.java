@@ -1,9 +1,16 @@
 package com.example.helloworld.userserver.auth.config;
 
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
 
 @Configuration
 public class RedisConfig {
@@ -13,5 +20,28 @@ public class RedisConfig {
     public StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory connectionFactory) {
         return new StringRedisTemplate(connectionFactory);
     }
-}
 
+    // 인스턴스 간 캐시 무효화(pub/sub) 수신용
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(LettuceConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    // Redis Cluster(spring.data.redis.cluster.nodes) 사용 시 토폴로지 갱신
+    // - 주기적 갱신 + MOVED/ASK/재연결 등 이벤트 기반(adaptive) 갱신 → 페일오버/리샤딩을 따라감
+    // - 단일 노드 모드에서는 ClusterClientOptions 의 일반 ClientOptions 부분만 적용됨
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer clusterTopologyRefresh(
+            @Value("${redis.cluster.refresh-period-seconds:30}") long refreshPeriodSec) {
+        ClusterTopologyRefreshOptions refresh = ClusterTopologyRefreshOptions.builder()
+                .enablePeriodicRefresh(Duration.ofSeconds(refreshPeriodSec))
+                .enableAllAdaptiveRefreshTriggers()
+                .dynamicRefreshSources(true)
+                .build();
+        return builder -> builder.clientOptions(ClusterClientOptions.builder()
+                .topologyRefreshOptions(refresh)
+                .build());
+    }
+}
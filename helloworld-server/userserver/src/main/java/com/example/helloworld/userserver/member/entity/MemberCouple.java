@@ -0,0 +1,34 @@
+package com.example.helloworld.userserver.member.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 회원 → 커플/역할/파트너 조회용 read model (couples 의 user_id_a / user_id_b 를 회원 기준으로 펼친 것)
+ * 커플 생성/합류/해제 트랜잭션 안에서 함께 갱신된다.
+ */
+@Entity
+@Table(name = "member_couple",
+        indexes = @Index(name = "ix_member_couple_couple", columnList = "couple_id"))
+@Getter @NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor @Builder
+public class MemberCouple {
+
+    public static final String ROLE_A = "A"; // 여성(커플 생성자)
+    public static final String ROLE_B = "B"; // 남성(초대코드 합류)
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(name = "couple_id", nullable = false)
+    private Long coupleId;
+
+    @Column(name = "role", nullable = false, length = 1)
+    private String role;
+
+    @Column(name = "partner_id")
+    private Long partnerId;
+
+    public boolean isRoleA() { return ROLE_A.equals(role); }
+}
@@ -2,7 +2,9 @@ package com.example.helloworld.userserver.member.persistence;
 
 
 import com.example.helloworld.userserver.member.entity.Couple;
+import com.example.helloworld.userserver.member.entity.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -32,6 +34,12 @@ public interface CoupleRepository extends JpaRepository<Couple, Long> {
            """)
     Optional<Long> findPartnerIdByUserId(@Param("uid") Long userId);
 
+    // 남편 슬롯이 비어 있을 때만 연동 (행 잠금 없이 경합 방지) → 0이면 이미 연동됨
+    @Modifying(clearAutomatically = true)
+    @Query("update Couple c set c.userB = :male, c.updatedAt = CURRENT_TIMESTAMP " +
+           "where c.id = :coupleId and c.userB is null")
+    int linkUserBIfEmpty(@Param("coupleId") Long coupleId, @Param("male") Member male);
+
 }
 
 
@@ -0,0 +1,39 @@
+package com.example.helloworld.userserver.member.persistence;
+
+import com.example.helloworld.userserver.member.entity.MemberCouple;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface MemberCoupleRepository extends JpaRepository<MemberCouple, Long> {
+
+    // 합류: B 행 생성(파트너 = 해당 커플의 A)
+    @Modifying
+    @Query(value = """
+        INSERT INTO member_couple(member_id, couple_id, role, partner_id)
+        SELECT :memberId, c.couple_id, 'B', c.user_id_a
+          FROM couples c
+         WHERE c.couple_id = :coupleId
+        ON CONFLICT (member_id)
+        DO UPDATE SET
+          couple_id = EXCLUDED.couple_id,
+          role = EXCLUDED.role,
+          partner_id = EXCLUDED.partner_id
+        """, nativeQuery = true)
+    int upsertRoleB(@Param("coupleId") Long coupleId, @Param("memberId") Long memberId);
+
+    // A 행의 파트너 갱신 (합류 시 남편 id, 해제 시 null)
+    @Modifying
+    @Query(value = """
+        UPDATE member_couple
+           SET partner_id = :partnerId
+         WHERE couple_id = :coupleId AND role = 'A'
+        """, nativeQuery = true)
+    int updatePartnerOfA(@Param("coupleId") Long coupleId, @Param("partnerId") Long partnerId);
+
+    // 해제: B 행 삭제
+    @Modifying
+    @Query(value = "DELETE FROM member_couple WHERE couple_id = :coupleId AND role = 'B'", nativeQuery = true)
+    int deleteRoleB(@Param("coupleId") Long coupleId);
+}
@@ -1,5 +1,6 @@
 package com.example.helloworld.userserver.member.service;
 
+import com.example.helloworld.userserver.alarm.service.PushRecipientEvents;
 import com.example.helloworld.userserver.member.dto.response.CoupleUnlinkResponse;
 import com.example.helloworld.userserver.member.util.RandomCode;
 import com.example.helloworld.userserver.member.dto.request.CoupleJoinRequest;
@@ -8,16 +9,19 @@ import com.example.helloworld.userserver.member.dto.response.InviteCodeIssueResp
 import com.example.helloworld.userserver.member.entity.Couple;
 import com.example.helloworld.userserver.member.entity.CoupleInviteCode;
 import com.example.helloworld.userserver.member.entity.Member;
+import com.example.helloworld.userserver.member.entity.MemberCouple;
 import com.example.helloworld.userserver.member.persistence.CoupleInviteCodeRepository;
 import com.example.helloworld.userserver.member.persistence.CoupleRepository;
+import com.example.helloworld.userserver.member.persistence.MemberCoupleRepository;
 import com.example.helloworld.userserver.member.persistence.MemberRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.beans.factory.annotation.Value;
-import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.Instant;
 
@@ -27,6 +31,11 @@ public class CoupleInviteService {
     private final MemberRepository memberRepository;
     private final CoupleRepository coupleRepository;
     private final CoupleInviteCodeRepository inviteRepo;
+    private final MemberCoupleRepository memberCoupleRepository;
+    private final InviteCodeStore inviteCodes;
+    private final InviteCodeAuditWriter inviteAudit;
+    private final ProfileCache profileCache;
+    private final PushRecipientEvents pushRecipientEvents;
 
     @Value("${app.invite-code.ttl-minutes:1440}")
     private int inviteTtlMinutes;
@@ -37,6 +46,11 @@ public class CoupleInviteService {
     @Value("${app.invite-code.revoke-previous:true}")
     private boolean inviteRevokePrevious;
 
+    // Redis 도입 전에 발급된(DB에만 있는) 코드 허용 여부. 기존 코드 TTL이 지나면 false 로 전환
+    // Redis 로 발급된 코드(사용/무효화 흔적 포함)는 켜져 있어도 DB 로 되묻지 않음
+    @Value("${app.invite-code.db-fallback:true}")
+    private boolean inviteDbFallback;
+
     /** 초대코드 발급: 여성(userA)만, userB 비어있을 때 */
     @Transactional
     public InviteCodeIssueResponse issue(Long issuerId) {
@@ -46,29 +60,20 @@ public class CoupleInviteService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "여성만 초대코드 발급 가능");
         }
 
-        Couple couple = coupleRepository.findByUserAId(issuerId)
+        MemberCouple mc = memberCoupleRepository.findById(issuerId)
+                .filter(MemberCouple::isRoleA)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT, "커플 없음(여성 등록 먼저)"));
 
-        if (couple.getUserB() != null) {
+        if (mc.getPartnerId() != null) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "이미 남편이 연동됨");
         }
 
-        if (inviteRevokePrevious) {
-            inviteRepo.revokeAllIssuedByCouple(couple.getId());
-        }
-
-        String code = uniqueCode(inviteCodeLength);
-        Instant exp = Instant.now().plus(Duration.ofMinutes(inviteTtlMinutes));
+        // Redis SET NX 로 예약 (이전 코드 무효화 포함) → DB 이력은 비동기 기록
+        Duration ttl = Duration.ofMinutes(inviteTtlMinutes);
+        String code = reserveCode(inviteCodeLength, mc.getCoupleId(), issuerId, ttl);
+        Instant exp = Instant.now().plus(ttl);
 
-        CoupleInviteCode ic = CoupleInviteCode.builder()
-                .couple(couple)
-                .issuer(issuer)
-                .code(code)
-                .status(CoupleInviteCode.Status.ISSUED)
-                .expiresAt(Timestamp.from(exp))
-                .build();
-
-        inviteRepo.save(ic);
+        inviteAudit.recordIssued(mc.getCoupleId(), issuerId, code, exp, inviteRevokePrevious);
         return new InviteCodeIssueResponse(code, exp);
     }
 
@@ -84,14 +89,50 @@ public class CoupleInviteService {
 
 
         // 이미 어떤 커플에 속해 있나?
-        boolean alreadyInCouple = coupleRepository.findByUserBId(maleId).isPresent()
-                || coupleRepository.findByUserAId(maleId).isPresent();
-        if (alreadyInCouple) {
+        if (memberCoupleRepository.existsById(maleId)) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "이미 커플에 소속되어 있음");
         }
 
+        // Redis 에서 코드 원자적 소비 → 같은 코드로는 한 명만 통과
+        // 진 쪽은 흔적(known)을 보므로 DB 이력(비동기 기록이라 아직 ISSUED 일 수 있음)으로 넘어가지 않음
+        var consumed = inviteCodes.consume(req.code());
+        if (consumed.reservation() == null) {
+            if (inviteDbFallback && !consumed.known()) return joinByDbCode(male, req.code());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "유효하지 않은 코드");
+        }
+        var r = consumed.reservation();
+        afterJoinCompletion(req.code(), r, maleId);
+
+        // 남편 슬롯이 비어 있을 때만 연동 (조건부 UPDATE)
+        if (coupleRepository.linkUserBIfEmpty(r.coupleId(), male) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "이미 남편이 연동됨");
+        }
+        linkReadModel(r.coupleId(), maleId);
+        profileCache.invalidate(maleId, r.issuerId());
+        pushRecipientEvents.changed(maleId, r.issuerId()); // 파트너 조회 결과가 바뀜
+        return new CoupleJoinResponse(r.coupleId());
+    }
+
+    // 커밋되면 사용 이력 기록, 롤백되면 코드를 Redis 에 되돌림 (기존 DB 잠금 방식과 같은 결과)
+    private void afterJoinCompletion(String code, InviteCodeStore.Reservation r, Long maleId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) inviteAudit.recordUsed(code, r, maleId);
+                else inviteCodes.restore(code, r);
+            }
+        });
+    }
+
+    private void linkReadModel(Long coupleId, Long maleId) {
+        memberCoupleRepository.upsertRoleB(coupleId, maleId);
+        memberCoupleRepository.updatePartnerOfA(coupleId, maleId);
+    }
+
+    /** DB에만 있는 코드로 합류 (Redis 도입 이전 발급분) */
+    private CoupleJoinResponse joinByDbCode(Member male, String code) {
         // 잠금 걸고 코드 확인 → 동시 사용 방지
-        CoupleInviteCode ic = inviteRepo.findWithLockByCode(req.code())
+        CoupleInviteCode ic = inviteRepo.findWithLockByCode(code)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "유효하지 않은 코드"));
         if (!ic.isUsableNow(Instant.now())) {
             // 만료/무효/사용됨 → 존재 숨김
@@ -99,16 +140,21 @@ public class CoupleInviteService {
         }
 
         Couple couple = ic.getCouple();
-        if (couple.getUserB() != null) {
-            // 경합 시점: 이미 다른 남성이 선점
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "이미 남편이 연동됨");
-        }
+        Long coupleId = couple.getId();
+        Long femaleId = couple.getUserA().getId();
 
-        // 링크
-        couple.setUserB(male);
         ic.markUsed(male);
+        coupleRepository.flush(); // linkUserBIfEmpty 가 영속성 컨텍스트를 비우므로 사용 처리를 먼저 반영
+
+        // 남편 슬롯이 비어 있을 때만 연동 (조건부 UPDATE) → 이미 다른 남성이 선점했으면 롤백
+        if (coupleRepository.linkUserBIfEmpty(coupleId, male) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "이미 남편이 연동됨");
+        }
+        linkReadModel(coupleId, male.getId());
+        profileCache.invalidate(male.getId(), femaleId);
+        pushRecipientEvents.changed(male.getId(), femaleId);
 
-        return new CoupleJoinResponse(couple.getId());
+        return new CoupleJoinResponse(coupleId);
     }
 
 
@@ -118,43 +164,44 @@ public class CoupleInviteService {
         Member me = memberRepository.findById(requesterId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Member not found"));
 
-        // 2) 내가 속한 커플 찾기 (A 우선, 없으면 B)
-        Couple couple = coupleRepository.findByUserAId(me.getId())
-                .orElseGet(() -> coupleRepository.findByUserBId(me.getId())
-                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "커플을 찾을 수 없음")));
-
-        boolean isA = couple.getUserA() != null && couple.getUserA().getId().equals(me.getId());
-        boolean isB = couple.getUserB() != null && couple.getUserB().getId().equals(me.getId());
+        // 2) 내가 속한 커플 찾기 (member_couple PK 조회)
+        MemberCouple mc = memberCoupleRepository.findById(me.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "커플을 찾을 수 없음"));
 
-        // 3) 권한: 커플 당사자만 가능
-        if (!isA && !isB) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "커플 당사자만 해제 가능");
-        }
+        // 3) 권한: 커플 당사자만 가능 (read model 에 있으면 당사자)
 
         // 4) 이미 해제되어 있으면 idempotent 처리
-        if (couple.getUserB() == null) {
+        if (mc.getPartnerId() == null) {
             // 여성(userA) 입장에선 이미 해제된 상태. 남성(userB)이면 여기 못 옴.
-            return new CoupleUnlinkResponse(couple.getId(), true);
+            return new CoupleUnlinkResponse(mc.getCoupleId(), true);
         }
 
+        Couple couple = coupleRepository.findById(mc.getCoupleId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "커플을 찾을 수 없음"));
+
         // 5) 해제: userB 비우기
+        profileCache.invalidate(me.getId(), mc.getPartnerId());
+        pushRecipientEvents.changed(me.getId(), mc.getPartnerId());
         couple.setUserB(null);
+        memberCoupleRepository.deleteRoleB(couple.getId());
+        memberCoupleRepository.updatePartnerOfA(couple.getId(), null);
 
         // 6) 안전을 위해 미사용 초대코드 전부 무효화(선택적이지만 권장)
-        inviteRepo.revokeAllIssuedByCouple(couple.getId());
+        inviteCodes.revokeCouple(couple.getId());
+        inviteAudit.recordRevoked(couple.getId());
 
         // JPA가 커밋 시점에 flush
         return new CoupleUnlinkResponse(couple.getId(), true);
     }
 
-    private String uniqueCode(int len) {
+    // 충돌 시에만 추가 왕복 (SET NX 실패) — DB existsByCode 조회 없음
+    private String reserveCode(int len, Long coupleId, Long issuerId, Duration ttl) {
         for (int i=0;i<10;i++) {
             String c = RandomCode.base32(len);
-            if (!inviteRepo.existsByCode(c)) return c;
+            if (inviteCodes.reserve(c, coupleId, issuerId, ttl, inviteRevokePrevious)) return c;
         }
         String c = RandomCode.base32(len+1);
-        if (inviteRepo.existsByCode(c)) throw new IllegalStateException("코드 생성 실패");
+        if (!inviteCodes.reserve(c, coupleId, issuerId, ttl, inviteRevokePrevious)) throw new IllegalStateException("코드 생성 실패");
         return c;
     }
 }
-
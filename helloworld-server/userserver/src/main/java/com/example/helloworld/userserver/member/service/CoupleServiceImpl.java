@@ -5,7 +5,9 @@ import com.example.helloworld.userserver.member.dto.request.CoupleUpdateRequest;
 import com.example.helloworld.userserver.member.dto.response.CoupleResponse;
 import com.example.helloworld.userserver.member.entity.Couple;
 import com.example.helloworld.userserver.member.entity.Member;
+import com.example.helloworld.userserver.member.entity.MemberCouple;
 import com.example.helloworld.userserver.member.persistence.CoupleRepository;
+import com.example.helloworld.userserver.member.persistence.MemberCoupleRepository;
 import com.example.helloworld.userserver.member.persistence.MemberRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -24,16 +26,17 @@ public class CoupleServiceImpl implements CoupleService {
 
     private final MemberRepository memberRepository;
     private final CoupleRepository coupleRepository;
+    private final MemberCoupleRepository memberCoupleRepository;
+    private final ProfileCache profileCache;
 
-    @Transactional(readOnly = true)
     @Override
     public CoupleResponse getMyCouple(Long memberId) {
-        Member me = memberRepository.findById(memberId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Member not found"));
+        return profileCache.get(ProfileCache.Region.COUPLE, memberId, CoupleResponse.class,
+                () -> loadMyCouple(memberId));
+    }
 
-        Couple couple = coupleRepository.findByUserAId(me.getId())
-                .or(() -> coupleRepository.findByUserBId(me.getId()))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Couple not found"));
+    private CoupleResponse loadMyCouple(Long memberId) {
+        Couple couple = findMyCouple(memberId, "Couple not found");
 
         return toResponse(couple);
     }
@@ -58,9 +61,9 @@ public class CoupleServiceImpl implements CoupleService {
         }
 
         // 한 여성당 1커플 정책이라면
-        coupleRepository.findByUserAId(me.getId()).ifPresent(c -> {
+        if (memberCoupleRepository.existsById(me.getId())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "이미 커플이 존재합니다");
-        });
+        }
 
         Couple couple = Couple.builder()
                 .userA(me)
@@ -72,23 +75,26 @@ public class CoupleServiceImpl implements CoupleService {
                 .build();
 
         coupleRepository.save(couple);
+        memberCoupleRepository.save(MemberCouple.builder()
+                .memberId(me.getId())
+                .coupleId(couple.getId())
+                .role(MemberCouple.ROLE_A)
+                .build());
         return toResponse(couple);
     }
 
     @Transactional
     @Override
     public CoupleResponse updateMyCouple(Long memberId, CoupleUpdateRequest req) {
-        Member me = memberRepository.findById(memberId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Member not found"));
-
-        Couple couple = coupleRepository.findByUserAId(me.getId())
-                .or(() -> coupleRepository.findByUserBId(me.getId()))
+        MemberCouple mc = memberCoupleRepository.findById(memberId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "커플을 찾을 수 없음"));
 
         // 정책: 여성(userA)만 수정 가능하게 제한하려면 여기서 체크
-        if (couple.getUserA() == null || !couple.getUserA().getId().equals(me.getId())) {
+        if (!mc.isRoleA()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "수정 권한 없음");
         }
+        Couple couple = coupleRepository.findById(mc.getCoupleId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "커플을 찾을 수 없음"));
 
         Integer week       = (req.pregnancyWeek() != null) ? req.pregnancyWeek() : couple.getPregnancyWeek();
         Timestamp due      = (req.dueDate() != null) ? toTimestamp(req.dueDate()) : couple.getDueDate();
@@ -96,8 +102,16 @@ public class CoupleServiceImpl implements CoupleService {
         Boolean childbirth = (req.isChildbirth() != null) ? req.isChildbirth() : couple.isChildbirth();
 
         couple.updateSharing(week, due, menstrual, childbirth);
+        profileCache.invalidate(memberId, mc.getPartnerId());
         return toResponse(couple);
     }
+    /** member_couple(PK) → couples(PK) 두 번의 키 조회로 내 커플 로드 */
+    private Couple findMyCouple(Long memberId, String notFoundMessage) {
+        return memberCoupleRepository.findById(memberId)
+                .flatMap(mc -> coupleRepository.findById(mc.getCoupleId()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, notFoundMessage));
+    }
+
     /** LocalDate(yyyy-MM-dd)를 자정 기준 Timestamp로 변환 (null-safe) */
     private static Timestamp toTimestamp(LocalDate d) {
         return (d == null) ? null : Timestamp.valueOf(d.atStartOfDay());
@@ -118,15 +132,14 @@ public class CoupleServiceImpl implements CoupleService {
 
 
 
-    @Transactional(readOnly = true)
     @Override
     public CoupleWithUsersResponse getMyCoupleWithUsers(Long memberId) {
-        Member me = memberRepository.findById(memberId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Member not found"));
+        return profileCache.get(ProfileCache.Region.COUPLE_USERS, memberId, CoupleWithUsersResponse.class,
+                () -> loadMyCoupleWithUsers(memberId));
+    }
 
-        Couple couple = coupleRepository.findByUserAId(me.getId())
-                .or(() -> coupleRepository.findByUserBId(me.getId()))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Couple not found"));
+    private CoupleWithUsersResponse loadMyCoupleWithUsers(Long memberId) {
+        Couple couple = findMyCouple(memberId, "Couple not found");
 
         return toWithUsers(couple);
     }
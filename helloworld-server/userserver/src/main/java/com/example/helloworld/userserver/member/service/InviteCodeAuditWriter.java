@@ -0,0 +1,66 @@
+package com.example.helloworld.userserver.member.service;
+
+import com.example.helloworld.userserver.member.entity.CoupleInviteCode;
+import com.example.helloworld.userserver.member.persistence.CoupleInviteCodeRepository;
+import com.example.helloworld.userserver.member.persistence.CoupleRepository;
+import com.example.helloworld.userserver.member.persistence.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * 초대코드 이력(couple_invite_codes)을 요청 경로 밖에서 기록한다.
+ * 발급/사용의 판정은 InviteCodeStore(Redis)가 하고, 여기서는 감사용 행만 남긴다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InviteCodeAuditWriter {
+
+    private final CoupleInviteCodeRepository inviteRepo;
+    private final CoupleRepository coupleRepository;
+    private final MemberRepository memberRepository;
+
+    @Async
+    @Transactional
+    public void recordIssued(Long coupleId, Long issuerId, String code, Instant expiresAt, boolean revokePrevious) {
+        if (revokePrevious) {
+            inviteRepo.revokeAllIssuedByCouple(coupleId);
+        }
+        // 사용 기록이 먼저 반영된 경우(비동기 순서 역전) 중복 행을 만들지 않음
+        if (inviteRepo.existsByCode(code)) return;
+        inviteRepo.save(newRow(coupleId, issuerId, code, expiresAt));
+        log.debug("[INVITE-AUDIT] issued couple={} issuer={}", coupleId, issuerId);
+    }
+
+    @Async
+    @Transactional
+    public void recordUsed(String code, InviteCodeStore.Reservation r, Long maleId) {
+        CoupleInviteCode ic = inviteRepo.findWithLockByCode(code)
+                .orElseGet(() -> inviteRepo.save(newRow(
+                        r.coupleId(), r.issuerId(), code, Instant.ofEpochMilli(r.expiresAtMs()))));
+        ic.markUsed(memberRepository.getReferenceById(maleId));
+        log.debug("[INVITE-AUDIT] used couple={} male={}", r.coupleId(), maleId);
+    }
+
+    @Async
+    @Transactional
+    public void recordRevoked(Long coupleId) {
+        inviteRepo.revokeAllIssuedByCouple(coupleId);
+    }
+
+    private CoupleInviteCode newRow(Long coupleId, Long issuerId, String code, Instant expiresAt) {
+        return CoupleInviteCode.builder()
+                .couple(coupleRepository.getReferenceById(coupleId))
+                .issuer(memberRepository.getReferenceById(issuerId))
+                .code(code)
+                .status(CoupleInviteCode.Status.ISSUED)
+                .expiresAt(Timestamp.from(expiresAt))
+                .build();
+    }
+}
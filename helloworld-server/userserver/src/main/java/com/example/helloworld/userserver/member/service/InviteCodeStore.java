@@ -0,0 +1,161 @@
+package com.example.helloworld.userserver.member.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 초대코드 예약/소비 (Redis)
+ *
+ * - invite:{inv}:code:{code}     -> "{coupleId}:{issuerId}:{expiresAtMs}" (TTL = 초대코드 유효기간)
+ * - invite:{inv}:couple:{coupleId} -> 최근 발급 코드 (이전 코드 무효화용)
+ *
+ * 발급은 SET NX, 합류는 GET + 흔적 덮어쓰기를 Lua 로 한 번에 처리 → 같은 코드는 한 명만 소비한다.
+ * 소비/무효화한 코드 키는 지우지 않고 흔적(used/revoked)으로 남은 유효기간 + TOMBSTONE_GRACE 동안 둔다.
+ * DB 이력(InviteCodeAuditWriter)은 비동기라 잠깐 ISSUED 로 남으므로, 흔적이 있으면 DB 로 되묻지 않는다.
+ * 코드 키와 커플 키(+ 이전 코드 키)를 한 스크립트에서 다루므로 해시태그 {inv} 로 같은 슬롯에 두고,
+ * 스크립트가 건드리는 키는 전부 KEYS 로 넘긴다. 코드만으로 조회(consume)해야 해서 커플별 태그는 쓸 수 없다.
+ * 커플당 키 1~2개라 한 슬롯에 모아도 부담이 없다.
+ */
+@Component
+@RequiredArgsConstructor
+public class InviteCodeStore {
+
+    public record Reservation(Long coupleId, Long issuerId, long expiresAtMs) {}
+
+    private static final String CODE_PREFIX = "invite:{inv}:code:";
+    private static final String COUPLE_PREFIX = "invite:{inv}:couple:";
+    private static final String USED = "used";
+    private static final String REVOKED = "revoked";
+    // 흔적은 코드 만료 뒤에도 이만큼 더 둠 (비동기 DB 이력이 따라잡을 시간)
+    private static final long TOMBSTONE_GRACE_MS = Duration.ofMinutes(10).toMillis();
+
+    // 스크립트가 건드리는 키는 모두 KEYS 로 넘긴다 (Cluster 에서 슬롯 검증/라우팅이 KEYS 기준).
+    // 이전 코드 키는 스크립트 안에서 만들 수 없으므로 호출측이 커플 키를 먼저 읽어 넘기고,
+    // 스크립트는 커플 키가 그 사이 바뀌지 않았는지 확인한다 (바뀌었으면 -1 → 다시 읽고 재시도).
+    private static final int MAX_ATTEMPTS = 5;
+
+    // KEYS[1]=code key, KEYS[2]=couple key, KEYS[3]=이전 code key (있을 때만)
+    // ARGV: value, ttlMs, code, revokePrevious(1/0), 읽어 둔 이전 code ('' = 없음), 흔적 유예(ms)
+    // 흔적이 남은 코드는 NX 에 걸려 재사용되지 않음
+    private static final DefaultRedisScript<Long> RESERVE = new DefaultRedisScript<>("""
+            local old = redis.call('GET', KEYS[2]) or ''
+            if ARGV[4] == '1' and old ~= ARGV[5] then
+              return -1
+            end
+            if not redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+              return 0
+            end
+            if ARGV[4] == '1' and old ~= '' and old ~= ARGV[3] then
+              local t = redis.call('PTTL', KEYS[3])
+              if t > 0 then redis.call('SET', KEYS[3], 'revoked', 'PX', t + ARGV[6]) end
+            end
+            redis.call('SET', KEYS[2], ARGV[3], 'PX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    // 살아 있는 코드면 값을 돌려주고 used 흔적으로 덮음. 흔적이면 흔적 그대로, 없으면 nil
+    // ARGV[1]=흔적 유예(ms)
+    private static final DefaultRedisScript<String> CONSUME = new DefaultRedisScript<>("""
+            local v = redis.call('GET', KEYS[1])
+            if v and v ~= 'used' and v ~= 'revoked' then
+              local t = redis.call('PTTL', KEYS[1])
+              if t < 0 then t = 0 end
+              redis.call('SET', KEYS[1], 'used', 'PX', t + ARGV[1])
+            end
+            return v
+            """, String.class);
+
+    // 합류 롤백: 내가 남긴 used 흔적일 때만 되돌림 (그새 무효화돼 revoked 로 바뀌었으면 그대로)
+    // KEYS[1]=code key / ARGV: value, 남은 ms
+    private static final DefaultRedisScript<Long> RESTORE = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) ~= 'used' then return 0 end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS[1]=couple key, KEYS[2]=이전 code key (있을 때만) / ARGV[1]=읽어 둔 이전 code ('' = 없음), ARGV[2]=흔적 유예(ms)
+    private static final DefaultRedisScript<Long> REVOKE = new DefaultRedisScript<>("""
+            local old = redis.call('GET', KEYS[1]) or ''
+            if old ~= ARGV[1] then return -1 end
+            if old == '' then return 0 end
+            local t = redis.call('PTTL', KEYS[2])
+            if t > 0 then redis.call('SET', KEYS[2], 'revoked', 'PX', t + ARGV[2]) end
+            redis.call('DEL', KEYS[1])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+
+    private static String codeKey(String code) { return CODE_PREFIX + code; }
+    private static String coupleKey(Long coupleId) { return COUPLE_PREFIX + coupleId; }
+
+    /** @return 이미 사용 중인 코드면 false (호출측에서 다른 코드로 재시도) */
+    public boolean reserve(String code, Long coupleId, Long issuerId, Duration ttl, boolean revokePrevious) {
+        String coupleKey = coupleKey(coupleId);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            String old = revokePrevious ? redis.opsForValue().get(coupleKey) : null;
+            List<String> keys = old == null
+                    ? List.of(codeKey(code), coupleKey)
+                    : List.of(codeKey(code), coupleKey, codeKey(old));
+            long expMs = System.currentTimeMillis() + ttl.toMillis();
+            Long r = redis.execute(RESERVE, keys,
+                    coupleId + ":" + issuerId + ":" + expMs,
+                    String.valueOf(ttl.toMillis()),
+                    code,
+                    revokePrevious ? "1" : "0",
+                    old == null ? "" : old,
+                    String.valueOf(TOMBSTONE_GRACE_MS));
+            if (r == null || r != -1L) return r != null && r == 1L;
+            // 같은 커플의 다른 발급이 끼어듦 → 이전 코드를 다시 읽음
+        }
+        throw new IllegalStateException("초대코드 예약 경합이 계속됨 coupleId=" + coupleId);
+    }
+
+    /**
+     * 코드 소비 결과
+     * @param reservation 꺼낸 예약 (못 꺼냈으면 null)
+     * @param known       Redis 로 발급된 적 있는 코드 (이미 사용/무효화돼 흔적만 남은 경우 포함)
+     */
+    public record Consumed(Reservation reservation, boolean known) {
+        static final Consumed UNKNOWN = new Consumed(null, false);
+        static final Consumed SPENT = new Consumed(null, true);
+    }
+
+    /** 코드를 원자적으로 꺼내고 흔적으로 바꿈. 흔적만 있으면 SPENT, 키가 없으면(발급된 적 없음/만료) UNKNOWN */
+    public Consumed consume(String code) {
+        String v = redis.execute(CONSUME, List.of(codeKey(code)), String.valueOf(TOMBSTONE_GRACE_MS));
+        if (v == null) return Consumed.UNKNOWN;
+        String[] p = v.split(":");
+        if (p.length != 3) return Consumed.SPENT;
+        try {
+            return new Consumed(new Reservation(Long.valueOf(p[0]), Long.valueOf(p[1]), Long.parseLong(p[2])), true);
+        } catch (NumberFormatException e) {
+            return Consumed.SPENT;
+        }
+    }
+
+    /** 합류 트랜잭션이 롤백되면 남은 유효기간으로 되돌림 */
+    public void restore(String code, Reservation r) {
+        long remainMs = r.expiresAtMs() - System.currentTimeMillis();
+        if (remainMs <= 0) return;
+        redis.execute(RESTORE, List.of(codeKey(code)),
+                r.coupleId() + ":" + r.issuerId() + ":" + r.expiresAtMs(), String.valueOf(remainMs));
+    }
+
+    /** 커플의 미사용 코드 무효화 (연동 해제 시) */
+    public void revokeCouple(Long coupleId) {
+        String coupleKey = coupleKey(coupleId);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            String old = redis.opsForValue().get(coupleKey);
+            List<String> keys = old == null ? List.of(coupleKey) : List.of(coupleKey, codeKey(old));
+            Long r = redis.execute(REVOKE, keys, old == null ? "" : old, String.valueOf(TOMBSTONE_GRACE_MS));
+            if (r == null || r != -1L) return;
+        }
+        throw new IllegalStateException("초대코드 무효화 경합이 계속됨 coupleId=" + coupleId);
+    }
+}
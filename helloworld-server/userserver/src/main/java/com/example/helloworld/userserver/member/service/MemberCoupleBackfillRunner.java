@@ -0,0 +1,156 @@
+package com.example.helloworld.userserver.member.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * member_couple 테이블 생성 + couples 로부터 백필 (멱등, 일회성 작업)
+ *
+ * - 기본은 꺼져 있음. 서비스 파드가 뜰 때마다 돌지 않도록 k8s Job(member-couple-backfill-job.yaml)에서만
+ *   app.member-couple.backfill-on-startup=true, app.member-couple.backfill-exit=true 로 실행한다.
+ * - Postgres advisory lock 으로 한 번에 한 프로세스만 실행 (잡히지 않으면 건너뜀)
+ * - couple_id 구간(batch-size)마다 별도 트랜잭션 → 큰 테이블에서도 긴 트랜잭션/대량 잠금 없음
+ * - 롤아웃 전에 한 번(테이블 생성 + 기존 커플), 롤아웃 후 한 번 더(그 사이 구버전 파드가 만든 변경) 실행
+ */
+@Slf4j
+@Component
+public class MemberCoupleBackfillRunner implements ApplicationRunner {
+
+    // pg_try_advisory_lock 키 (임의의 고정값, 'member_couple' 백필 전용)
+    static final long LOCK_KEY = 0x6d656d6265725fL;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ConfigurableApplicationContext context;
+    private final boolean enabled;
+    private final boolean exitWhenDone;
+    private final int batchSize;
+
+    public MemberCoupleBackfillRunner(
+            JdbcTemplate jdbc,
+            PlatformTransactionManager txManager,
+            ConfigurableApplicationContext context,
+            @Value("${app.member-couple.backfill-on-startup:false}") boolean enabled,
+            @Value("${app.member-couple.backfill-exit:false}") boolean exitWhenDone,
+            @Value("${app.member-couple.backfill-batch-size:10000}") int batchSize
+    ) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.context = context;
+        this.enabled = enabled;
+        this.exitWhenDone = exitWhenDone;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        int code = 0;
+        try {
+            backfill();
+        } catch (RuntimeException e) {
+            log.error("[MEMBER-COUPLE] backfill failed", e);
+            code = 1;
+            if (!exitWhenDone) throw e;
+        }
+        if (exitWhenDone) { // Job 컨테이너 종료 (실패면 exit 1 → Job 재시도)
+            int exitCode = code;
+            System.exit(SpringApplication.exit(context, () -> exitCode));
+        }
+    }
+
+    /** @return 처리했으면 true, 다른 프로세스가 실행 중이라 건너뛰었으면 false */
+    boolean backfill() {
+        // 잠금은 세션 단위라 같은 커넥션에서 풀어야 함 → 잠금 전용 커넥션을 작업 내내 들고 있음
+        Boolean done = jdbc.execute((ConnectionCallback<Boolean>) con -> {
+            try (PreparedStatement ps = con.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                ps.setLong(1, LOCK_KEY);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    if (!rs.getBoolean(1)) {
+                        log.info("[MEMBER-COUPLE] backfill already running elsewhere, skip");
+                        return false;
+                    }
+                }
+            }
+            try {
+                runLocked();
+                return true;
+            } finally {
+                try (PreparedStatement ps = con.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    ps.setLong(1, LOCK_KEY);
+                    ps.execute();
+                }
+            }
+        });
+        return Boolean.TRUE.equals(done);
+    }
+
+    private void runLocked() {
+        jdbc.execute("""
+            CREATE TABLE IF NOT EXISTS member_couple (
+              member_id  BIGINT PRIMARY KEY,
+              couple_id  BIGINT NOT NULL,
+              role       VARCHAR(1) NOT NULL,
+              partner_id BIGINT
+            )
+            """);
+        jdbc.execute("CREATE INDEX IF NOT EXISTS ix_member_couple_couple ON member_couple(couple_id)");
+
+        Long max = jdbc.queryForObject(
+                "SELECT GREATEST((SELECT max(couple_id) FROM couples), (SELECT max(couple_id) FROM member_couple))",
+                Long.class);
+        long upserted = 0, purged = 0, t0 = System.nanoTime();
+        for (long from = 0; max != null && from < max; from += batchSize) {
+            long lo = from, hi = from + batchSize;
+            int[] r = tx.execute(s -> new int[]{upsertRange(lo, hi), purgeRange(lo, hi)});
+            upserted += r[0];
+            purged += r[1];
+        }
+        log.info("[MEMBER-COUPLE] backfill done maxCoupleId={} upserted={} purged={} took={}ms",
+                max, upserted, purged, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    /** couple_id ∈ (lo, hi] */
+    private int upsertRange(long lo, long hi) {
+        return jdbc.update("""
+            INSERT INTO member_couple(member_id, couple_id, role, partner_id)
+            SELECT c.user_id_a, c.couple_id, 'A', c.user_id_b FROM couples c
+             WHERE c.couple_id > ? AND c.couple_id <= ?
+            UNION ALL
+            SELECT c.user_id_b, c.couple_id, 'B', c.user_id_a FROM couples c
+             WHERE c.couple_id > ? AND c.couple_id <= ? AND c.user_id_b IS NOT NULL
+            ON CONFLICT (member_id)
+            DO UPDATE SET
+              couple_id = EXCLUDED.couple_id,
+              role = EXCLUDED.role,
+              partner_id = EXCLUDED.partner_id
+            WHERE (member_couple.couple_id, member_couple.role, member_couple.partner_id)
+                  IS DISTINCT FROM (EXCLUDED.couple_id, EXCLUDED.role, EXCLUDED.partner_id)
+            """, lo, hi, lo, hi);
+    }
+
+    private int purgeRange(long lo, long hi) {
+        return jdbc.update("""
+            DELETE FROM member_couple mc
+             WHERE mc.couple_id > ? AND mc.couple_id <= ?
+               AND NOT EXISTS (
+                   SELECT 1 FROM couples c
+                    WHERE c.couple_id = mc.couple_id
+                      AND ((mc.role = 'A' AND c.user_id_a = mc.member_id)
+                        OR (mc.role = 'B' AND c.user_id_b = mc.member_id)))
+            """, lo, hi);
+    }
+}
@@ -5,6 +5,8 @@ import com.example.helloworld.userserver.member.dto.request.MemberRegisterReques
 import com.example.helloworld.userserver.member.dto.response.AvatarUrlResponse;
 import com.example.helloworld.userserver.member.dto.response.MemberProfileResponse;
 import com.example.helloworld.userserver.member.entity.Member;
+import com.example.helloworld.userserver.member.entity.MemberCouple;
+import com.example.helloworld.userserver.member.persistence.MemberCoupleRepository;
 import com.example.helloworld.userserver.member.persistence.MemberRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -17,6 +19,8 @@ import org.springframework.web.server.ResponseStatusException;
 public class MemberServiceImpl implements MemberService {
 
     private final MemberRepository memberRepository;
+    private final MemberCoupleRepository memberCoupleRepository;
+    private final ProfileCache profileCache;
 
     @Transactional
     @Override
@@ -33,12 +37,18 @@ public class MemberServiceImpl implements MemberService {
 
         Member.Gender genderEnum = toGender(req.gender());
         me.applyRegistration(req.nickname(), genderEnum, req.age());
+        invalidateWithPartner(memberId);
         // flush는 트랜잭션 종료 시
     }
 
-    @Transactional(readOnly = true)
+    // 캐시 적중 시 DB 커넥션을 잡지 않도록 트랜잭션은 ProfileCache 로더에서만 연다
     @Override
     public MemberProfileResponse getMe(Long memberId) {
+        return profileCache.get(ProfileCache.Region.ME, memberId, MemberProfileResponse.class,
+                () -> loadMe(memberId));
+    }
+
+    private MemberProfileResponse loadMe(Long memberId) {
         Member me = memberRepository.findById(memberId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Member not found"));
 
@@ -67,6 +77,7 @@ public class MemberServiceImpl implements MemberService {
         String nickname = (req.nickname() != null) ? req.nickname() : me.getNickname();
         Integer age = (req.age() != null) ? req.age() : me.getAge();
         me.applyRegistration(nickname, me.getGender(), age);
+        invalidateWithPartner(memberId);
     }
 
     @Transactional
@@ -77,9 +88,15 @@ public class MemberServiceImpl implements MemberService {
 
         String url = normalizeUrl(req.imageUrl()); // 빈 값 → 해제
         me.updateImageUrl(url);
+        invalidateWithPartner(memberId);
         return new AvatarUrlResponse(me.getImageUrl() == null ? "" : me.getImageUrl());
     }
 
+    // 커플 응답에 내 닉네임/이미지가 포함되므로 파트너 캐시도 같이 무효화
+    private void invalidateWithPartner(Long memberId) {
+        profileCache.invalidate(memberId, memberCoupleRepository.findById(memberId).map(MemberCouple::getPartnerId).orElse(null));
+    }
+
     // helpers
     private static Member.Gender toGender(String s) {
         if (s == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "gender is required");
@@ -0,0 +1,218 @@
+package com.example.helloworld.userserver.member.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 프로필/커플 조회 read-through 캐시 (로컬 → Redis → DB)
+ *
+ * - profile:{region}:{memberId} -> 응답 DTO JSON (TTL = redis-ttl-seconds)
+ * - 로컬 티어는 크기 제한 + 짧은 TTL
+ * - 변경 시 커밋 후 Redis 키 삭제 + pub/sub 로 모든 인스턴스의 로컬 티어 제거
+ *
+ * 커플 응답에는 상대방 닉네임/이미지가 들어가므로, 프로필 변경 시 파트너 id 도 같이 무효화한다.
+ */
+@Slf4j
+@Component
+public class ProfileCache implements MessageListener {
+
+    public enum Region {
+        ME("me"), COUPLE("couple"), COUPLE_USERS("couple_users");
+
+        private final String key;
+        Region(String key) { this.key = key; }
+    }
+
+    static final String CHANNEL = "profile-cache:invalidate";
+
+    private record Entry(Object value, long expiresAt) {}
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper om;
+    private final TransactionTemplate readTx;
+    private final MeterRegistry registry;
+
+    private final boolean enabled;
+    private final long localTtlMillis;
+    private final int localMaxEntries;
+    private final Duration redisTtl;
+
+    private final Map<String, Entry> local = new ConcurrentHashMap<>();
+    // 무효화가 일어날 때마다 증가. 로딩 중 무효화가 있었으면 결과를 캐시에 넣지 않는다.
+    private final AtomicLong epoch = new AtomicLong();
+
+    public ProfileCache(
+            StringRedisTemplate redis,
+            ObjectMapper om,
+            PlatformTransactionManager txManager,
+            RedisMessageListenerContainer listenerContainer,
+            MeterRegistry registry,
+            @Value("${profile.cache.enabled:true}") boolean enabled,
+            @Value("${profile.cache.local-ttl-seconds:30}") long localTtlSeconds,
+            @Value("${profile.cache.local-max-entries:10000}") int localMaxEntries,
+            @Value("${profile.cache.redis-ttl-seconds:600}") long redisTtlSeconds
+    ) {
+        this.redis = redis;
+        this.om = om;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.registry = registry;
+        this.enabled = enabled;
+        this.localTtlMillis = localTtlSeconds * 1000L;
+        this.localMaxEntries = localMaxEntries;
+        this.redisTtl = Duration.ofSeconds(redisTtlSeconds);
+
+        registry.gaugeMapSize("profile.cache.local.size", List.of(), local);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    private static String localKey(Region r, Long memberId) { return r.key + ":" + memberId; }
+    private static String redisKey(Region r, Long memberId) { return "profile:" + r.key + ":" + memberId; }
+
+    /**
+     * 캐시 조회 → 없으면 loader 를 읽기 전용 트랜잭션에서 실행 (예외는 캐시하지 않고 그대로 전파)
+     */
+    public <T> T get(Region region, Long memberId, Class<T> type, Supplier<T> loader) {
+        if (!enabled || memberId == null) return readTx.execute(s -> loader.get());
+
+        long start = System.nanoTime();
+        String lk = localKey(region, memberId);
+
+        Entry e = local.get(lk);
+        if (e != null && e.expiresAt() > System.currentTimeMillis()) {
+            record(region, "local", start);
+            return type.cast(e.value());
+        }
+
+        T fromRedis = readRedis(region, memberId, type);
+        if (fromRedis != null) {
+            putLocal(lk, fromRedis);
+            record(region, "redis", start);
+            return fromRedis;
+        }
+
+        long seen = epoch.get();
+        T loaded = readTx.execute(s -> loader.get());
+        if (loaded != null && epoch.get() == seen) {
+            writeRedis(region, memberId, loaded);
+            putLocal(lk, loaded);
+        }
+        record(region, "miss", start);
+        return loaded;
+    }
+
+    /** 현재 트랜잭션 커밋 후(없으면 즉시) 해당 회원들의 모든 캐시 무효화 */
+    public void invalidate(Long... memberIds) {
+        List<Long> ids = Arrays.stream(memberIds).filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) return;
+        epoch.incrementAndGet();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { evictAndPublish(ids); }
+            });
+        } else {
+            evictAndPublish(ids);
+        }
+    }
+
+    private void evictAndPublish(List<Long> ids) {
+        epoch.incrementAndGet();
+        evictLocal(ids);
+        try {
+            List<String> keys = new ArrayList<>(ids.size() * Region.values().length);
+            for (Long id : ids) {
+                for (Region r : Region.values()) keys.add(redisKey(r, id));
+            }
+            redis.delete(keys);
+            redis.convertAndSend(CHANNEL, ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (Exception ex) {
+            // Redis 장애 시 다른 인스턴스 로컬 캐시는 local-ttl 안에 만료됨
+            log.warn("[PROFILE-CACHE] invalidate failed ids={} : {}", ids, ex.toString());
+        }
+    }
+
+    /** 다른 인스턴스가 보낸 무효화 메시지 */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        List<Long> ids = new ArrayList<>();
+        for (String s : body.split(",")) {
+            try {
+                ids.add(Long.valueOf(s.trim()));
+            } catch (NumberFormatException ignore) { }
+        }
+        epoch.incrementAndGet();
+        evictLocal(ids);
+    }
+
+    private void evictLocal(List<Long> ids) {
+        for (Long id : ids) {
+            for (Region r : Region.values()) local.remove(localKey(r, id));
+        }
+    }
+
+    private void putLocal(String key, Object value) {
+        if (local.size() >= localMaxEntries) {
+            long now = System.currentTimeMillis();
+            local.entrySet().removeIf(en -> en.getValue().expiresAt() <= now);
+            if (local.size() >= localMaxEntries) return; // 가득 차면 로컬 티어는 건너뜀 (Redis 가 받침)
+        }
+        local.put(key, new Entry(value, System.currentTimeMillis() + localTtlMillis));
+    }
+
+    private <T> T readRedis(Region region, Long memberId, Class<T> type) {
+        try {
+            String json = redis.opsForValue().get(redisKey(region, memberId));
+            return json == null ? null : om.readValue(json, type);
+        } catch (Exception ex) {
+            log.debug("[PROFILE-CACHE] redis read failed key={} : {}", redisKey(region, memberId), ex.toString());
+            return null;
+        }
+    }
+
+    private void writeRedis(Region region, Long memberId, Object value) {
+        try {
+            redis.opsForValue().set(redisKey(region, memberId), om.writeValueAsString(value), redisTtl);
+        } catch (Exception ex) {
+            log.debug("[PROFILE-CACHE] redis write failed key={} : {}", redisKey(region, memberId), ex.toString());
+        }
+    }
+
+    private void record(Region region, String result, long startNanos) {
+        Timer.builder("profile.cache.lookup")
+                .description("Profile/couple lookups by cache tier (local, redis, miss=DB)")
+                .tag("region", region.key)
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
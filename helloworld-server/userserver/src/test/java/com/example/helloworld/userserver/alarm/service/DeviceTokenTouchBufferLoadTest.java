@@ -0,0 +1,141 @@
+package com.example.helloworld.userserver.alarm.service;
+
+import com.example.helloworld.userserver.alarm.persistence.DeviceTokenBulkRepositoryImpl;
+import com.example.helloworld.userserver.alarm.persistence.DeviceTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 앱 실행 폭주 시 /api/fcm/register 의 DB 쓰기 비교 (./gradlew loadTest --tests '*DeviceTokenTouchBufferLoadTest')
+ * 유저 USERS 명이 각자 LAUNCHES 번 앱을 켜서 같은 토큰을 다시 등록하는 상황.
+ * - direct: 등록마다 upsert (예전 방식)
+ * - buffered: DeviceTokenTouchBuffer.register — 처음 한 번만 upsert, 나머지는 last_seen 을 모아 flush 주기마다 일괄 UPDATE
+ *   (flush 주기는 등록 FLUSH_EVERY 건마다 한 번으로 흉내 — 한 주기 안에 같은 유저가 여러 번 켤수록 행 갱신이 더 합쳐짐)
+ * DB 왕복 수(upsert 1건 = 1, batch UPDATE 1묶음 = 1), 갱신 행 수, 소요 시간, 끝난 뒤 device_tokens 상태(활성, last_seen_at)를 출력/검증.
+ *
+ * 실제 Postgres 가 필요하다: BENCH_PG_URL, BENCH_PG_USER, BENCH_PG_PASSWORD. 없으면 건너뛴다.
+ * 유저 수 -Dbench.users (기본 10,000), 유저당 실행 -Dbench.launches (기본 10), flush 간격 -Dbench.flush-every (기본 20,000).
+ * bench_token 스키마에 테이블을 만들고 끝나면 지운다.
+ */
+@Tag("load")
+class DeviceTokenTouchBufferLoadTest {
+
+    private static final int USERS = Integer.getInteger("bench.users", 10_000);
+    private static final int LAUNCHES = Integer.getInteger("bench.launches", 10);
+    private static final int FLUSH_EVERY = Integer.getInteger("bench.flush-every", 20_000);
+    private static final String SCHEMA = "bench_token";
+
+    private SingleConnectionDataSource ds;
+    private JdbcTemplate jdbc;
+    private DeviceTokenRepository repo;
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong rowWrites = new AtomicLong();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String url = System.getenv("BENCH_PG_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_PG_URL 미설정 — 건너뜀");
+        ds = new SingleConnectionDataSource(url, System.getenv("BENCH_PG_USER"), System.getenv("BENCH_PG_PASSWORD"), true);
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbc.execute("CREATE SCHEMA " + SCHEMA);
+        jdbc.execute("SET search_path TO " + SCHEMA);
+        jdbc.execute("""
+                CREATE TABLE device_tokens (
+                  id           BIGSERIAL PRIMARY KEY,
+                  user_id      BIGINT NOT NULL,
+                  token        TEXT NOT NULL,
+                  is_active    BOOLEAN NOT NULL,
+                  platform     VARCHAR(20),
+                  created_at   TIMESTAMPTZ NOT NULL,
+                  last_seen_at TIMESTAMPTZ,
+                  CONSTRAINT ux_device_token UNIQUE (user_id, token))""");
+
+        // 리포지토리 upsert 는 @Query 의 SQL 그대로, touchAll 은 실제 프래그먼트로
+        String upsertSql = DeviceTokenRepository.class
+                .getMethod("upsert", Long.class, String.class, String.class)
+                .getAnnotation(Query.class).value()
+                .replace(":userId", "?").replace(":token", "?").replace(":platform", "?");
+        DeviceTokenBulkRepositoryImpl bulk = new DeviceTokenBulkRepositoryImpl(jdbc);
+        repo = mock(DeviceTokenRepository.class);
+        doAnswer(inv -> {
+            roundTrips.incrementAndGet();
+            rowWrites.incrementAndGet();
+            jdbc.update(upsertSql, inv.getArgument(0), inv.getArgument(1), inv.getArgument(2));
+            return null;
+        }).when(repo).upsert(anyLong(), anyString(), anyString());
+        when(repo.touchAll(anyList())).thenAnswer(inv -> {
+            List<?> touches = inv.getArgument(0);
+            roundTrips.incrementAndGet();
+            rowWrites.addAndGet(touches.size());
+            return bulk.touchAll(inv.getArgument(0));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (jdbc == null) return;
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        ds.destroy();
+    }
+
+    private static String token(long user) {
+        return "fcm-token-" + user;
+    }
+
+    @Test
+    @DisplayName("앱 실행 폭주: 등록마다 upsert vs DeviceTokenTouchBuffer")
+    void launchStorm() {
+        long registers = (long) USERS * LAUNCHES;
+
+        long t0 = System.nanoTime();
+        for (int l = 0; l < LAUNCHES; l++) {
+            for (long u = 1; u <= USERS; u++) repo.upsert(u, token(u), "ANDROID");
+        }
+        long directMs = (System.nanoTime() - t0) / 1_000_000;
+        long directTrips = roundTrips.getAndSet(0);
+        long directRows = rowWrites.getAndSet(0);
+
+        jdbc.execute("TRUNCATE device_tokens");
+        DeviceTokenTouchBuffer buffer = new DeviceTokenTouchBuffer(repo, mock(PushRecipientEvents.class), new SimpleMeterRegistry(), 500, 30, USERS * 2);
+        long n = 0;
+        t0 = System.nanoTime();
+        for (int l = 0; l < LAUNCHES; l++) {
+            for (long u = 1; u <= USERS; u++) {
+                buffer.register(u, token(u), "ANDROID");
+                if (++n % FLUSH_EVERY == 0) buffer.flush();
+            }
+        }
+        buffer.flush();
+        long bufferedMs = (System.nanoTime() - t0) / 1_000_000;
+        long bufferedTrips = roundTrips.get();
+        long bufferedRows = rowWrites.get();
+
+        System.out.printf("[TOKEN-LOAD] %,d registers (%,d users x %d launches)%n", registers, USERS, LAUNCHES);
+        System.out.printf("[TOKEN-LOAD] direct   round-trips=%,d row-writes=%,d wall=%,d ms (%.0f registers/s)%n",
+                directTrips, directRows, directMs, registers * 1000.0 / Math.max(1, directMs));
+        System.out.printf("[TOKEN-LOAD] buffered round-trips=%,d row-writes=%,d wall=%,d ms (%.0f registers/s)%n",
+                bufferedTrips, bufferedRows, bufferedMs, registers * 1000.0 / Math.max(1, bufferedMs));
+
+        assertEquals(registers, directTrips);
+        assertTrue(bufferedRows < directRows, "coalescing must save row writes");
+        assertTrue(bufferedTrips * 5 < directTrips, "buffer must cut DB round trips");
+        assertEquals(USERS, jdbc.queryForObject(
+                "SELECT count(*) FROM device_tokens WHERE is_active AND last_seen_at IS NOT NULL", Long.class));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.helloworld.userserver.alarm.service;
+
+import com.example.helloworld.userserver.alarm.persistence.DeviceTokenBulkRepositoryImpl;
+import com.example.helloworld.userserver.alarm.persistence.DeviceTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 인스턴스 A 가 활성으로 알고 있는(known) 토큰을 인스턴스 B 가 비활성화한 뒤의 등록 흐름.
+ * 두 버퍼가 같은 device_tokens 를 공유한다 (upsert/deactivate 는 리포지토리 @Query SQL 그대로).
+ *
+ * 실제 Postgres 가 필요하다: BENCH_PG_URL, BENCH_PG_USER, BENCH_PG_PASSWORD. 없으면 건너뛴다.
+ * bench_token_replica 스키마에 테이블을 만들고 끝나면 지운다.
+ */
+class DeviceTokenTouchBufferReplicaTest {
+
+    private static final String SCHEMA = "bench_token_replica";
+    private static final long USER = 1L;
+    private static final String TOKEN = "fcm-token-1";
+
+    private SingleConnectionDataSource ds;
+    private JdbcTemplate jdbc;
+    private String deactivateSql;
+    private final PushRecipientEvents eventsA = mock(PushRecipientEvents.class);
+    private DeviceTokenTouchBuffer replicaA;
+    private DeviceTokenTouchBuffer replicaB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String url = System.getenv("BENCH_PG_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_PG_URL 미설정 — 건너뜀");
+        ds = new SingleConnectionDataSource(url, System.getenv("BENCH_PG_USER"), System.getenv("BENCH_PG_PASSWORD"), true);
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbc.execute("CREATE SCHEMA " + SCHEMA);
+        jdbc.execute("SET search_path TO " + SCHEMA);
+        jdbc.execute("""
+                CREATE TABLE device_tokens (
+                  id           BIGSERIAL PRIMARY KEY,
+                  user_id      BIGINT NOT NULL,
+                  token        TEXT NOT NULL,
+                  is_active    BOOLEAN NOT NULL,
+                  platform     VARCHAR(20),
+                  created_at   TIMESTAMPTZ NOT NULL,
+                  last_seen_at TIMESTAMPTZ,
+                  CONSTRAINT ux_device_token UNIQUE (user_id, token))""");
+
+        String upsertSql = sql("upsert", Long.class, String.class, String.class);
+        deactivateSql = sql("deactivate", Long.class, String.class);
+        DeviceTokenBulkRepositoryImpl bulk = new DeviceTokenBulkRepositoryImpl(jdbc);
+        DeviceTokenRepository repo = mock(DeviceTokenRepository.class);
+        doAnswer(inv -> jdbc.update(upsertSql, inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)))
+                .when(repo).upsert(anyLong(), anyString(), anyString());
+        when(repo.touchAll(anyList())).thenAnswer(inv -> bulk.touchAll(inv.getArgument(0)));
+        when(repo.reviveAll(anyList())).thenAnswer(inv -> bulk.reviveAll(inv.getArgument(0)));
+
+        replicaA = new DeviceTokenTouchBuffer(repo, eventsA, new SimpleMeterRegistry(), 500, 30, 1_000);
+        replicaB = new DeviceTokenTouchBuffer(repo, mock(PushRecipientEvents.class), new SimpleMeterRegistry(), 500, 30, 1_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (jdbc == null) return;
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        ds.destroy();
+    }
+
+    private static String sql(String method, Class<?>... params) throws NoSuchMethodException {
+        return DeviceTokenRepository.class.getMethod(method, params).getAnnotation(Query.class).value()
+                .replace(":userId", "?").replace(":token", "?").replace(":platform", "?");
+    }
+
+    /** DeviceTokenController.unregister 를 B 에서 */
+    private void unregisterOnB() throws InterruptedException {
+        Thread.sleep(20); // 등록 시각(앱 시계)과 deactivate now()(DB 시계)를 확실히 구분
+        jdbc.update(deactivateSql, USER, TOKEN);
+        replicaB.forget(USER, TOKEN);
+        Thread.sleep(20);
+    }
+
+    private boolean active() {
+        return Boolean.TRUE.equals(jdbc.queryForObject(
+                "SELECT is_active FROM device_tokens WHERE user_id = ? AND token = ?", Boolean.class, USER, TOKEN));
+    }
+
+    @Test
+    @DisplayName("B 에서 해제 후 A 로 다시 등록: 버퍼에 합쳐져도 flush 때 다시 활성화되고 수신자 캐시 무효화")
+    void relaunchAfterUnregisterOnOtherReplica() throws Exception {
+        assertTrue(replicaA.register(USER, TOKEN, "ANDROID"));
+        unregisterOnB();
+        assertFalse(active());
+
+        assertFalse(replicaA.register(USER, TOKEN, "ANDROID")); // A 는 아직 known → 버퍼로
+        replicaA.flush();
+
+        assertTrue(active());
+        verify(eventsA).changed(USER);
+        // 되살린 뒤에는 다시 버퍼 경로
+        assertFalse(replicaA.register(USER, TOKEN, "ANDROID"));
+    }
+
+    @Test
+    @DisplayName("A 에 버퍼된 등록보다 B 의 해제가 늦으면 flush 가 되살리지 않음")
+    void unregisterAfterBufferedRelaunchWins() throws Exception {
+        assertTrue(replicaA.register(USER, TOKEN, "ANDROID"));
+        assertFalse(replicaA.register(USER, TOKEN, "ANDROID"));
+        unregisterOnB();
+
+        replicaA.flush();
+
+        assertFalse(active());
+        verify(eventsA, never()).changed(any());
+        // known 에서 빠졌으므로 다음 실행은 즉시 upsert
+        assertTrue(replicaA.register(USER, TOKEN, "ANDROID"));
+        assertTrue(active());
+    }
+
+    @Test
+    @DisplayName("행이 지워졌으면 flush 가 버퍼된 플랫폼으로 다시 넣음")
+    void deletedRowIsReinserted() {
+        assertTrue(replicaA.register(USER, TOKEN, "WATCH"));
+        jdbc.update("DELETE FROM device_tokens");
+        assertFalse(replicaA.register(USER, TOKEN, "WATCH"));
+
+        replicaA.flush();
+
+        assertTrue(active());
+        assertEquals("WATCH", jdbc.queryForObject("SELECT platform FROM device_tokens", String.class));
+        verify(eventsA).changed(USER);
+    }
+}
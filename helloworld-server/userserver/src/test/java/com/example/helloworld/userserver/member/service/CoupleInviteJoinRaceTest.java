@@ -0,0 +1,182 @@
+package com.example.helloworld.userserver.member.service;
+
+import com.example.helloworld.userserver.alarm.service.PushRecipientEvents;
+import com.example.helloworld.userserver.member.dto.request.CoupleJoinRequest;
+import com.example.helloworld.userserver.member.entity.Couple;
+import com.example.helloworld.userserver.member.entity.CoupleInviteCode;
+import com.example.helloworld.userserver.member.entity.Member;
+import com.example.helloworld.userserver.member.persistence.CoupleInviteCodeRepository;
+import com.example.helloworld.userserver.member.persistence.CoupleRepository;
+import com.example.helloworld.userserver.member.persistence.MemberCoupleRepository;
+import com.example.helloworld.userserver.member.persistence.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 같은 초대코드로 두 남성이 동시에 join → 한 명만 연동되고 진 쪽은 404/409
+ * - DB 는 목: couples.user_id_b 는 맵 CAS 로 흉내 (linkUserBIfEmpty), 초대코드 이력 행은 늘 ISSUED
+ *   (InviteCodeAuditWriter 가 비동기라 Redis 로 소비된 뒤에도 잠깐 ISSUED 로 남는 상황)
+ * - Redis 경로는 실제 Redis 필요: BENCH_REDIS_URL=redis://host:port (없으면 그 테스트만 건너뜀).
+ *   키는 invite:{inv}:* 이므로 끝나면 그 패턴만 지운다 — 공유 Redis 에 돌리지 말 것.
+ */
+class CoupleInviteJoinRaceTest {
+
+    private static final int ROUNDS = 200;
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    // 트랜잭션 동기화(afterCompletion)만 돌려주는 대역
+    static class NoopTxManager extends AbstractPlatformTransactionManager {
+        @Override protected Object doGetTransaction() { return new Object(); }
+        @Override protected void doBegin(Object tx, TransactionDefinition def) {}
+        @Override protected void doCommit(DefaultTransactionStatus status) {}
+        @Override protected void doRollback(DefaultTransactionStatus status) {}
+    }
+
+    private final MemberRepository members = mock(MemberRepository.class);
+    private final CoupleRepository couples = mock(CoupleRepository.class);
+    private final CoupleInviteCodeRepository inviteRepo = mock(CoupleInviteCodeRepository.class);
+    private final MemberCoupleRepository memberCouples = mock(MemberCoupleRepository.class);
+    private final TransactionTemplate tx = new TransactionTemplate(new NoopTxManager());
+    private final Map<Long, Long> userB = new ConcurrentHashMap<>(); // coupleId → 연동된 남성
+
+    private LettuceConnectionFactory factory;
+    private StringRedisTemplate redis;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(2);
+        when(members.findById(anyLong())).thenAnswer(inv -> Optional.of(
+                Member.builder().id(inv.getArgument(0)).gender(Member.Gender.MALE).build()));
+        when(couples.linkUserBIfEmpty(anyLong(), any())).thenAnswer(inv ->
+                userB.putIfAbsent(inv.getArgument(0), inv.<Member>getArgument(1).getId()) == null ? 1 : 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        if (factory == null) return;
+        clear();
+        factory.destroy();
+    }
+
+    private void clear() {
+        Set<String> keys = redis.keys("invite:{inv}:*");
+        if (keys != null && !keys.isEmpty()) redis.delete(keys);
+    }
+
+    private CoupleInviteService service(InviteCodeStore store) {
+        CoupleInviteService service = new CoupleInviteService(members, couples, inviteRepo, memberCouples, store,
+                mock(InviteCodeAuditWriter.class), mock(ProfileCache.class), mock(PushRecipientEvents.class));
+        ReflectionTestUtils.setField(service, "inviteDbFallback", true);
+        return service;
+    }
+
+    /** 아직 ISSUED 인 DB 이력 행 (커플 userB 는 비어 보임) */
+    private void issuedRow(String code, long coupleId) {
+        CoupleInviteCode row = mock(CoupleInviteCode.class);
+        when(row.isUsableNow(any())).thenReturn(true);
+        when(row.getCouple()).thenReturn(Couple.builder().id(coupleId)
+                .userA(Member.builder().id(coupleId * 10).gender(Member.Gender.FEMALE).build()).build());
+        when(inviteRepo.findWithLockByCode(code)).thenReturn(Optional.of(row));
+    }
+
+    /** 두 남성이 같은 순간 join → 성공하면 null, 실패하면 상태 코드 */
+    private List<HttpStatus> race(CoupleInviteService service, String code, long maleA, long maleB) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(2);
+        List<Future<HttpStatus>> fs = new ArrayList<>();
+        for (long male : List.of(maleA, maleB)) {
+            fs.add(pool.submit(() -> {
+                start.await();
+                try {
+                    tx.executeWithoutResult(s -> service.join(male, new CoupleJoinRequest(code)));
+                    return null;
+                } catch (ResponseStatusException e) {
+                    return HttpStatus.valueOf(e.getStatusCode().value());
+                }
+            }));
+        }
+        List<HttpStatus> out = new ArrayList<>();
+        for (Future<HttpStatus> f : fs) out.add(f.get());
+        return out;
+    }
+
+    private void assertOneWinner(List<HttpStatus> r, long coupleId, long maleA, long maleB, String round) {
+        assertEquals(1, r.stream().filter(s -> s == null).count(), round + " " + r);
+        HttpStatus lost = r.get(0) == null ? r.get(1) : r.get(0);
+        assertTrue(lost == HttpStatus.NOT_FOUND || lost == HttpStatus.CONFLICT, round + " " + r);
+        assertEquals(r.get(0) == null ? maleA : maleB, userB.get(coupleId), round + ": 이긴 쪽만 연동");
+    }
+
+    @Test
+    @DisplayName("Redis 로 발급된 코드: 진 쪽은 DB 이력이 아직 ISSUED 여도 DB 로 넘어가지 않고 실패")
+    void redisIssuedCodeJoinsOnce() throws Exception {
+        String url = System.getenv("BENCH_REDIS_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_REDIS_URL 미설정 — 건너뜀");
+        URI uri = URI.create(url);
+        factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(uri.getHost(), uri.getPort()));
+        factory.afterPropertiesSet();
+        redis = new StringRedisTemplate(factory);
+        clear();
+        InviteCodeStore store = new InviteCodeStore(redis);
+        CoupleInviteService service = service(store);
+
+        for (int i = 0; i < ROUNDS; i++) {
+            long coupleId = 1_000 + i, maleA = 2L * i + 1, maleB = 2L * i + 2;
+            String code = "JOIN" + i;
+            assertTrue(store.reserve(code, coupleId, coupleId * 10, TTL, true));
+            issuedRow(code, coupleId);
+
+            assertOneWinner(race(service, code, maleA, maleB), coupleId, maleA, maleB, "round " + i);
+        }
+        verify(inviteRepo, never()).findWithLockByCode(anyString());
+    }
+
+    @Test
+    @DisplayName("DB 에만 있는 코드(폴백): 둘 다 DB 경로로 와도 조건부 UPDATE 로 한 명만 연동, 다른 쪽은 409")
+    void dbOnlyCodeJoinsOnce() throws Exception {
+        InviteCodeStore store = mock(InviteCodeStore.class);
+        when(store.consume(anyString())).thenReturn(InviteCodeStore.Consumed.UNKNOWN);
+        CoupleInviteService service = service(store);
+
+        for (int i = 0; i < ROUNDS; i++) {
+            long coupleId = 5_000 + i, maleA = 2L * i + 1, maleB = 2L * i + 2;
+            String code = "LEGACY" + i;
+            issuedRow(code, coupleId);
+
+            List<HttpStatus> r = race(service, code, maleA, maleB);
+            assertOneWinner(r, coupleId, maleA, maleB, "round " + i);
+            assertTrue(r.contains(HttpStatus.CONFLICT), "round " + i + " " + r);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.helloworld.userserver.member.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 초대코드 예약/소비 경합 (실제 Redis 필요: BENCH_REDIS_URL=redis://host:port, 없으면 건너뜀)
+ * 두 스레드를 배리어로 맞춰 같은 순간에 부르는 것을 ROUNDS 번 반복한다.
+ * 키는 invite:{inv}:* 이므로 끝나면 그 패턴만 지운다 — 공유 Redis 에 돌리지 말 것.
+ */
+class InviteCodeStoreRaceTest {
+
+    private static final int ROUNDS = 300;
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private LettuceConnectionFactory factory;
+    private StringRedisTemplate redis;
+    private InviteCodeStore store;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getenv("BENCH_REDIS_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_REDIS_URL 미설정 — 건너뜀");
+        URI uri = URI.create(url);
+        factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(uri.getHost(), uri.getPort()));
+        factory.afterPropertiesSet();
+        redis = new StringRedisTemplate(factory);
+        clear();
+        store = new InviteCodeStore(redis);
+        pool = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (factory == null) return;
+        clear();
+        pool.shutdownNow();
+        factory.destroy();
+    }
+
+    private void clear() {
+        Set<String> keys = redis.keys("invite:{inv}:*");
+        if (keys != null && !keys.isEmpty()) redis.delete(keys);
+    }
+
+    /** 두 작업을 동시에 출발시켜 결과를 순서대로 돌려줌 */
+    private <T> List<T> race(Callable<T> a, Callable<T> b) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(2);
+        List<Future<T>> fs = new ArrayList<>();
+        for (Callable<T> c : List.of(a, b)) {
+            fs.add(pool.submit(() -> {
+                start.await();
+                return c.call();
+            }));
+        }
+        List<T> out = new ArrayList<>();
+        for (Future<T> f : fs) out.add(f.get());
+        return out;
+    }
+
+    @Test
+    @DisplayName("같은 코드를 두 커플이 동시에 예약 → 한 쪽만 성공, 코드는 이긴 커플 것")
+    void sameCodeTwoCouples() throws Exception {
+        for (int i = 0; i < ROUNDS; i++) {
+            String code = "C" + i;
+            long a = 2L * i + 1, b = 2L * i + 2;
+            List<Boolean> r = race(
+                    () -> store.reserve(code, a, 10L, TTL, true),
+                    () -> store.reserve(code, b, 20L, TTL, true));
+
+            assertEquals(1, r.stream().filter(Boolean::booleanValue).count(), "round " + i + " " + r);
+            long winner = r.get(0) ? a : b, loser = r.get(0) ? b : a;
+            assertEquals(code, redis.opsForValue().get("invite:{inv}:couple:" + winner));
+            assertNull(redis.opsForValue().get("invite:{inv}:couple:" + loser));
+            assertTrue(redis.opsForValue().get("invite:{inv}:code:" + code).startsWith(winner + ":"));
+        }
+    }
+
+    @Test
+    @DisplayName("같은 커플이 두 코드를 동시에 발급(이전 코드 무효화) → 살아 있는 코드는 커플 키가 가리키는 하나뿐")
+    void sameCoupleTwoCodes() throws Exception {
+        long coupleId = 7L;
+        assertTrue(store.reserve("SEED", coupleId, 1L, TTL, true));
+        for (int i = 0; i < ROUNDS; i++) {
+            String x = "X" + i, y = "Y" + i;
+            List<Boolean> r = race(
+                    () -> store.reserve(x, coupleId, 1L, TTL, true),
+                    () -> store.reserve(y, coupleId, 2L, TTL, true));
+
+            assertEquals(List.of(true, true), r, "round " + i);
+            String current = redis.opsForValue().get("invite:{inv}:couple:" + coupleId);
+            assertEquals(Set.of("invite:{inv}:code:" + current), liveCodeKeys(),
+                    "round " + i + ": orphaned code left behind");
+        }
+
+        store.revokeCouple(coupleId);
+        assertEquals(Set.of(), liveCodeKeys());
+        assertEquals(Set.of(), redis.keys("invite:{inv}:couple:*"));
+        assertEquals(InviteCodeStore.Consumed.SPENT, store.consume("SEED"), "무효화된 코드는 흔적으로 남음");
+    }
+
+    /** 흔적(used/revoked)이 아닌 코드 키 */
+    private Set<String> liveCodeKeys() {
+        Set<String> live = new java.util.HashSet<>();
+        for (String k : redis.keys("invite:{inv}:code:*")) {
+            String v = redis.opsForValue().get(k);
+            if (v != null && !v.equals("used") && !v.equals("revoked")) live.add(k);
+        }
+        return live;
+    }
+
+    @Test
+    @DisplayName("같은 코드를 두 명이 동시에 소비 → 한 명만 받음")
+    void consumeOnce() throws Exception {
+        for (int i = 0; i < ROUNDS; i++) {
+            String code = "J" + i;
+            assertTrue(store.reserve(code, 100L + i, 1L, TTL, false));
+            List<InviteCodeStore.Consumed> r = race(
+                    () -> store.consume(code),
+                    () -> store.consume(code));
+
+            assertEquals(1, r.stream().filter(c -> c.reservation() != null).count(), "round " + i);
+            assertTrue(r.stream().allMatch(InviteCodeStore.Consumed::known), "진 쪽도 Redis 발급 코드임을 앎");
+        }
+    }
+
+    @Test
+    @DisplayName("소비한 코드는 흔적으로 남고, 롤백 시 되돌리지만 그새 무효화됐으면 되돌리지 않음")
+    void tombstonesAndRestore() {
+        assertEquals(InviteCodeStore.Consumed.UNKNOWN, store.consume("NEVER"));
+
+        assertTrue(store.reserve("R1", 1L, 10L, TTL, true));
+        InviteCodeStore.Reservation r = store.consume("R1").reservation();
+        assertNotNull(r);
+        assertEquals("used", redis.opsForValue().get("invite:{inv}:code:R1"));
+        long ttlMs = redis.getExpire("invite:{inv}:code:R1", java.util.concurrent.TimeUnit.MILLISECONDS);
+        assertTrue(ttlMs > TTL.toMillis(), "남은 유효기간 + 유예: " + ttlMs);
+        assertFalse(store.reserve("R1", 2L, 20L, TTL, true), "흔적이 남은 코드는 재발급 안 됨");
+
+        store.restore("R1", r); // 합류 롤백
+        assertEquals(r, store.consume("R1").reservation());
+
+        store.revokeCouple(1L); // 합류 진행 중(흔적 used)에 무효화 → revoked
+        store.restore("R1", r);
+        assertEquals(InviteCodeStore.Consumed.SPENT, store.consume("R1"), "무효화 뒤에는 되돌리지 않음");
+
+        assertTrue(store.reserve("R2", 3L, 10L, TTL, true));
+        assertTrue(store.reserve("R3", 3L, 10L, TTL, true)); // R2 무효화
+        assertEquals("revoked", redis.opsForValue().get("invite:{inv}:code:R2"));
+        assertEquals(InviteCodeStore.Consumed.SPENT, store.consume("R2"));
+    }
+}
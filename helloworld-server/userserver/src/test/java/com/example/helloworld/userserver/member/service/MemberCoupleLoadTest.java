@@ -0,0 +1,152 @@
+package com.example.helloworld.userserver.member.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * member_couple read model — 회원 100만 명 (./gradlew loadTest --tests '*MemberCoupleLoadTest')
+ * - couples 에 커플 -Dbench.couples (기본 500,000, 90% 는 B 합류) 를 만들고 백필 작업 소요/멱등/동시 실행 잠금 확인
+ * - 회원 → 커플 조회 지연: 예전 OR 쿼리(인덱스 없음 = 현재 스키마), 같은 쿼리 + user_id_a/b 인덱스, member_couple PK
+ *
+ * 실제 Postgres 가 필요하다: BENCH_PG_URL, BENCH_PG_USER, BENCH_PG_PASSWORD. 없으면 건너뛴다.
+ * bench_member_couple 스키마에 테이블을 만들고 끝나면 지운다.
+ */
+@Tag("load")
+class MemberCoupleLoadTest {
+
+    private static final int COUPLES = Integer.getInteger("bench.couples", 500_000);
+    private static final String SCHEMA = "bench_member_couple";
+
+    private JdbcTemplate jdbc;
+    private DataSourceTransactionManager txManager;
+    private SingleConnectionDataSource lookupDs;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getenv("BENCH_PG_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_PG_URL 미설정 — 건너뜀");
+        // 백필은 잠금 커넥션 + 작업 커넥션을 따로 쓰므로 호출마다 새 커넥션
+        String schemaUrl = url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA;
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                schemaUrl, System.getenv("BENCH_PG_USER"), System.getenv("BENCH_PG_PASSWORD"));
+        // 조회 지연은 커넥션 하나를 계속 써서 잼 (운영의 커넥션 풀과 같은 조건)
+        lookupDs = new SingleConnectionDataSource(
+                schemaUrl, System.getenv("BENCH_PG_USER"), System.getenv("BENCH_PG_PASSWORD"), true);
+        jdbc = new JdbcTemplate(ds);
+        txManager = new DataSourceTransactionManager(ds);
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbc.execute("CREATE SCHEMA " + SCHEMA);
+        jdbc.execute("""
+                CREATE TABLE couples (
+                  couple_id BIGSERIAL PRIMARY KEY,
+                  user_id_a BIGINT NOT NULL,
+                  user_id_b BIGINT)""");
+        // 회원 id: A = 2c-1, B = 2c (10% 는 아직 미합류)
+        jdbc.update("""
+                INSERT INTO couples (couple_id, user_id_a, user_id_b)
+                SELECT c, 2 * c - 1, CASE WHEN c % 10 = 0 THEN NULL ELSE 2 * c END
+                  FROM generate_series(1, ?) c""", COUPLES);
+        jdbc.execute("ANALYZE couples");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (jdbc == null) return;
+        lookupDs.destroy();
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    private MemberCoupleBackfillRunner runner() {
+        return new MemberCoupleBackfillRunner(jdbc, txManager, null, true, false, 10_000);
+    }
+
+    @Test
+    @DisplayName("백필 소요 + 멱등 + 동시 실행 1개, 조회 지연 비교")
+    void backfillAndLookup() throws Exception {
+        long members = jdbc.queryForObject("SELECT count(*) + count(user_id_b) FROM couples", Long.class);
+
+        long t0 = System.nanoTime();
+        assertTrue(runner().backfill());
+        long backfillMs = (System.nanoTime() - t0) / 1_000_000;
+        assertEquals(members, jdbc.queryForObject("SELECT count(*) FROM member_couple", Long.class));
+        assertEquals(0, jdbc.queryForObject("""
+                SELECT count(*) FROM member_couple mc JOIN couples c USING (couple_id)
+                 WHERE mc.partner_id IS DISTINCT FROM CASE mc.role WHEN 'A' THEN c.user_id_b ELSE c.user_id_a END""",
+                Long.class));
+
+        t0 = System.nanoTime();
+        assertTrue(runner().backfill()); // 변경 없음 → 다시 돌려도 같은 결과
+        long rerunMs = (System.nanoTime() - t0) / 1_000_000;
+        assertEquals(members, jdbc.queryForObject("SELECT count(*) FROM member_couple", Long.class));
+
+        // 두 개를 동시에 → 하나는 잠금을 못 잡고 건너뜀
+        CountDownLatch go = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> both = List.of(
+                CompletableFuture.supplyAsync(() -> { await(go); return runner().backfill(); }),
+                CompletableFuture.supplyAsync(() -> { await(go); return runner().backfill(); }));
+        go.countDown();
+        long ran = both.stream().map(CompletableFuture::join).filter(Boolean::booleanValue).count();
+        assertEquals(1, ran, "advisory lock must let exactly one backfill run");
+
+        JdbcTemplate lookup = new JdbcTemplate(lookupDs);
+        Random rnd = new Random(7);
+        long[] ids = rnd.longs(2_000, 1, 2L * COUPLES + 1).toArray();
+        String orQuery = "SELECT couple_id FROM couples WHERE user_id_a = ? OR user_id_b = ?";
+        long[] seqScan = time(Arrays.copyOf(ids, 100), id -> lookup.queryForList(orQuery, Long.class, id, id));
+        jdbc.execute("CREATE INDEX ix_bench_couples_a ON couples(user_id_a)");
+        jdbc.execute("CREATE INDEX ix_bench_couples_b ON couples(user_id_b)");
+        jdbc.execute("ANALYZE couples");
+        long[] indexedOr = time(ids, id -> lookup.queryForList(orQuery, Long.class, id, id));
+        long[] pk = time(ids, id -> lookup.queryForList(
+                "SELECT couple_id FROM member_couple WHERE member_id = ?", Long.class, id));
+
+        System.out.printf("[MEMBER-COUPLE-LOAD] %,d couples / %,d members: backfill %,d ms, re-run %,d ms%n",
+                COUPLES, members, backfillMs, rerunMs);
+        print("OR query, no index (current schema)", seqScan);
+        print("OR query + user_id_a/b indexes", indexedOr);
+        print("member_couple PK", pk);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** 조회마다 걸린 시간(μs), 정렬됨. 첫 조회(준비된 문장/캐시 워밍)는 한 번 버림 */
+    private long[] time(long[] ids, LongConsumer lookup) {
+        lookup.accept(ids[0]);
+        long[] us = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            long t0 = System.nanoTime();
+            lookup.accept(ids[i]);
+            us[i] = (System.nanoTime() - t0) / 1_000;
+        }
+        Arrays.sort(us);
+        return us;
+    }
+
+    private static void print(String name, long[] us) {
+        System.out.printf("[MEMBER-COUPLE-LOAD] %-36s n=%,d p50=%,dus p99=%,dus%n",
+                name, us.length, us[us.length / 2], us[(int) (us.length * 0.99)]);
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.helloworld.userserver.member.service;
+
+import com.example.helloworld.userserver.alarm.service.PushRecipientEvents;
+import com.example.helloworld.userserver.member.dto.request.AvatarUrlRequest;
+import com.example.helloworld.userserver.member.dto.request.CoupleJoinRequest;
+import com.example.helloworld.userserver.member.dto.request.CoupleUpdateRequest;
+import com.example.helloworld.userserver.member.dto.response.MemberProfileResponse;
+import com.example.helloworld.userserver.member.entity.Couple;
+import com.example.helloworld.userserver.member.entity.Member;
+import com.example.helloworld.userserver.member.entity.MemberCouple;
+import com.example.helloworld.userserver.member.persistence.CoupleInviteCodeRepository;
+import com.example.helloworld.userserver.member.persistence.CoupleRepository;
+import com.example.helloworld.userserver.member.persistence.MemberCoupleRepository;
+import com.example.helloworld.userserver.member.persistence.MemberRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 쓰기 경로마다 ProfileCache 두 티어(로컬 + Redis)가 커밋 후에 본인/파트너 모두 비워지는지.
+ * - 서비스는 실제 구현, 리포지토리는 목, Redis 는 맵으로 흉내 (키/채널만 확인)
+ * - 인스턴스 간 pub/sub 는 실제 Redis 필요: BENCH_REDIS_URL=redis://host:port (없으면 그 테스트만 건너뜀)
+ */
+class ProfileCacheInvalidationTest {
+
+    private static final long FEMALE = 1L;
+    private static final long MALE = 2L;
+    private static final long COUPLE = 100L;
+
+    // 트랜잭션 동기화(afterCommit)만 돌려주는 대역
+    static class NoopTxManager extends AbstractPlatformTransactionManager {
+        @Override protected Object doGetTransaction() { return new Object(); }
+        @Override protected void doBegin(Object tx, TransactionDefinition def) {}
+        @Override protected void doCommit(DefaultTransactionStatus status) {}
+        @Override protected void doRollback(DefaultTransactionStatus status) {}
+    }
+
+    private final NoopTxManager txManager = new NoopTxManager();
+    private final TransactionTemplate tx = new TransactionTemplate(txManager);
+    private final ObjectMapper om = new ObjectMapper().findAndRegisterModules();
+
+    private final Map<String, String> redisValues = new ConcurrentHashMap<>();
+    private final List<String> published = new CopyOnWriteArrayList<>();
+
+    private final MemberRepository members = mock(MemberRepository.class);
+    private final CoupleRepository couples = mock(CoupleRepository.class);
+    private final MemberCoupleRepository memberCouples = mock(MemberCoupleRepository.class);
+    private final InviteCodeStore inviteCodes = mock(InviteCodeStore.class);
+
+    private ProfileCache cache;
+    private Member female;
+    private Member male;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        when(ops.get(anyString())).thenAnswer(inv -> redisValues.get(inv.<String>getArgument(0)));
+        doAnswer(inv -> redisValues.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(ops).set(anyString(), anyString(), any(Duration.class));
+        when(redis.delete(anyCollection())).thenAnswer(inv -> inv.<Collection<String>>getArgument(0).stream()
+                .filter(k -> redisValues.remove(k) != null).count());
+        when(redis.convertAndSend(anyString(), anyString())).thenAnswer(inv -> {
+            published.add(inv.getArgument(0) + " " + inv.getArgument(1));
+            return 1L;
+        });
+        cache = new ProfileCache(redis, om, txManager, mock(RedisMessageListenerContainer.class),
+                new SimpleMeterRegistry(), true, 30, 1_000, 600);
+
+        female = Member.builder().id(FEMALE).nickname("mom").gender(Member.Gender.FEMALE).build();
+        male = Member.builder().id(MALE).nickname("dad").gender(Member.Gender.MALE).build();
+        when(members.findById(FEMALE)).thenReturn(Optional.of(female));
+        when(members.findById(MALE)).thenReturn(Optional.of(male));
+    }
+
+    private void linked() {
+        when(memberCouples.findById(FEMALE)).thenReturn(Optional.of(
+                MemberCouple.builder().memberId(FEMALE).coupleId(COUPLE).role(MemberCouple.ROLE_A).partnerId(MALE).build()));
+        when(memberCouples.findById(MALE)).thenReturn(Optional.of(
+                MemberCouple.builder().memberId(MALE).coupleId(COUPLE).role(MemberCouple.ROLE_B).partnerId(FEMALE).build()));
+        when(couples.findById(COUPLE)).thenReturn(Optional.of(
+                Couple.builder().id(COUPLE).userA(female).userB(male).pregnancyWeek(12).build()));
+    }
+
+    private CoupleInviteService inviteService() {
+        CoupleInviteService service = new CoupleInviteService(members, couples, mock(CoupleInviteCodeRepository.class),
+                memberCouples, inviteCodes, mock(InviteCodeAuditWriter.class), cache, mock(PushRecipientEvents.class));
+        ReflectionTestUtils.setField(service, "inviteDbFallback", true);
+        return service;
+    }
+
+    /** 두 회원의 모든 영역을 "old" 로 채움 (로컬 + Redis) */
+    private void warm() {
+        for (long id : List.of(FEMALE, MALE)) {
+            for (ProfileCache.Region r : ProfileCache.Region.values()) {
+                assertEquals("old", cache.get(r, id, String.class, () -> "old"));
+            }
+        }
+        assertEquals(6, redisValues.size());
+    }
+
+    /** 두 티어 모두 그대로 (로더가 불리면 실패) */
+    private void assertCached() {
+        for (long id : List.of(FEMALE, MALE)) {
+            for (ProfileCache.Region r : ProfileCache.Region.values()) {
+                assertEquals("old", cache.get(r, id, String.class, () -> fail("reloaded before commit")));
+            }
+        }
+        assertEquals(6, redisValues.size());
+    }
+
+    /** Redis 키가 지워졌고, 로컬 티어도 비어 DB 로더가 다시 불림 */
+    private void assertEvicted() {
+        assertTrue(redisValues.isEmpty(), () -> "redis keys left: " + redisValues.keySet());
+        assertEquals(1, published.size(), published::toString);
+        assertTrue(published.get(0).startsWith(ProfileCache.CHANNEL + " "), published::toString);
+        assertEquals(Set.of(String.valueOf(FEMALE), String.valueOf(MALE)),
+                Set.of(published.get(0).substring(ProfileCache.CHANNEL.length() + 1).split(",")));
+        for (long id : List.of(FEMALE, MALE)) {
+            for (ProfileCache.Region r : ProfileCache.Region.values()) {
+                assertEquals("new", cache.get(r, id, String.class, () -> "new"), r + ":" + id);
+            }
+        }
+    }
+
+    private void commitAndCheck(Runnable write) {
+        warm();
+        tx.executeWithoutResult(s -> {
+            write.run();
+            assertCached(); // 커밋 전에는 지우지 않음 (롤백되면 옛 값이 맞으므로)
+        });
+        assertEvicted();
+    }
+
+    @Test
+    @DisplayName("updateProfile: 커밋 후 본인 + 파트너 두 티어 무효화")
+    void updateProfile() {
+        linked();
+        MemberServiceImpl service = new MemberServiceImpl(members, memberCouples, cache);
+        commitAndCheck(() -> service.updateProfile(FEMALE, new MemberProfileResponse.MemberUpdateRequest("mommy", 31)));
+    }
+
+    @Test
+    @DisplayName("setAvatarUrl: 커밋 후 본인 + 파트너 두 티어 무효화")
+    void setAvatarUrl() {
+        linked();
+        MemberServiceImpl service = new MemberServiceImpl(members, memberCouples, cache);
+        commitAndCheck(() -> service.setAvatarUrl(MALE, new AvatarUrlRequest("https://img.example.com/dad.png")));
+    }
+
+    @Test
+    @DisplayName("updateMyCouple: 커밋 후 본인 + 파트너 두 티어 무효화")
+    void updateMyCouple() {
+        linked();
+        CoupleServiceImpl service = new CoupleServiceImpl(members, couples, memberCouples, cache);
+        commitAndCheck(() -> service.updateMyCouple(FEMALE, new CoupleUpdateRequest(13, null, null, null)));
+    }
+
+    @Test
+    @DisplayName("join: 커밋 후 남편 + 발급자 두 티어 무효화")
+    void join() {
+        when(memberCouples.existsById(MALE)).thenReturn(false);
+        when(inviteCodes.consume("CODE")).thenReturn(new InviteCodeStore.Consumed(
+                new InviteCodeStore.Reservation(COUPLE, FEMALE, System.currentTimeMillis() + 60_000), true));
+        when(couples.linkUserBIfEmpty(COUPLE, male)).thenReturn(1);
+        CoupleInviteService service = inviteService();
+        commitAndCheck(() -> service.join(MALE, new CoupleJoinRequest("CODE")));
+    }
+
+    @Test
+    @DisplayName("unlink: 커밋 후 본인 + 파트너 두 티어 무효화")
+    void unlink() {
+        linked();
+        CoupleInviteService service = inviteService();
+        commitAndCheck(() -> service.unlink(MALE));
+    }
+
+    @Test
+    @DisplayName("롤백되면 두 티어 모두 그대로")
+    void rollbackKeepsBothTiers() {
+        linked();
+        MemberServiceImpl service = new MemberServiceImpl(members, memberCouples, cache);
+        warm();
+
+        assertThrows(ResponseStatusException.class, () -> tx.executeWithoutResult(s -> {
+            service.updateProfile(FEMALE, new MemberProfileResponse.MemberUpdateRequest("mommy", null));
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "later failure");
+        }));
+
+        assertCached();
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    @DisplayName("두 인스턴스: A 의 무효화 메시지가 B 의 로컬 티어를 비움 (실제 Redis)")
+    void pubSubClearsOtherReplicaLocalTier() throws Exception {
+        String url = System.getenv("BENCH_REDIS_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_REDIS_URL 미설정 — 건너뜀");
+        URI uri = URI.create(url);
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(uri.getHost(), uri.getPort()));
+        factory.afterPropertiesSet();
+        StringRedisTemplate redis = new StringRedisTemplate(factory);
+        RedisMessageListenerContainer containerA = container(factory);
+        RedisMessageListenerContainer containerB = container(factory);
+        long id = 900_000_000L + System.nanoTime() % 1_000_000; // 공유 Redis 에서도 다른 키와 겹치지 않게
+        try {
+            ProfileCache a = new ProfileCache(redis, om, txManager, containerA, new SimpleMeterRegistry(), true, 30, 1_000, 600);
+            ProfileCache b = new ProfileCache(redis, om, txManager, containerB, new SimpleMeterRegistry(), true, 30, 1_000, 600);
+            awaitSubscribed(redis);
+
+            assertEquals("old", b.get(ProfileCache.Region.ME, id, String.class, () -> "old"));
+            // Redis 만 지워서는 B 의 로컬 티어가 그대로 (이 대조군이 통과해야 아래 검증이 의미 있음)
+            redis.delete("profile:me:" + id);
+            assertEquals("old", b.get(ProfileCache.Region.ME, id, String.class, () -> "new"));
+
+            a.invalidate(id);
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            String seen;
+            do {
+                seen = b.get(ProfileCache.Region.ME, id, String.class, () -> "new");
+                if (!"new".equals(seen)) Thread.sleep(10);
+            } while (!"new".equals(seen) && System.currentTimeMillis() < deadline);
+            assertEquals("new", seen, "B 의 로컬 티어가 pub/sub 로 비워져야 함");
+        } finally {
+            redis.delete("profile:me:" + id);
+            containerA.destroy();
+            containerB.destroy();
+            factory.destroy();
+        }
+    }
+
+    private static RedisMessageListenerContainer container(LettuceConnectionFactory factory) throws Exception {
+        RedisMessageListenerContainer c = new RedisMessageListenerContainer();
+        c.setConnectionFactory(factory);
+        c.afterPropertiesSet();
+        c.start();
+        return c;
+    }
+
+    /** 두 컨테이너가 채널을 구독할 때까지 (구독 전 메시지는 버려짐). 빈 메시지는 수신 측에서 무시됨 */
+    private static void awaitSubscribed(StringRedisTemplate redis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            Long receivers = redis.convertAndSend(ProfileCache.CHANNEL, "");
+            if (receivers != null && receivers >= 2) return;
+            Thread.sleep(20);
+        }
+        fail("listener containers did not subscribe");
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.helloworld.userserver.member.service;
+
+import com.example.helloworld.userserver.member.dto.response.CoupleWithUsersResponse;
+import com.example.helloworld.userserver.member.entity.Couple;
+import com.example.helloworld.userserver.member.entity.Member;
+import com.example.helloworld.userserver.member.entity.MemberCouple;
+import com.example.helloworld.userserver.member.persistence.CoupleRepository;
+import com.example.helloworld.userserver.member.persistence.MemberCoupleRepository;
+import com.example.helloworld.userserver.member.persistence.MemberRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * GET /api/couples/me/detail (CoupleServiceImpl.getMyCoupleWithUsers) 지연 — 캐시 없음 vs ProfileCache
+ * (./gradlew loadTest --tests '*ProfileCacheLoadTest')
+ * - 리포지토리는 JPA 가 내는 것과 같은 키 조회를 JDBC 로: member_couple PK → couples PK → members(A), members(B) (LAZY)
+ * - 로더는 ProfileCache 의 읽기 전용 트랜잭션 안에서 (운영과 같은 커넥션 1개)
+ * - 세 가지: enabled=false(매번 DB), Redis 티어(local-ttl 0), 로컬 티어
+ *
+ * 실제 Postgres 와 Redis 가 필요하다: BENCH_PG_URL, BENCH_PG_USER, BENCH_PG_PASSWORD, BENCH_REDIS_URL. 없으면 건너뛴다.
+ * 커플 수 -Dbench.couples (기본 100,000), 조회 수 -Dbench.lookups (기본 5,000).
+ * bench_profile_cache 스키마와 조회한 profile:couple_users:* 키는 끝나면 지운다.
+ */
+@Tag("load")
+class ProfileCacheLoadTest {
+
+    private static final int COUPLES = Integer.getInteger("bench.couples", 100_000);
+    private static final int LOOKUPS = Integer.getInteger("bench.lookups", 5_000);
+    private static final String SCHEMA = "bench_profile_cache";
+
+    private SingleConnectionDataSource ds;
+    private JdbcTemplate jdbc;
+    private DataSourceTransactionManager txManager;
+    private LettuceConnectionFactory factory;
+    private StringRedisTemplate redis;
+    private long[] ids;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getenv("BENCH_PG_URL");
+        String redisUrl = System.getenv("BENCH_REDIS_URL");
+        assumeTrue(url != null && !url.isBlank(), "BENCH_PG_URL 미설정 — 건너뜀");
+        assumeTrue(redisUrl != null && !redisUrl.isBlank(), "BENCH_REDIS_URL 미설정 — 건너뜀");
+        String schemaUrl = url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA;
+        ds = new SingleConnectionDataSource(schemaUrl, System.getenv("BENCH_PG_USER"), System.getenv("BENCH_PG_PASSWORD"), true);
+        jdbc = new JdbcTemplate(ds);
+        txManager = new DataSourceTransactionManager(ds);
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbc.execute("CREATE SCHEMA " + SCHEMA);
+        jdbc.execute("SET search_path TO " + SCHEMA);
+        jdbc.execute("""
+                CREATE TABLE members (
+                  id           BIGINT PRIMARY KEY,
+                  google_email VARCHAR(255) NOT NULL,
+                  nickname     VARCHAR(255),
+                  gender       VARCHAR(10),
+                  image_url    TEXT)""");
+        jdbc.execute("""
+                CREATE TABLE couples (
+                  couple_id      BIGINT PRIMARY KEY,
+                  user_id_a      BIGINT NOT NULL,
+                  user_id_b      BIGINT,
+                  pregnancy_week INT,
+                  due_date       TIMESTAMP,
+                  menstrual_date DATE,
+                  is_childbirth  BOOLEAN NOT NULL)""");
+        jdbc.execute("""
+                CREATE TABLE member_couple (
+                  member_id  BIGINT PRIMARY KEY,
+                  couple_id  BIGINT NOT NULL,
+                  role       VARCHAR(1) NOT NULL,
+                  partner_id BIGINT)""");
+        // 회원 id: A = 2c-1, B = 2c
+        jdbc.update("""
+                INSERT INTO members (id, google_email, nickname, gender, image_url)
+                SELECT m, 'u' || m || '@example.com', 'nick' || m, CASE WHEN m % 2 = 1 THEN 'FEMALE' ELSE 'MALE' END,
+                       'https://img.example.com/' || m || '.png'
+                  FROM generate_series(1, 2 * ?) m""", COUPLES);
+        jdbc.update("""
+                INSERT INTO couples (couple_id, user_id_a, user_id_b, pregnancy_week, due_date, menstrual_date, is_childbirth)
+                SELECT c, 2 * c - 1, 2 * c, c % 40, now() + (c % 200) * interval '1 day', current_date, false
+                  FROM generate_series(1, ?) c""", COUPLES);
+        jdbc.update("""
+                INSERT INTO member_couple (member_id, couple_id, role, partner_id)
+                SELECT 2 * c - 1, c, 'A', 2 * c FROM generate_series(1, ?) c
+                UNION ALL
+                SELECT 2 * c, c, 'B', 2 * c - 1 FROM generate_series(1, ?) c""", COUPLES, COUPLES);
+        jdbc.execute("ANALYZE");
+
+        URI uri = URI.create(redisUrl);
+        factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(uri.getHost(), uri.getPort()));
+        factory.afterPropertiesSet();
+        redis = new StringRedisTemplate(factory);
+        ids = new Random(7).longs(LOOKUPS, 1, 2L * COUPLES + 1).toArray();
+        clearKeys();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (jdbc == null) return;
+        if (redis != null) {
+            clearKeys();
+            factory.destroy();
+        }
+        jdbc.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        ds.destroy();
+    }
+
+    private void clearKeys() {
+        redis.delete(Arrays.stream(ids).mapToObj(id -> "profile:couple_users:" + id).toList());
+    }
+
+    /** JPA 와 같은 왕복: findById 마다 PK 조회 1번, LAZY 회원은 접근 시 1번씩 */
+    private CoupleServiceImpl service(ProfileCache cache) {
+        MemberCoupleRepository memberCouples = mock(MemberCoupleRepository.class);
+        CoupleRepository couples = mock(CoupleRepository.class);
+        when(memberCouples.findById(anyLong())).thenAnswer(inv -> jdbc.query(
+                "SELECT member_id, couple_id, role, partner_id FROM member_couple WHERE member_id = ?",
+                (rs, i) -> MemberCouple.builder().memberId(rs.getLong(1)).coupleId(rs.getLong(2))
+                        .role(rs.getString(3)).partnerId((Long) rs.getObject(4)).build(),
+                inv.<Long>getArgument(0)).stream().findFirst());
+        when(couples.findById(anyLong())).thenAnswer(inv -> jdbc.query("""
+                        SELECT couple_id, user_id_a, user_id_b, pregnancy_week, due_date, menstrual_date, is_childbirth
+                          FROM couples WHERE couple_id = ?""",
+                (rs, i) -> Couple.builder().id(rs.getLong(1))
+                        .userA(member(rs.getLong(2)))
+                        .userB(rs.getObject(3) == null ? null : member(rs.getLong(3)))
+                        .pregnancyWeek((Integer) rs.getObject(4)).dueDate(rs.getTimestamp(5))
+                        .menstrualDate(rs.getObject(6, java.time.LocalDate.class)).isChildbirth(rs.getBoolean(7))
+                        .build(),
+                inv.<Long>getArgument(0)).stream().findFirst());
+        return new CoupleServiceImpl(mock(MemberRepository.class), couples, memberCouples, cache);
+    }
+
+    private Member member(long id) {
+        return jdbc.queryForObject("SELECT id, google_email, nickname, gender, image_url FROM members WHERE id = ?",
+                (rs, i) -> Member.builder().id(rs.getLong(1)).googleEmail(rs.getString(2)).nickname(rs.getString(3))
+                        .gender(Member.Gender.valueOf(rs.getString(4))).imageUrl(rs.getString(5)).build(),
+                id);
+    }
+
+    private ProfileCache cache(boolean enabled, long localTtlSeconds) {
+        return new ProfileCache(redis, new ObjectMapper().findAndRegisterModules(), txManager,
+                mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(),
+                enabled, localTtlSeconds, LOOKUPS * 2, 600);
+    }
+
+    @Test
+    @DisplayName("getMyCoupleWithUsers p50/p99: DB 직접 vs Redis 티어 vs 로컬 티어")
+    void coupleWithUsersLatency() {
+        CoupleServiceImpl uncached = service(cache(false, 30));
+        CoupleServiceImpl redisTier = service(cache(true, 0));
+        CoupleServiceImpl localTier = service(cache(true, 30));
+
+        // 같은 응답인지 먼저 확인 (직렬화 왕복 포함)
+        CoupleWithUsersResponse fromDb = uncached.getMyCoupleWithUsers(ids[0]);
+        redisTier.getMyCoupleWithUsers(ids[0]);
+        assertEquals(fromDb, redisTier.getMyCoupleWithUsers(ids[0]));
+        assertEquals(fromDb, localTier.getMyCoupleWithUsers(ids[0]));
+
+        long[] db = time(id -> uncached.getMyCoupleWithUsers(id));
+        for (long id : ids) redisTier.getMyCoupleWithUsers(id); // Redis 채우기
+        long[] fromRedis = time(id -> redisTier.getMyCoupleWithUsers(id));
+        for (long id : ids) localTier.getMyCoupleWithUsers(id); // 로컬 채우기
+        long[] fromLocal = time(id -> localTier.getMyCoupleWithUsers(id));
+
+        System.out.printf("[PROFILE-CACHE-LOAD] %,d couples, %,d lookups of getMyCoupleWithUsers%n", COUPLES, LOOKUPS);
+        print("uncached (4 PK lookups in read-only tx)", db);
+        print("cached, Redis tier", fromRedis);
+        print("cached, local tier", fromLocal);
+
+        assertTrue(p99(fromRedis) < p99(db), "Redis tier p99 must beat the DB path");
+        assertTrue(p99(fromLocal) < p99(fromRedis), "local tier p99 must beat Redis");
+    }
+
+    /** 조회마다 걸린 시간(μs), 정렬됨. 첫 조회(준비된 문장/캐시 워밍)는 한 번 버림 */
+    private long[] time(LongConsumer lookup) {
+        lookup.accept(ids[0]);
+        long[] us = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            long t0 = System.nanoTime();
+            lookup.accept(ids[i]);
+            us[i] = (System.nanoTime() - t0) / 1_000;
+        }
+        Arrays.sort(us);
+        return us;
+    }
+
+    private static long p99(long[] us) {
+        return us[(int) (us.length * 0.99)];
+    }
+
+    private static void print(String name, long[] us) {
+        System.out.printf("[PROFILE-CACHE-LOAD] %-40s n=%,d p50=%,dus p99=%,dus%n",
+                name, us.length, us[us.length / 2], p99(us));
+    }
+}